@@ -1,9 +1,15 @@
 package com.github.ka4ok85.wca;
 
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Configuration;
 
+import com.github.ka4ok85.wca.cache.MetadataCache;
+import com.github.ka4ok85.wca.cache.RecipientCache;
+import com.github.ka4ok85.wca.cache.RequestCoalescer;
 import com.github.ka4ok85.wca.command.AddContactToContactListCommand;
 import com.github.ka4ok85.wca.command.AddContactToProgramCommand;
 import com.github.ka4ok85.wca.command.AddListColumnCommand;
@@ -45,6 +51,7 @@ import com.github.ka4ok85.wca.command.UpdateRecipientCommand;
 import com.github.ka4ok85.wca.command.WebTrackingDataExportCommand;
 import com.github.ka4ok85.wca.command.SetColumnValueCommand;
 import com.github.ka4ok85.wca.config.SpringConfig;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.oauth.OAuthClient;
 import com.github.ka4ok85.wca.oauth.OAuthClientImplementation;
 import com.github.ka4ok85.wca.options.AddContactToContactListOptions;
@@ -128,6 +135,7 @@ import com.github.ka4ok85.wca.response.SelectRecipientDataResponse;
 import com.github.ka4ok85.wca.response.SetColumnValueResponse;
 import com.github.ka4ok85.wca.response.UpdateRecipientResponse;
 import com.github.ka4ok85.wca.response.WebTrackingDataExportResponse;
+import com.github.ka4ok85.wca.response.containers.JobPollingContainer;
 import com.github.ka4ok85.wca.sftp.SFTP;
 
 import org.springframework.retry.annotation.*;
@@ -138,28 +146,30 @@ public class Engage {
 	private OAuthClient oAuthClient;
 	private SFTP sftp;
 
-	private GetFolderPathCommand getFolderPathBean = getApplicationContext().getBean(GetFolderPathCommand.class);
-	private ExportListCommand exportListBean = getApplicationContext().getBean(ExportListCommand.class);
-	private ExportTableCommand exportTableBean = getApplicationContext().getBean(ExportTableCommand.class);
-	private CreateContactListCommand createContactListBean = getApplicationContext()
-			.getBean(CreateContactListCommand.class);
-	private DeleteListCommand deleteListBean = getApplicationContext().getBean(DeleteListCommand.class);
-	private SelectRecipientDataCommand selectRecipientDataBean = getApplicationContext()
-			.getBean(SelectRecipientDataCommand.class);
-	private AddRecipientCommand addRecipientBean = getApplicationContext().getBean(AddRecipientCommand.class);
-	private DoubleOptInRecipientCommand doubleOptInRecipientBean = getApplicationContext()
-			.getBean(DoubleOptInRecipientCommand.class);
-	private UpdateRecipientCommand updateRecipientBean = getApplicationContext().getBean(UpdateRecipientCommand.class);
-	private OptOutRecipientCommand optOutRecipientBean = getApplicationContext().getBean(OptOutRecipientCommand.class);
-	private RemoveRecipientCommand removeRecipientBean = getApplicationContext().getBean(RemoveRecipientCommand.class);
-	private GetListsCommand getListsBean = getApplicationContext().getBean(GetListsCommand.class);
-	private CreateTableCommand createTableBean = getApplicationContext().getBean(CreateTableCommand.class);
-	private JoinTableCommand joinTableBean = getApplicationContext().getBean(JoinTableCommand.class);
-	private InsertUpdateRelationalTableCommand insertUpdateRelationalTableBean = getApplicationContext()
-			.getBean(InsertUpdateRelationalTableCommand.class);
-	private DeleteRelationalTableDataCommand deleteRelationalTableDataBean = getApplicationContext()
-			.getBean(DeleteRelationalTableDataCommand.class);
-	private PurgeTableCommand purgeTableBean = getApplicationContext().getBean(PurgeTableCommand.class);
+	private GetFolderPathCommand getFolderPathBean;
+	private ExportListCommand exportListBean;
+	private ExportTableCommand exportTableBean;
+	private CreateContactListCommand createContactListBean;
+	private DeleteListCommand deleteListBean;
+	private SelectRecipientDataCommand selectRecipientDataBean;
+	private AddRecipientCommand addRecipientBean;
+	private DoubleOptInRecipientCommand doubleOptInRecipientBean;
+	private UpdateRecipientCommand updateRecipientBean;
+	private OptOutRecipientCommand optOutRecipientBean;
+	private RemoveRecipientCommand removeRecipientBean;
+	private GetListsCommand getListsBean;
+	private CreateTableCommand createTableBean;
+	private JoinTableCommand joinTableBean;
+	private InsertUpdateRelationalTableCommand insertUpdateRelationalTableBean;
+	private DeleteRelationalTableDataCommand deleteRelationalTableDataBean;
+	private PurgeTableCommand purgeTableBean;
+	private GetListMetaDataCommand getListMetaDataBean;
+	private AddListColumnCommand addListColumnBean;
+	private DeleteTableCommand deleteTableBean;
+	private MetadataCache metadataCache;
+	private RecipientCache recipientCache;
+	private RequestCoalescer requestCoalescer;
+	private EngageMetrics metrics;
 
 	private static AnnotationConfigApplicationContext applicationContext;
 	{
@@ -171,6 +181,12 @@ public class Engage {
 		this.sftp = new SFTP(this.oAuthClient);
 	}
 
+	public Engage(int podNumber, String clientId, String clientSecret, String refreshToken, String sftpHostName,
+			int sftpPort) {
+		this.oAuthClient = new OAuthClientImplementation(podNumber, clientId, clientSecret, refreshToken);
+		this.sftp = new SFTP(this.oAuthClient, sftpHostName, sftpPort);
+	}
+
 	public Engage(OAuthClient oAuthClient, SFTP sftp) {
 		super();
 		this.oAuthClient = oAuthClient;
@@ -178,114 +194,198 @@ public class Engage {
 	}
 
 	public ResponseContainer<ExportListResponse> exportList(ExportListOptions options) {
-		exportListBean.setoAuthClient(oAuthClient);
-		exportListBean.setSftp(sftp);
-		ResponseContainer<ExportListResponse> result = exportListBean.executeCommand(options);
+		ExportListCommand exportList = getCommand(exportListBean, ExportListCommand.class);
+		exportList.setoAuthClient(oAuthClient);
+		exportList.setSftp(sftp);
+		exportList.setMetrics(metrics);
+		ResponseContainer<ExportListResponse> result = exportList.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<ExportTableResponse> exportTable(ExportTableOptions options) {
-		exportTableBean.setoAuthClient(oAuthClient);
-		exportTableBean.setSftp(sftp);
-		ResponseContainer<ExportTableResponse> result = exportTableBean.executeCommand(options);
+		ExportTableCommand exportTable = getCommand(exportTableBean, ExportTableCommand.class);
+		exportTable.setoAuthClient(oAuthClient);
+		exportTable.setSftp(sftp);
+		exportTable.setMetrics(metrics);
+		ResponseContainer<ExportTableResponse> result = exportTable.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<CreateContactListResponse> createContactList(CreateContactListOptions options) {
-		createContactListBean.setoAuthClient(oAuthClient);
-		createContactListBean.setSftp(sftp);
-		ResponseContainer<CreateContactListResponse> result = createContactListBean.executeCommand(options);
-
-		return result;
+		CreateContactListCommand createContactList = getCommand(createContactListBean, CreateContactListCommand.class);
+		createContactList.setoAuthClient(oAuthClient);
+		createContactList.setSftp(sftp);
+		createContactList.setMetrics(metrics);
+		try {
+			return createContactList.executeCommand(options);
+		} finally {
+			if (metadataCache != null) {
+				metadataCache.invalidateLists();
+			}
+		}
 	}
 
 	public ResponseContainer<DeleteListResponse> deleteList(DeleteListOptions options) {
-		deleteListBean.setoAuthClient(oAuthClient);
-		deleteListBean.setSftp(sftp);
-		ResponseContainer<DeleteListResponse> result = deleteListBean.executeCommand(options);
-
-		return result;
+		DeleteListCommand deleteList = getCommand(deleteListBean, DeleteListCommand.class);
+		deleteList.setoAuthClient(oAuthClient);
+		deleteList.setSftp(sftp);
+		deleteList.setMetrics(metrics);
+		try {
+			return deleteList.executeCommand(options);
+		} finally {
+			if (metadataCache != null) {
+				metadataCache.invalidateListMetaData(options.getListId());
+				metadataCache.invalidateLists();
+				metadataCache.invalidateFolderPaths();
+			}
+		}
 	}
 
 	public ResponseContainer<SelectRecipientDataResponse> selectRecipientData(SelectRecipientDataOptions options) {
-		selectRecipientDataBean.setoAuthClient(oAuthClient);
-		selectRecipientDataBean.setSftp(sftp);
-		ResponseContainer<SelectRecipientDataResponse> result = selectRecipientDataBean.executeCommand(options);
+		if (recipientCache != null) {
+			return recipientCache.getRecipient(options, cacheOptions -> coalesce(cacheOptions,
+					recipientCache.getGeneration(cacheOptions.getListId()), this::executeSelectRecipientData));
+		}
 
-		return result;
+		return coalesce(options, 0, this::executeSelectRecipientData);
 	}
 
-	public ResponseContainer<AddRecipientResponse> addRecipient(AddRecipientOptions options) {
-		addRecipientBean.setoAuthClient(oAuthClient);
-		addRecipientBean.setSftp(sftp);
-		ResponseContainer<AddRecipientResponse> result = addRecipientBean.executeCommand(options);
+	private ResponseContainer<SelectRecipientDataResponse> executeSelectRecipientData(
+			SelectRecipientDataOptions options) {
+		SelectRecipientDataCommand selectRecipientData = getCommand(selectRecipientDataBean,
+				SelectRecipientDataCommand.class);
+		selectRecipientData.setoAuthClient(oAuthClient);
+		selectRecipientData.setSftp(sftp);
+		selectRecipientData.setMetrics(metrics);
+		ResponseContainer<SelectRecipientDataResponse> result = selectRecipientData.executeCommand(options);
 
 		return result;
 	}
 
-	public ResponseContainer<DoubleOptInRecipientResponse> doubleOptInRecipient(DoubleOptInRecipientOptions options) {
-		doubleOptInRecipientBean.setoAuthClient(oAuthClient);
-		doubleOptInRecipientBean.setSftp(sftp);
-		ResponseContainer<DoubleOptInRecipientResponse> result = doubleOptInRecipientBean.executeCommand(options);
+	public ResponseContainer<AddRecipientResponse> addRecipient(AddRecipientOptions options) {
+		AddRecipientCommand addRecipient = getCommand(addRecipientBean, AddRecipientCommand.class);
+		addRecipient.setoAuthClient(oAuthClient);
+		addRecipient.setSftp(sftp);
+		addRecipient.setMetrics(metrics);
+		try {
+			return addRecipient.executeCommand(options);
+		} finally {
+			if (recipientCache != null) {
+				recipientCache.onAddRecipient(options);
+			}
+		}
+	}
 
-		return result;
+	public ResponseContainer<DoubleOptInRecipientResponse> doubleOptInRecipient(DoubleOptInRecipientOptions options) {
+		DoubleOptInRecipientCommand doubleOptInRecipient = getCommand(doubleOptInRecipientBean,
+				DoubleOptInRecipientCommand.class);
+		doubleOptInRecipient.setoAuthClient(oAuthClient);
+		doubleOptInRecipient.setSftp(sftp);
+		doubleOptInRecipient.setMetrics(metrics);
+		try {
+			return doubleOptInRecipient.executeCommand(options);
+		} finally {
+			if (recipientCache != null) {
+				recipientCache.onDoubleOptInRecipient(options);
+			}
+		}
 	}
 
 	public ResponseContainer<UpdateRecipientResponse> updateRecipient(UpdateRecipientOptions options) {
-		updateRecipientBean.setoAuthClient(oAuthClient);
-		updateRecipientBean.setSftp(sftp);
-		ResponseContainer<UpdateRecipientResponse> result = updateRecipientBean.executeCommand(options);
-
-		return result;
+		UpdateRecipientCommand updateRecipient = getCommand(updateRecipientBean, UpdateRecipientCommand.class);
+		updateRecipient.setoAuthClient(oAuthClient);
+		updateRecipient.setSftp(sftp);
+		updateRecipient.setMetrics(metrics);
+		try {
+			return updateRecipient.executeCommand(options);
+		} finally {
+			if (recipientCache != null) {
+				recipientCache.onUpdateRecipient(options);
+			}
+		}
 	}
 
 	public ResponseContainer<OptOutRecipientResponse> optOutRecipient(OptOutRecipientOptions options) {
-		optOutRecipientBean.setoAuthClient(oAuthClient);
-		optOutRecipientBean.setSftp(sftp);
-		ResponseContainer<OptOutRecipientResponse> result = optOutRecipientBean.executeCommand(options);
-
-		return result;
+		OptOutRecipientCommand optOutRecipient = getCommand(optOutRecipientBean, OptOutRecipientCommand.class);
+		optOutRecipient.setoAuthClient(oAuthClient);
+		optOutRecipient.setSftp(sftp);
+		optOutRecipient.setMetrics(metrics);
+		try {
+			return optOutRecipient.executeCommand(options);
+		} finally {
+			if (recipientCache != null) {
+				recipientCache.onOptOutRecipient(options);
+			}
+		}
 	}
 
 	public ResponseContainer<RemoveRecipientResponse> removeRecipient(RemoveRecipientOptions options) {
-		removeRecipientBean.setoAuthClient(oAuthClient);
-		removeRecipientBean.setSftp(sftp);
-		ResponseContainer<RemoveRecipientResponse> result = removeRecipientBean.executeCommand(options);
-
-		return result;
+		RemoveRecipientCommand removeRecipient = getCommand(removeRecipientBean, RemoveRecipientCommand.class);
+		removeRecipient.setoAuthClient(oAuthClient);
+		removeRecipient.setSftp(sftp);
+		removeRecipient.setMetrics(metrics);
+		try {
+			return removeRecipient.executeCommand(options);
+		} finally {
+			if (recipientCache != null) {
+				recipientCache.onRemoveRecipient(options);
+			}
+		}
 	}
 
 	public ResponseContainer<GetListsResponse> getLists(GetListsOptions options) {
-		getListsBean.setoAuthClient(oAuthClient);
-		getListsBean.setSftp(sftp);
-		ResponseContainer<GetListsResponse> result = getListsBean.executeCommand(options);
+		if (metadataCache != null) {
+			return metadataCache.getLists(options, cacheOptions -> coalesce(cacheOptions,
+					metadataCache.getListsCache().getGeneration(), this::executeGetLists));
+		}
 
-		return result;
+		return coalesce(options, 0, this::executeGetLists);
 	}
 
-	public ResponseContainer<CreateTableResponse> createTable(CreateTableOptions options) {
-		createTableBean.setoAuthClient(oAuthClient);
-		createTableBean.setSftp(sftp);
-		ResponseContainer<CreateTableResponse> result = createTableBean.executeCommand(options);
+	private ResponseContainer<GetListsResponse> executeGetLists(GetListsOptions options) {
+		GetListsCommand getLists = getCommand(getListsBean, GetListsCommand.class);
+		getLists.setoAuthClient(oAuthClient);
+		getLists.setSftp(sftp);
+		getLists.setMetrics(metrics);
+		ResponseContainer<GetListsResponse> result = getLists.executeCommand(options);
 
 		return result;
 	}
 
+	public ResponseContainer<CreateTableResponse> createTable(CreateTableOptions options) {
+		CreateTableCommand createTable = getCommand(createTableBean, CreateTableCommand.class);
+		createTable.setoAuthClient(oAuthClient);
+		createTable.setSftp(sftp);
+		createTable.setMetrics(metrics);
+		try {
+			return createTable.executeCommand(options);
+		} finally {
+			if (metadataCache != null) {
+				metadataCache.invalidateLists();
+			}
+		}
+	}
+
 	public ResponseContainer<JoinTableResponse> joinTable(JoinTableOptions options) {
-		joinTableBean.setoAuthClient(oAuthClient);
-		joinTableBean.setSftp(sftp);
-		ResponseContainer<JoinTableResponse> result = joinTableBean.executeCommand(options);
+		JoinTableCommand joinTable = getCommand(joinTableBean, JoinTableCommand.class);
+		joinTable.setoAuthClient(oAuthClient);
+		joinTable.setSftp(sftp);
+		joinTable.setMetrics(metrics);
+		ResponseContainer<JoinTableResponse> result = joinTable.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<InsertUpdateRelationalTableResponse> insertUpdateRelationalTable(
 			InsertUpdateRelationalTableOptions options) {
-		insertUpdateRelationalTableBean.setoAuthClient(oAuthClient);
-		insertUpdateRelationalTableBean.setSftp(sftp);
-		ResponseContainer<InsertUpdateRelationalTableResponse> result = insertUpdateRelationalTableBean
+		InsertUpdateRelationalTableCommand insertUpdateRelationalTable = getCommand(insertUpdateRelationalTableBean,
+				InsertUpdateRelationalTableCommand.class);
+		insertUpdateRelationalTable.setoAuthClient(oAuthClient);
+		insertUpdateRelationalTable.setSftp(sftp);
+		insertUpdateRelationalTable.setMetrics(metrics);
+		ResponseContainer<InsertUpdateRelationalTableResponse> result = insertUpdateRelationalTable
 				.executeCommand(options);
 
 		return result;
@@ -293,44 +393,66 @@ public class Engage {
 
 	public ResponseContainer<DeleteRelationalTableDataResponse> deleteRelationalTableData(
 			DeleteRelationalTableDataOptions options) {
-		deleteRelationalTableDataBean.setoAuthClient(oAuthClient);
-		deleteRelationalTableDataBean.setSftp(sftp);
-		ResponseContainer<DeleteRelationalTableDataResponse> result = deleteRelationalTableDataBean
-				.executeCommand(options);
+		DeleteRelationalTableDataCommand deleteRelationalTableData = getCommand(deleteRelationalTableDataBean,
+				DeleteRelationalTableDataCommand.class);
+		deleteRelationalTableData.setoAuthClient(oAuthClient);
+		deleteRelationalTableData.setSftp(sftp);
+		deleteRelationalTableData.setMetrics(metrics);
+		ResponseContainer<DeleteRelationalTableDataResponse> result = deleteRelationalTableData.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<PurgeTableResponse> purgeTable(PurgeTableOptions options) {
-		purgeTableBean.setoAuthClient(oAuthClient);
-		purgeTableBean.setSftp(sftp);
-		ResponseContainer<PurgeTableResponse> result = purgeTableBean.executeCommand(options);
+		PurgeTableCommand purgeTable = getCommand(purgeTableBean, PurgeTableCommand.class);
+		purgeTable.setoAuthClient(oAuthClient);
+		purgeTable.setSftp(sftp);
+		purgeTable.setMetrics(metrics);
+		ResponseContainer<PurgeTableResponse> result = purgeTable.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<DeleteTableResponse> deleteTable(DeleteTableOptions options) {
-		DeleteTableCommand deleteTable = getApplicationContext().getBean(DeleteTableCommand.class);
+		DeleteTableCommand deleteTable = getCommand(deleteTableBean, DeleteTableCommand.class);
 		deleteTable.setoAuthClient(oAuthClient);
 		deleteTable.setSftp(sftp);
-		ResponseContainer<DeleteTableResponse> result = deleteTable.executeCommand(options);
-
-		return result;
+		deleteTable.setMetrics(metrics);
+		try {
+			return deleteTable.executeCommand(options);
+		} finally {
+			if (metadataCache != null) {
+				metadataCache.invalidateListMetaData(options.getTableId());
+				metadataCache.invalidateLists();
+				metadataCache.invalidateFolderPaths();
+			}
+		}
 	}
 
 	public ResponseContainer<CalculateQueryResponse> calculateQuery(CalculateQueryOptions options) {
 		CalculateQueryCommand calculateQuery = getApplicationContext().getBean(CalculateQueryCommand.class);
 		calculateQuery.setoAuthClient(oAuthClient);
 		calculateQuery.setSftp(sftp);
+		calculateQuery.setMetrics(metrics);
 		ResponseContainer<CalculateQueryResponse> result = calculateQuery.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<GetListMetaDataResponse> getListMetaData(GetListMetaDataOptions options) {
-		GetListMetaDataCommand getListMetaData = getApplicationContext().getBean(GetListMetaDataCommand.class);
+		if (metadataCache != null) {
+			return metadataCache.getListMetaData(options, cacheOptions -> coalesce(cacheOptions,
+					metadataCache.getListMetaDataCache().getGeneration(), this::executeGetListMetaData));
+		}
+
+		return coalesce(options, 0, this::executeGetListMetaData);
+	}
+
+	private ResponseContainer<GetListMetaDataResponse> executeGetListMetaData(GetListMetaDataOptions options) {
+		GetListMetaDataCommand getListMetaData = getCommand(getListMetaDataBean, GetListMetaDataCommand.class);
 		getListMetaData.setoAuthClient(oAuthClient);
 		getListMetaData.setSftp(sftp);
+		getListMetaData.setMetrics(metrics);
 		ResponseContainer<GetListMetaDataResponse> result = getListMetaData.executeCommand(options);
 
 		return result;
@@ -341,6 +463,7 @@ public class Engage {
 				.getBean(GetMailingTemplatesCommand.class);
 		getMailingTemplates.setoAuthClient(oAuthClient);
 		getMailingTemplates.setSftp(sftp);
+		getMailingTemplates.setMetrics(metrics);
 		ResponseContainer<GetMailingTemplatesResponse> result = getMailingTemplates.executeCommand(options);
 
 		return result;
@@ -350,6 +473,7 @@ public class Engage {
 		PurgeDataCommand purgeData = getApplicationContext().getBean(PurgeDataCommand.class);
 		purgeData.setoAuthClient(oAuthClient);
 		purgeData.setSftp(sftp);
+		purgeData.setMetrics(metrics);
 		ResponseContainer<PurgeDataResponse> result = purgeData.executeCommand(options);
 
 		return result;
@@ -359,6 +483,7 @@ public class Engage {
 		GetReportIdByDateCommand getReportIdByDate = getApplicationContext().getBean(GetReportIdByDateCommand.class);
 		getReportIdByDate.setoAuthClient(oAuthClient);
 		getReportIdByDate.setSftp(sftp);
+		getReportIdByDate.setMetrics(metrics);
 		ResponseContainer<GetReportIdByDateResponse> result = getReportIdByDate.executeCommand(options);
 
 		return result;
@@ -370,6 +495,7 @@ public class Engage {
 				.getBean(GetSentMailingsForOrgCommand.class);
 		getSentMailingsForOrg.setoAuthClient(oAuthClient);
 		getSentMailingsForOrg.setSftp(sftp);
+		getSentMailingsForOrg.setMetrics(metrics);
 		ResponseContainer<GetSentMailingsForOrgResponse> result = getSentMailingsForOrg.executeCommand(options);
 
 		return result;
@@ -381,6 +507,7 @@ public class Engage {
 				.getBean(GetSentMailingsForUserCommand.class);
 		getSentMailingsForUser.setoAuthClient(oAuthClient);
 		getSentMailingsForUser.setSftp(sftp);
+		getSentMailingsForUser.setMetrics(metrics);
 		ResponseContainer<GetSentMailingsForUserResponse> result = getSentMailingsForUser.executeCommand(options);
 
 		return result;
@@ -392,6 +519,7 @@ public class Engage {
 				.getBean(GetSentMailingsForListCommand.class);
 		getSentMailingsForList.setoAuthClient(oAuthClient);
 		getSentMailingsForList.setSftp(sftp);
+		getSentMailingsForList.setMetrics(metrics);
 		ResponseContainer<GetSentMailingsForListResponse> result = getSentMailingsForList.executeCommand(options);
 
 		return result;
@@ -403,6 +531,7 @@ public class Engage {
 				.getBean(ExportMailingTemplateCommand.class);
 		exportMailingTemplate.setoAuthClient(oAuthClient);
 		exportMailingTemplate.setSftp(sftp);
+		exportMailingTemplate.setMetrics(metrics);
 		ResponseContainer<ExportMailingTemplateResponse> result = exportMailingTemplate.executeCommand(options);
 
 		return result;
@@ -414,6 +543,7 @@ public class Engage {
 				.getBean(AddContactToContactListCommand.class);
 		addContactToContactList.setoAuthClient(oAuthClient);
 		addContactToContactList.setSftp(sftp);
+		addContactToContactList.setMetrics(metrics);
 		ResponseContainer<AddContactToContactListResponse> result = addContactToContactList.executeCommand(options);
 
 		return result;
@@ -424,6 +554,7 @@ public class Engage {
 				.getBean(AddContactToProgramCommand.class);
 		addContactToProgram.setoAuthClient(oAuthClient);
 		addContactToProgram.setSftp(sftp);
+		addContactToProgram.setMetrics(metrics);
 		ResponseContainer<AddContactToProgramResponse> result = addContactToProgram.executeCommand(options);
 
 		return result;
@@ -435,6 +566,7 @@ public class Engage {
 				.getBean(GetAggregateTrackingForOrgCommand.class);
 		getAggregateTrackingForOrg.setoAuthClient(oAuthClient);
 		getAggregateTrackingForOrg.setSftp(sftp);
+		getAggregateTrackingForOrg.setMetrics(metrics);
 		ResponseContainer<GetAggregateTrackingForOrgResponse> result = getAggregateTrackingForOrg
 				.executeCommand(options);
 
@@ -447,6 +579,7 @@ public class Engage {
 				.getBean(GetAggregateTrackingForMailingCommand.class);
 		getAggregateTrackingForMailing.setoAuthClient(oAuthClient);
 		getAggregateTrackingForMailing.setSftp(sftp);
+		getAggregateTrackingForMailing.setMetrics(metrics);
 		ResponseContainer<GetAggregateTrackingForMailingResponse> result = getAggregateTrackingForMailing
 				.executeCommand(options);
 
@@ -459,6 +592,7 @@ public class Engage {
 				.getBean(GetAggregateTrackingForUserCommand.class);
 		getAggregateTrackingForUser.setoAuthClient(oAuthClient);
 		getAggregateTrackingForUser.setSftp(sftp);
+		getAggregateTrackingForUser.setMetrics(metrics);
 		ResponseContainer<GetAggregateTrackingForUserResponse> result = getAggregateTrackingForUser
 				.executeCommand(options);
 
@@ -469,15 +603,27 @@ public class Engage {
 		ImportListCommand importList = getApplicationContext().getBean(ImportListCommand.class);
 		importList.setoAuthClient(oAuthClient);
 		importList.setSftp(sftp);
+		importList.setMetrics(metrics);
 		ResponseContainer<ImportListResponse> result = importList.executeCommand(options);
 
 		return result;
 	}
 
 	public ResponseContainer<GetFolderPathResponse> getFolderPath(GetFolderPathOptions options) {
-		getFolderPathBean.setoAuthClient(oAuthClient);
-		getFolderPathBean.setSftp(sftp);
-		ResponseContainer<GetFolderPathResponse> result = getFolderPathBean.executeCommand(options);
+		if (metadataCache != null) {
+			return metadataCache.getFolderPath(options, cacheOptions -> coalesce(cacheOptions,
+					metadataCache.getFolderPathCache().getGeneration(), this::executeGetFolderPath));
+		}
+
+		return coalesce(options, 0, this::executeGetFolderPath);
+	}
+
+	private ResponseContainer<GetFolderPathResponse> executeGetFolderPath(GetFolderPathOptions options) {
+		GetFolderPathCommand getFolderPath = getCommand(getFolderPathBean, GetFolderPathCommand.class);
+		getFolderPath.setoAuthClient(oAuthClient);
+		getFolderPath.setSftp(sftp);
+		getFolderPath.setMetrics(metrics);
+		ResponseContainer<GetFolderPathResponse> result = getFolderPath.executeCommand(options);
 
 		return result;
 	}
@@ -488,24 +634,78 @@ public class Engage {
 				.getBean(RawRecipientDataExportCommand.class);
 		rawRecipientDataExport.setoAuthClient(oAuthClient);
 		rawRecipientDataExport.setSftp(sftp);
+		rawRecipientDataExport.setMetrics(metrics);
+		ResponseContainer<RawRecipientDataExportResponse> result = rawRecipientDataExport.executeCommand(options);
+
+		return result;
+	}
+
+	/**
+	 * Same as {@link #rawRecipientDataExport(RawRecipientDataExportOptions)}
+	 * and passes Job ID and FILE_PATH to listener as soon as job is submitted,
+	 * before waiting for it. Failed call is not retried with new job.
+	 * 
+	 * @param options
+	 *            - settings for API call
+	 * @param jobSubmittedListener
+	 *            - receives submitted job
+	 * @return POJO response
+	 */
+	public ResponseContainer<RawRecipientDataExportResponse> rawRecipientDataExport(
+			RawRecipientDataExportOptions options, Consumer<JobPollingContainer> jobSubmittedListener) {
+		RawRecipientDataExportCommand rawRecipientDataExport = getApplicationContext()
+				.getBean(RawRecipientDataExportCommand.class);
+		rawRecipientDataExport.setoAuthClient(oAuthClient);
+		rawRecipientDataExport.setSftp(sftp);
+		rawRecipientDataExport.setMetrics(metrics);
+		rawRecipientDataExport.setJobSubmittedListener(jobSubmittedListener);
 		ResponseContainer<RawRecipientDataExportResponse> result = rawRecipientDataExport.executeCommand(options);
 
 		return result;
 	}
 
+	/**
+	 * Waits for RawRecipientDataExport job submitted earlier and reads its
+	 * response. Job is not submitted again.
+	 * 
+	 * @param jobPollingContainer
+	 *            - Job ID and FILE_PATH received when job was submitted
+	 * @param options
+	 *            - settings job was submitted with
+	 * @return POJO response
+	 */
+	public ResponseContainer<RawRecipientDataExportResponse> resumeRawRecipientDataExport(
+			JobPollingContainer jobPollingContainer, RawRecipientDataExportOptions options) {
+		RawRecipientDataExportCommand rawRecipientDataExport = getApplicationContext()
+				.getBean(RawRecipientDataExportCommand.class);
+		rawRecipientDataExport.setoAuthClient(oAuthClient);
+		rawRecipientDataExport.setSftp(sftp);
+		rawRecipientDataExport.setMetrics(metrics);
+		ResponseContainer<RawRecipientDataExportResponse> result = rawRecipientDataExport
+				.resumeCommand(jobPollingContainer, options);
+
+		return result;
+	}
+
 	public ResponseContainer<AddListColumnResponse> addListColumn(AddListColumnOptions options) {
-		AddListColumnCommand addListColumn = getApplicationContext().getBean(AddListColumnCommand.class);
+		AddListColumnCommand addListColumn = getCommand(addListColumnBean, AddListColumnCommand.class);
 		addListColumn.setoAuthClient(oAuthClient);
 		addListColumn.setSftp(sftp);
-		ResponseContainer<AddListColumnResponse> result = addListColumn.executeCommand(options);
-
-		return result;
+		addListColumn.setMetrics(metrics);
+		try {
+			return addListColumn.executeCommand(options);
+		} finally {
+			if (metadataCache != null) {
+				metadataCache.invalidateListMetaData(options.getListId());
+			}
+		}
 	}
 
 	public ResponseContainer<SetColumnValueResponse> setColumnValue(SetColumnValueOptions options) {
 		SetColumnValueCommand setColumnValue = getApplicationContext().getBean(SetColumnValueCommand.class);
 		setColumnValue.setoAuthClient(oAuthClient);
 		setColumnValue.setSftp(sftp);
+		setColumnValue.setMetrics(metrics);
 		ResponseContainer<SetColumnValueResponse> result = setColumnValue.executeCommand(options);
 
 		return result;
@@ -515,6 +715,7 @@ public class Engage {
 		ImportTableCommand importTable = getApplicationContext().getBean(ImportTableCommand.class);
 		importTable.setoAuthClient(oAuthClient);
 		importTable.setSftp(sftp);
+		importTable.setMetrics(metrics);
 		ResponseContainer<ImportTableResponse> result = importTable.executeCommand(options);
 
 		return result;
@@ -526,6 +727,7 @@ public class Engage {
 				.getBean(ListRecipientMailingsCommand.class);
 		listRecipientMailings.setoAuthClient(oAuthClient);
 		listRecipientMailings.setSftp(sftp);
+		listRecipientMailings.setMetrics(metrics);
 		ResponseContainer<ListRecipientMailingsResponse> result = listRecipientMailings.executeCommand(options);
 
 		return result;
@@ -537,6 +739,7 @@ public class Engage {
 				.getBean(WebTrackingDataExportCommand.class);
 		webTrackingDataExport.setoAuthClient(oAuthClient);
 		webTrackingDataExport.setSftp(sftp);
+		webTrackingDataExport.setMetrics(metrics);
 		ResponseContainer<WebTrackingDataExportResponse> result = webTrackingDataExport.executeCommand(options);
 
 		return result;
@@ -546,11 +749,121 @@ public class Engage {
 		PreviewMailingCommand previewMailing = getApplicationContext().getBean(PreviewMailingCommand.class);
 		previewMailing.setoAuthClient(oAuthClient);
 		previewMailing.setSftp(sftp);
+		previewMailing.setMetrics(metrics);
 		ResponseContainer<PreviewMailingResponse> result = previewMailing.executeCommand(options);
 
 		return result;
 	}
 
+	public SFTP getSftp() {
+		return sftp;
+	}
+
+	public OAuthClient getOAuthClient() {
+		return oAuthClient;
+	}
+
+	public MetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	/**
+	 * Enables caching of GetListMetaData, GetLists and GetFolderPath responses.
+	 *
+	 * @param metadataCache
+	 *            - cache, caching is disabled if null. Cache must not be used
+	 *            by Engage with another OAuth Client.
+	 */
+	public void setMetadataCache(MetadataCache metadataCache) {
+		if (metadataCache != null) {
+			metadataCache.bind(oAuthClient);
+		}
+
+		this.metadataCache = metadataCache;
+	}
+
+	public RecipientCache getRecipientCache() {
+		return recipientCache;
+	}
+
+	/**
+	 * Enables caching of SelectRecipientData responses.
+	 *
+	 * @param recipientCache
+	 *            - cache, caching is disabled if null. Cache must not be used
+	 *            by Engage with another OAuth Client.
+	 */
+	public void setRecipientCache(RecipientCache recipientCache) {
+		if (recipientCache != null) {
+			recipientCache.bind(oAuthClient);
+		}
+
+		this.recipientCache = recipientCache;
+	}
+
+	public RequestCoalescer getRequestCoalescer() {
+		return requestCoalescer;
+	}
+
+	/**
+	 * Enables sharing of identical SelectRecipientData, GetListMetaData,
+	 * GetLists and GetFolderPath calls in flight.
+	 *
+	 * @param requestCoalescer
+	 *            - coalescer, calls are not shared if null. Calls are shared
+	 *            only between Engage objects with the same OAuth Client.
+	 */
+	public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+		this.requestCoalescer = requestCoalescer;
+	}
+
+	public EngageMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Enables recording of API call, job, SFTP and Access Token refresh
+	 * metrics.
+	 *
+	 * @param metrics
+	 *            - metrics, nothing is recorded if null
+	 */
+	public void setMetrics(EngageMetrics metrics) {
+		this.metrics = metrics;
+		if (sftp != null) {
+			sftp.setMetrics(metrics);
+		}
+
+		if (oAuthClient instanceof OAuthClientImplementation) {
+			((OAuthClientImplementation) oAuthClient).setMetrics(metrics);
+		}
+	}
+
+	/*
+	 * Generation of cache is read after cache missed, so call joined by loader
+	 * of newer generation was started after invalidation of older one.
+	 */
+	private <O, R> R coalesce(O options, long cacheGeneration, Function<O, R> call) {
+		if (requestCoalescer == null) {
+			return call.apply(options);
+		}
+
+		return requestCoalescer.execute(oAuthClient, options, cacheGeneration, call);
+	}
+
+	/*
+	 * Commands keep XML request state, so every call needs its own prototype
+	 * instance. Command set through protected setter is used instead when
+	 * provided.
+	 */
+	private static <T> T getCommand(T command, Class<T> commandClass) {
+		if (command != null) {
+			return command;
+		}
+
+		return getApplicationContext().getBean(commandClass);
+	}
+
 	private static ApplicationContext getApplicationContext() {
 		if (applicationContext == null) {
 			applicationContext = new AnnotationConfigApplicationContext(SpringConfig.class);
@@ -628,4 +941,16 @@ public class Engage {
 		this.purgeTableBean = purgeTableBean;
 	}
 
+	protected void setGetListMetaDataBean(GetListMetaDataCommand getListMetaDataBean) {
+		this.getListMetaDataBean = getListMetaDataBean;
+	}
+
+	protected void setAddListColumnBean(AddListColumnCommand addListColumnBean) {
+		this.addListColumnBean = addListColumnBean;
+	}
+
+	protected void setDeleteTableBean(DeleteTableCommand deleteTableBean) {
+		this.deleteTableBean = deleteTableBean;
+	}
+
 }
@@ -0,0 +1,199 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * <strong>Read-through in-memory cache with time to live and size bounded
+ * least recently used eviction.</strong>
+ * <p>
+ * Missing or expired value is loaded by caller supplied loader outside of
+ * cache lock. Value loaded while cache was invalidated is returned to caller
+ * but not stored, so invalidation never races with slow load. Hits, misses
+ * and evictions are counted.
+ * </p>
+ *
+ * @param <K>
+ *            - key type
+ * @param <V>
+ *            - value type
+ *
+ * @since 0.0.4
+ */
+public class ExpiringCache<K, V> {
+
+	private final int maximumSize;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+	private final LinkedHashMap<K, Entry<V>> entries;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private long generation = 0;
+
+	/**
+	 * @param maximumSize
+	 *            - maximal number of cached values
+	 * @param timeToLive
+	 *            - time value stays in cache after load
+	 * @param unit
+	 *            - time to live unit
+	 */
+	public ExpiringCache(int maximumSize, long timeToLive, TimeUnit unit) {
+		this(maximumSize, timeToLive, unit, System::nanoTime);
+	}
+
+	ExpiringCache(int maximumSize, long timeToLive, TimeUnit unit, LongSupplier clock) {
+		if (maximumSize < 1) {
+			throw new RuntimeException(
+					"Maximum Size must be greater than zero. Provided Maximum Size = " + maximumSize);
+		}
+
+		if (timeToLive < 1) {
+			throw new RuntimeException("Time To Live must be greater than zero. Provided Time To Live = " + timeToLive);
+		}
+
+		this.maximumSize = maximumSize;
+		this.timeToLiveNanos = Objects.requireNonNull(unit, "Time Unit must not be null").toNanos(timeToLive);
+		this.clock = clock;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				if (size() > ExpiringCache.this.maximumSize) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns cached value or loads and caches it.
+	 *
+	 * @param key
+	 *            - cache key
+	 * @param loader
+	 *            - loads value for key, null values are not cached
+	 * @return cached or loaded value
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		Objects.requireNonNull(key, "Key must not be null");
+		long loadGeneration;
+		synchronized (this) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (clock.getAsLong() - entry.loadedNanos < timeToLiveNanos) {
+					hitCount.incrementAndGet();
+					return entry.value;
+				}
+
+				entries.remove(key);
+			}
+
+			missCount.incrementAndGet();
+			loadGeneration = generation;
+		}
+
+		V value = loader.apply(key);
+		if (value != null) {
+			synchronized (this) {
+				if (loadGeneration == generation) {
+					entries.put(key, new Entry<V>(value, clock.getAsLong()));
+				}
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * @param key
+	 *            - cache key
+	 * @return cached value or null if value is missing or expired
+	 */
+	public synchronized V getIfPresent(K key) {
+		Entry<V> entry = entries.get(key);
+		if (entry == null || clock.getAsLong() - entry.loadedNanos >= timeToLiveNanos) {
+			return null;
+		}
+
+		return entry.value;
+	}
+
+	public synchronized void put(K key, V value) {
+		entries.put(Objects.requireNonNull(key, "Key must not be null"),
+				new Entry<V>(Objects.requireNonNull(value, "Value must not be null"), clock.getAsLong()));
+	}
+
+	public synchronized void invalidate(K key) {
+		generation++;
+		entries.remove(key);
+	}
+
+	/**
+	 * @param predicate
+	 *            - selects keys to remove
+	 */
+	public synchronized void invalidateIf(Predicate<? super K> predicate) {
+		generation++;
+		Iterator<K> iterator = entries.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (predicate.test(iterator.next())) {
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		entries.clear();
+	}
+
+	/**
+	 * @return number of invalidations, loaded value is stored only if it did
+	 *         not change during load
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return number of values removed because cache was full
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private static class Entry<V> {
+		private final V value;
+		private final long loadedNanos;
+
+		private Entry(V value, long loadedNanos) {
+			this.value = value;
+			this.loadedNanos = loadedNanos;
+		}
+	}
+}
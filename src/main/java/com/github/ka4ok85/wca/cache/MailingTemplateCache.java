@@ -0,0 +1,298 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.Visibility;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.ExportMailingTemplateOptions;
+import com.github.ka4ok85.wca.options.GetMailingTemplatesOptions;
+import com.github.ka4ok85.wca.processor.CheckpointStore;
+import com.github.ka4ok85.wca.processor.FileCheckpointStore;
+import com.github.ka4ok85.wca.response.ExportMailingTemplateResponse;
+import com.github.ka4ok85.wca.response.containers.MailingTemplate;
+
+/**
+ * <strong>Local cache of Mailing Templates and exported template
+ * files.</strong>
+ * <p>
+ * Template list is loaded by GetMailingTemplates once and then revalidated
+ * periodically with Last Modified Start Date set to the latest Last Modified
+ * seen, so only changed templates are returned. Full list is reloaded less
+ * often to drop deleted templates. Lookup of unknown Template ID revalidates
+ * list at once, but ID still not found is remembered until next regular
+ * revalidation, so Mailings which are not templates do not cause API call on
+ * every lookup.
+ * </p>
+ * <p>
+ * Exported template files are kept in local directory together with index of
+ * their Last Modified values, index survives restart. Template is exported
+ * again only when its Last Modified differs from exported one, unchanged
+ * templates are served from disk.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class MailingTemplateCache {
+
+	private static final Logger log = LoggerFactory.getLogger(MailingTemplateCache.class);
+	private static final String indexFileName = "templates.index";
+	private static final String indexKeyPrefix = "template.";
+
+	private final Engage engage;
+	private final Path directory;
+	private final CheckpointStore index;
+	private final LongSupplier clock;
+	private final Map<Long, Object> exportLocks = new ConcurrentHashMap<Long, Object>();
+	private final AtomicLong fileHitCount = new AtomicLong();
+	private final AtomicLong exportCount = new AtomicLong();
+	private Map<Long, MailingTemplate> templates = new LinkedHashMap<Long, MailingTemplate>();
+	private Set<Long> missingTemplateIds = new HashSet<Long>();
+	private Visibility visibility = Visibility.SHARED;
+	private boolean isCrmEnabled = false;
+	private long revalidateIntervalNanos = TimeUnit.MINUTES.toNanos(1);
+	private long fullReloadIntervalNanos = TimeUnit.HOURS.toNanos(1);
+	private LocalDateTime lastModifiedWatermark;
+	private Long lastRevalidationNanos;
+	private Long lastFullReloadNanos;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param localDirectory
+	 *            - directory for exported template files and their index
+	 */
+	public MailingTemplateCache(Engage engage, String localDirectory) {
+		this(engage, localDirectory, System::nanoTime);
+	}
+
+	MailingTemplateCache(Engage engage, String localDirectory, LongSupplier clock) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		if (localDirectory == null || localDirectory.trim().isEmpty()) {
+			throw new RuntimeException(
+					"Local Directory must be non-empty String. Provided Local Directory = " + localDirectory);
+		}
+
+		this.directory = Paths.get(localDirectory);
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new EngageApiException(
+					"Can not create template cache directory " + directory + ": " + e.getMessage());
+		}
+
+		this.index = new FileCheckpointStore(directory.resolve(indexFileName).toString());
+		this.clock = clock;
+	}
+
+	public synchronized void setVisibility(Visibility visibility) {
+		this.visibility = Objects.requireNonNull(visibility, "Visibility must not be null");
+		invalidate();
+	}
+
+	public synchronized void setCrmEnabled(boolean isCrmEnabled) {
+		this.isCrmEnabled = isCrmEnabled;
+		invalidate();
+	}
+
+	/**
+	 * @param revalidateInterval
+	 *            - time template list is used before changed templates are
+	 *            requested
+	 * @param unit
+	 *            - interval unit
+	 */
+	public synchronized void setRevalidateInterval(long revalidateInterval, TimeUnit unit) {
+		if (revalidateInterval < 0) {
+			throw new RuntimeException("Revalidate Interval must not be negative. Provided Revalidate Interval = "
+					+ revalidateInterval);
+		}
+
+		this.revalidateIntervalNanos = unit.toNanos(revalidateInterval);
+	}
+
+	/**
+	 * @param fullReloadInterval
+	 *            - time after which whole template list is reloaded
+	 * @param unit
+	 *            - interval unit
+	 */
+	public synchronized void setFullReloadInterval(long fullReloadInterval, TimeUnit unit) {
+		if (fullReloadInterval < 1) {
+			throw new RuntimeException(
+					"Full Reload Interval must be greater than zero. Provided Full Reload Interval = "
+							+ fullReloadInterval);
+		}
+
+		this.fullReloadIntervalNanos = unit.toNanos(fullReloadInterval);
+	}
+
+	/**
+	 * @return current templates, revalidated when interval has passed
+	 */
+	public synchronized List<MailingTemplate> getMailingTemplates() {
+		revalidate(false);
+
+		return Collections.unmodifiableList(new ArrayList<MailingTemplate>(templates.values()));
+	}
+
+	/**
+	 * @param templateId
+	 *            - Template ID
+	 * @return current template or null if template is not found
+	 */
+	public synchronized MailingTemplate getMailingTemplate(Long templateId) {
+		revalidate(false);
+		MailingTemplate template = templates.get(templateId);
+		if (template == null && missingTemplateIds.contains(templateId) == false) {
+			revalidate(true);
+			template = templates.get(templateId);
+			if (template == null) {
+				missingTemplateIds.add(templateId);
+			}
+		}
+
+		return template;
+	}
+
+	/**
+	 * Returns exported template file, exporting template only when it was
+	 * changed since last export.
+	 *
+	 * @param templateId
+	 *            - Template ID
+	 * @return absolute path of local template file
+	 */
+	public String getTemplateFile(Long templateId) {
+		MailingTemplate template = getMailingTemplate(templateId);
+		if (template == null) {
+			throw new RuntimeException("Template is not found. Provided Template ID = " + templateId);
+		}
+
+		synchronized (exportLocks.computeIfAbsent(templateId, id -> new Object())) {
+			String lastModified = String.valueOf(template.getLastModified());
+			String indexKey = indexKeyPrefix + templateId;
+			String indexValue = index.get(indexKey);
+			if (indexValue != null) {
+				String[] values = indexValue.split("\t", 2);
+				Path file = values.length == 2 ? directory.resolve(values[1]) : null;
+				if (file != null && values[0].equals(lastModified) && Files.exists(file)) {
+					fileHitCount.incrementAndGet();
+					return file.toAbsolutePath().toString();
+				}
+			}
+
+			Path file = export(templateId);
+			index.put(indexKey, lastModified + "\t" + file.getFileName());
+
+			return file.toAbsolutePath().toString();
+		}
+	}
+
+	/**
+	 * Forgets template list, it is fully reloaded on next access. Exported files
+	 * are kept and reused while their Last Modified matches.
+	 */
+	public synchronized void invalidate() {
+		templates = new LinkedHashMap<Long, MailingTemplate>();
+		missingTemplateIds = new HashSet<Long>();
+		lastModifiedWatermark = null;
+		lastRevalidationNanos = null;
+		lastFullReloadNanos = null;
+	}
+
+	/**
+	 * @return number of template files served without export
+	 */
+	public long getFileHitCount() {
+		return fileHitCount.get();
+	}
+
+	public long getExportCount() {
+		return exportCount.get();
+	}
+
+	private void revalidate(boolean force) {
+		long now = clock.getAsLong();
+		if (force == false && lastRevalidationNanos != null && now - lastRevalidationNanos < revalidateIntervalNanos) {
+			return;
+		}
+
+		boolean fullReload = lastModifiedWatermark == null || lastFullReloadNanos == null
+				|| now - lastFullReloadNanos >= fullReloadIntervalNanos;
+		GetMailingTemplatesOptions options = new GetMailingTemplatesOptions();
+		options.setVisibility(visibility);
+		options.setCrmEnabled(isCrmEnabled);
+		if (fullReload == false) {
+			options.setLastModifiedStartDate(lastModifiedWatermark);
+		}
+
+		List<MailingTemplate> changed = engage.getMailingTemplates(options).getResposne().getMailingTempaltes();
+		Map<Long, MailingTemplate> updated = fullReload ? new LinkedHashMap<Long, MailingTemplate>()
+				: new LinkedHashMap<Long, MailingTemplate>(templates);
+		LocalDateTime watermark = fullReload ? null : lastModifiedWatermark;
+		for (MailingTemplate template : changed) {
+			updated.put(template.getMailingId(), template);
+			if (template.getLastModified() != null
+					&& (watermark == null || template.getLastModified().isAfter(watermark))) {
+				watermark = template.getLastModified();
+			}
+		}
+
+		log.debug("Revalidated Mailing Templates: {} changed, full reload = {}", changed.size(), fullReload);
+		templates = updated;
+		if (force == false) {
+			missingTemplateIds = new HashSet<Long>();
+		}
+		lastModifiedWatermark = watermark;
+		lastRevalidationNanos = now;
+		if (fullReload) {
+			lastFullReloadNanos = now;
+		}
+	}
+
+	private Path export(Long templateId) {
+		Path temporaryFile = directory.resolve("template_" + templateId + ".tmp");
+		ExportMailingTemplateOptions options = new ExportMailingTemplateOptions(templateId);
+		options.setLocalAbsoluteFilePath(temporaryFile.toAbsolutePath().toString());
+		ExportMailingTemplateResponse response = engage.exportMailingTemplate(options).getResposne();
+		exportCount.incrementAndGet();
+
+		String remoteFileName = response.getRemoteFileName();
+		String extension = "";
+		if (remoteFileName != null && remoteFileName.lastIndexOf('.') > remoteFileName.lastIndexOf('/')) {
+			extension = remoteFileName.substring(remoteFileName.lastIndexOf('.'));
+		}
+
+		Path file = directory.resolve("template_" + templateId + extension);
+		try {
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new EngageApiException("Can not store template file " + file + ": " + e.getMessage());
+		}
+
+		log.debug("Exported Mailing Template {} into {}", templateId, file);
+
+		return file;
+	}
+}
@@ -0,0 +1,145 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.github.ka4ok85.wca.oauth.OAuthClient;
+import com.github.ka4ok85.wca.options.GetFolderPathOptions;
+import com.github.ka4ok85.wca.options.GetListMetaDataOptions;
+import com.github.ka4ok85.wca.options.GetListsOptions;
+import com.github.ka4ok85.wca.response.GetFolderPathResponse;
+import com.github.ka4ok85.wca.response.GetListMetaDataResponse;
+import com.github.ka4ok85.wca.response.GetListsResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+
+/**
+ * <strong>Cache of GetListMetaData, GetLists and GetFolderPath
+ * responses.</strong>
+ * <p>
+ * Set cache with {@link com.github.ka4ok85.wca.Engage#setMetadataCache} and
+ * Engage serves these calls from cache. Engage invalidates affected responses
+ * when AddListColumn, DeleteList, CreateContactList, CreateTable or
+ * DeleteTable is called through it, changes made outside of Engage are seen
+ * when cached responses expire. Cached responses are shared between callers
+ * and must not be modified. Cache belongs to single OAuth Client, setting it
+ * on Engage with another OAuth Client fails.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class MetadataCache {
+
+	private final ExpiringCache<Long, ResponseContainer<GetListMetaDataResponse>> listMetaData;
+	private final ExpiringCache<String, ResponseContainer<GetListsResponse>> lists;
+	private final ExpiringCache<String, ResponseContainer<GetFolderPathResponse>> folderPaths;
+	private OAuthClient owner;
+	private boolean bound = false;
+
+	/**
+	 * Creates cache keeping up to 1000 responses of every kind for 10 minutes.
+	 */
+	public MetadataCache() {
+		this(1000, 10, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * @param maximumSize
+	 *            - maximal number of cached responses of every kind
+	 * @param timeToLive
+	 *            - time response stays in cache
+	 * @param unit
+	 *            - time to live unit
+	 */
+	public MetadataCache(int maximumSize, long timeToLive, TimeUnit unit) {
+		this.listMetaData = new ExpiringCache<Long, ResponseContainer<GetListMetaDataResponse>>(maximumSize,
+				timeToLive, unit);
+		this.lists = new ExpiringCache<String, ResponseContainer<GetListsResponse>>(maximumSize, timeToLive, unit);
+		this.folderPaths = new ExpiringCache<String, ResponseContainer<GetFolderPathResponse>>(maximumSize,
+				timeToLive, unit);
+	}
+
+	/**
+	 * Binds cache to OAuth Client of Engage cache is set on. Responses are not
+	 * keyed by account, so cache of one OAuth Client can not be used by
+	 * another.
+	 *
+	 * @param oAuthClient
+	 *            - OAuth Client of Engage, compared by identity
+	 */
+	public synchronized void bind(OAuthClient oAuthClient) {
+		if (bound && owner != oAuthClient) {
+			throw new RuntimeException("Cache is already used by Engage with another OAuth Client");
+		}
+
+		owner = oAuthClient;
+		bound = true;
+	}
+
+	public ResponseContainer<GetListMetaDataResponse> getListMetaData(GetListMetaDataOptions options,
+			Function<GetListMetaDataOptions, ResponseContainer<GetListMetaDataResponse>> loader) {
+		return listMetaData.get(options.getListId(), listId -> loader.apply(options));
+	}
+
+	public ResponseContainer<GetListsResponse> getLists(GetListsOptions options,
+			Function<GetListsOptions, ResponseContainer<GetListsResponse>> loader) {
+		String key = options.getVisibility() + "|" + options.getListType() + "|" + options.getFolderId() + "|"
+				+ options.isIncludeAllLists() + "|" + options.isIncludeTags();
+
+		return lists.get(key, listsKey -> loader.apply(options));
+	}
+
+	public ResponseContainer<GetFolderPathResponse> getFolderPath(GetFolderPathOptions options,
+			Function<GetFolderPathOptions, ResponseContainer<GetFolderPathResponse>> loader) {
+		String key = options.getObjectType() + "|" + options.getFolderId() + "|" + options.getObjectId();
+
+		return folderPaths.get(key, folderPathKey -> loader.apply(options));
+	}
+
+	/**
+	 * Removes metadata of List or Relational Table.
+	 *
+	 * @param listId
+	 *            - List ID or Table ID, all metadata is removed if null
+	 */
+	public void invalidateListMetaData(Long listId) {
+		if (listId == null) {
+			listMetaData.invalidateAll();
+		} else {
+			listMetaData.invalidate(listId);
+		}
+	}
+
+	public void invalidateLists() {
+		lists.invalidateAll();
+	}
+
+	public void invalidateFolderPaths() {
+		folderPaths.invalidateAll();
+	}
+
+	public void invalidateAll() {
+		listMetaData.invalidateAll();
+		lists.invalidateAll();
+		folderPaths.invalidateAll();
+	}
+
+	public ExpiringCache<Long, ResponseContainer<GetListMetaDataResponse>> getListMetaDataCache() {
+		return listMetaData;
+	}
+
+	public ExpiringCache<String, ResponseContainer<GetListsResponse>> getListsCache() {
+		return lists;
+	}
+
+	public ExpiringCache<String, ResponseContainer<GetFolderPathResponse>> getFolderPathCache() {
+		return folderPaths;
+	}
+
+	public long getHitCount() {
+		return listMetaData.getHitCount() + lists.getHitCount() + folderPaths.getHitCount();
+	}
+
+	public long getMissCount() {
+		return listMetaData.getMissCount() + lists.getMissCount() + folderPaths.getMissCount();
+	}
+}
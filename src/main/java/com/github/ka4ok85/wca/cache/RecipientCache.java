@@ -0,0 +1,448 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.oauth.OAuthClient;
+import com.github.ka4ok85.wca.options.AddRecipientOptions;
+import com.github.ka4ok85.wca.options.DoubleOptInRecipientOptions;
+import com.github.ka4ok85.wca.options.OptOutRecipientOptions;
+import com.github.ka4ok85.wca.options.RemoveRecipientOptions;
+import com.github.ka4ok85.wca.options.SelectRecipientDataOptions;
+import com.github.ka4ok85.wca.options.UpdateRecipientOptions;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.SelectRecipientDataResponse;
+
+/**
+ * <strong>Read-through cache of SelectRecipientData responses.</strong>
+ * <p>
+ * Set cache with {@link com.github.ka4ok85.wca.Engage#setRecipientCache} and
+ * Engage serves SelectRecipientData calls from cache. Responses are cached by
+ * List ID and lookup values (Email, Recipient ID, Encoded Recipient ID,
+ * Visitor Key and Key Columns). Memory used by responses is estimated from
+ * their string content, least recently used responses are evicted when
+ * estimate exceeds budget.
+ * </p>
+ * <p>
+ * AddRecipient, UpdateRecipient, RemoveRecipient, OptOutRecipient and
+ * DoubleOptInRecipient called through the same Engage remove every cached
+ * response of affected recipient, matched by Email or Recipient ID. Whole List
+ * is removed when recipient can not be identified from call options.
+ * </p>
+ * <p>
+ * When stale-while-revalidate period is set, expired response younger than
+ * time to live plus that period is returned immediately and reloaded in
+ * background. Cached responses are shared between callers and must not be
+ * modified. Cache belongs to single OAuth Client, setting it on Engage with
+ * another OAuth Client fails.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RecipientCache {
+
+	private static final Logger log = LoggerFactory.getLogger(RecipientCache.class);
+	private static final int entryOverheadBytes = 256;
+	private static final String emailColumn = "EMAIL";
+
+	private final long maximumBytes;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong staleHitCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+	private long staleWhileRevalidateNanos = 0;
+	private Executor refreshExecutor = ForkJoinPool.commonPool();
+	private long usedBytes = 0;
+	private final Map<Long, Long> listGenerations = new HashMap<Long, Long>();
+	private long generation = 0;
+	private long clearGeneration = 0;
+	private OAuthClient owner;
+	private boolean bound = false;
+
+	/**
+	 * @param maximumBytes
+	 *            - memory budget for cached responses
+	 * @param timeToLive
+	 *            - time response stays fresh
+	 * @param unit
+	 *            - time to live unit
+	 */
+	public RecipientCache(long maximumBytes, long timeToLive, TimeUnit unit) {
+		this(maximumBytes, timeToLive, unit, System::nanoTime);
+	}
+
+	RecipientCache(long maximumBytes, long timeToLive, TimeUnit unit, LongSupplier clock) {
+		if (maximumBytes < 1) {
+			throw new RuntimeException(
+					"Maximum Bytes must be greater than zero. Provided Maximum Bytes = " + maximumBytes);
+		}
+
+		if (timeToLive < 1) {
+			throw new RuntimeException("Time To Live must be greater than zero. Provided Time To Live = " + timeToLive);
+		}
+
+		this.maximumBytes = maximumBytes;
+		this.timeToLiveNanos = Objects.requireNonNull(unit, "Time Unit must not be null").toNanos(timeToLive);
+		this.clock = clock;
+	}
+
+	/**
+	 * @param staleWhileRevalidate
+	 *            - time expired response is still returned while it is
+	 *            reloaded, 0 disables
+	 * @param unit
+	 *            - period unit
+	 */
+	public void setStaleWhileRevalidate(long staleWhileRevalidate, TimeUnit unit) {
+		if (staleWhileRevalidate < 0) {
+			throw new RuntimeException(
+					"Stale While Revalidate must not be negative. Provided Stale While Revalidate = "
+							+ staleWhileRevalidate);
+		}
+
+		this.staleWhileRevalidateNanos = unit.toNanos(staleWhileRevalidate);
+	}
+
+	/**
+	 * @param refreshExecutor
+	 *            - runs background reloads, common pool is used by default
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = Objects.requireNonNull(refreshExecutor, "Refresh Executor must not be null");
+	}
+
+	/**
+	 * Binds cache to OAuth Client of Engage cache is set on. Responses are not
+	 * keyed by account, so cache of one OAuth Client can not be used by
+	 * another.
+	 *
+	 * @param oAuthClient
+	 *            - OAuth Client of Engage, compared by identity
+	 */
+	public synchronized void bind(OAuthClient oAuthClient) {
+		if (bound && owner != oAuthClient) {
+			throw new RuntimeException("Cache is already used by Engage with another OAuth Client");
+		}
+
+		owner = oAuthClient;
+		bound = true;
+	}
+
+	/**
+	 * Returns cached response or loads and caches it.
+	 *
+	 * @param options
+	 *            - SelectRecipientData options
+	 * @param loader
+	 *            - executes SelectRecipientData call
+	 * @return cached or loaded response
+	 */
+	public ResponseContainer<SelectRecipientDataResponse> getRecipient(SelectRecipientDataOptions options,
+			Function<SelectRecipientDataOptions, ResponseContainer<SelectRecipientDataResponse>> loader) {
+		String key = getKey(options);
+		long loadGeneration;
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null) {
+				long age = clock.getAsLong() - entry.loadedNanos;
+				if (age < timeToLiveNanos) {
+					hitCount.incrementAndGet();
+					return entry.response;
+				}
+
+				if (age < timeToLiveNanos + staleWhileRevalidateNanos) {
+					staleHitCount.incrementAndGet();
+					if (entry.refreshing == false) {
+						entry.refreshing = true;
+						refresh(key, entry, options, loader, getGeneration(options.getListId()));
+					}
+
+					return entry.response;
+				}
+
+				remove(key);
+			}
+
+			missCount.incrementAndGet();
+			loadGeneration = getGeneration(options.getListId());
+		}
+
+		ResponseContainer<SelectRecipientDataResponse> response = loader.apply(options);
+		store(key, options, response, loadGeneration);
+
+		return response;
+	}
+
+	public void onAddRecipient(AddRecipientOptions options) {
+		String email = getEmail(options.getSyncFields());
+		invalidateRecipient(options.getListId(), email != null ? email : getEmail(options.getColumns()), null, null);
+	}
+
+	public void onUpdateRecipient(UpdateRecipientOptions options) {
+		String email = options.getOldEmail() != null ? options.getOldEmail()
+				: getEmail(options.getSyncFields());
+		invalidateRecipient(options.getListId(), email, options.getRecipientId(), options.getEncodedRecipientId());
+	}
+
+	public void onRemoveRecipient(RemoveRecipientOptions options) {
+		String email = options.getEmail() != null ? options.getEmail() : getEmail(options.getColumns());
+		invalidateRecipient(options.getListId(), email, null, null);
+	}
+
+	public void onOptOutRecipient(OptOutRecipientOptions options) {
+		invalidateRecipient(options.getListId(), options.getEmail(), null, options.getRecipientId());
+	}
+
+	public void onDoubleOptInRecipient(DoubleOptInRecipientOptions options) {
+		invalidateRecipient(options.getListId(), getEmail(options.getColumns()), null, null);
+	}
+
+	/**
+	 * Removes every cached response of recipient. Whole List is removed if
+	 * neither Email nor Recipient ID can be resolved.
+	 *
+	 * @param listId
+	 *            - List ID
+	 * @param email
+	 *            - recipient Email or null
+	 * @param recipientId
+	 *            - Recipient ID or null
+	 * @param encodedRecipientId
+	 *            - Encoded Recipient ID or null
+	 */
+	public synchronized void invalidateRecipient(Long listId, String email, Long recipientId,
+			String encodedRecipientId) {
+		listGenerations.put(listId, ++generation);
+		Set<Long> recipientIds = new HashSet<Long>();
+		if (recipientId != null) {
+			recipientIds.add(recipientId);
+		}
+
+		boolean identified = email != null || recipientId != null;
+		if (encodedRecipientId != null) {
+			for (Entry entry : entries.values()) {
+				if (entry.listId.equals(listId) && encodedRecipientId.equals(entry.encodedRecipientId)
+						&& entry.response.getResposne().getRecipientId() != null) {
+					recipientIds.add(entry.response.getResposne().getRecipientId());
+					identified = true;
+				}
+			}
+		}
+
+		String normalizedEmail = email == null ? null : email.toLowerCase();
+		boolean all = identified == false;
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next().getValue();
+			if (entry.listId.equals(listId) == false) {
+				continue;
+			}
+
+			SelectRecipientDataResponse response = entry.response.getResposne();
+			if (all || recipientIds.contains(response.getRecipientId())
+					|| (normalizedEmail != null && response.getEmail() != null
+							&& normalizedEmail.equals(response.getEmail().toLowerCase()))) {
+				usedBytes -= entry.weight;
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void invalidateList(Long listId) {
+		invalidateRecipient(listId, null, null, null);
+	}
+
+	public synchronized void invalidateAll() {
+		clearGeneration = ++generation;
+		listGenerations.clear();
+		entries.clear();
+		usedBytes = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return estimated memory used by cached responses
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return number of expired responses returned while reloaded
+	 */
+	public long getStaleHitCount() {
+		return staleHitCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	private void refresh(String key, Entry entry, SelectRecipientDataOptions options,
+			Function<SelectRecipientDataOptions, ResponseContainer<SelectRecipientDataResponse>> loader,
+			long loadGeneration) {
+		refreshExecutor.execute(() -> {
+			try {
+				store(key, options, loader.apply(options), loadGeneration);
+			} catch (RuntimeException e) {
+				log.warn("Recipient refresh failed for {}: {}", options, e.getMessage());
+			} finally {
+				synchronized (this) {
+					entry.refreshing = false;
+				}
+			}
+		});
+	}
+
+	private synchronized void store(String key, SelectRecipientDataOptions options,
+			ResponseContainer<SelectRecipientDataResponse> response, long loadGeneration) {
+		if (response == null || response.getResposne() == null
+				|| loadGeneration != getGeneration(options.getListId())) {
+			return;
+		}
+
+		Entry entry = new Entry(options.getListId(), options.getEncodedRecipientId(), response, clock.getAsLong(),
+				estimateBytes(key, response.getResposne()));
+		if (entry.weight > maximumBytes) {
+			return;
+		}
+
+		remove(key);
+		entries.put(key, entry);
+		usedBytes += entry.weight;
+
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (usedBytes > maximumBytes && iterator.hasNext()) {
+			usedBytes -= iterator.next().weight;
+			iterator.remove();
+			evictionCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Load started at returned generation is stored only if no write to its
+	 * List and no {@link #invalidateAll()} happened meanwhile. Coalesced calls
+	 * are shared only by loads of the same generation.
+	 *
+	 * @param listId
+	 *            - List ID
+	 * @return current generation of List
+	 */
+	public synchronized long getGeneration(Long listId) {
+		Long listGeneration = listGenerations.get(listId);
+
+		return listGeneration == null ? clearGeneration : Math.max(listGeneration, clearGeneration);
+	}
+
+	private void remove(String key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			usedBytes -= entry.weight;
+		}
+	}
+
+	static String getKey(SelectRecipientDataOptions options) {
+		StringBuilder key = new StringBuilder().append(options.getListId()).append('|')
+				.append(options.isReturnContactLists());
+		if (options.getEmail() != null) {
+			key.append("|E:").append(options.getEmail().toLowerCase());
+		}
+
+		if (options.getRecipientId() != null) {
+			key.append("|R:").append(options.getRecipientId());
+		}
+
+		if (options.getEncodedRecipientId() != null) {
+			key.append("|N:").append(options.getEncodedRecipientId());
+		}
+
+		if (options.getVisitorKey() != null) {
+			key.append("|V:").append(options.getVisitorKey());
+		}
+
+		if (options.getKeyColumns() != null && options.getKeyColumns().isEmpty() == false) {
+			key.append("|K:").append(new TreeMap<String, String>(options.getKeyColumns()));
+		}
+
+		return key.toString();
+	}
+
+	static long estimateBytes(String key, SelectRecipientDataResponse response) {
+		long chars = key.length() + length(response.getEmail()) + length(response.getOrganiztionId())
+				+ length(response.getCrmLeadSource());
+		if (response.getColumns() != null) {
+			for (Map.Entry<String, String> column : response.getColumns().entrySet()) {
+				chars += length(column.getKey()) + length(column.getValue()) + 16;
+			}
+		}
+
+		List<Long> contactLists = response.getContactLists();
+		long contactListBytes = contactLists == null ? 0 : contactLists.size() * 24L;
+
+		return entryOverheadBytes + chars * 2 + contactListBytes;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	private static String getEmail(Map<String, String> values) {
+		if (values != null) {
+			for (Map.Entry<String, String> value : values.entrySet()) {
+				if (emailColumn.equalsIgnoreCase(value.getKey()) && value.getValue() != null) {
+					return value.getValue();
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private static class Entry {
+		private final Long listId;
+		private final String encodedRecipientId;
+		private final ResponseContainer<SelectRecipientDataResponse> response;
+		private final long loadedNanos;
+		private final long weight;
+		private boolean refreshing = false;
+
+		private Entry(Long listId, String encodedRecipientId, ResponseContainer<SelectRecipientDataResponse> response,
+				long loadedNanos, long weight) {
+			this.listId = listId;
+			this.encodedRecipientId = encodedRecipientId;
+			this.response = response;
+			this.loadedNanos = loadedNanos;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.oauth.OAuthClient;
+import com.github.ka4ok85.wca.oauth.OAuthClientImplementation;
+import com.github.ka4ok85.wca.options.GetAggregateTrackingForOrgOptions;
+import com.github.ka4ok85.wca.options.GetAggregateTrackingForUserOptions;
+import com.github.ka4ok85.wca.options.GetSentMailingsForListOptions;
+import com.github.ka4ok85.wca.options.GetSentMailingsForOrgOptions;
+import com.github.ka4ok85.wca.options.GetSentMailingsForUserOptions;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForOrgResponse;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForUserResponse;
+import com.github.ka4ok85.wca.response.GetSentMailingsForListResponse;
+import com.github.ka4ok85.wca.response.GetSentMailingsForOrgResponse;
+import com.github.ka4ok85.wca.response.GetSentMailingsForUserResponse;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+/**
+ * <strong>Persistent cache of aggregate tracking and sent mailings reports for
+ * settled days.</strong>
+ * <p>
+ * Requested Date Time Range is split into day buckets. Both ends of range
+ * are inclusive, so buckets do not overlap: day bucket ends at 23:59:59 and
+ * next one starts at midnight. Buckets which ended earlier than settled age
+ * ago are not expected to change, every such bucket is requested once and its
+ * response is stored as JSON file in local directory. Remaining recent part
+ * of range is always requested live by single call. Responses of buckets are
+ * combined into single response: mailing rows are concatenated and counters
+ * are summed. Reports are split by mailing sent date, so combined response is
+ * the same as response for whole range.
+ * </p>
+ * <p>
+ * Stored buckets are keyed by report type, pod and tenant key of Engage,
+ * all options except range and exact bucket boundaries. Tenant key is Client
+ * Id of {@link OAuthClientImplementation}, other OAuth Client implementations
+ * must pass it explicitly. First request of long
+ * range makes one call per settled day, repeated requests of the same range
+ * make only live call. Buckets are stored as lists of mailings, Compact
+ * Mailings option is applied to combined response.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class ReportCache {
+
+	private static final Logger log = LoggerFactory.getLogger(ReportCache.class);
+	private static final DateTimeFormatter fileNameFormatter = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+	private final Engage engage;
+	private final String identity;
+	private final Path directory;
+	private final Clock clock;
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private final AtomicLong storedBucketHitCount = new AtomicLong();
+	private final AtomicLong fetchedBucketCount = new AtomicLong();
+	private final AtomicLong liveCallCount = new AtomicLong();
+	private Duration settledAge = Duration.ofDays(7);
+
+	/**
+	 * @param engage
+	 *            - WCA API access, its OAuth Client must be
+	 *            {@link OAuthClientImplementation}
+	 * @param localDirectory
+	 *            - directory for stored responses
+	 */
+	public ReportCache(Engage engage, String localDirectory) {
+		this(engage, localDirectory, null, Clock.systemDefaultZone());
+	}
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param localDirectory
+	 *            - directory for stored responses
+	 * @param tenantKey
+	 *            - key of Engage account, stored buckets are not shared
+	 *            between tenant keys
+	 */
+	public ReportCache(Engage engage, String localDirectory, String tenantKey) {
+		this(engage, localDirectory, tenantKey, Clock.systemDefaultZone());
+	}
+
+	ReportCache(Engage engage, String localDirectory, String tenantKey, Clock clock) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		OAuthClient oAuthClient = Objects.requireNonNull(engage.getOAuthClient(), "OAuth Client must not be null");
+		if (tenantKey == null) {
+			if (oAuthClient instanceof OAuthClientImplementation == false) {
+				throw new RuntimeException("Tenant Key must be provided for OAuth Client "
+						+ oAuthClient.getClass().getName());
+			}
+
+			tenantKey = ((OAuthClientImplementation) oAuthClient).getClientId();
+		}
+
+		this.identity = "pod=" + oAuthClient.getPodNumber() + "|client=" + tenantKey;
+		if (localDirectory == null || localDirectory.trim().isEmpty()) {
+			throw new RuntimeException(
+					"Local Directory must be non-empty String. Provided Local Directory = " + localDirectory);
+		}
+
+		this.directory = Paths.get(localDirectory);
+		this.clock = clock;
+	}
+
+	/**
+	 * @param settledAge
+	 *            - age after which day bucket is stored, 7 days by default
+	 * @param unit
+	 *            - age unit
+	 */
+	public void setSettledAge(long settledAge, TimeUnit unit) {
+		if (settledAge < 1) {
+			throw new RuntimeException("Settled Age must be greater than zero. Provided Settled Age = " + settledAge);
+		}
+
+		this.settledAge = Duration.ofNanos(unit.toNanos(settledAge));
+	}
+
+	public GetAggregateTrackingForOrgResponse getAggregateTrackingForOrg(GetAggregateTrackingForOrgOptions options) {
+		GetAggregateTrackingForOrgOptions source = new GetAggregateTrackingForOrgOptions(options,
+				options.getDateTimeRange());
+		source.setCompactMailings(false);
+		GetAggregateTrackingForOrgResponse response = get("aggregateTrackingForOrg",
+				key(source.getVisibility(), source.isScheduled(), source.isSent(), source.isSending(),
+						source.isOptinConfirmation(), source.isProfileConfirmation(), source.isAutomated(),
+						source.isCampaignActive(), source.isCampaignCompleted(), source.isCampaignCancelled(),
+						source.isTopDomain(), source.isInboxMonitoring(), source.isPerClick(),
+						source.isExcludeTestMailings()),
+				source.getDateTimeRange(),
+				range -> engage.getAggregateTrackingForOrg(new GetAggregateTrackingForOrgOptions(source, range))
+						.getResposne(),
+				GetAggregateTrackingForOrgResponse.class, (first, second) -> {
+					first.getClicks().addAll(second.getClicks());
+					first.getInboxMonitorings().addAll(second.getInboxMonitorings());
+					first.getMailings().addAll(second.getMailings());
+					first.getTopDomains().addAll(second.getTopDomains());
+					return first;
+				});
+		if (options.isCompactMailings()) {
+			response.setMailingTable(AggregateTrackingMailingTable.of(response.getMailings()));
+			response.setMailings(new ArrayList<AggregateTrackingDataMailing>());
+		}
+
+		return response;
+	}
+
+	public GetAggregateTrackingForUserResponse getAggregateTrackingForUser(
+			GetAggregateTrackingForUserOptions options) {
+		GetAggregateTrackingForUserOptions source = new GetAggregateTrackingForUserOptions(options,
+				options.getDateTimeRange());
+		source.setCompactMailings(false);
+		GetAggregateTrackingForUserResponse response = get("aggregateTrackingForUser",
+				key(source.getOptionalUser(), source.getVisibility(), source.isScheduled(), source.isSent(),
+						source.isSending(), source.isOptinConfirmation(), source.isProfileConfirmation(),
+						source.isAutomated(), source.isCampaignActive(), source.isCampaignCompleted(),
+						source.isCampaignCancelled(), source.isTopDomain(), source.isInboxMonitoring(),
+						source.isPerClick(), source.isExcludeTestMailings()),
+				source.getDateTimeRange(),
+				range -> engage.getAggregateTrackingForUser(new GetAggregateTrackingForUserOptions(source, range))
+						.getResposne(),
+				GetAggregateTrackingForUserResponse.class, (first, second) -> {
+					first.getClicks().addAll(second.getClicks());
+					first.getInboxMonitorings().addAll(second.getInboxMonitorings());
+					first.getMailings().addAll(second.getMailings());
+					first.getTopDomains().addAll(second.getTopDomains());
+					return first;
+				});
+		if (options.isCompactMailings()) {
+			response.setMailingTable(AggregateTrackingMailingTable.of(response.getMailings()));
+			response.setMailings(new ArrayList<AggregateTrackingDataMailing>());
+		}
+
+		return response;
+	}
+
+	public GetSentMailingsForOrgResponse getSentMailingsForOrg(GetSentMailingsForOrgOptions options) {
+		return get("sentMailingsForOrg",
+				key(options.getVisibility(), options.isScheduled(), options.isSend(), options.isSending(),
+						options.isOptinConfirmation(), options.isProfileConfirmation(), options.isAutomated(),
+						options.isCampaignActive(), options.isCampaignCompleted(), options.isCampaignCancelled(),
+						options.isCampaignScrapeTemplate(), options.isIncludeTags(), options.isExcludeZeroSent(),
+						options.isMailingCountOnly(), options.isExcludeTestMailings()),
+				options.getDateTimeRange(),
+				range -> engage.getSentMailingsForOrg(new GetSentMailingsForOrgOptions(options, range))
+						.getResposne(),
+				GetSentMailingsForOrgResponse.class, (first, second) -> {
+					first.setSentMailingsCount(sum(first.getSentMailingsCount(), second.getSentMailingsCount()));
+					first.getSentMailings().addAll(second.getSentMailings());
+					return first;
+				});
+	}
+
+	public GetSentMailingsForUserResponse getSentMailingsForUser(GetSentMailingsForUserOptions options) {
+		return get("sentMailingsForUser",
+				key(options.getOptionalUser(), options.getVisibility(), options.isScheduled(), options.isSend(),
+						options.isSending(), options.isOptinConfirmation(), options.isProfileConfirmation(),
+						options.isAutomated(), options.isCampaignActive(), options.isCampaignCompleted(),
+						options.isCampaignCancelled(), options.isCampaignScrapeTemplate(), options.isIncludeTags(),
+						options.isExcludeZeroSent(), options.isMailingCountOnly(), options.isExcludeTestMailings()),
+				options.getDateTimeRange(),
+				range -> engage.getSentMailingsForUser(new GetSentMailingsForUserOptions(options, range))
+						.getResposne(),
+				GetSentMailingsForUserResponse.class, (first, second) -> {
+					first.setSentMailingsCount(sum(first.getSentMailingsCount(), second.getSentMailingsCount()));
+					first.getSentMailings().addAll(second.getSentMailings());
+					return first;
+				});
+	}
+
+	public GetSentMailingsForListResponse getSentMailingsForList(GetSentMailingsForListOptions options) {
+		return get("sentMailingsForList",
+				key(options.getListId(), options.isIncludeChildren(), options.getVisibility(), options.isScheduled(),
+						options.isSend(), options.isSending(), options.isOptinConfirmation(),
+						options.isProfileConfirmation(), options.isAutomated(), options.isCampaignActive(),
+						options.isCampaignCompleted(), options.isCampaignCancelled(),
+						options.isCampaignScrapeTemplate(), options.isIncludeTags(), options.isExcludeZeroSent(),
+						options.isMailingCountOnly(), options.isExcludeTestMailings()),
+				options.getDateTimeRange(),
+				range -> engage.getSentMailingsForList(new GetSentMailingsForListOptions(options, range))
+						.getResposne(),
+				GetSentMailingsForListResponse.class, (first, second) -> {
+					first.setSentMailingsCount(sum(first.getSentMailingsCount(), second.getSentMailingsCount()));
+					first.getSentMailings().addAll(second.getSentMailings());
+					return first;
+				});
+	}
+
+	/**
+	 * @return number of day buckets read from local directory
+	 */
+	public long getStoredBucketHitCount() {
+		return storedBucketHitCount.get();
+	}
+
+	/**
+	 * @return number of settled day buckets requested from WCA
+	 */
+	public long getFetchedBucketCount() {
+		return fetchedBucketCount.get();
+	}
+
+	/**
+	 * @return number of calls for recent part of range
+	 */
+	public long getLiveCallCount() {
+		return liveCallCount.get();
+	}
+
+	private <R> R get(String reportType, String optionsKey, DateTimeRange dateTimeRange,
+			Function<DateTimeRange, R> call, Class<R> responseClass, BinaryOperator<R> merge) {
+		LocalDateTime settledBefore = LocalDateTime.now(clock).minus(settledAge);
+		String key = identity + "|" + optionsKey;
+		Path reportDirectory = directory.resolve(reportType)
+				.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString());
+
+		List<R> parts = new ArrayList<R>();
+		LocalDateTime start = dateTimeRange.getStartDateTime();
+		LocalDateTime end = dateTimeRange.getEndDateTime();
+		while (start.isAfter(end) == false) {
+			LocalDateTime bucketEnd = start.toLocalDate().atTime(23, 59, 59);
+			// remainder shorter than one second can not be requested separately
+			if (end.isBefore(bucketEnd.plusSeconds(2))) {
+				bucketEnd = end;
+			}
+
+			if (bucketEnd.plusSeconds(1).isAfter(settledBefore)) {
+				break;
+			}
+
+			parts.add(getSettledBucket(reportDirectory, new DateTimeRange(start, bucketEnd), call, responseClass));
+			start = bucketEnd.plusSeconds(1);
+		}
+
+		if (start.isAfter(end) == false) {
+			liveCallCount.incrementAndGet();
+			parts.add(call.apply(new DateTimeRange(start, end)));
+		}
+
+		R result = parts.get(0);
+		for (int i = 1; i < parts.size(); i++) {
+			result = merge.apply(result, parts.get(i));
+		}
+
+		return result;
+	}
+
+	private <R> R getSettledBucket(Path reportDirectory, DateTimeRange bucket, Function<DateTimeRange, R> call,
+			Class<R> responseClass) {
+		Path file = reportDirectory.resolve(bucket.getStartDateTime().format(fileNameFormatter) + "_"
+				+ bucket.getEndDateTime().format(fileNameFormatter) + ".json");
+		if (Files.exists(file)) {
+			try {
+				R response = mapper.readValue(file.toFile(), responseClass);
+				storedBucketHitCount.incrementAndGet();
+				return response;
+			} catch (IOException e) {
+				log.warn("Can not read stored report {}, requesting it again: {}", file, e.getMessage());
+			}
+		}
+
+		R response = call.apply(bucket);
+		fetchedBucketCount.incrementAndGet();
+		try {
+			Files.createDirectories(reportDirectory);
+			Path temporaryFile = reportDirectory.resolve(file.getFileName() + ".tmp");
+			mapper.writeValue(temporaryFile.toFile(), response);
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new EngageApiException("Can not store report " + file + ": " + e.getMessage());
+		}
+
+		return response;
+	}
+
+	private static String key(Object... values) {
+		StringBuilder key = new StringBuilder();
+		for (Object value : values) {
+			key.append(value).append('|');
+		}
+
+		return key.toString();
+	}
+
+	private static Long sum(Long first, Long second) {
+		if (first == null) {
+			return second;
+		}
+
+		return second == null ? first : first + second;
+	}
+}
@@ -0,0 +1,182 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+
+/**
+ * <strong>Single-flight execution of identical read calls.</strong>
+ * <p>
+ * Set coalescer with {@link com.github.ka4ok85.wca.Engage#setRequestCoalescer}
+ * and Engage executes SelectRecipientData, GetListMetaData, GetLists and
+ * GetFolderPath through it. Call with options equal to options of call which
+ * is still in flight for the same OAuth Client does not go to WCA, it waits
+ * for that call and receives the same response or exception. Calls of Engage
+ * objects with different OAuth Clients are never shared, so one coalescer may
+ * be set on several Engage objects. Nothing is kept after call completes.
+ * </p>
+ * <p>
+ * Engage passes generation of its cache to coalescer, so load which misses
+ * cache after write invalidated it never joins call started before that write
+ * and never stores response read before the write.
+ * </p>
+ * <p>
+ * Options must not be modified while call is in flight and shared responses
+ * must not be modified by callers.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RequestCoalescer {
+
+	private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight =
+			new ConcurrentHashMap<Key, CompletableFuture<Object>>();
+	private final AtomicLong executedCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/**
+	 * Executes call or joins identical call in flight.
+	 *
+	 * @param options
+	 *            - call options with equals and hashCode, options of different
+	 *            classes are never equal
+	 * @param call
+	 *            - executes call
+	 * @return response of call
+	 */
+	public <O, R> R execute(O options, Function<? super O, ? extends R> call) {
+		return execute(null, options, call);
+	}
+
+	/**
+	 * Executes call or joins identical call of the same scope in flight.
+	 *
+	 * @param scope
+	 *            - account call is made for, e.g. OAuth Client of Engage,
+	 *            compared by identity
+	 * @param options
+	 *            - call options with equals and hashCode, options of different
+	 *            classes are never equal
+	 * @param call
+	 *            - executes call
+	 * @return response of call
+	 */
+	public <O, R> R execute(Object scope, O options, Function<? super O, ? extends R> call) {
+		return execute(scope, options, 0, call);
+	}
+
+	/**
+	 * Executes call or joins identical call of the same scope and cache
+	 * generation in flight.
+	 *
+	 * @param scope
+	 *            - account call is made for, e.g. OAuth Client of Engage,
+	 *            compared by identity
+	 * @param options
+	 *            - call options with equals and hashCode, options of different
+	 *            classes are never equal
+	 * @param generation
+	 *            - cache generation read before call, calls of different
+	 *            generations are never shared
+	 * @param call
+	 *            - executes call
+	 * @return response of call
+	 */
+	@SuppressWarnings("unchecked")
+	public <O, R> R execute(Object scope, O options, long generation, Function<? super O, ? extends R> call) {
+		Objects.requireNonNull(options, "Options must not be null");
+		Key key = new Key(scope, options, generation);
+		CompletableFuture<Object> future = new CompletableFuture<Object>();
+		CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			coalescedCount.incrementAndGet();
+			return (R) join(existing);
+		}
+
+		executedCount.incrementAndGet();
+		try {
+			R response = call.apply(options);
+			future.complete(response);
+
+			return response;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	/**
+	 * @return number of calls sent to WCA
+	 */
+	public long getExecutedCount() {
+		return executedCount.get();
+	}
+
+	/**
+	 * @return number of calls served by identical call in flight
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	private Object join(CompletableFuture<Object> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+
+			throw new EngageApiException(e.getCause().getMessage());
+		}
+	}
+
+	private static class Key {
+		private final Object scope;
+		private final Object options;
+		private final long generation;
+
+		private Key(Object scope, Object options, long generation) {
+			this.scope = scope;
+			this.options = options;
+			this.generation = generation;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(scope) + options.hashCode()) + Long.hashCode(generation);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (obj instanceof Key == false) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return scope == other.scope && generation == other.generation && options.equals(other.options);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * <strong>Values of single tracking metric ordered by time.</strong>
+ *
+ * @since 0.0.4
+ */
+public class TrackingMetricsSeries {
+
+	private final long[] epochSeconds;
+	private final long[] values;
+
+	TrackingMetricsSeries(long[] epochSeconds, long[] values) {
+		this.epochSeconds = epochSeconds;
+		this.values = values;
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	public LocalDateTime getDateTime(int index) {
+		return LocalDateTime.ofEpochSecond(epochSeconds[index], 0, ZoneOffset.UTC);
+	}
+
+	public long getValue(int index) {
+		return values[index];
+	}
+
+	/**
+	 * @return sum of all values
+	 */
+	public long sum() {
+		long sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+
+		return sum;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("TrackingMetricsSeries [");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+
+			builder.append(getDateTime(i)).append('=').append(values[i]);
+		}
+
+		return builder.append(']').toString();
+	}
+}
@@ -0,0 +1,523 @@
+package com.github.ka4ok85.wca.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForMailingResponse;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingMetric;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+/**
+ * <strong>Local time series of Mailing tracking counters.</strong>
+ * <p>
+ * Every recorded poll of GetAggregateTrackingForMailing is appended to file of
+ * its Mailing as fixed size record after file header with format version and
+ * number of counters: poll time, Report ID and all counters of
+ * {@link AggregateTrackingMailingMetric}. Records of Mailing are ordered by
+ * poll time, so range queries use binary search over memory-mapped file and
+ * do not call WCA API. Counters are cumulative, deltas are differences between
+ * consecutive polls and hourly or daily rollups are sums of deltas of polls
+ * inside hour or day.
+ * </p>
+ * <p>
+ * Incomplete last record left by crash is dropped when file is opened, file
+ * with other format version or number of counters is not opened. One Report ID
+ * per Mailing is expected, poll times of Mailing must increase. Response is
+ * validated before anything is written, so rejected response leaves no
+ * records.
+ * </p>
+ * <p>
+ * Mapping of Mailing file is reused by queries and is remapped only after file
+ * has grown. Files of least recently used Mailings are closed when more than
+ * maximum number of files is open.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class TrackingMetricsStore implements Closeable {
+
+	private static final long missing = Long.MIN_VALUE;
+	private static final int magic = 0x57434154;
+	private static final int version = 1;
+	private static final int headerSize = 4 * Integer.BYTES;
+	private static final AggregateTrackingMailingMetric[] metrics = AggregateTrackingMailingMetric.values();
+	private static final int recordSize = (2 + metrics.length) * Long.BYTES;
+
+	private final Path directory;
+	private final LinkedHashMap<Long, FileChannel> channels = new LinkedHashMap<Long, FileChannel>(16, 0.75f, true);
+	private final Map<Long, MappedByteBuffer> mappings = new HashMap<Long, MappedByteBuffer>();
+	private final Map<Long, Long> lastPollTimes = new HashMap<Long, Long>();
+	private final Map<Long, Long> lastReportIds = new HashMap<Long, Long>();
+	private int maxOpenFiles = 64;
+
+	/**
+	 * @param localDirectory
+	 *            - directory for time series files
+	 */
+	public TrackingMetricsStore(String localDirectory) {
+		if (localDirectory == null || localDirectory.trim().isEmpty()) {
+			throw new RuntimeException(
+					"Local Directory must be non-empty String. Provided Local Directory = " + localDirectory);
+		}
+
+		this.directory = Paths.get(localDirectory);
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new EngageApiException(
+					"Can not create tracking metrics directory " + directory + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @param maxOpenFiles
+	 *            - maximum number of Mailing files kept open, 64 by default
+	 */
+	public synchronized void setMaxOpenFiles(int maxOpenFiles) {
+		if (maxOpenFiles < 1) {
+			throw new RuntimeException(
+					"Max Open Files must be greater than zero. Provided Max Open Files = " + maxOpenFiles);
+		}
+
+		this.maxOpenFiles = maxOpenFiles;
+	}
+
+	/**
+	 * @return number of Mailing files currently open
+	 */
+	public synchronized int getOpenFileCount() {
+		return channels.size();
+	}
+
+	/**
+	 * Records counters of all Mailings of response, compact Mailing Table is
+	 * recorded as well.
+	 *
+	 * @param pollTime
+	 *            - time of poll
+	 * @param response
+	 *            - GetAggregateTrackingForMailing response
+	 */
+	public synchronized void record(LocalDateTime pollTime, GetAggregateTrackingForMailingResponse response) {
+		Objects.requireNonNull(response, "GetAggregateTrackingForMailingResponse must not be null");
+		List<AggregateTrackingDataMailing> mailings = new ArrayList<AggregateTrackingDataMailing>(
+				response.getMailings());
+
+		Set<Long> mailingIds = new HashSet<Long>();
+		for (AggregateTrackingDataMailing mailing : mailings) {
+			validate(pollTime, mailing);
+			if (mailingIds.add(mailing.getMailingId()) == false) {
+				throw new RuntimeException("Mailing " + mailing.getMailingId()
+						+ " must have one Report ID per poll. Provided Poll Time = " + pollTime);
+			}
+		}
+
+		for (AggregateTrackingDataMailing mailing : mailings) {
+			write(pollTime, mailing);
+		}
+	}
+
+	/**
+	 * @param pollTime
+	 *            - time of poll, must be after previous poll of Mailing
+	 * @param mailing
+	 *            - counters of Mailing
+	 */
+	public synchronized void record(LocalDateTime pollTime, AggregateTrackingDataMailing mailing) {
+		validate(pollTime, mailing);
+		write(pollTime, mailing);
+	}
+
+	/**
+	 * @param mailingId
+	 *            - Mailing ID
+	 * @param metric
+	 *            - counter
+	 * @param range
+	 *            - poll times, both ends inclusive
+	 * @return recorded counter values
+	 */
+	public synchronized TrackingMetricsSeries getSamples(Long mailingId, AggregateTrackingMailingMetric metric,
+			DateTimeRange range) {
+		return query(mailingId, metric, range, false);
+	}
+
+	/**
+	 * @param mailingId
+	 *            - Mailing ID
+	 * @param metric
+	 *            - counter
+	 * @param range
+	 *            - poll times, both ends inclusive
+	 * @return counter increase since previous poll, first poll of Mailing
+	 *         counts from zero
+	 */
+	public synchronized TrackingMetricsSeries getDeltas(Long mailingId, AggregateTrackingMailingMetric metric,
+			DateTimeRange range) {
+		return query(mailingId, metric, range, true);
+	}
+
+	/**
+	 * @param mailingId
+	 *            - Mailing ID
+	 * @param metric
+	 *            - counter
+	 * @param range
+	 *            - poll times, both ends inclusive
+	 * @param unit
+	 *            - HOURS or DAYS
+	 * @return counter increase per hour or day, only periods with polls are
+	 *         returned
+	 */
+	public synchronized TrackingMetricsSeries getRollup(Long mailingId, AggregateTrackingMailingMetric metric,
+			DateTimeRange range, ChronoUnit unit) {
+		if (unit != ChronoUnit.HOURS && unit != ChronoUnit.DAYS) {
+			throw new RuntimeException("Rollup Unit must be HOURS or DAYS. Provided Rollup Unit = " + unit);
+		}
+
+		TrackingMetricsSeries deltas = query(mailingId, metric, range, true);
+		long[] periods = new long[deltas.size()];
+		long[] sums = new long[deltas.size()];
+		int count = 0;
+		for (int i = 0; i < deltas.size(); i++) {
+			long period = deltas.getDateTime(i).truncatedTo(unit).toEpochSecond(ZoneOffset.UTC);
+			if (count == 0 || periods[count - 1] != period) {
+				periods[count] = period;
+				count++;
+			}
+
+			sums[count - 1] += deltas.getValue(i);
+		}
+
+		return new TrackingMetricsSeries(Arrays.copyOf(periods, count), Arrays.copyOf(sums, count));
+	}
+
+	/**
+	 * @param mailingId
+	 *            - Mailing ID
+	 * @return counters of last poll without Mailing Name and Sent Date Time,
+	 *         null if Mailing was not recorded
+	 */
+	public synchronized AggregateTrackingDataMailing getLatest(Long mailingId) {
+		MappedByteBuffer records = map(mailingId);
+		if (records == null) {
+			return null;
+		}
+
+		int offset = records.capacity() - recordSize;
+		AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+		mailing.setMailingId(mailingId);
+		mailing.setReportId(decode(records.getLong(offset + Long.BYTES)));
+		for (int i = 0; i < metrics.length; i++) {
+			metrics[i].set(mailing, decode(records.getLong(offset + (2 + i) * Long.BYTES)));
+		}
+
+		return mailing;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		IOException exception = null;
+		for (FileChannel channel : channels.values()) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				exception = e;
+			}
+		}
+
+		channels.clear();
+		mappings.clear();
+		lastPollTimes.clear();
+		lastReportIds.clear();
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private void validate(LocalDateTime pollTime, AggregateTrackingDataMailing mailing) {
+		Objects.requireNonNull(pollTime, "Poll Time must not be null");
+		Objects.requireNonNull(mailing, "Mailing must not be null");
+		Long mailingId = mailing.getMailingId();
+		if (mailingId == null || mailingId < 1) {
+			throw new RuntimeException("Mailing ID must be greater than zero. Provided Mailing ID = " + mailingId);
+		}
+
+		getChannel(mailingId, false);
+		Long lastPollTime = lastPollTimes.get(mailingId);
+		if (lastPollTime != null && pollTime.toEpochSecond(ZoneOffset.UTC) <= lastPollTime) {
+			throw new RuntimeException("Poll Time must be after last recorded Poll Time of Mailing " + mailingId
+					+ ". Provided Poll Time = " + pollTime);
+		}
+
+		if (lastPollTimes.containsKey(mailingId)
+				&& Objects.equals(lastReportIds.get(mailingId), mailing.getReportId()) == false) {
+			throw new RuntimeException("Report ID must be the same as recorded Report ID "
+					+ lastReportIds.get(mailingId) + " of Mailing " + mailingId + ". Provided Report ID = "
+					+ mailing.getReportId());
+		}
+	}
+
+	private void write(LocalDateTime pollTime, AggregateTrackingDataMailing mailing) {
+		Long mailingId = mailing.getMailingId();
+		long epochSecond = pollTime.toEpochSecond(ZoneOffset.UTC);
+		FileChannel channel = getChannel(mailingId, true);
+		ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+		buffer.putLong(epochSecond);
+		buffer.putLong(encode(mailing.getReportId()));
+		for (AggregateTrackingMailingMetric metric : metrics) {
+			buffer.putLong(encode(metric.get(mailing)));
+		}
+
+		buffer.flip();
+		try {
+			long position = channel.size();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+		} catch (IOException e) {
+			throw new EngageApiException("Can not record tracking metrics of Mailing " + mailingId + ": "
+					+ e.getMessage());
+		}
+
+		lastPollTimes.put(mailingId, epochSecond);
+		lastReportIds.put(mailingId, mailing.getReportId());
+	}
+
+	private TrackingMetricsSeries query(Long mailingId, AggregateTrackingMailingMetric metric, DateTimeRange range,
+			boolean deltas) {
+		Objects.requireNonNull(metric, "Metric must not be null");
+		Objects.requireNonNull(range, "DateTimeRange must not be null");
+		MappedByteBuffer records = map(mailingId);
+		if (records == null) {
+			return new TrackingMetricsSeries(new long[0], new long[0]);
+		}
+
+		int recordCount = records.capacity() / recordSize;
+		int valueOffset = (2 + metric.ordinal()) * Long.BYTES;
+		long end = range.getEndDateTime().toEpochSecond(ZoneOffset.UTC);
+		int first = search(records, recordCount, range.getStartDateTime().toEpochSecond(ZoneOffset.UTC));
+		int last = search(records, recordCount, end + 1);
+
+		long previous = 0;
+		for (int i = first - 1; deltas && i >= 0; i--) {
+			long value = records.getLong(i * recordSize + valueOffset);
+			if (value != missing) {
+				previous = value;
+				break;
+			}
+		}
+
+		long[] epochSeconds = new long[last - first];
+		long[] values = new long[last - first];
+		int count = 0;
+		for (int i = first; i < last; i++) {
+			long value = records.getLong(i * recordSize + valueOffset);
+			if (value == missing) {
+				continue;
+			}
+
+			epochSeconds[count] = records.getLong(i * recordSize);
+			values[count] = deltas ? value - previous : value;
+			previous = value;
+			count++;
+		}
+
+		return new TrackingMetricsSeries(Arrays.copyOf(epochSeconds, count), Arrays.copyOf(values, count));
+	}
+
+	/*
+	 * Returns index of first record polled at or after epoch second.
+	 */
+	private int search(MappedByteBuffer records, int recordCount, long epochSecond) {
+		int low = 0;
+		int high = recordCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (records.getLong(middle * recordSize) < epochSecond) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	private MappedByteBuffer map(Long mailingId) {
+		Objects.requireNonNull(mailingId, "Mailing ID must not be null");
+		FileChannel channel = getChannel(mailingId, false);
+		if (channel == null) {
+			return null;
+		}
+
+		try {
+			long size = channel.size() - headerSize;
+			if (size == 0) {
+				return null;
+			}
+
+			MappedByteBuffer records = mappings.get(mailingId);
+			if (records == null || records.capacity() != size) {
+				records = channel.map(FileChannel.MapMode.READ_ONLY, headerSize, size);
+				mappings.put(mailingId, records);
+			}
+
+			return records;
+		} catch (IOException e) {
+			throw new EngageApiException("Can not read tracking metrics of Mailing " + mailingId + ": "
+					+ e.getMessage());
+		}
+	}
+
+	private FileChannel getChannel(Long mailingId, boolean create) {
+		FileChannel channel = channels.get(mailingId);
+		if (channel != null) {
+			return channel;
+		}
+
+		Path file = directory.resolve("mailing_" + mailingId + ".metrics");
+		if (create == false && Files.exists(file) == false) {
+			return null;
+		}
+
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			long size = channel.size();
+			if (size == 0) {
+				writeHeader(channel);
+				size = headerSize;
+			} else {
+				checkHeader(channel, file);
+			}
+
+			if ((size - headerSize) % recordSize != 0) {
+				size -= (size - headerSize) % recordSize;
+				channel.truncate(size);
+			}
+
+			if (size > headerSize) {
+				ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+				read(channel, buffer, size - recordSize);
+				lastPollTimes.put(mailingId, buffer.getLong());
+				lastReportIds.put(mailingId, decode(buffer.getLong()));
+			}
+		} catch (IOException e) {
+			closeQuietly(channel);
+			throw new EngageApiException("Can not open tracking metrics of Mailing " + mailingId + ": "
+					+ e.getMessage());
+		} catch (RuntimeException e) {
+			closeQuietly(channel);
+			throw e;
+		}
+
+		channels.put(mailingId, channel);
+		closeEldest();
+
+		return channel;
+	}
+
+	/*
+	 * Closes least recently used files over limit. Last poll of Mailing is
+	 * kept, it is read again when file is opened.
+	 */
+	private void closeEldest() {
+		Iterator<Map.Entry<Long, FileChannel>> iterator = channels.entrySet().iterator();
+		while (channels.size() > maxOpenFiles && iterator.hasNext()) {
+			Map.Entry<Long, FileChannel> eldest = iterator.next();
+			iterator.remove();
+			mappings.remove(eldest.getKey());
+			closeQuietly(eldest.getValue());
+		}
+	}
+
+	private static void writeHeader(FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(headerSize);
+		buffer.putInt(magic);
+		buffer.putInt(version);
+		buffer.putInt(metrics.length);
+		buffer.putInt(recordSize);
+		buffer.flip();
+		long position = 0;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+
+		channel.force(true);
+	}
+
+	private static void checkHeader(FileChannel channel, Path file) throws IOException {
+		if (channel.size() < headerSize) {
+			throw new EngageApiException("Tracking metrics file " + file + " has no header");
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(headerSize);
+		read(channel, buffer, 0);
+		int fileMagic = buffer.getInt();
+		int fileVersion = buffer.getInt();
+		int fileMetricCount = buffer.getInt();
+		int fileRecordSize = buffer.getInt();
+		if (fileMagic != magic || fileVersion != version || fileMetricCount != metrics.length
+				|| fileRecordSize != recordSize) {
+			throw new EngageApiException("Tracking metrics file " + file + " has format version " + fileVersion
+					+ " with " + fileMetricCount + " counters, expected version " + version + " with "
+					+ metrics.length + " counters");
+		}
+	}
+
+	private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+
+			position += read;
+		}
+
+		buffer.flip();
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// failure is already reported
+		}
+	}
+
+	private static long encode(Long value) {
+		return value == null ? missing : value;
+	}
+
+	private static Long decode(long value) {
+		return value == missing ? null : value;
+	}
+}
@@ -37,6 +37,7 @@ import org.xml.sax.SAXException;
 
 import com.github.ka4ok85.wca.exceptions.BadApiResultException;
 import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.oauth.OAuthClient;
 import com.github.ka4ok85.wca.options.AbstractOptions;
 import com.github.ka4ok85.wca.pod.Pod;
@@ -47,8 +48,10 @@ import com.github.ka4ok85.wca.sftp.SFTP;
 public abstract class AbstractCommand<T extends AbstractResponse, V extends AbstractOptions> {
 	protected OAuthClient oAuthClient;
 	protected SFTP sftp;
+	protected EngageMetrics metrics;
 	protected Document doc;
 	protected Node currentNode;
+	private long uploadNanos;
 
 	protected static final Logger log = LoggerFactory.getLogger(AbstractCommand.class);
 
@@ -79,6 +82,10 @@ public abstract class AbstractCommand<T extends AbstractResponse, V extends Abst
 		this.sftp = sftp;
 	}
 
+	public void setMetrics(EngageMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	public abstract void buildXmlRequest(V options);
 
 	protected String getXML() {
@@ -139,39 +146,129 @@ public abstract class AbstractCommand<T extends AbstractResponse, V extends Abst
 		HttpEntity<String> entity = new HttpEntity<String>(xml, headers);
 		Node resultNode = null;
 
+		ResponseEntity<String> result;
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long startNanos = System.nanoTime();
 		try {
 			RestTemplate restTemplate = new RestTemplate();
 			restTemplate.getMessageConverters().add(0, new StringHttpMessageConverter(Charset.forName("UTF-8")));
-			ResponseEntity<String> result = restTemplate.exchange(Pod.getXMLAPIEndpoint(oAuthClient.getPodNumber()),
-					HttpMethod.POST, entity, String.class);
-			try {
-				DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-				InputSource is = new InputSource();
-				is.setCharacterStream(new StringReader(result.getBody()));
+			result = restTemplate.exchange(Pod.getXMLAPIEndpoint(oAuthClient.getPodNumber()), HttpMethod.POST, entity,
+					String.class);
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
+		} catch (HttpClientErrorException e) {
+			throw new EngageApiException(e.getMessage());
+		} finally {
+			recordPhase(EngageMetrics.PHASE_HTTP, outcome, startNanos);
+		}
+
+		outcome = EngageMetrics.OUTCOME_ERROR;
+		startNanos = System.nanoTime();
+		try {
+			resultNode = parseResult(result.getBody());
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
+		} catch (RuntimeException e) {
+			outcome = EngageMetrics.getOutcome(e);
+			throw e;
+		} finally {
+			recordPhase(EngageMetrics.PHASE_PARSE, outcome, startNanos);
+		}
+
+		return resultNode;
+	}
+
+	/**
+	 * Name of API method is taken from first element of request Body, so it is
+	 * known once request is built.
+	 * 
+	 * @return API method name or "unknown" if request is not built yet
+	 */
+	protected String getApiMethodName() {
+		Element envelope = doc.getDocumentElement();
+		Node body = envelope == null ? null : envelope.getFirstChild();
+		for (Node node = body == null ? null : body.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				return node.getNodeName();
+			}
+		}
+
+		return "unknown";
+	}
+
+	protected void recordPhase(String phase, String outcome, long startNanos) {
+		if (metrics != null) {
+			metrics.recordApiPhase(getApiMethodName(), oAuthClient.getPodNumber(), phase, outcome,
+					System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Uploads file through SFTP while request is built. Upload is recorded as
+	 * upload phase, its time is returned by {@link #getUploadNanos()} so that
+	 * it is not counted in build phase.
+	 * 
+	 * @param localPath
+	 *            - path of local file
+	 * @param remoteName
+	 *            - name of file on SFTP server
+	 */
+	protected void upload(String localPath, String remoteName) {
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long startNanos = System.nanoTime();
+		try {
+			sftp.upload(localPath, remoteName);
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
+		} finally {
+			uploadNanos += System.nanoTime() - startNanos;
+			recordPhase(EngageMetrics.PHASE_UPLOAD, outcome, startNanos);
+		}
+	}
+
+	/**
+	 * @return time spent by {@link #upload(String, String)} since last reset
+	 */
+	protected long getUploadNanos() {
+		return uploadNanos;
+	}
+
+	protected void resetUploadNanos() {
+		uploadNanos = 0;
+	}
 
-				Document doc = db.parse(is);
+	protected void recordCall(String outcome, long startNanos) {
+		if (metrics != null) {
+			metrics.recordApiCall(getApiMethodName(), oAuthClient.getPodNumber(), outcome,
+					System.nanoTime() - startNanos);
+		}
+	}
+
+	private Node parseResult(String body) {
+		try {
+			DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			InputSource is = new InputSource();
+			is.setCharacterStream(new StringReader(body));
+
+			Document doc = db.parse(is);
 
-				XPathFactory factory = XPathFactory.newInstance();
-				XPath xpath = factory.newXPath();
+			XPathFactory factory = XPathFactory.newInstance();
+			XPath xpath = factory.newXPath();
 
-				Node successNode = (Node) xpath.evaluate("/Envelope/Body/RESULT/SUCCESS", doc, XPathConstants.NODE);
+			Node successNode = (Node) xpath.evaluate("/Envelope/Body/RESULT/SUCCESS", doc, XPathConstants.NODE);
 
-				boolean apiResult = Boolean.parseBoolean(successNode.getTextContent());
-				if (apiResult == false && !successNode.getTextContent().equals("SUCCESS")) {
-					Node faultStringNode = (Node) xpath.evaluate("/Envelope/Body/Fault/FaultString", doc,
-							XPathConstants.NODE);
-					throw new BadApiResultException(faultStringNode.getTextContent());
+			boolean apiResult = Boolean.parseBoolean(successNode.getTextContent());
+			if (apiResult == false && !successNode.getTextContent().equals("SUCCESS")) {
+				Node faultStringNode = (Node) xpath.evaluate("/Envelope/Body/Fault/FaultString", doc,
+						XPathConstants.NODE);
+				if (metrics != null) {
+					metrics.recordFault(getApiMethodName(), oAuthClient.getPodNumber(),
+							faultStringNode.getTextContent());
 				}
 
-				resultNode = (Node) xpath.evaluate("/Envelope/Body/RESULT", doc, XPathConstants.NODE);
-			} catch (ParserConfigurationException | SAXException | IOException | XPathExpressionException e) {
-				throw new BadApiResultException(e.getMessage());
+				throw new BadApiResultException(faultStringNode.getTextContent());
 			}
 
-		} catch (HttpClientErrorException e) {
-			throw new EngageApiException(e.getMessage());
+			return (Node) xpath.evaluate("/Envelope/Body/RESULT", doc, XPathConstants.NODE);
+		} catch (ParserConfigurationException | SAXException | IOException | XPathExpressionException e) {
+			throw new BadApiResultException(e.getMessage());
 		}
-
-		return resultNode;
 	}
 }
\ No newline at end of file
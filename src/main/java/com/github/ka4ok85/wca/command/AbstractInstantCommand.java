@@ -2,6 +2,7 @@ package com.github.ka4ok85.wca.command;
 
 import org.w3c.dom.Node;
 
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.options.AbstractOptions;
 import com.github.ka4ok85.wca.response.AbstractResponse;
 import com.github.ka4ok85.wca.response.ResponseContainer;
@@ -12,11 +13,27 @@ abstract public class AbstractInstantCommand<T extends AbstractResponse, V exten
 	public abstract ResponseContainer<T> readResponse(Node resultNode, V options);
 
 	public ResponseContainer<T> executeCommand(V options) {
-		buildXmlRequest(options);
-		String xml = getXML();
-		log.debug("XML Request is {}", xml);
-		Node resultNode = runApi(xml);
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long callStartNanos = System.nanoTime();
+		try {
+			long startNanos = System.nanoTime();
+			buildXmlRequest(options);
+			String xml = getXML();
+			recordPhase(EngageMetrics.PHASE_BUILD, EngageMetrics.OUTCOME_SUCCESS, startNanos);
+			log.debug("XML Request is {}", xml);
+			Node resultNode = runApi(xml);
 
-		return readResponse(resultNode, options);
+			startNanos = System.nanoTime();
+			ResponseContainer<T> response = readResponse(resultNode, options);
+			recordPhase(EngageMetrics.PHASE_READ, EngageMetrics.OUTCOME_SUCCESS, startNanos);
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
+
+			return response;
+		} catch (RuntimeException e) {
+			outcome = EngageMetrics.getOutcome(e);
+			throw e;
+		} finally {
+			recordCall(outcome, callStartNanos);
+		}
 	}
 }
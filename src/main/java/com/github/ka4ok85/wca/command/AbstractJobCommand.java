@@ -2,6 +2,7 @@ package com.github.ka4ok85.wca.command;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -17,6 +18,7 @@ import org.w3c.dom.NodeList;
 import com.github.ka4ok85.wca.exceptions.BadApiResultException;
 import com.github.ka4ok85.wca.exceptions.EngageApiException;
 import com.github.ka4ok85.wca.exceptions.JobBadStateException;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.options.AbstractOptions;
 import com.github.ka4ok85.wca.options.JobOptions;
 import com.github.ka4ok85.wca.processor.JobProcessor;
@@ -32,24 +34,94 @@ abstract public class AbstractJobCommand<T extends AbstractResponse, V extends A
 	private String jobIdPath = "JOB_ID";
 	private String jobParametersPath = "*";
 	private boolean allowRetry = true;
+	private Consumer<JobPollingContainer> jobSubmittedListener;
 
 	public abstract ResponseContainer<T> readResponse(JobPollingContainer jobPollingContainer, JobResponse jobResponse,
 			V options);
 
 	@Retryable(value = EngageApiException.class, maxAttempts = 5, backoff = @Backoff(delay = 5000, multiplier = 2))
 	public ResponseContainer<T> executeCommand(V options) {
-		buildXmlRequest(options);
-		String xml = getXML();
-		log.debug("XML Request is {}", xml);
+		JobPollingContainer jobPollingContainer;
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long callStartNanos = System.nanoTime();
+		try {
+			resetUploadNanos();
+			long startNanos = System.nanoTime();
+			buildXmlRequest(options);
+			String xml = getXML();
+			// uploads done while building are recorded as upload phase
+			recordPhase(EngageMetrics.PHASE_BUILD, EngageMetrics.OUTCOME_SUCCESS, startNanos + getUploadNanos());
+			log.debug("XML Request is {}", xml);
+
+			Node resultNode = runApi(xml);
+
+			jobPollingContainer = readStartPollingResponse(resultNode);
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
+		} catch (RuntimeException e) {
+			outcome = EngageMetrics.getOutcome(e);
+			throw e;
+		} finally {
+			recordCall(outcome, callStartNanos);
+		}
+
+		if (isResubmitAllowed(options) == false) {
+			try {
+				if (jobSubmittedListener != null) {
+					jobSubmittedListener.accept(jobPollingContainer);
+				}
+
+				return waitForResponse(jobPollingContainer, options, false);
+			} catch (EngageApiException e) {
+				// retry would submit job again, caller resumes it by Job ID
+				throw new JobBadStateException("Job " + jobPollingContainer.getJobId()
+						+ " is submitted and is not submitted again: " + e.getMessage());
+			}
+		}
+
+		return waitForResponse(jobPollingContainer, options, allowRetry);
+	}
 
-		Node resultNode = runApi(xml);
+	/**
+	 * Waits for job which was already submitted, e.g. by previous process
+	 * which saved it from listener set through
+	 * {@link #setJobSubmittedListener(Consumer)}, and reads its response. Job
+	 * is never submitted again.
+	 * 
+	 * @param jobPollingContainer
+	 *            - Job ID and parameters returned when job was submitted
+	 * @param options
+	 *            - settings job was submitted with
+	 * @return POJO response
+	 */
+	public ResponseContainer<T> resumeCommand(JobPollingContainer jobPollingContainer, V options) {
+		return waitForResponse(jobPollingContainer, options, false);
+	}
 
-		JobPollingContainer jobPollingContainer = readStartPollingResponse(resultNode);
+	private ResponseContainer<T> waitForResponse(JobPollingContainer jobPollingContainer, V options,
+			boolean allowRetry) {
+		JobResponse jobResponse = JobProcessor.waitUntilJobIsCompleted(new JobOptions(jobPollingContainer.getJobId()),
+				oAuthClient, sftp, new WaitForJobCommand(), allowRetry, metrics, getApiMethodName());
+		if (jobResponse == null) {
+			throw new EngageApiException("Job " + jobPollingContainer.getJobId() + " is not completed in time");
+		}
 
-		JobResponse jobResponse = JobProcessor.waitUntilJobIsCompleted(new JobOptions(jobPollingContainer.getJobId()), oAuthClient,
-				sftp, new WaitForJobCommand(), allowRetry);
+		long startNanos = System.nanoTime();
+		ResponseContainer<T> response = readResponse(jobPollingContainer, jobResponse, options);
+		recordPhase(EngageMetrics.PHASE_READ, EngageMetrics.OUTCOME_SUCCESS, startNanos);
 
-		return readResponse(jobPollingContainer, jobResponse, options);
+		return response;
+	}
+
+	/**
+	 * Retry of failed call submits new job. It is not allowed when listener
+	 * is set, since listener owner has already recorded submitted job.
+	 * 
+	 * @param options
+	 *            - settings for API call
+	 * @return true if failed call may be repeated with new job
+	 */
+	protected boolean isResubmitAllowed(V options) {
+		return jobSubmittedListener == null;
 	}
 
 	private JobPollingContainer readStartPollingResponse(Node resultNode) {
@@ -96,6 +168,30 @@ abstract public class AbstractJobCommand<T extends AbstractResponse, V extends A
 	protected void setAllowRetry(boolean allowRetry) {
 		this.allowRetry = allowRetry;
 	}
+
+	/**
+	 * @param jobSubmittedListener
+	 *            - called with Job ID and parameters as soon as job is
+	 *            submitted, before waiting for it. Failed call is not retried
+	 *            with new job when listener is set.
+	 */
+	public void setJobSubmittedListener(Consumer<JobPollingContainer> jobSubmittedListener) {
+		this.jobSubmittedListener = jobSubmittedListener;
+	}
+
+	/**
+	 * Downloads file produced by job from SFTP download directory.
+	 * 
+	 * @param remoteFileName
+	 *            - file name returned by job, nothing is downloaded if empty
+	 * @param localAbsoluteFilePath
+	 *            - local path, nothing is downloaded if null
+	 */
+	protected void downloadFile(String remoteFileName, String localAbsoluteFilePath) {
+		if (localAbsoluteFilePath != null && remoteFileName != null && remoteFileName.isEmpty() == false) {
+			sftp.download(remoteFileName, localAbsoluteFilePath);
+		}
+	}
 	
 	
 }
@@ -28,6 +28,8 @@ import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataClicks;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataInboxMonitoring;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataTopDomain;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingMetric;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable;
 import com.github.ka4ok85.wca.utils.DateTimeRange;
 
 /**
@@ -150,6 +152,8 @@ public class GetAggregateTrackingForOrgCommand
 		List<AggregateTrackingDataClicks> clicks = new ArrayList<AggregateTrackingDataClicks>();
 		List<AggregateTrackingDataInboxMonitoring> inboxMonitorings = new ArrayList<AggregateTrackingDataInboxMonitoring>();
 		List<AggregateTrackingDataMailing> mailings = new ArrayList<AggregateTrackingDataMailing>();
+		AggregateTrackingMailingTable mailingTable = options.isCompactMailings() ? new AggregateTrackingMailingTable()
+				: null;
 		List<AggregateTrackingDataTopDomain> topDomains = new ArrayList<AggregateTrackingDataTopDomain>();
 
 		final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.0");
@@ -205,8 +209,13 @@ public class GetAggregateTrackingForOrgCommand
 			NodeList mailingsNode = (NodeList) xpath.evaluate("Mailing", resultNode, XPathConstants.NODESET);
 			Node mailingNode;
 			for (int i = 0; i < mailingsNode.getLength(); i++) {
-				AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
 				mailingNode = mailingsNode.item(i);
+				if (mailingTable != null) {
+					readMailingRow(mailingNode, mailingTable, formatter);
+					continue;
+				}
+
+				AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
 				mailing.setMailingId(Long.parseLong(
 						((Node) xpath.evaluate("MailingId", mailingNode, XPathConstants.NODE)).getTextContent()));
 				mailing.setMailingName(
@@ -385,6 +394,7 @@ public class GetAggregateTrackingForOrgCommand
 			getAggregateTrackingForOrgResponse.setClicks(clicks);
 			getAggregateTrackingForOrgResponse.setInboxMonitorings(inboxMonitorings);
 			getAggregateTrackingForOrgResponse.setMailings(mailings);
+			getAggregateTrackingForOrgResponse.setMailingTable(mailingTable);
 			getAggregateTrackingForOrgResponse.setTopDomains(topDomains);
 
 		} catch (XPathExpressionException | JobBadStateException e) {
@@ -396,4 +406,44 @@ public class GetAggregateTrackingForOrgCommand
 
 		return response;
 	}
+
+	/**
+	 * Reads Mailing node straight into new row of table, values are not
+	 * boxed. Elements which are not present in node are kept as missing.
+	 *
+	 * @param mailingNode
+	 *            - "Mailing" XML Node returned by API
+	 * @param mailingTable
+	 *            - table which row is appended to
+	 * @param formatter
+	 *            - format of Sent Date Time
+	 */
+	private void readMailingRow(Node mailingNode, AggregateTrackingMailingTable mailingTable,
+			DateTimeFormatter formatter) {
+		int row = mailingTable.addRow();
+		NodeList valueNodes = mailingNode.getChildNodes();
+		for (int i = 0; i < valueNodes.getLength(); i++) {
+			Node valueNode = valueNodes.item(i);
+			if (valueNode.getNodeType() != Node.ELEMENT_NODE) {
+				continue;
+			}
+
+			String name = valueNode.getNodeName();
+			String value = valueNode.getTextContent();
+			if (name.equals("MailingId")) {
+				mailingTable.setMailingId(row, Long.parseLong(value));
+			} else if (name.equals("ReportId")) {
+				mailingTable.setReportId(row, Long.parseLong(value));
+			} else if (name.equals("MailingName")) {
+				mailingTable.setMailingName(row, value);
+			} else if (name.equals("SentDateTime")) {
+				mailingTable.setSentDateTime(row, LocalDateTime.parse(value, formatter));
+			} else {
+				AggregateTrackingMailingMetric metric = AggregateTrackingMailingMetric.forElementName(name);
+				if (metric != null) {
+					mailingTable.set(row, metric, Long.parseLong(value));
+				}
+			}
+		}
+	}
 }
@@ -57,13 +57,13 @@ public class ImportListCommand extends AbstractJobCommand<ImportListResponse, Im
 		currentNode = addChildNode(methodElement, null);
 
 		File file = new File(options.getMapFile());
-		sftp.upload(options.getMapFile(), file.getName());
+		upload(options.getMapFile(), file.getName());
 		Element mapFile = doc.createElement("MAP_FILE");
 		mapFile.setTextContent(file.getName());
 		addChildNode(mapFile, currentNode);
 
 		file = new File(options.getSourceFile());
-		sftp.upload(options.getSourceFile(), file.getName());
+		upload(options.getSourceFile(), file.getName());
 		Element sourceFile = doc.createElement("SOURCE_FILE");
 		sourceFile.setTextContent(file.getName());
 		addChildNode(sourceFile, currentNode);
@@ -107,6 +107,9 @@ public class ImportListCommand extends AbstractJobCommand<ImportListResponse, Im
 		Long totalRowsNumber = Long.valueOf(jobResponse.getParameters().get("TOTAL_ROWS"));
 		Long totalValidNumber = Long.valueOf(jobResponse.getParameters().get("TOTAL_VALID"));
 
+		downloadFile(errorFileName, options.getLocalErrorFilePath());
+		downloadFile(resultsFileName, options.getLocalResultsFilePath());
+
 		importListResponse.setBadAddressesNumber(badAddressesNumber);
 		importListResponse.setBadRecordsNumber(badRecordsNumber);
 		importListResponse.setCalculateListJobId(calculateListJobId);
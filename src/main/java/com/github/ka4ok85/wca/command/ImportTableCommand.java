@@ -55,13 +55,17 @@ public class ImportTableCommand extends AbstractJobCommand<ImportTableResponse,
 		currentNode = addChildNode(methodElement, null);
 
 		File file = new File(options.getMapFile());
-		sftp.upload(options.getMapFile(), file.getName());
+		if (options.isUploaded() == false) {
+			upload(options.getMapFile(), file.getName());
+		}
 		Element mapFile = doc.createElement("MAP_FILE");
 		mapFile.setTextContent(file.getName());
 		addChildNode(mapFile, currentNode);
 
 		file = new File(options.getSourceFile());
-		sftp.upload(options.getSourceFile(), file.getName());
+		if (options.isUploaded() == false) {
+			upload(options.getSourceFile(), file.getName());
+		}
 		Element sourceFile = doc.createElement("SOURCE_FILE");
 		sourceFile.setTextContent(file.getName());
 		addChildNode(sourceFile, currentNode);
@@ -104,6 +108,9 @@ public class ImportTableCommand extends AbstractJobCommand<ImportTableResponse,
 		Long totalRowsNumber = Long.valueOf(jobResponse.getParameters().get("TOTAL_ROWS"));
 		Long totalValidNumber = Long.valueOf(jobResponse.getParameters().get("TOTAL_VALID"));
 
+		downloadFile(errorFileName, options.getLocalErrorFilePath());
+		downloadFile(resultsFileName, options.getLocalResultsFilePath());
+
 		importTableResponse.setBadAddressesNumber(badAddressesNumber);
 		importTableResponse.setBadRecordsNumber(badRecordsNumber);
 		importTableResponse.setCalculateListJobId(calculateListJobId);
@@ -350,6 +350,19 @@ public class RawRecipientDataExportCommand
 		}
 	}
 
+	/**
+	 * WCA marks events as exported when All Non Exported job is submitted, so
+	 * new job would not contain events of failed one.
+	 * 
+	 * @param options
+	 *            - settings for API call
+	 * @return true if failed call may be repeated with new job
+	 */
+	@Override
+	protected boolean isResubmitAllowed(RawRecipientDataExportOptions options) {
+		return super.isResubmitAllowed(options) && options.isAllNonExported() == false;
+	}
+
 	/**
 	 * Reads RawRecipientDataExport API response into
 	 * {@link com.github.ka4ok85.wca.response.RawRecipientDataExportResponse}
@@ -0,0 +1,32 @@
+package com.github.ka4ok85.wca.constants;
+
+public enum RawRecipientDataEventType {
+	SENT("Sent"), SUPPRESSED("Suppressed"), OPEN("Open"), CLICK_THROUGH("Click Through"), CLICKSTREAM(
+			"Clickstream"), CONVERSION("Conversion"), ATTACHMENT("Attachment"), MEDIA("Media"), FORWARD(
+					"Forward"), OPT_IN("Opt In"), OPT_OUT("Opt Out"), REPLY_ABUSE(
+							"Reply Abuse"), REPLY_CHANGE_ADDRESS("Reply Change Address"), REPLY_MAIL_BLOCK(
+									"Reply Mail Block"), REPLY_MAIL_RESTRICTION("Reply Mail Restriction"), REPLY_OTHER(
+											"Reply Other"), HARD_BOUNCE("Hard Bounce"), SOFT_BOUNCE(
+													"Soft Bounce"), SMS_ERROR("SMS Error"), SMS_REJECT(
+															"SMS Reject"), SMS_OPT_OUT("SMS Opt Out"), UNKNOWN("");
+
+	private String value;
+
+	private RawRecipientDataEventType(String value) {
+		this.value = value;
+	}
+
+	public String value() {
+		return value;
+	}
+
+	public static RawRecipientDataEventType getEventType(String value) {
+		for (RawRecipientDataEventType eventType : RawRecipientDataEventType.values()) {
+			if (eventType != UNKNOWN && eventType.value.equalsIgnoreCase(value)) {
+				return eventType;
+			}
+		}
+
+		return UNKNOWN;
+	}
+}
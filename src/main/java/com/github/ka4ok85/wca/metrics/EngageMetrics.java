@@ -0,0 +1,172 @@
+package com.github.ka4ok85.wca.metrics;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.github.ka4ok85.wca.exceptions.BadApiResultException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * <strong>Records API, job, SFTP and Access Token metrics into Micrometer
+ * {@link MeterRegistry}.</strong>
+ * <p>
+ * Meters:
+ * </p>
+ * <ul>
+ * <li>wca.api.call - timer of whole API call by method, pod and outcome</li>
+ * <li>wca.api.phase - timer of build, upload, http, parse and read phases by
+ * method, pod, phase and outcome, SFTP uploads done while request is built
+ * are recorded as upload phase and are not included in build phase</li>
+ * <li>wca.api.faults - counter of API faults by method, pod and fault string
+ * with numbers replaced by #</li>
+ * <li>wca.job.queue and wca.job.run - timers of time job spent waiting and
+ * running by method, pod and outcome, measured by GetJobStatus polls</li>
+ * <li>wca.job.polls - summary of GetJobStatus polls per job by method and
+ * pod</li>
+ * <li>wca.sftp.transfer - timer of transfer by direction and outcome</li>
+ * <li>wca.sftp.bytes - counter of transferred bytes by direction</li>
+ * <li>wca.sftp.throughput - summary of bytes per second of transfer by
+ * direction</li>
+ * <li>wca.oauth.refresh - timer of Access Token refresh by pod and
+ * outcome</li>
+ * </ul>
+ * <p>
+ * Timers publish percentile histograms, so percentiles can be aggregated
+ * across instances.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class EngageMetrics {
+
+	public static final String OUTCOME_SUCCESS = "success";
+	public static final String OUTCOME_FAULT = "fault";
+	public static final String OUTCOME_ERROR = "error";
+	public static final String OUTCOME_CANCELED = "canceled";
+	public static final String OUTCOME_TIMEOUT = "timeout";
+
+	public static final String PHASE_BUILD = "build";
+	public static final String PHASE_UPLOAD = "upload";
+	public static final String PHASE_HTTP = "http";
+	public static final String PHASE_PARSE = "parse";
+	public static final String PHASE_READ = "read";
+
+	public static final String DIRECTION_DOWNLOAD = "download";
+	public static final String DIRECTION_UPLOAD = "upload";
+
+	private static final int maxFaultLength = 100;
+	private static final Pattern quotedValue = Pattern.compile("'[^']*'|\"[^\"]*\"");
+	private static final Pattern email = Pattern.compile("[^\\s'\"<>]+@[^\\s'\"<>]+");
+	private static final Pattern number = Pattern.compile("[0-9]+");
+
+	private final MeterRegistry registry;
+
+	public EngageMetrics(MeterRegistry registry) {
+		this.registry = Objects.requireNonNull(registry, "MeterRegistry must not be null");
+	}
+
+	public MeterRegistry getRegistry() {
+		return registry;
+	}
+
+	public void recordApiCall(String method, int podNumber, String outcome, long nanos) {
+		Timer.builder("wca.api.call").description("WCA API call duration").tag("method", method)
+				.tag("pod", String.valueOf(podNumber)).tag("outcome", outcome).publishPercentileHistogram()
+				.register(registry).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void recordApiPhase(String method, int podNumber, String phase, String outcome, long nanos) {
+		Timer.builder("wca.api.phase").description("WCA API call phase duration").tag("method", method)
+				.tag("pod", String.valueOf(podNumber)).tag("phase", phase).tag("outcome", outcome)
+				.publishPercentileHistogram().register(registry).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param method
+	 *            - API method name
+	 * @param podNumber
+	 *            - pod number
+	 * @param faultString
+	 *            - Fault String returned by API, quoted values, emails and
+	 *            numbers are masked to keep recipient data out of tags and
+	 *            number of tags bounded
+	 */
+	public void recordFault(String method, int podNumber, String faultString) {
+		Counter.builder("wca.api.faults").description("WCA API faults").tag("method", method)
+				.tag("pod", String.valueOf(podNumber)).tag("fault", normalizeFault(faultString)).register(registry)
+				.increment();
+	}
+
+	/**
+	 * @param method
+	 *            - API method name which started job
+	 * @param podNumber
+	 *            - pod number
+	 * @param outcome
+	 *            - success, error, canceled or timeout
+	 * @param queueNanos
+	 *            - time until job was seen not waiting
+	 * @param runNanos
+	 *            - time job was seen running
+	 * @param polls
+	 *            - number of GetJobStatus calls
+	 */
+	public void recordJob(String method, int podNumber, String outcome, long queueNanos, long runNanos, int polls) {
+		String pod = String.valueOf(podNumber);
+		Timer.builder("wca.job.queue").description("WCA job time in queue").tag("method", method).tag("pod", pod)
+				.tag("outcome", outcome).publishPercentileHistogram().register(registry)
+				.record(queueNanos, TimeUnit.NANOSECONDS);
+		Timer.builder("wca.job.run").description("WCA job running time").tag("method", method).tag("pod", pod)
+				.tag("outcome", outcome).publishPercentileHistogram().register(registry)
+				.record(runNanos, TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("wca.job.polls").description("GetJobStatus polls per job").tag("method", method)
+				.tag("pod", pod).register(registry).record(polls);
+	}
+
+	public void recordSftpTransfer(String direction, String outcome, long bytes, long nanos) {
+		Timer.builder("wca.sftp.transfer").description("SFTP transfer duration").tag("direction", direction)
+				.tag("outcome", outcome).publishPercentileHistogram().register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+		if (bytes > 0) {
+			Counter.builder("wca.sftp.bytes").description("SFTP transferred bytes").baseUnit("bytes")
+					.tag("direction", direction).register(registry).increment(bytes);
+			if (nanos > 0) {
+				DistributionSummary.builder("wca.sftp.throughput").description("SFTP transfer throughput")
+						.baseUnit("bytes/second").tag("direction", direction).register(registry)
+						.record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+			}
+		}
+	}
+
+	public void recordTokenRefresh(int podNumber, String outcome, long nanos) {
+		Timer.builder("wca.oauth.refresh").description("Access Token refresh duration")
+				.tag("pod", String.valueOf(podNumber)).tag("outcome", outcome).register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param exception
+	 *            - exception thrown by API call
+	 * @return fault for API faults, error otherwise
+	 */
+	public static String getOutcome(RuntimeException exception) {
+		return exception instanceof BadApiResultException ? OUTCOME_FAULT : OUTCOME_ERROR;
+	}
+
+	static String normalizeFault(String faultString) {
+		if (faultString == null || faultString.trim().isEmpty()) {
+			return "unknown";
+		}
+
+		String fault = quotedValue.matcher(faultString.trim()).replaceAll("<value>");
+		fault = email.matcher(fault).replaceAll("<email>");
+		fault = number.matcher(fault).replaceAll("#");
+
+		return fault.length() > maxFaultLength ? fault.substring(0, maxFaultLength) : fault;
+	}
+}
@@ -14,6 +14,7 @@ import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import com.github.ka4ok85.wca.exceptions.FailedGetAccessTokenException;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.pod.Pod;
 import com.github.ka4ok85.wca.response.AccessTokenResponse;
 
@@ -28,6 +29,7 @@ public class OAuthClientImplementation implements OAuthClient {
 	private String accessUrl;
 	private String accessToken = "";
 	private LocalDateTime accessTokenExpirationTime = LocalDateTime.MIN;
+	private EngageMetrics metrics;
 
 	private static final Logger log = LoggerFactory.getLogger(OAuthClientImplementation.class);
 
@@ -61,6 +63,8 @@ public class OAuthClientImplementation implements OAuthClient {
 		map.add("refresh_token", refreshToken);
 
 		HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<MultiValueMap<String, String>>(map, headers);
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long startNanos = System.nanoTime();
 		try {
 			RestTemplate restTemplate = new RestTemplate();
 			ResponseEntity<String> result = restTemplate.postForEntity(accessUrl, request, String.class);
@@ -72,9 +76,14 @@ public class OAuthClientImplementation implements OAuthClient {
 			accessToken = accessTokenResponse.getAccessToken();
 			accessTokenExpirationTime = LocalDateTime.now()
 					.plusSeconds(Integer.parseInt(accessTokenResponse.getAccessTokenExpirationTime()));
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
 		} catch (HttpStatusCodeException | FailedGetAccessTokenException e) {
 			log.error("Refresh Access Token API Call Error: {}" + e.getMessage());
 			throw new FailedGetAccessTokenException("Can not get Access Token");
+		} finally {
+			if (metrics != null) {
+				metrics.recordTokenRefresh(podNumber, outcome, System.nanoTime() - startNanos);
+			}
 		}
 	}
 
@@ -82,4 +91,17 @@ public class OAuthClientImplementation implements OAuthClient {
 		return podNumber;
 	}
 
+	public String getClientId() {
+		return clientId;
+	}
+
+	/**
+	 * @param metrics
+	 *            - metrics of Access Token refreshes, nothing is recorded if
+	 *            null
+	 */
+	public void setMetrics(EngageMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 }
@@ -1,6 +1,8 @@
 package com.github.ka4ok85.wca.options;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import com.github.ka4ok85.wca.constants.ExportFormat;
 import com.github.ka4ok85.wca.constants.FileEncoding;
@@ -30,6 +32,31 @@ public class ExportListOptions extends AbstractOptions {
 		this.listId = listId;
 	}
 
+	/**
+	 * Copy constructor. Export Columns list is copied, so copy can be changed
+	 * independently from source options.
+	 * 
+	 * @param options
+	 *            - source options
+	 */
+	public ExportListOptions(ExportListOptions options) {
+		super();
+		Objects.requireNonNull(options, "ExportListOptions must not be null");
+		this.listId = options.listId;
+		this.exportType = options.exportType;
+		this.exportFormat = options.exportFormat;
+		this.fileEncoding = options.fileEncoding;
+		this.includeRecipientId = options.includeRecipientId;
+		this.includeListId = options.includeListId;
+		this.includeLeadSource = options.includeLeadSource;
+		this.addToStoredFiles = options.addToStoredFiles;
+		this.lastModifiedRange = options.lastModifiedRange;
+		if (options.exportColumns != null) {
+			this.exportColumns = new ArrayList<String>(options.exportColumns);
+		}
+		this.localAbsoluteFilePath = options.localAbsoluteFilePath;
+	}
+
 	public Long getListId() {
 		return listId;
 	}
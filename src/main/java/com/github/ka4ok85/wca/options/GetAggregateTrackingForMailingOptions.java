@@ -7,6 +7,7 @@ public class GetAggregateTrackingForMailingOptions extends AbstractOptions {
 	private boolean topDomain;
 	private boolean inboxMonitoring;
 	private boolean perClick;
+	private boolean compactMailings;
 
 	public GetAggregateTrackingForMailingOptions(Long mailingId, Long reportId) {
 		super();
@@ -46,6 +47,20 @@ public class GetAggregateTrackingForMailingOptions extends AbstractOptions {
 		this.perClick = perClick;
 	}
 
+	public boolean isCompactMailings() {
+		return compactMailings;
+	}
+
+	/**
+	 * @param compactMailings
+	 *            - read mailings into
+	 *            {@link com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable}
+	 *            instead of list of POJOs
+	 */
+	public void setCompactMailings(boolean compactMailings) {
+		this.compactMailings = compactMailings;
+	}
+
 	public Long getMailingId() {
 		return mailingId;
 	}
@@ -57,7 +72,8 @@ public class GetAggregateTrackingForMailingOptions extends AbstractOptions {
 	@Override
 	public String toString() {
 		return "GetAggregateTrackingForMailingOptions [mailingId=" + mailingId + ", reportId=" + reportId
-				+ ", topDomain=" + topDomain + ", inboxMonitoring=" + inboxMonitoring + ", perClick=" + perClick + "]";
+				+ ", topDomain=" + topDomain + ", inboxMonitoring=" + inboxMonitoring + ", perClick=" + perClick
+				+ ", compactMailings=" + compactMailings + "]";
 	}
 
 }
@@ -19,6 +19,7 @@ public class GetAggregateTrackingForOrgOptions extends AbstractOptions {
 	private boolean inboxMonitoring;
 	private boolean perClick;
 	private boolean excludeTestMailings;
+	private boolean compactMailings;
 
 	public GetAggregateTrackingForOrgOptions(DateTimeRange dateTimeRange) {
 		super();
@@ -29,6 +30,33 @@ public class GetAggregateTrackingForOrgOptions extends AbstractOptions {
 		this.dateTimeRange = dateTimeRange;
 	}
 
+	/**
+	 * Copy constructor with other Date Time Range.
+	 * 
+	 * @param options
+	 *            - source options
+	 * @param dateTimeRange
+	 *            - Date Time Range of copy
+	 */
+	public GetAggregateTrackingForOrgOptions(GetAggregateTrackingForOrgOptions options, DateTimeRange dateTimeRange) {
+		this(dateTimeRange);
+		this.visibility = options.visibility;
+		this.scheduled = options.scheduled;
+		this.sent = options.sent;
+		this.sending = options.sending;
+		this.optinConfirmation = options.optinConfirmation;
+		this.profileConfirmation = options.profileConfirmation;
+		this.automated = options.automated;
+		this.campaignActive = options.campaignActive;
+		this.campaignCompleted = options.campaignCompleted;
+		this.campaignCancelled = options.campaignCancelled;
+		this.topDomain = options.topDomain;
+		this.inboxMonitoring = options.inboxMonitoring;
+		this.perClick = options.perClick;
+		this.excludeTestMailings = options.excludeTestMailings;
+		this.compactMailings = options.compactMailings;
+	}
+
 	public Visibility getVisibility() {
 		return visibility;
 	}
@@ -141,6 +169,20 @@ public class GetAggregateTrackingForOrgOptions extends AbstractOptions {
 		this.excludeTestMailings = excludeTestMailings;
 	}
 
+	public boolean isCompactMailings() {
+		return compactMailings;
+	}
+
+	/**
+	 * @param compactMailings
+	 *            - read mailings into
+	 *            {@link com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable}
+	 *            instead of list of POJOs
+	 */
+	public void setCompactMailings(boolean compactMailings) {
+		this.compactMailings = compactMailings;
+	}
+
 	public DateTimeRange getDateTimeRange() {
 		return dateTimeRange;
 	}
@@ -152,7 +194,8 @@ public class GetAggregateTrackingForOrgOptions extends AbstractOptions {
 				+ optinConfirmation + ", profileConfirmation=" + profileConfirmation + ", automated=" + automated
 				+ ", campaignActive=" + campaignActive + ", campaignCompleted=" + campaignCompleted
 				+ ", campaignCancelled=" + campaignCancelled + ", topDomain=" + topDomain + ", inboxMonitoring="
-				+ inboxMonitoring + ", perClick=" + perClick + ", excludeTestMailings=" + excludeTestMailings + "]";
+				+ inboxMonitoring + ", perClick=" + perClick + ", excludeTestMailings=" + excludeTestMailings
+				+ ", compactMailings=" + compactMailings + "]";
 	}
 
 }
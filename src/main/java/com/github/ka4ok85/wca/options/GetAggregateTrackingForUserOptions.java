@@ -20,6 +20,7 @@ public class GetAggregateTrackingForUserOptions extends AbstractOptions {
 	private boolean inboxMonitoring;
 	private boolean perClick;
 	private boolean excludeTestMailings;
+	private boolean compactMailings;
 
 	public GetAggregateTrackingForUserOptions(DateTimeRange dateTimeRange) {
 		super();
@@ -30,6 +31,34 @@ public class GetAggregateTrackingForUserOptions extends AbstractOptions {
 		this.dateTimeRange = dateTimeRange;
 	}
 
+	/**
+	 * Copy constructor with other Date Time Range.
+	 * 
+	 * @param options
+	 *            - source options
+	 * @param dateTimeRange
+	 *            - Date Time Range of copy
+	 */
+	public GetAggregateTrackingForUserOptions(GetAggregateTrackingForUserOptions options, DateTimeRange dateTimeRange) {
+		this(dateTimeRange);
+		this.optionalUser = options.optionalUser;
+		this.visibility = options.visibility;
+		this.scheduled = options.scheduled;
+		this.sent = options.sent;
+		this.sending = options.sending;
+		this.optinConfirmation = options.optinConfirmation;
+		this.profileConfirmation = options.profileConfirmation;
+		this.automated = options.automated;
+		this.campaignActive = options.campaignActive;
+		this.campaignCompleted = options.campaignCompleted;
+		this.campaignCancelled = options.campaignCancelled;
+		this.topDomain = options.topDomain;
+		this.inboxMonitoring = options.inboxMonitoring;
+		this.perClick = options.perClick;
+		this.excludeTestMailings = options.excludeTestMailings;
+		this.compactMailings = options.compactMailings;
+	}
+
 	public String getOptionalUser() {
 		return optionalUser;
 	}
@@ -150,6 +179,20 @@ public class GetAggregateTrackingForUserOptions extends AbstractOptions {
 		this.excludeTestMailings = excludeTestMailings;
 	}
 
+	public boolean isCompactMailings() {
+		return compactMailings;
+	}
+
+	/**
+	 * @param compactMailings
+	 *            - read mailings into
+	 *            {@link com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable}
+	 *            instead of list of POJOs
+	 */
+	public void setCompactMailings(boolean compactMailings) {
+		this.compactMailings = compactMailings;
+	}
+
 	public DateTimeRange getDateTimeRange() {
 		return dateTimeRange;
 	}
@@ -162,7 +205,7 @@ public class GetAggregateTrackingForUserOptions extends AbstractOptions {
 				+ ", automated=" + automated + ", campaignActive=" + campaignActive + ", campaignCompleted="
 				+ campaignCompleted + ", campaignCancelled=" + campaignCancelled + ", topDomain=" + topDomain
 				+ ", inboxMonitoring=" + inboxMonitoring + ", perClick=" + perClick + ", excludeTestMailings="
-				+ excludeTestMailings + "]";
+				+ excludeTestMailings + ", compactMailings=" + compactMailings + "]";
 	}
 
 }
@@ -21,4 +21,29 @@ public class GetListMetaDataOptions extends AbstractOptions {
 		return "GetListMetaDataOptions [listId=" + listId + "]";
 	}
 
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((listId == null) ? 0 : listId.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		GetListMetaDataOptions other = (GetListMetaDataOptions) obj;
+		if (listId == null) {
+			if (other.listId != null)
+				return false;
+		} else if (!listId.equals(other.listId))
+			return false;
+		return true;
+	}
+
 }
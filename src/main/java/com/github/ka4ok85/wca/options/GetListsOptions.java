@@ -61,4 +61,41 @@ public class GetListsOptions extends AbstractOptions {
 				+ ", includeAllLists=" + includeAllLists + ", includeTags=" + includeTags + "]";
 	}
 
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((folderId == null) ? 0 : folderId.hashCode());
+		result = prime * result + (includeAllLists ? 1231 : 1237);
+		result = prime * result + (includeTags ? 1231 : 1237);
+		result = prime * result + ((listType == null) ? 0 : listType.hashCode());
+		result = prime * result + ((visibility == null) ? 0 : visibility.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		GetListsOptions other = (GetListsOptions) obj;
+		if (folderId == null) {
+			if (other.folderId != null)
+				return false;
+		} else if (!folderId.equals(other.folderId))
+			return false;
+		if (includeAllLists != other.includeAllLists)
+			return false;
+		if (includeTags != other.includeTags)
+			return false;
+		if (listType != other.listType)
+			return false;
+		if (visibility != other.visibility)
+			return false;
+		return true;
+	}
+
 }
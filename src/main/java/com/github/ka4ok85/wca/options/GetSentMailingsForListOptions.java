@@ -37,6 +37,34 @@ public class GetSentMailingsForListOptions extends AbstractOptions {
 		this.dateTimeRange = dateTimeRange;
 	}
 
+	/**
+	 * Copy constructor with other Date Time Range.
+	 * 
+	 * @param options
+	 *            - source options
+	 * @param dateTimeRange
+	 *            - Date Time Range of copy
+	 */
+	public GetSentMailingsForListOptions(GetSentMailingsForListOptions options, DateTimeRange dateTimeRange) {
+		this(options.listId, dateTimeRange);
+		this.includeChildren = options.includeChildren;
+		this.visibility = options.visibility;
+		this.scheduled = options.scheduled;
+		this.send = options.send;
+		this.sending = options.sending;
+		this.optinConfirmation = options.optinConfirmation;
+		this.profileConfirmation = options.profileConfirmation;
+		this.automated = options.automated;
+		this.campaignActive = options.campaignActive;
+		this.campaignCompleted = options.campaignCompleted;
+		this.campaignCancelled = options.campaignCancelled;
+		this.campaignScrapeTemplate = options.campaignScrapeTemplate;
+		this.includeTags = options.includeTags;
+		this.excludeZeroSent = options.excludeZeroSent;
+		this.mailingCountOnly = options.mailingCountOnly;
+		this.excludeTestMailings = options.excludeTestMailings;
+	}
+
 	public Long getListId() {
 		return listId;
 	}
@@ -31,6 +31,34 @@ public class GetSentMailingsForUserOptions extends AbstractOptions {
 		this.dateTimeRange = dateTimeRange;
 	}
 
+	/**
+	 * Copy constructor with other Date Time Range.
+	 * 
+	 * @param options
+	 *            - source options
+	 * @param dateTimeRange
+	 *            - Date Time Range of copy
+	 */
+	public GetSentMailingsForUserOptions(GetSentMailingsForUserOptions options, DateTimeRange dateTimeRange) {
+		this(dateTimeRange);
+		this.visibility = options.visibility;
+		this.scheduled = options.scheduled;
+		this.send = options.send;
+		this.sending = options.sending;
+		this.optinConfirmation = options.optinConfirmation;
+		this.profileConfirmation = options.profileConfirmation;
+		this.automated = options.automated;
+		this.campaignActive = options.campaignActive;
+		this.campaignCompleted = options.campaignCompleted;
+		this.campaignCancelled = options.campaignCancelled;
+		this.campaignScrapeTemplate = options.campaignScrapeTemplate;
+		this.includeTags = options.includeTags;
+		this.excludeZeroSent = options.excludeZeroSent;
+		this.mailingCountOnly = options.mailingCountOnly;
+		this.excludeTestMailings = options.excludeTestMailings;
+		this.optionalUser = options.optionalUser;
+	}
+
 	public Visibility getVisibility() {
 		return visibility;
 	}
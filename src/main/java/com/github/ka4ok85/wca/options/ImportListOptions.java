@@ -8,6 +8,8 @@ public class ImportListOptions extends AbstractOptions {
 	private final String mapFile;
 	private final String sourceFile;
 	private FileEncoding fileEncoding = FileEncoding.UTF_8;
+	private String localErrorFilePath;
+	private String localResultsFilePath;
 
 	public ImportListOptions(String mapFile, String sourceFile) {
 		super();
@@ -41,10 +43,40 @@ public class ImportListOptions extends AbstractOptions {
 		this.fileEncoding = fileEncoding;
 	}
 
+	public String getLocalErrorFilePath() {
+		return localErrorFilePath;
+	}
+
+	/**
+	 * Error file is downloaded into given path when import job produces one.
+	 * Use {@link com.github.ka4ok85.wca.reader.ImportErrorFileReader} to read
+	 * rejected rows of CSV error file.
+	 * 
+	 * @param localErrorFilePath
+	 *            - local path for error file
+	 */
+	public void setLocalErrorFilePath(String localErrorFilePath) {
+		this.localErrorFilePath = localErrorFilePath;
+	}
+
+	public String getLocalResultsFilePath() {
+		return localResultsFilePath;
+	}
+
+	/**
+	 * Results file is downloaded into given path when import job produces one.
+	 * 
+	 * @param localResultsFilePath
+	 *            - local path for results file
+	 */
+	public void setLocalResultsFilePath(String localResultsFilePath) {
+		this.localResultsFilePath = localResultsFilePath;
+	}
+
 	@Override
 	public String toString() {
 		return "ImportListOptions [mapFile=" + mapFile + ", sourceFile=" + sourceFile + ", fileEncoding=" + fileEncoding
-				+ "]";
+				+ ", localErrorFilePath=" + localErrorFilePath + ", localResultsFilePath=" + localResultsFilePath + "]";
 	}
 
 }
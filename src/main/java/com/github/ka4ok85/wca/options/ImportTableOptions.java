@@ -7,7 +7,10 @@ import com.github.ka4ok85.wca.constants.FileEncoding;
 public class ImportTableOptions extends AbstractOptions {
 	private final String mapFile;
 	private final String sourceFile;
+	private final boolean isUploaded;
 	private FileEncoding fileEncoding = FileEncoding.UTF_8;
+	private String localErrorFilePath;
+	private String localResultsFilePath;
 
 	public ImportTableOptions(String mapFile, String sourceFile) {
 		super();
@@ -23,6 +26,36 @@ public class ImportTableOptions extends AbstractOptions {
 
 		this.mapFile = mapFile;
 		this.sourceFile = sourceFile;
+		this.isUploaded = false;
+	}
+
+	private ImportTableOptions(String mapFile, String sourceFile, boolean isUploaded) {
+		super();
+		this.mapFile = mapFile;
+		this.sourceFile = sourceFile;
+		this.isUploaded = isUploaded;
+	}
+
+	/**
+	 * Creates options for files which are already uploaded into SFTP upload
+	 * directory.
+	 * 
+	 * @param mapFile
+	 *            - name of uploaded map file
+	 * @param sourceFile
+	 *            - name of uploaded source file
+	 * @return options for uploaded files
+	 */
+	public static ImportTableOptions forUploadedFiles(String mapFile, String sourceFile) {
+		if (mapFile == null || mapFile.trim().isEmpty()) {
+			throw new RuntimeException("Map File must be non-empty String. Provided Map File = " + mapFile);
+		}
+
+		if (sourceFile == null || sourceFile.trim().isEmpty()) {
+			throw new RuntimeException("Source File must be non-empty String. Provided Source File = " + sourceFile);
+		}
+
+		return new ImportTableOptions(mapFile, sourceFile, true);
 	}
 
 	public FileEncoding getFileEncoding() {
@@ -33,6 +66,36 @@ public class ImportTableOptions extends AbstractOptions {
 		this.fileEncoding = fileEncoding;
 	}
 
+	public String getLocalErrorFilePath() {
+		return localErrorFilePath;
+	}
+
+	/**
+	 * Error file is downloaded into given path when import job produces one.
+	 * Use {@link com.github.ka4ok85.wca.reader.ImportErrorFileReader} to read
+	 * rejected rows of CSV error file.
+	 * 
+	 * @param localErrorFilePath
+	 *            - local path for error file
+	 */
+	public void setLocalErrorFilePath(String localErrorFilePath) {
+		this.localErrorFilePath = localErrorFilePath;
+	}
+
+	public String getLocalResultsFilePath() {
+		return localResultsFilePath;
+	}
+
+	/**
+	 * Results file is downloaded into given path when import job produces one.
+	 * 
+	 * @param localResultsFilePath
+	 *            - local path for results file
+	 */
+	public void setLocalResultsFilePath(String localResultsFilePath) {
+		this.localResultsFilePath = localResultsFilePath;
+	}
+
 	public String getMapFile() {
 		return mapFile;
 	}
@@ -41,10 +104,15 @@ public class ImportTableOptions extends AbstractOptions {
 		return sourceFile;
 	}
 
+	public boolean isUploaded() {
+		return isUploaded;
+	}
+
 	@Override
 	public String toString() {
-		return "ImportTableOptions [mapFile=" + mapFile + ", sourceFile=" + sourceFile + ", fileEncoding="
-				+ fileEncoding + "]";
+		return "ImportTableOptions [mapFile=" + mapFile + ", sourceFile=" + sourceFile + ", isUploaded="
+				+ isUploaded + ", fileEncoding=" + fileEncoding + ", localErrorFilePath=" + localErrorFilePath
+				+ ", localResultsFilePath=" + localResultsFilePath + "]";
 	}
 
 }
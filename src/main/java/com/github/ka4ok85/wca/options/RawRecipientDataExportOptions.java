@@ -1,7 +1,9 @@
 package com.github.ka4ok85.wca.options;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 
 import com.github.ka4ok85.wca.constants.ExportFormat;
 import com.github.ka4ok85.wca.constants.FileEncoding;
@@ -72,6 +74,81 @@ public class RawRecipientDataExportOptions extends AbstractOptions {
 	private List<String> columns;
 	private String localAbsoluteFilePath;
 
+	public RawRecipientDataExportOptions() {
+	}
+
+	/**
+	 * Copy constructor. Lists are copied, so copy can be changed independently
+	 * from source options.
+	 * 
+	 * @param options
+	 *            - source options
+	 */
+	public RawRecipientDataExportOptions(RawRecipientDataExportOptions options) {
+		Objects.requireNonNull(options, "RawRecipientDataExportOptions must not be null");
+		if (options.mailingReportId != null) {
+			this.mailingReportId = new ArrayList<HashMap<String, Long>>(options.mailingReportId);
+		}
+		this.campaignId = options.campaignId;
+		this.listId = options.listId;
+		this.includeChildren = options.includeChildren;
+		this.allNonExported = options.allNonExported;
+		this.eventRange = options.eventRange;
+		this.sendRange = options.sendRange;
+		this.exportFormat = options.exportFormat;
+		this.fileEncoding = options.fileEncoding;
+		this.returnFromAddress = options.returnFromAddress;
+		this.returnFromName = options.returnFromName;
+		this.exportFileName = options.exportFileName;
+		this.moveToFtp = options.moveToFtp;
+		this.visibility = options.visibility;
+		this.includeSentMailings = options.includeSentMailings;
+		this.includeSendingMailings = options.includeSendingMailings;
+		this.includeOptinConfirmationMailings = options.includeOptinConfirmationMailings;
+		this.includeProfileConfirmationMailings = options.includeProfileConfirmationMailings;
+		this.includeAutomatedMailings = options.includeAutomatedMailings;
+		this.includeCampaignActiveMailings = options.includeCampaignActiveMailings;
+		this.includeCampaignCompletedMailings = options.includeCampaignCompletedMailings;
+		this.includeCampaignCancelledMailings = options.includeCampaignCancelledMailings;
+		this.includeCampaignScrapeTemplateMailings = options.includeCampaignScrapeTemplateMailings;
+		this.includeTestMailings = options.includeTestMailings;
+		this.allEventTypes = options.allEventTypes;
+		this.eventSent = options.eventSent;
+		this.eventSuppressed = options.eventSuppressed;
+		this.eventOpens = options.eventOpens;
+		this.eventClicks = options.eventClicks;
+		this.eventOptins = options.eventOptins;
+		this.eventOptouts = options.eventOptouts;
+		this.eventForwards = options.eventForwards;
+		this.eventAttachments = options.eventAttachments;
+		this.eventConversions = options.eventConversions;
+		this.eventClickstreams = options.eventClickstreams;
+		this.eventHardBounces = options.eventHardBounces;
+		this.eventSoftBounces = options.eventSoftBounces;
+		this.eventReplyAbuse = options.eventReplyAbuse;
+		this.eventReplyCOA = options.eventReplyCOA;
+		this.eventReplyOther = options.eventReplyOther;
+		this.eventMailBlocks = options.eventMailBlocks;
+		this.eventMailRestrictions = options.eventMailRestrictions;
+		this.eventSMSError = options.eventSMSError;
+		this.eventSMSReject = options.eventSMSReject;
+		this.eventSMSOptout = options.eventSMSOptout;
+		this.includeSeeds = options.includeSeeds;
+		this.includeForwards = options.includeForwards;
+		this.includeInboxMonitoring = options.includeInboxMonitoring;
+		this.codedTypeFields = options.codedTypeFields;
+		this.excludeDeleted = options.excludeDeleted;
+		this.includeForwardsOnly = options.includeForwardsOnly;
+		this.returnMailingName = options.returnMailingName;
+		this.returnMailingSubject = options.returnMailingSubject;
+		this.returnCRMCampaignId = options.returnCRMCampaignId;
+		this.returnProgramId = options.returnProgramId;
+		if (options.columns != null) {
+			this.columns = new ArrayList<String>(options.columns);
+		}
+		this.localAbsoluteFilePath = options.localAbsoluteFilePath;
+	}
+
 	public List<HashMap<String, Long>> getMailingReportId() {
 		return mailingReportId;
 	}
@@ -91,4 +91,62 @@ public class SelectRecipientDataOptions extends AbstractOptions {
 				+ returnContactLists + ", keyColumns=" + keyColumns + "]";
 	}
 
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((email == null) ? 0 : email.hashCode());
+		result = prime * result + ((encodedRecipientId == null) ? 0 : encodedRecipientId.hashCode());
+		result = prime * result + ((keyColumns == null) ? 0 : keyColumns.hashCode());
+		result = prime * result + ((listId == null) ? 0 : listId.hashCode());
+		result = prime * result + ((recipientId == null) ? 0 : recipientId.hashCode());
+		result = prime * result + (returnContactLists ? 1231 : 1237);
+		result = prime * result + ((visitorKey == null) ? 0 : visitorKey.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SelectRecipientDataOptions other = (SelectRecipientDataOptions) obj;
+		if (email == null) {
+			if (other.email != null)
+				return false;
+		} else if (!email.equals(other.email))
+			return false;
+		if (encodedRecipientId == null) {
+			if (other.encodedRecipientId != null)
+				return false;
+		} else if (!encodedRecipientId.equals(other.encodedRecipientId))
+			return false;
+		if (keyColumns == null) {
+			if (other.keyColumns != null)
+				return false;
+		} else if (!keyColumns.equals(other.keyColumns))
+			return false;
+		if (listId == null) {
+			if (other.listId != null)
+				return false;
+		} else if (!listId.equals(other.listId))
+			return false;
+		if (recipientId == null) {
+			if (other.recipientId != null)
+				return false;
+		} else if (!recipientId.equals(other.recipientId))
+			return false;
+		if (returnContactLists != other.returnContactLists)
+			return false;
+		if (visitorKey == null) {
+			if (other.visitorKey != null)
+				return false;
+		} else if (!visitorKey.equals(other.visitorKey))
+			return false;
+		return true;
+	}
+
 }
@@ -3,6 +3,7 @@ package com.github.ka4ok85.wca.options;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
@@ -29,6 +30,33 @@ public class UpdateRecipientOptions extends AbstractOptions {
 		this.listId = listId;
 	}
 
+	/**
+	 * Copy constructor. Sync Fields and Columns maps are copied.
+	 * 
+	 * @param options
+	 *            - source options
+	 */
+	public UpdateRecipientOptions(UpdateRecipientOptions options) {
+		super();
+		Objects.requireNonNull(options, "UpdateRecipientOptions must not be null");
+		this.listId = options.listId;
+		this.oldEmail = options.oldEmail;
+		this.recipientId = options.recipientId;
+		this.encodedRecipientId = options.encodedRecipientId;
+		this.sendAutoReply = options.sendAutoReply;
+		this.allowHtml = options.allowHtml;
+		this.visitorKey = options.visitorKey;
+		this.isSnoozed = options.isSnoozed;
+		this.snoozeResumeSendDate = options.snoozeResumeSendDate;
+		this.snoozeDaysToSnooze = options.snoozeDaysToSnooze;
+		if (options.syncFields != null) {
+			this.syncFields = new HashMap<String, String>(options.syncFields);
+		}
+		if (options.columns != null) {
+			this.columns = new HashMap<String, String>(options.columns);
+		}
+	}
+
 	public String getOldEmail() {
 		return oldEmail;
 	}
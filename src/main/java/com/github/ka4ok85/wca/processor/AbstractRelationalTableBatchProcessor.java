@@ -0,0 +1,199 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+
+/**
+ * <strong>Base class for processors sending any number of Relational Table
+ * rows in batches.</strong>
+ * <p>
+ * Rows are split into batches limited by row count and by total length of
+ * column names and values, so every request envelope stays bounded. Batches
+ * are sent concurrently within in-flight limit, failures of all batches are
+ * merged and mapped to index of failed row in input. Exception of batch API
+ * call is reported as failure of every row of that batch, so other batches
+ * are still sent and reported.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public abstract class AbstractRelationalTableBatchProcessor {
+
+	public static final int maxBatchSize = 100;
+
+	private static final Logger log = LoggerFactory.getLogger(AbstractRelationalTableBatchProcessor.class);
+
+	protected final Engage engage;
+	protected final Long tableId;
+	private int batchSize = maxBatchSize;
+	private int maxBatchLength = 1024 * 1024;
+	private int maxInFlight = 4;
+
+	protected AbstractRelationalTableBatchProcessor(Engage engage, Long tableId) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		if (tableId == null || tableId < 1) {
+			throw new RuntimeException("Table ID must be greater than zero. Provided Table ID = " + tableId);
+		}
+
+		this.tableId = tableId;
+	}
+
+	public Long getTableId() {
+		return tableId;
+	}
+
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1 || batchSize > maxBatchSize) {
+			throw new RuntimeException(
+					"Batch Size must be between 1 and " + maxBatchSize + ". Provided Batch Size = " + batchSize);
+		}
+
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @param maxBatchLength
+	 *            - max total length of column names and values in single
+	 *            request. Batch always contains at least one row.
+	 */
+	public void setMaxBatchLength(int maxBatchLength) {
+		if (maxBatchLength < 1) {
+			throw new RuntimeException(
+					"Max Batch Length must be greater than zero. Provided Max Batch Length = " + maxBatchLength);
+		}
+
+		this.maxBatchLength = maxBatchLength;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new RuntimeException(
+					"Max In Flight must be greater than zero. Provided Max In Flight = " + maxInFlight);
+		}
+
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Sends all rows and waits for all responses.
+	 *
+	 * @param rows
+	 *            - column name/value pairs of rows
+	 * @return failures ordered by row index, including rows of batches which
+	 *         failed with exception
+	 */
+	protected List<RelationalTableRowFailure> process(Iterator<Map<String, String>> rows) {
+		Objects.requireNonNull(rows, "Rows must not be null");
+
+		ExecutorService executor = Executors.newFixedThreadPool(maxInFlight);
+		Semaphore permits = new Semaphore(maxInFlight);
+		List<Future<List<RelationalTableRowFailure>>> futures = new ArrayList<Future<List<RelationalTableRowFailure>>>();
+		try {
+			long rowIndex = 0;
+			Map<String, String> pendingRow = null;
+			while (pendingRow != null || rows.hasNext()) {
+				List<Map<String, String>> batch = new ArrayList<Map<String, String>>(batchSize);
+				long batchLength = 0;
+				while (batch.size() < batchSize && (pendingRow != null || rows.hasNext())) {
+					Map<String, String> row = pendingRow != null ? pendingRow : rows.next();
+					if (row == null || row.isEmpty()) {
+						throw new RuntimeException("Row can not be empty. Provided row index = " + rowIndex);
+					}
+
+					long rowLength = getLength(row);
+					if (batch.isEmpty() == false && batchLength + rowLength > maxBatchLength) {
+						pendingRow = row;
+						break;
+					}
+
+					pendingRow = null;
+					batch.add(row);
+					batchLength += rowLength;
+					rowIndex++;
+				}
+
+				long firstRowIndex = rowIndex - batch.size();
+				permits.acquire();
+				futures.add(executor.submit(() -> {
+					try {
+						return sendBatch(batch, firstRowIndex);
+					} catch (RuntimeException e) {
+						log.warn("Batch starting at row {} failed: {}", firstRowIndex, e.getMessage());
+						return RelationalTableRowFailure.map(batch, firstRowIndex, e);
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+
+			List<RelationalTableRowFailure> failures = new ArrayList<RelationalTableRowFailure>();
+			for (Future<List<RelationalTableRowFailure>> future : futures) {
+				failures.addAll(future.get());
+			}
+			failures.sort(Comparator.comparingLong(RelationalTableRowFailure::getRowIndex));
+
+			return failures;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new EngageApiException(e.getCause().getMessage());
+		} finally {
+			// rows of submitted batches must be written before caller gets
+			// result or exception
+			executor.shutdown();
+			try {
+				while (executor.awaitTermination(1, TimeUnit.MINUTES) == false) {
+					log.debug("Waiting for batches of table {}", tableId);
+				}
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Sends single batch.
+	 *
+	 * @param batch
+	 *            - rows for single API call
+	 * @param firstRowIndex
+	 *            - index of first batch row in input
+	 * @return failures mapped to rows
+	 */
+	protected abstract List<RelationalTableRowFailure> sendBatch(List<Map<String, String>> batch,
+			long firstRowIndex);
+
+	private static long getLength(Map<String, String> row) {
+		long length = 0;
+		for (Map.Entry<String, String> entry : row.entrySet()) {
+			length += entry.getKey().length();
+			if (entry.getValue() != null) {
+				length += entry.getValue().length();
+			}
+		}
+
+		return length;
+	}
+}
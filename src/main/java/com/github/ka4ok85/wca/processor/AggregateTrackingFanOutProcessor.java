@@ -0,0 +1,130 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.GetAggregateTrackingForMailingOptions;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForMailingResponse;
+
+/**
+ * <strong>Runs GetAggregateTrackingForMailing for many Mailing/Report ID pairs
+ * concurrently.</strong>
+ * <p>
+ * Number of calls in flight is limited by concurrency, start of calls can be
+ * additionally limited by Max Calls Per Second. Failure of single call is
+ * recorded in result and does not stop other calls.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class AggregateTrackingFanOutProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(AggregateTrackingFanOutProcessor.class);
+
+	private final Engage engage;
+	private int concurrency = 4;
+	private long callIntervalNanos = 0;
+	private long nextCallNanos = System.nanoTime();
+
+	public AggregateTrackingFanOutProcessor(Engage engage) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+	}
+
+	public void setConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new RuntimeException("Concurrency must be greater than zero. Provided Concurrency = " + concurrency);
+		}
+
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * @param maxCallsPerSecond
+	 *            - limit of calls started per second, zero means no limit
+	 */
+	public void setMaxCallsPerSecond(int maxCallsPerSecond) {
+		if (maxCallsPerSecond < 0) {
+			throw new RuntimeException("Max Calls Per Second must not be negative. Provided Max Calls Per Second = "
+					+ maxCallsPerSecond);
+		}
+
+		this.callIntervalNanos = maxCallsPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxCallsPerSecond;
+	}
+
+	/**
+	 * Runs all calls and waits for them.
+	 *
+	 * @param optionsList
+	 *            - settings of every call
+	 * @return responses merged by Mailing ID and failures of single calls
+	 */
+	public AggregateTrackingFanOutResult execute(Collection<GetAggregateTrackingForMailingOptions> optionsList) {
+		Objects.requireNonNull(optionsList, "Options must not be null");
+
+		AggregateTrackingFanOutResult result = new AggregateTrackingFanOutResult();
+		if (optionsList.isEmpty()) {
+			return result;
+		}
+
+		List<GetAggregateTrackingForMailingOptions> calls = new ArrayList<GetAggregateTrackingForMailingOptions>(
+				optionsList);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, calls.size()));
+		try {
+			List<Future<GetAggregateTrackingForMailingResponse>> futures = new ArrayList<Future<GetAggregateTrackingForMailingResponse>>();
+			for (GetAggregateTrackingForMailingOptions options : calls) {
+				futures.add(executor.submit(() -> {
+					awaitCallSlot();
+					return engage.getAggregateTrackingForMailing(options).getResposne();
+				}));
+			}
+
+			for (int i = 0; i < calls.size(); i++) {
+				try {
+					result.add(calls.get(i), futures.get(i).get());
+				} catch (ExecutionException e) {
+					RuntimeException exception = e.getCause() instanceof RuntimeException
+							? (RuntimeException) e.getCause() : new EngageApiException(e.getCause().getMessage());
+					log.debug("GetAggregateTrackingForMailing failed for {}: {}", calls.get(i), exception.getMessage());
+					result.addFailure(calls.get(i), exception);
+				}
+			}
+
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void awaitCallSlot() throws InterruptedException {
+		if (callIntervalNanos == 0) {
+			return;
+		}
+
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long slot = nextCallNanos - now > 0 ? nextCallNanos : now;
+			nextCallNanos = slot + callIntervalNanos;
+			waitNanos = slot - now;
+		}
+
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+}
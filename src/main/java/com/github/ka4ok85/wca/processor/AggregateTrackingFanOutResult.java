@@ -0,0 +1,74 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.ka4ok85.wca.options.GetAggregateTrackingForMailingOptions;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForMailingResponse;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+
+/**
+ * <strong>Merged outcome of
+ * {@link com.github.ka4ok85.wca.processor.AggregateTrackingFanOutProcessor}.</strong>
+ * <p>
+ * Successful responses are keyed by Mailing ID, responses of several Report
+ * IDs of single Mailing are merged into one. Failed calls are keyed by their
+ * options and do not affect other calls.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class AggregateTrackingFanOutResult {
+
+	private final Map<Long, GetAggregateTrackingForMailingResponse> responses = new LinkedHashMap<Long, GetAggregateTrackingForMailingResponse>();
+	private final Map<GetAggregateTrackingForMailingOptions, RuntimeException> failures = new LinkedHashMap<GetAggregateTrackingForMailingOptions, RuntimeException>();
+
+	void add(GetAggregateTrackingForMailingOptions options, GetAggregateTrackingForMailingResponse response) {
+		GetAggregateTrackingForMailingResponse merged = responses.get(options.getMailingId());
+		if (merged == null) {
+			responses.put(options.getMailingId(), response);
+			return;
+		}
+
+		merged.getClicks().addAll(response.getClicks());
+		merged.getInboxMonitorings().addAll(response.getInboxMonitorings());
+		merged.getTopDomains().addAll(response.getTopDomains());
+		if (merged.getMailingTable() == null) {
+			merged.getMailings().addAll(response.getMailings());
+		} else if (response.getMailingTable() != null) {
+			merged.getMailingTable().addAll(response.getMailingTable());
+		} else {
+			for (AggregateTrackingDataMailing mailing : response.getMailings()) {
+				merged.getMailingTable().add(mailing);
+			}
+		}
+	}
+
+	void addFailure(GetAggregateTrackingForMailingOptions options, RuntimeException exception) {
+		failures.put(options, exception);
+	}
+
+	/**
+	 * @return responses by Mailing ID in order of options
+	 */
+	public Map<Long, GetAggregateTrackingForMailingResponse> getResponses() {
+		return Collections.unmodifiableMap(responses);
+	}
+
+	/**
+	 * @return exceptions by options of failed calls
+	 */
+	public Map<GetAggregateTrackingForMailingOptions, RuntimeException> getFailures() {
+		return Collections.unmodifiableMap(failures);
+	}
+
+	public boolean hasFailures() {
+		return failures.isEmpty() == false;
+	}
+
+	@Override
+	public String toString() {
+		return "AggregateTrackingFanOutResult [responses=" + responses + ", failures=" + failures + "]";
+	}
+}
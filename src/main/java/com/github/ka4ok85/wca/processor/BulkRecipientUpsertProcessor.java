@@ -0,0 +1,355 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.FileEncoding;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.constants.ListColumnType;
+import com.github.ka4ok85.wca.constants.Visibility;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.ImportListOptions;
+import com.github.ka4ok85.wca.reader.ImportErrorFileReader;
+import com.github.ka4ok85.wca.reader.ImportRejection;
+import com.github.ka4ok85.wca.response.ImportListResponse;
+import com.github.ka4ok85.wca.utils.ImportMapper;
+import com.github.ka4ok85.wca.utils.ImportMapperListColumn;
+
+/**
+ * <strong>Bulk add/update of recipients through WCA ImportList API.</strong>
+ * <p>
+ * Rows are spooled into CSV chunk files limited by row count and size. Every
+ * chunk gets map file generated by
+ * {@link com.github.ka4ok85.wca.utils.ImportMapper} and is imported as
+ * separate ImportList job. Chunks are submitted in parallel while next chunk is
+ * spooled, counters of all jobs are aggregated into
+ * {@link com.github.ka4ok85.wca.processor.BulkUpsertResult}. Failed job does
+ * not stop other chunks, it is reported in result with row range of its chunk.
+ * Rows rejected by jobs are read from their error files when Collect
+ * Rejections is on.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class BulkRecipientUpsertProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(BulkRecipientUpsertProcessor.class);
+
+	private final Engage engage;
+	private final Long listId;
+	private final List<String> columns;
+	private final Map<String, ListColumnType> columnTypes = new HashMap<String, ListColumnType>();
+	private List<String> syncFields = new ArrayList<String>();
+	private List<Long> contactLists = new ArrayList<Long>();
+	private ImportMapperAction importMapperAction = ImportMapperAction.ADD_AND_UPDATE;
+	private FileEncoding fileEncoding = FileEncoding.UTF_8;
+	private String localDirectory = System.getProperty("java.io.tmpdir");
+	private int maxChunkRows = 500000;
+	private long maxChunkSize = 100L * 1024 * 1024;
+	private int concurrency = 4;
+	private boolean collectRejections = false;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param listId
+	 *            - Database ID
+	 * @param columns
+	 *            - column names in order of row values
+	 */
+	public BulkRecipientUpsertProcessor(Engage engage, Long listId, List<String> columns) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		if (listId == null || listId < 1) {
+			throw new RuntimeException("List ID must be greater than zero. Provided List ID = " + listId);
+		}
+
+		if (columns == null || columns.isEmpty()) {
+			throw new RuntimeException("At least one column is required");
+		}
+
+		this.listId = listId;
+		this.columns = new ArrayList<String>(columns);
+	}
+
+	public void setSyncFields(List<String> syncFields) {
+		if (syncFields == null) {
+			throw new RuntimeException("Sync Fields can not be null");
+		}
+
+		this.syncFields = new ArrayList<String>(syncFields);
+	}
+
+	public void setContactLists(List<Long> contactLists) {
+		if (contactLists == null) {
+			throw new RuntimeException("Contact Lists can not be null");
+		}
+
+		this.contactLists = new ArrayList<Long>(contactLists);
+	}
+
+	/**
+	 * Sets column type written to map file. Columns are TEXT by default.
+	 * 
+	 * @param column
+	 *            - column name
+	 * @param listColumnType
+	 *            - column type
+	 */
+	public void setColumnType(String column, ListColumnType listColumnType) {
+		if (columns.contains(column) == false) {
+			throw new RuntimeException("Unknown column. Provided column = " + column);
+		}
+
+		columnTypes.put(column, Objects.requireNonNull(listColumnType, "ListColumnType must not be null"));
+	}
+
+	/**
+	 * Sets import action. OPT_OUT action opts out recipients matched by row
+	 * values, Contact Lists are ignored for it.
+	 * 
+	 * @param importMapperAction
+	 *            - any action except CREATE
+	 */
+	public void setImportMapperAction(ImportMapperAction importMapperAction) {
+		if (importMapperAction == null || importMapperAction == ImportMapperAction.CREATE) {
+			throw new RuntimeException("Only Add Only, Update Only, Add And Update or Opt Out actions are supported");
+		}
+
+		this.importMapperAction = importMapperAction;
+	}
+
+	public void setFileEncoding(FileEncoding fileEncoding) {
+		this.fileEncoding = Objects.requireNonNull(fileEncoding, "FileEncoding must not be null");
+	}
+
+	public void setLocalDirectory(String localDirectory) {
+		this.localDirectory = Objects.requireNonNull(localDirectory, "Local Directory must not be null");
+	}
+
+	public void setMaxChunkRows(int maxChunkRows) {
+		if (maxChunkRows < 1) {
+			throw new RuntimeException(
+					"Max Chunk Rows must be greater than zero. Provided Max Chunk Rows = " + maxChunkRows);
+		}
+
+		this.maxChunkRows = maxChunkRows;
+	}
+
+	public void setMaxChunkSize(long maxChunkSize) {
+		if (maxChunkSize < 1) {
+			throw new RuntimeException(
+					"Max Chunk Size must be greater than zero. Provided Max Chunk Size = " + maxChunkSize);
+		}
+
+		this.maxChunkSize = maxChunkSize;
+	}
+
+	public void setConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new RuntimeException("Concurrency must be greater than zero. Provided Concurrency = " + concurrency);
+		}
+
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Downloads error file of every ImportList job and adds its rows to
+	 * result.
+	 * 
+	 * @param collectRejections
+	 *            - true to collect rejected rows
+	 */
+	public void setCollectRejections(boolean collectRejections) {
+		this.collectRejections = collectRejections;
+	}
+
+	Long getListId() {
+		return listId;
+	}
+
+	List<String> getColumns() {
+		return columns;
+	}
+
+	List<String> getSyncFields() {
+		return syncFields;
+	}
+
+	List<Long> getContactLists() {
+		return contactLists;
+	}
+
+	ImportMapperAction getImportMapperAction() {
+		return importMapperAction;
+	}
+
+	public BulkUpsertResult upsert(Stream<String[]> rows) {
+		Objects.requireNonNull(rows, "Rows must not be null");
+		try {
+			return upsert(rows.iterator());
+		} finally {
+			rows.close();
+		}
+	}
+
+	/**
+	 * Imports all rows and waits until every ImportList job is completed.
+	 * Row with wrong number of values stops spooling with exception, chunks
+	 * submitted before it are still imported.
+	 * 
+	 * @param rows
+	 *            - row values in column order
+	 * @return aggregated job counters and failed chunks
+	 */
+	public BulkUpsertResult upsert(Iterator<String[]> rows) {
+		Objects.requireNonNull(rows, "Rows must not be null");
+
+		String batchName = "upsert_" + listId + "_" + UUID.randomUUID().toString().replace("-", "");
+		Charset charset = Charset.forName(fileEncoding.value());
+		String[] header = columns.toArray(new String[columns.size()]);
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		Semaphore permits = new Semaphore(concurrency);
+		List<Future<ImportListResponse>> futures = new ArrayList<Future<ImportListResponse>>();
+		List<Long> firstRowIndexes = new ArrayList<Long>();
+		List<Integer> rowCounts = new ArrayList<Integer>();
+		List<List<ImportRejection>> chunkRejections = new ArrayList<List<ImportRejection>>();
+		try {
+			int chunkIndex = 0;
+			long rowIndex = 0;
+			while (rows.hasNext()) {
+				Path sourceFile = Paths.get(localDirectory, batchName + "_" + chunkIndex + ".csv");
+				Path mapFile = Paths.get(localDirectory, batchName + "_" + chunkIndex + ".xml");
+				int rowCount = 0;
+				try {
+					try (CsvFileWriter writer = new CsvFileWriter(sourceFile, charset)) {
+						writer.writeRecord(header);
+						while (rows.hasNext() && rowCount < maxChunkRows && writer.getBytesWritten() < maxChunkSize) {
+							String[] row = rows.next();
+							if (row == null || row.length != header.length) {
+								throw new RuntimeException("Row must have " + header.length
+										+ " values. Provided row has " + (row == null ? 0 : row.length) + " values");
+							}
+
+							writer.writeRecord(row);
+							rowCount++;
+						}
+					}
+
+					createMapper().generateMapFile(mapFile.toString());
+				} catch (IOException | RuntimeException e) {
+					Files.deleteIfExists(sourceFile);
+					Files.deleteIfExists(mapFile);
+					throw e;
+				}
+
+				log.debug("Spooled {} rows into chunk {}", rowCount, sourceFile);
+				Path errorFile = collectRejections ? Paths.get(localDirectory, batchName + "_" + chunkIndex + ".err")
+						: null;
+				List<ImportRejection> rejections = new ArrayList<ImportRejection>();
+				permits.acquire();
+				futures.add(executor.submit(() -> {
+					try {
+						return importChunk(mapFile, sourceFile, errorFile, rejections);
+					} finally {
+						permits.release();
+					}
+				}));
+				firstRowIndexes.add(rowIndex);
+				rowCounts.add(rowCount);
+				chunkRejections.add(rejections);
+				rowIndex += rowCount;
+				chunkIndex++;
+			}
+
+			BulkUpsertResult result = new BulkUpsertResult();
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					result.add(futures.get(i).get());
+					result.addRejections(chunkRejections.get(i));
+				} catch (ExecutionException e) {
+					RuntimeException exception = (e.getCause() instanceof RuntimeException)
+							? (RuntimeException) e.getCause()
+							: new EngageApiException(e.getCause().getMessage());
+					log.warn("ImportList job of chunk {} failed: {}", i, exception.getMessage());
+					result.addFailure(
+							new BulkUpsertChunkFailure(i, firstRowIndexes.get(i), rowCounts.get(i), exception));
+				}
+			}
+
+			return result;
+		} catch (IOException e) {
+			throw new EngageApiException("Can not spool rows into import file: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private ImportListResponse importChunk(Path mapFile, Path sourceFile, Path errorFile,
+			List<ImportRejection> rejections) throws IOException {
+		try {
+			ImportListOptions options = new ImportListOptions(mapFile.toString(), sourceFile.toString());
+			options.setFileEncoding(fileEncoding);
+			if (errorFile != null) {
+				options.setLocalErrorFilePath(errorFile.toString());
+			}
+
+			ImportListResponse response = engage.importList(options).getResposne();
+			if (errorFile != null && Files.exists(errorFile)) {
+				try (ImportErrorFileReader reader = new ImportErrorFileReader(errorFile.toString(), fileEncoding)) {
+					reader.forEach(rejections::add);
+				}
+			}
+
+			return response;
+		} finally {
+			Files.deleteIfExists(mapFile);
+			Files.deleteIfExists(sourceFile);
+			if (errorFile != null) {
+				Files.deleteIfExists(errorFile);
+			}
+		}
+	}
+
+	private ImportMapper createMapper() {
+		ImportMapper mapper = new ImportMapper(importMapperAction, Visibility.SHARED);
+		mapper.setListId(listId);
+		mapper.setSyncFields(syncFields);
+
+		List<ImportMapperListColumn> mapperColumns = new ArrayList<ImportMapperListColumn>();
+		for (String column : columns) {
+			mapperColumns.add(new ImportMapperListColumn(column,
+					columnTypes.getOrDefault(column, ListColumnType.TEXT), false, syncFields.contains(column), true,
+					null));
+		}
+		mapper.setColumns(mapperColumns);
+
+		if (contactLists.isEmpty() == false && importMapperAction != ImportMapperAction.OPT_OUT) {
+			mapper.setContactLists(contactLists);
+		}
+
+		return mapper;
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.ka4ok85.wca.processor;
+
+/**
+ * <strong>ImportList job of
+ * {@link com.github.ka4ok85.wca.processor.BulkRecipientUpsertProcessor} chunk
+ * which failed.</strong>
+ *
+ * @since 0.0.4
+ */
+public class BulkUpsertChunkFailure {
+
+	private final int chunkIndex;
+	private final long firstRowIndex;
+	private final int rowCount;
+	private final RuntimeException exception;
+
+	BulkUpsertChunkFailure(int chunkIndex, long firstRowIndex, int rowCount, RuntimeException exception) {
+		this.chunkIndex = chunkIndex;
+		this.firstRowIndex = firstRowIndex;
+		this.rowCount = rowCount;
+		this.exception = exception;
+	}
+
+	public int getChunkIndex() {
+		return chunkIndex;
+	}
+
+	/**
+	 * @return zero-based index of first chunk row in input
+	 */
+	public long getFirstRowIndex() {
+		return firstRowIndex;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public RuntimeException getException() {
+		return exception;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkUpsertChunkFailure [chunkIndex=" + chunkIndex + ", firstRowIndex=" + firstRowIndex
+				+ ", rowCount=" + rowCount + ", exception=" + exception + "]";
+	}
+}
@@ -0,0 +1,143 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.ka4ok85.wca.reader.ImportRejection;
+import com.github.ka4ok85.wca.response.ImportListResponse;
+
+/**
+ * <strong>Counters of all ImportList jobs submitted by
+ * {@link com.github.ka4ok85.wca.processor.BulkRecipientUpsertProcessor}.</strong>
+ * <p>
+ * Counters include successful jobs only. Failed jobs do not stop other chunks
+ * and are listed with row range of their chunk.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class BulkUpsertResult {
+
+	private int chunkCount;
+	private long totalRowsNumber;
+	private long totalValidNumber;
+	private long sqlAddedNumber;
+	private long sqlUpdatedNumber;
+	private long badRecordsNumber;
+	private long badAddressesNumber;
+	private long duplicatesNumber;
+	private long notAllowedNumber;
+	private final List<String> errorFileNames = new ArrayList<String>();
+	private final List<String> resultsFileNames = new ArrayList<String>();
+	private final List<BulkUpsertChunkFailure> failures = new ArrayList<BulkUpsertChunkFailure>();
+	private final List<ImportRejection> rejections = new ArrayList<ImportRejection>();
+
+	void add(ImportListResponse response) {
+		chunkCount++;
+		totalRowsNumber += valueOf(response.getTotalRowsNumber());
+		totalValidNumber += valueOf(response.getTotalValidNumber());
+		sqlAddedNumber += valueOf(response.getSqlAddedNumber());
+		sqlUpdatedNumber += valueOf(response.getSqlUpdatedNumber());
+		badRecordsNumber += valueOf(response.getBadRecordsNumber());
+		badAddressesNumber += valueOf(response.getBadAddressesNumber());
+		duplicatesNumber += valueOf(response.getDuplicatesNumber());
+		notAllowedNumber += valueOf(response.getNotAllowedNumber());
+		if (response.getErrorFileName() != null && response.getErrorFileName().isEmpty() == false) {
+			errorFileNames.add(response.getErrorFileName());
+		}
+
+		if (response.getResultsFileName() != null && response.getResultsFileName().isEmpty() == false) {
+			resultsFileNames.add(response.getResultsFileName());
+		}
+	}
+
+	void addRejections(List<ImportRejection> rejections) {
+		this.rejections.addAll(rejections);
+	}
+
+	void addFailure(BulkUpsertChunkFailure failure) {
+		failures.add(failure);
+	}
+
+	private static long valueOf(Long value) {
+		return value == null ? 0 : value;
+	}
+
+	/**
+	 * @return number of successfully imported chunks
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	public long getTotalRowsNumber() {
+		return totalRowsNumber;
+	}
+
+	public long getTotalValidNumber() {
+		return totalValidNumber;
+	}
+
+	public long getSqlAddedNumber() {
+		return sqlAddedNumber;
+	}
+
+	public long getSqlUpdatedNumber() {
+		return sqlUpdatedNumber;
+	}
+
+	public long getBadRecordsNumber() {
+		return badRecordsNumber;
+	}
+
+	public long getBadAddressesNumber() {
+		return badAddressesNumber;
+	}
+
+	public long getDuplicatesNumber() {
+		return duplicatesNumber;
+	}
+
+	public long getNotAllowedNumber() {
+		return notAllowedNumber;
+	}
+
+	public List<String> getErrorFileNames() {
+		return Collections.unmodifiableList(errorFileNames);
+	}
+
+	public List<String> getResultsFileNames() {
+		return Collections.unmodifiableList(resultsFileNames);
+	}
+
+	/**
+	 * @return failed chunks in chunk order
+	 */
+	public List<BulkUpsertChunkFailure> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	public boolean hasFailures() {
+		return failures.isEmpty() == false;
+	}
+
+	/**
+	 * @return rows rejected by successful jobs, collected only when Collect
+	 *         Rejections is on
+	 */
+	public List<ImportRejection> getRejections() {
+		return Collections.unmodifiableList(rejections);
+	}
+
+	@Override
+	public String toString() {
+		return "BulkUpsertResult [chunkCount=" + chunkCount + ", totalRowsNumber=" + totalRowsNumber
+				+ ", totalValidNumber=" + totalValidNumber + ", sqlAddedNumber=" + sqlAddedNumber
+				+ ", sqlUpdatedNumber=" + sqlUpdatedNumber + ", badRecordsNumber=" + badRecordsNumber
+				+ ", badAddressesNumber=" + badAddressesNumber + ", duplicatesNumber=" + duplicatesNumber
+				+ ", notAllowedNumber=" + notAllowedNumber + ", errorFileNames=" + errorFileNames
+				+ ", resultsFileNames=" + resultsFileNames + ", failures=" + failures
+				+ ", rejectionCount=" + rejections.size() + "]";
+	}
+}
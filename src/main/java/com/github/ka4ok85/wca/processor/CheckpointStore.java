@@ -0,0 +1,32 @@
+package com.github.ka4ok85.wca.processor;
+
+/**
+ * <strong>Durable key/value storage for processor progress.</strong>
+ * <p>
+ * Processors save watermarks and processed file names here, so interrupted
+ * work continues from last successful step after restart.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public interface CheckpointStore {
+
+	/**
+	 * @param key
+	 *            - checkpoint name
+	 * @return saved value or null if checkpoint does not exist
+	 */
+	String get(String key);
+
+	/**
+	 * Saves value. Value must be durable once method returns.
+	 * 
+	 * @param key
+	 *            - checkpoint name
+	 * @param value
+	 *            - checkpoint value
+	 */
+	void put(String key, String value);
+
+	void remove(String key);
+}
@@ -0,0 +1,78 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <strong>Writes CSV files uploaded to WCA by import processors.</strong>
+ * <p>
+ * Values containing comma, quote or line break are quoted, quotes are
+ * doubled.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+class CsvFileWriter implements Closeable {
+
+	private final BufferedWriter writer;
+	private long bytesWritten = 0;
+
+	CsvFileWriter(Path path, Charset charset) throws IOException {
+		this(Files.newOutputStream(path), charset);
+	}
+
+	CsvFileWriter(OutputStream outputStream, Charset charset) {
+		this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset));
+	}
+
+	void writeRecord(String[] values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				write(",");
+			}
+
+			String value = values[i] == null ? "" : values[i];
+			if (needsQuotes(value)) {
+				write("\"" + value.replace("\"", "\"\"") + "\"");
+			} else {
+				write(value);
+			}
+		}
+
+		write("\r\n");
+	}
+
+	/**
+	 * @return number of written characters, approximates file size
+	 */
+	long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	private void write(String value) throws IOException {
+		writer.write(value);
+		bytesWritten += value.length();
+	}
+
+	private static boolean needsQuotes(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
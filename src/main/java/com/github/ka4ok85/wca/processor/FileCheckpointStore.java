@@ -0,0 +1,80 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+
+/**
+ * <strong>{@link com.github.ka4ok85.wca.processor.CheckpointStore} backed by
+ * local properties file.</strong>
+ * <p>
+ * Every change rewrites temporary file, forces it to disk and atomically
+ * moves it over checkpoint file, so file is never left half-written.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+	private final Path path;
+	private final Properties properties = new Properties();
+
+	public FileCheckpointStore(String localAbsoluteFilePath) {
+		if (localAbsoluteFilePath == null || localAbsoluteFilePath.trim().isEmpty()) {
+			throw new RuntimeException("Local File Path must be non-empty String. Provided Local File Path = "
+					+ localAbsoluteFilePath);
+		}
+
+		this.path = Paths.get(localAbsoluteFilePath);
+		if (Files.exists(path)) {
+			try (InputStream input = Files.newInputStream(path)) {
+				properties.load(input);
+			} catch (IOException e) {
+				throw new EngageApiException("Can not read checkpoint file " + path + ": " + e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public synchronized String get(String key) {
+		return properties.getProperty(key);
+	}
+
+	@Override
+	public synchronized void put(String key, String value) {
+		properties.setProperty(key, value);
+		save();
+	}
+
+	@Override
+	public synchronized void remove(String key) {
+		if (properties.remove(key) != null) {
+			save();
+		}
+	}
+
+	private void save() {
+		Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				properties.store(Channels.newOutputStream(channel), null);
+				// content must reach disk before move makes it visible
+				channel.force(true);
+			}
+
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new EngageApiException("Can not write checkpoint file " + path + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.ExportListOptions;
+import com.github.ka4ok85.wca.reader.ParallelExportFileReader;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+/**
+ * <strong>Incremental synchronization of WCA List changes.</strong>
+ * <p>
+ * Keeps watermark per List in
+ * {@link com.github.ka4ok85.wca.processor.CheckpointStore}. Every sync exports
+ * only recipients modified between watermark and current time using Last
+ * Modified Range of ExportList API. First sync of List runs full export.
+ * Watermark is moved forward only after all rows were passed to consumer, so
+ * failed sync is repeated with the same window. Range boundaries are
+ * inclusive, so rows modified exactly at watermark may be delivered twice.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class IncrementalListSyncProcessor {
+
+	private static final String checkpointPrefix = "ExportList.lastModified.";
+	private static final Logger log = LoggerFactory.getLogger(IncrementalListSyncProcessor.class);
+
+	private final Engage engage;
+	private final CheckpointStore checkpointStore;
+	private Clock clock = Clock.systemDefaultZone();
+	private Duration overlap = Duration.ZERO;
+
+	public IncrementalListSyncProcessor(Engage engage, CheckpointStore checkpointStore) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		this.checkpointStore = Objects.requireNonNull(checkpointStore, "CheckpointStore must not be null");
+	}
+
+	/**
+	 * Sets clock used for window end. Clock time zone must match WCA
+	 * Organization time zone.
+	 * 
+	 * @param clock
+	 *            - current time source
+	 */
+	public void setClock(Clock clock) {
+		this.clock = Objects.requireNonNull(clock, "Clock must not be null");
+	}
+
+	/**
+	 * Sets how far back from watermark next window starts. Covers clock
+	 * difference between client and WCA.
+	 * 
+	 * @param overlap
+	 *            - window overlap
+	 */
+	public void setOverlap(Duration overlap) {
+		if (overlap == null || overlap.isNegative()) {
+			throw new RuntimeException("Overlap must be non-negative. Provided Overlap = " + overlap);
+		}
+
+		this.overlap = overlap;
+	}
+
+	public LocalDateTime getWatermark(Long listId) {
+		String value = checkpointStore.get(checkpointPrefix + listId);
+		return value == null ? null : LocalDateTime.parse(value);
+	}
+
+	/**
+	 * Removes watermark, so next sync of List runs full export.
+	 * 
+	 * @param listId
+	 *            - List ID
+	 */
+	public void resetWatermark(Long listId) {
+		checkpointStore.remove(checkpointPrefix + listId);
+	}
+
+	/**
+	 * Exports rows changed since last successful sync and passes them to
+	 * consumer in file order.
+	 * 
+	 * @param options
+	 *            - ExportList settings. Local File Path is required, Last
+	 *            Modified Range is replaced with computed window.
+	 * @param consumer
+	 *            - receives header and row values
+	 * @return number of rows passed to consumer
+	 */
+	public long sync(ExportListOptions options, BiConsumer<String[], String[]> consumer) {
+		Objects.requireNonNull(options, "ExportListOptions must not be null");
+		Objects.requireNonNull(consumer, "Consumer must not be null");
+		if (options.getLocalAbsoluteFilePath() == null) {
+			throw new RuntimeException("Local File Path is required for incremental sync");
+		}
+
+		LocalDateTime watermark = getWatermark(options.getListId());
+		LocalDateTime windowEnd = LocalDateTime.now(clock).truncatedTo(ChronoUnit.SECONDS);
+		ExportListOptions windowOptions = new ExportListOptions(options);
+		if (watermark == null) {
+			log.debug("No watermark for List {}, running full export", options.getListId());
+			windowOptions.setLastModifiedRange(null);
+		} else {
+			LocalDateTime windowStart = watermark.minus(overlap);
+			if (windowStart.isBefore(windowEnd) == false) {
+				return 0;
+			}
+
+			windowOptions.setLastModifiedRange(new DateTimeRange(windowStart, windowEnd));
+		}
+
+		engage.exportList(windowOptions);
+
+		AtomicLong count = new AtomicLong();
+		ParallelExportFileReader reader = new ParallelExportFileReader(windowOptions);
+		try {
+			String[] header = reader.getHeader();
+			try (Stream<String[]> rows = reader.stream(true)) {
+				rows.forEachOrdered(row -> {
+					consumer.accept(header, row);
+					count.incrementAndGet();
+				});
+			}
+
+			checkpointStore.put(checkpointPrefix + options.getListId(), windowEnd.toString());
+			Files.deleteIfExists(Paths.get(windowOptions.getLocalAbsoluteFilePath()));
+		} catch (IOException e) {
+			throw new EngageApiException("Can not read ExportList file: " + e.getMessage());
+		}
+
+		log.debug("Synchronized {} changed rows of List {} up to {}", count.get(), options.getListId(), windowEnd);
+
+		return count.get();
+	}
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import com.github.ka4ok85.wca.command.WaitForJobCommand;
 import com.github.ka4ok85.wca.exceptions.EngageApiException;
 import com.github.ka4ok85.wca.exceptions.JobBadStateException;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.oauth.OAuthClient;
 import com.github.ka4ok85.wca.options.JobOptions;
 import com.github.ka4ok85.wca.response.JobResponse;
@@ -21,48 +22,89 @@ public class JobProcessor {
 
 	public static JobResponse waitUntilJobIsCompleted(final JobOptions options, OAuthClient oAuthClient, SFTP sftp,
 			final WaitForJobCommand command, boolean allowRetry) {
+		return waitUntilJobIsCompleted(options, oAuthClient, sftp, command, allowRetry, null, null);
+	}
+
+	/**
+	 * Same as {@link #waitUntilJobIsCompleted(JobOptions, OAuthClient, SFTP, WaitForJobCommand, boolean)}
+	 * and records time job spent waiting and running, number of polls and final
+	 * job state. Job is considered running since first poll which does not
+	 * report it as waiting.
+	 * 
+	 * @param metrics
+	 *            - metrics, nothing is recorded if null
+	 * @param apiMethodName
+	 *            - name of API method which started job
+	 */
+	public static JobResponse waitUntilJobIsCompleted(final JobOptions options, OAuthClient oAuthClient, SFTP sftp,
+			final WaitForJobCommand command, boolean allowRetry, EngageMetrics metrics, String apiMethodName) {
 		command.setoAuthClient(oAuthClient);
 		command.setSftp(sftp);
+		command.setMetrics(metrics);
+
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		int polls = 0;
+		long startNanos = System.nanoTime();
+		long runStartNanos = 0;
+		boolean started = false;
+		try {
+			int currentApiExecutionTime = 0;
+			while (true) {
+				polls++;
+				ResponseContainer<JobResponse> result = command.executeCommand(options);
+				JobResponse response = result.getResposne();
+				if (started == false && response.isWaiting() == false) {
+					started = true;
+					runStartNanos = System.nanoTime();
+				}
 
-		int currentApiExecutionTime = 0;
-		while (true) {
-			ResponseContainer<JobResponse> result = command.executeCommand(options);
-			JobResponse response = result.getResposne();
+				log.debug("Current Execution Time for JOB ID {} is {} seconds", options.getJobId(),
+						currentApiExecutionTime);
+
+				if (response.isError()) {
+					// TODO: access error file
+					if (allowRetry) {
+						throw new EngageApiException("WaitForJobCommand failure: " + response.getJobDescription());
+					} else {
+						throw new RuntimeException(
+								"Non-retryable WaitForJobCommand failure: " + response.getJobDescription());
+					}
+				}
 
-			log.debug("Current Execution Time for JOB ID {} is {} seconds", options.getJobId(),
-					currentApiExecutionTime);
+				if (response.isCanceled()) {
+					outcome = EngageMetrics.OUTCOME_CANCELED;
+					throw new JobBadStateException("Job was canceled!");
+				}
 
-			if (response.isError()) {
-				// TODO: access error file
-				if (allowRetry) {
-					throw new EngageApiException("WaitForJobCommand failure: " + response.getJobDescription());
+				if (response.isRunning() || response.isWaiting()) {
+					try {
+						Thread.sleep(jobCheckInterval * 1000);
+					} catch (InterruptedException e) {
+						throw new EngageApiException(e.getMessage());
+					}
 				} else {
-					throw new RuntimeException(
-							"Non-retryable WaitForJobCommand failure: " + response.getJobDescription());
+					outcome = EngageMetrics.OUTCOME_SUCCESS;
+					return response;
 				}
-			}
 
-			if (response.isCanceled()) {
-				throw new JobBadStateException("Job was canceled!");
-			}
-
-			if (response.isRunning() || response.isWaiting()) {
-				try {
-					Thread.sleep(jobCheckInterval * 1000);
-				} catch (InterruptedException e) {
-					throw new EngageApiException(e.getMessage());
+				currentApiExecutionTime = currentApiExecutionTime + jobCheckInterval;
+				if (currentApiExecutionTime > maxExecutionTime) {
+					break;
 				}
-			} else {
-				return response;
 			}
 
-			currentApiExecutionTime = currentApiExecutionTime + jobCheckInterval;
-			if (currentApiExecutionTime > maxExecutionTime) {
-				break;
+			outcome = EngageMetrics.OUTCOME_TIMEOUT;
+			return null;
+		} finally {
+			if (metrics != null) {
+				long endNanos = System.nanoTime();
+				long queueNanos = (started ? runStartNanos : endNanos) - startNanos;
+				long runNanos = started ? endNanos - runStartNanos : 0;
+				int podNumber = oAuthClient == null ? 0 : oAuthClient.getPodNumber();
+				metrics.recordJob(apiMethodName == null ? "unknown" : apiMethodName, podNumber, outcome, queueNanos,
+						runNanos, polls);
 			}
 		}
-
-		return null;
 	}
 
 	public static void setMaxExecutionTime(int maxExecutionTime) {
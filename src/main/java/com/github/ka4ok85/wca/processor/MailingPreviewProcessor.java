@@ -0,0 +1,147 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.cache.ExpiringCache;
+import com.github.ka4ok85.wca.cache.MailingTemplateCache;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.PreviewMailingOptions;
+import com.github.ka4ok85.wca.response.PreviewMailingResponse;
+import com.github.ka4ok85.wca.response.containers.MailingTemplate;
+
+/**
+ * <strong>Renders previews of single Mailing for many recipients.</strong>
+ * <p>
+ * PreviewMailing calls of batch run in parallel, number of calls in flight is
+ * limited by concurrency. When Mailing Template cache is provided, rendered
+ * previews are cached by Mailing ID, recipient Email and template Last
+ * Modified, so changed template is rendered again and unchanged one is served
+ * from cache. Without template cache or for Mailing not found in it previews
+ * are always rendered, template cache remembers Mailings which are not
+ * templates until its next revalidation.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class MailingPreviewProcessor {
+
+	private final Engage engage;
+	private final MailingTemplateCache templateCache;
+	private ExpiringCache<String, PreviewMailingResponse> previews = new ExpiringCache<String, PreviewMailingResponse>(
+			1000, 1, TimeUnit.DAYS);
+	private int concurrency = 4;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param templateCache
+	 *            - source of template Last Modified, previews are not cached
+	 *            if null
+	 */
+	public MailingPreviewProcessor(Engage engage, MailingTemplateCache templateCache) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		this.templateCache = templateCache;
+	}
+
+	public void setConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new RuntimeException("Concurrency must be greater than zero. Provided Concurrency = " + concurrency);
+		}
+
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Replaces default cache of 1000 previews kept for 1 day.
+	 *
+	 * @param previews
+	 *            - preview cache
+	 */
+	public void setPreviewCache(ExpiringCache<String, PreviewMailingResponse> previews) {
+		this.previews = Objects.requireNonNull(previews, "Preview Cache must not be null");
+	}
+
+	public ExpiringCache<String, PreviewMailingResponse> getPreviewCache() {
+		return previews;
+	}
+
+	/**
+	 * Renders Mailing for every recipient and waits for all previews.
+	 *
+	 * @param mailingId
+	 *            - Mailing ID
+	 * @param recipientEmails
+	 *            - recipient Emails, duplicates are rendered once
+	 * @return previews by recipient Email in order of recipients
+	 */
+	public Map<String, PreviewMailingResponse> preview(Long mailingId, List<String> recipientEmails) {
+		Objects.requireNonNull(recipientEmails, "Recipient Emails must not be null");
+		Set<String> emails = new LinkedHashSet<String>(recipientEmails);
+		List<PreviewMailingOptions> batch = new ArrayList<PreviewMailingOptions>(emails.size());
+		for (String email : emails) {
+			PreviewMailingOptions options = new PreviewMailingOptions(mailingId);
+			options.setRecipientEmail(email);
+			batch.add(options);
+		}
+
+		Map<String, PreviewMailingResponse> result = new LinkedHashMap<String, PreviewMailingResponse>();
+		if (batch.isEmpty()) {
+			return result;
+		}
+
+		LocalDateTime lastModified = null;
+		if (templateCache != null) {
+			MailingTemplate template = templateCache.getMailingTemplate(mailingId);
+			lastModified = template == null ? null : template.getLastModified();
+		}
+
+		String keyPrefix = lastModified == null ? null : mailingId + "|" + lastModified + "|";
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, batch.size()));
+		try {
+			List<Future<PreviewMailingResponse>> futures = new ArrayList<Future<PreviewMailingResponse>>();
+			for (PreviewMailingOptions options : batch) {
+				futures.add(executor.submit(() -> render(keyPrefix, options)));
+			}
+
+			for (int i = 0; i < batch.size(); i++) {
+				result.put(batch.get(i).getRecipientEmail(), futures.get(i).get());
+			}
+
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new EngageApiException(e.getCause().getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private PreviewMailingResponse render(String keyPrefix, PreviewMailingOptions options) {
+		if (keyPrefix == null) {
+			return engage.previewMailing(options).getResposne();
+		}
+
+		String key = keyPrefix + (options.getRecipientEmail() == null ? "" : options.getRecipientEmail().toLowerCase());
+
+		return previews.get(key, previewKey -> engage.previewMailing(options).getResposne());
+	}
+}
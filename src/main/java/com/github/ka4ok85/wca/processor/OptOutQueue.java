@@ -0,0 +1,620 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.OptOutRecipientOptions;
+import com.github.ka4ok85.wca.reader.ImportRejection;
+
+/**
+ * <strong>Durable batched queue for opting out recipients of single
+ * List.</strong>
+ * <p>
+ * Every opt-out is appended to local journal file and synced to disk before it
+ * is accepted, opt-outs left in journal after crash are loaded again when
+ * queue is created. On flush small batches are sent as concurrent
+ * OptOutRecipient calls, batches with at least import threshold opt-outs by
+ * email are sent as single ImportList job with OPT_OUT action. ImportList
+ * does not keep Mailing ID, Job ID and Columns of opt-out, opt-outs without
+ * email are always sent by OptOutRecipient call.
+ * </p>
+ * <p>
+ * Every accepted opt-out returns future completed when opt-out is sent or
+ * failed. Sent opt-outs are removed from journal. Failed opt-outs, including
+ * rows rejected by ImportList job, are moved into dead-letter journal (journal
+ * path with ".failed" suffix) before their futures fail, so they survive
+ * restart and can be sent again with {@link #requeueFailed()}.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class OptOutQueue implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(OptOutQueue.class);
+	private static final String emailColumn = "EMAIL";
+
+	private final Engage engage;
+	private final Long listId;
+	private final Path journal;
+	private final Path failedJournal;
+	private final Object flushLock = new Object();
+	private List<PendingOptOut> pending = new ArrayList<PendingOptOut>();
+	private FileChannel journalChannel;
+	private Writer journalWriter;
+	private int importThreshold = 5000;
+	private int concurrency = 4;
+	private String localDirectory = System.getProperty("java.io.tmpdir");
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Opens queue and loads opt-outs left in journal file.
+	 *
+	 * @param engage
+	 *            - WCA API access
+	 * @param listId
+	 *            - Database ID
+	 * @param localJournalFilePath
+	 *            - path to journal file, created if does not exist
+	 */
+	public OptOutQueue(Engage engage, Long listId, String localJournalFilePath) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		if (listId == null || listId < 1) {
+			throw new RuntimeException("List ID must be greater than zero. Provided List ID = " + listId);
+		}
+
+		if (localJournalFilePath == null || localJournalFilePath.trim().isEmpty()) {
+			throw new RuntimeException("Journal File Path must be non-empty String. Provided Journal File Path = "
+					+ localJournalFilePath);
+		}
+
+		this.listId = listId;
+		this.journal = Paths.get(localJournalFilePath);
+		this.failedJournal = journal.resolveSibling(journal.getFileName() + ".failed");
+		try {
+			if (Files.exists(journal)) {
+				for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+					OptOutRecipientOptions options = decode(line);
+					if (options != null) {
+						pending.add(new PendingOptOut(options));
+					}
+				}
+			}
+
+			rewriteJournal();
+		} catch (IOException e) {
+			throw new EngageApiException("Can not read opt-out journal " + journal + ": " + e.getMessage());
+		}
+
+		log.debug("Loaded {} opt-outs from journal {}", pending.size(), journal);
+	}
+
+	/**
+	 * @param importThreshold
+	 *            - minimal number of opt-outs by email sent as ImportList job
+	 */
+	public void setImportThreshold(int importThreshold) {
+		if (importThreshold < 1) {
+			throw new RuntimeException(
+					"Import Threshold must be greater than zero. Provided Import Threshold = " + importThreshold);
+		}
+
+		this.importThreshold = importThreshold;
+	}
+
+	/**
+	 * @param concurrency
+	 *            - number of parallel OptOutRecipient calls
+	 */
+	public void setConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new RuntimeException("Concurrency must be greater than zero. Provided Concurrency = " + concurrency);
+		}
+
+		this.concurrency = concurrency;
+	}
+
+	public void setLocalDirectory(String localDirectory) {
+		this.localDirectory = Objects.requireNonNull(localDirectory, "Local Directory must not be null");
+	}
+
+	/**
+	 * Starts flushing queue periodically.
+	 *
+	 * @param delay
+	 *            - delay between flushes
+	 * @param unit
+	 *            - delay unit
+	 */
+	public synchronized void start(long delay, TimeUnit unit) {
+		if (scheduler != null) {
+			throw new RuntimeException("Queue is already started");
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				flush();
+			} catch (RuntimeException e) {
+				log.warn("Opt-out flush failed: {}", e.getMessage());
+			}
+		}, delay, delay, unit);
+	}
+
+	/**
+	 * Writes opt-out into journal and adds it to queue.
+	 *
+	 * @param options
+	 *            - opt-out for List of this queue, copied on add
+	 * @return future completed when opt-out is sent
+	 */
+	public CompletableFuture<Void> optOut(OptOutRecipientOptions options) {
+		Objects.requireNonNull(options, "OptOutRecipientOptions must not be null");
+		if (listId.equals(options.getListId()) == false) {
+			throw new RuntimeException("List ID must be " + listId + ". Provided List ID = " + options.getListId());
+		}
+
+		if (options.getEmail() == null && options.getRecipientId() == null) {
+			throw new RuntimeException("Email or Recipient ID must be set");
+		}
+
+		PendingOptOut optOut = new PendingOptOut(copy(options));
+		synchronized (this) {
+			if (journalWriter == null) {
+				throw new RuntimeException("Queue is closed");
+			}
+
+			try {
+				journalWriter.write(encode(optOut.options));
+				journalWriter.write('\n');
+				journalWriter.flush();
+				journalChannel.force(false);
+			} catch (IOException e) {
+				throw new EngageApiException("Can not write opt-out journal " + journal + ": " + e.getMessage());
+			}
+
+			pending.add(optOut);
+		}
+
+		return optOut.future;
+	}
+
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * @return number of opt-outs in dead-letter journal
+	 */
+	public synchronized int getFailedCount() {
+		return readFailedJournal().size();
+	}
+
+	/**
+	 * Moves opt-outs from dead-letter journal back into queue. Waits for
+	 * running flush, so journal rewrite never drops opt-outs being sent.
+	 *
+	 * @return number of requeued opt-outs
+	 */
+	public int requeueFailed() {
+		synchronized (flushLock) {
+			synchronized (this) {
+				if (journalWriter == null) {
+					throw new RuntimeException("Queue is closed");
+				}
+
+				List<OptOutRecipientOptions> failed = readFailedJournal();
+				for (OptOutRecipientOptions options : failed) {
+					pending.add(new PendingOptOut(options));
+				}
+
+				try {
+					rewriteJournal();
+					Files.deleteIfExists(failedJournal);
+				} catch (IOException e) {
+					throw new EngageApiException("Can not requeue failed opt-outs from " + failedJournal + ": "
+							+ e.getMessage());
+				}
+
+				return failed.size();
+			}
+		}
+	}
+
+	/**
+	 * Sends all queued opt-outs and waits until they are completed.
+	 *
+	 * @return number of sent opt-outs, failed ones included
+	 */
+	public int flush() {
+		synchronized (flushLock) {
+			List<PendingOptOut> batch;
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					return 0;
+				}
+
+				batch = pending;
+				pending = new ArrayList<PendingOptOut>();
+			}
+
+			try {
+				List<PendingOptOut> byEmail = new ArrayList<PendingOptOut>();
+				List<PendingOptOut> byCall = new ArrayList<PendingOptOut>();
+				for (PendingOptOut optOut : batch) {
+					if (optOut.options.getEmail() != null) {
+						byEmail.add(optOut);
+					} else {
+						byCall.add(optOut);
+					}
+				}
+
+				if (byEmail.size() >= importThreshold) {
+					importOptOuts(byEmail);
+				} else {
+					byCall.addAll(byEmail);
+				}
+
+				sendOptOuts(byCall);
+			} finally {
+				complete(batch);
+			}
+
+			return batch.size();
+		}
+	}
+
+	/*
+	 * Failed opt-outs are written into dead-letter journal and opt-outs not
+	 * processed because of interruption are put back into queue before journal
+	 * is rewritten, futures fail only after that.
+	 */
+	private void complete(List<PendingOptOut> batch) {
+		List<PendingOptOut> failed = new ArrayList<PendingOptOut>();
+		List<PendingOptOut> unsent = new ArrayList<PendingOptOut>();
+		for (PendingOptOut optOut : batch) {
+			if (optOut.failure != null) {
+				failed.add(optOut);
+			} else if (optOut.future.isDone() == false) {
+				unsent.add(optOut);
+			}
+		}
+
+		synchronized (this) {
+			try {
+				appendFailedJournal(failed);
+			} catch (IOException e) {
+				log.warn("Can not write opt-out dead-letter journal {}, failed opt-outs stay in queue: {}",
+						failedJournal, e.getMessage());
+				unsent.addAll(failed);
+			}
+
+			pending.addAll(0, unsent);
+			try {
+				rewriteJournal();
+			} catch (IOException e) {
+				log.warn("Can not rewrite opt-out journal {}: {}", journal, e.getMessage());
+			}
+		}
+
+		for (PendingOptOut optOut : failed) {
+			optOut.future.completeExceptionally(optOut.failure);
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (scheduler != null) {
+				scheduler.shutdown();
+				scheduler = null;
+			}
+		}
+
+		try {
+			flush();
+		} finally {
+			synchronized (this) {
+				closeJournal();
+			}
+		}
+	}
+
+	private void importOptOuts(List<PendingOptOut> optOuts) {
+		BulkRecipientUpsertProcessor processor = new BulkRecipientUpsertProcessor(engage, listId,
+				Collections.singletonList(emailColumn));
+		processor.setImportMapperAction(ImportMapperAction.OPT_OUT);
+		processor.setLocalDirectory(localDirectory);
+
+		processor.setCollectRejections(true);
+
+		List<String[]> rows = new ArrayList<String[]>(optOuts.size());
+		Map<String, List<PendingOptOut>> byEmail = new HashMap<String, List<PendingOptOut>>();
+		for (PendingOptOut optOut : optOuts) {
+			rows.add(new String[] { optOut.options.getEmail() });
+			byEmail.computeIfAbsent(optOut.options.getEmail(), email -> new ArrayList<PendingOptOut>()).add(optOut);
+		}
+
+		BulkUpsertResult result;
+		try {
+			result = processor.upsert(rows.iterator());
+		} catch (RuntimeException e) {
+			for (PendingOptOut optOut : optOuts) {
+				optOut.failure = e;
+			}
+
+			return;
+		}
+
+		for (BulkUpsertChunkFailure failure : result.getFailures()) {
+			int firstRow = (int) failure.getFirstRowIndex();
+			for (PendingOptOut optOut : optOuts.subList(firstRow, firstRow + failure.getRowCount())) {
+				optOut.failure = failure.getException();
+			}
+		}
+
+		for (ImportRejection rejection : result.getRejections()) {
+			String email = rejection.getValue(emailColumn);
+			if (email == null && rejection.getValues().length > 0) {
+				email = rejection.getValues()[0];
+			}
+
+			List<PendingOptOut> rejected = byEmail.get(email);
+			if (rejected == null) {
+				log.warn("Can not match ImportList rejection to opt-out: {}", rejection);
+				continue;
+			}
+
+			for (PendingOptOut optOut : rejected) {
+				optOut.failure = new EngageApiException("Opt-out is rejected by ImportList: " + rejection.getReason());
+			}
+		}
+
+		log.debug("Opted out {} recipients by ImportList: {}", optOuts.size(), result);
+		for (PendingOptOut optOut : optOuts) {
+			if (optOut.failure == null) {
+				optOut.future.complete(null);
+			}
+		}
+	}
+
+	private void sendOptOuts(List<PendingOptOut> optOuts) {
+		if (optOuts.isEmpty()) {
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, optOuts.size()));
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(optOuts.size());
+			for (PendingOptOut optOut : optOuts) {
+				futures.add(executor.submit(() -> {
+					try {
+						engage.optOutRecipient(optOut.options);
+						optOut.future.complete(null);
+					} catch (RuntimeException e) {
+						optOut.failure = e;
+					}
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			throw new EngageApiException(e.getCause().getMessage());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/*
+	 * Replaces journal with opt-outs still waiting in queue.
+	 */
+	private void rewriteJournal() throws IOException {
+		closeJournal();
+
+		Path temporaryPath = journal.resolveSibling(journal.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+			for (PendingOptOut optOut : pending) {
+				writer.write(encode(optOut.options));
+				writer.write('\n');
+			}
+			writer.flush();
+			channel.force(false);
+		}
+		Files.move(temporaryPath, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		journalChannel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		journalWriter = new BufferedWriter(Channels.newWriter(journalChannel, StandardCharsets.UTF_8.newEncoder(), -1));
+	}
+
+	private void appendFailedJournal(List<PendingOptOut> failed) throws IOException {
+		if (failed.isEmpty()) {
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(failedJournal, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+			for (PendingOptOut optOut : failed) {
+				writer.write(encode(optOut.options));
+				writer.write('\n');
+			}
+			writer.flush();
+			channel.force(false);
+		}
+
+		log.warn("Moved {} failed opt-outs into dead-letter journal {}", failed.size(), failedJournal);
+	}
+
+	private List<OptOutRecipientOptions> readFailedJournal() {
+		List<OptOutRecipientOptions> failed = new ArrayList<OptOutRecipientOptions>();
+		try {
+			if (Files.exists(failedJournal)) {
+				for (String line : Files.readAllLines(failedJournal, StandardCharsets.UTF_8)) {
+					OptOutRecipientOptions options = decode(line);
+					if (options != null) {
+						failed.add(options);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new EngageApiException("Can not read opt-out dead-letter journal " + failedJournal + ": "
+					+ e.getMessage());
+		}
+
+		return failed;
+	}
+
+	private void closeJournal() {
+		if (journalWriter != null) {
+			try {
+				journalWriter.close();
+			} catch (IOException e) {
+				log.warn("Can not close opt-out journal {}: {}", journal, e.getMessage());
+			}
+
+			journalWriter = null;
+			journalChannel = null;
+		}
+	}
+
+	private OptOutRecipientOptions copy(OptOutRecipientOptions options) {
+		OptOutRecipientOptions copy = new OptOutRecipientOptions(options.getListId());
+		if (options.getEmail() != null) {
+			copy.setEmail(options.getEmail());
+		}
+		copy.setRecipientId(options.getRecipientId());
+		copy.setMailingId(options.getMailingId());
+		copy.setJobId(options.getJobId());
+		if (options.getColumns() != null) {
+			copy.setColumns(new HashMap<String, String>(options.getColumns()));
+		}
+
+		return copy;
+	}
+
+	/*
+	 * Journal line is tab separated list of Email, Recipient ID, Mailing ID,
+	 * Job ID and Columns. Values are URL encoded, null values are empty,
+	 * non-null values start with "=". Columns are encoded as names and values
+	 * separated by "&".
+	 */
+	static String encode(OptOutRecipientOptions options) {
+		StringBuilder columns = new StringBuilder();
+		if (options.getColumns() != null) {
+			for (Map.Entry<String, String> column : options.getColumns().entrySet()) {
+				if (columns.length() > 0) {
+					columns.append('&');
+				}
+				columns.append(encodeValue(column.getKey())).append('&').append(encodeValue(column.getValue()));
+			}
+		}
+
+		return String.join("\t", encodeValue(options.getEmail()), encodeValue(options.getRecipientId()),
+				encodeValue(options.getMailingId() == null ? null : options.getMailingId().toString()),
+				encodeValue(options.getJobId()), encodeValue(columns.toString()));
+	}
+
+	OptOutRecipientOptions decode(String line) {
+		String[] values = line.split("\t", -1);
+		if (values.length != 5) {
+			log.warn("Skipping broken opt-out journal line: {}", line);
+			return null;
+		}
+
+		try {
+			OptOutRecipientOptions options = new OptOutRecipientOptions(listId);
+			String email = decodeValue(values[0]);
+			if (email != null) {
+				options.setEmail(email);
+			}
+			options.setRecipientId(decodeValue(values[1]));
+			String mailingId = decodeValue(values[2]);
+			options.setMailingId(mailingId == null ? null : Long.valueOf(mailingId));
+			options.setJobId(decodeValue(values[3]));
+
+			String columns = decodeValue(values[4]);
+			if (columns != null && columns.isEmpty() == false) {
+				Iterator<String> parts = Arrays.asList(columns.split("&", -1)).iterator();
+				while (parts.hasNext()) {
+					String name = decodeValue(parts.next());
+					options.getColumns().put(name, parts.hasNext() ? decodeValue(parts.next()) : null);
+				}
+			}
+
+			return options;
+		} catch (RuntimeException e) {
+			log.warn("Skipping broken opt-out journal line: {}", line);
+			return null;
+		}
+	}
+
+	private static String encodeValue(String value) {
+		try {
+			return value == null ? "" : "=" + URLEncoder.encode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new EngageApiException(e.getMessage());
+		}
+	}
+
+	private static String decodeValue(String value) {
+		if (value.isEmpty()) {
+			return null;
+		}
+
+		try {
+			return URLDecoder.decode(value.substring(1), "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new EngageApiException(e.getMessage());
+		}
+	}
+
+	private static class PendingOptOut {
+		private final OptOutRecipientOptions options;
+		private final CompletableFuture<Void> future = new CompletableFuture<Void>();
+		private volatile RuntimeException failure;
+
+		private PendingOptOut(OptOutRecipientOptions options) {
+			this.options = options;
+		}
+	}
+}
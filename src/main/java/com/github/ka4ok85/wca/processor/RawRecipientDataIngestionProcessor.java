@@ -0,0 +1,270 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.RawRecipientDataExportOptions;
+import com.github.ka4ok85.wca.reader.RawRecipientDataExportReader;
+import com.github.ka4ok85.wca.response.RawRecipientDataExportResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.JobPollingContainer;
+
+/**
+ * <strong>Continuous ingestion of WCA events using ALL_NON_EXPORTED mode of
+ * RawRecipientDataExport API.</strong>
+ * <p>
+ * Every run exports events which were not exported yet. WCA marks events as
+ * exported when job is submitted, so Job ID and remote file name are saved in
+ * {@link com.github.ka4ok85.wca.processor.CheckpointStore} as soon as job is
+ * submitted. Job is never submitted again: if waiting fails, next run waits
+ * for saved job instead of starting new export. Files of completed jobs are
+ * downloaded, read from their zip archives, parsed and handed to
+ * {@link com.github.ka4ok85.wca.processor.RawRecipientDataSink} one by one
+ * and removed from checkpoint only after sink commits them, so failed download
+ * or processing is repeated on next run instead of losing events.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RawRecipientDataIngestionProcessor {
+
+	private static final String checkpointPrefix = "RawRecipientDataIngestion.";
+	private static final String jobSuffix = ".job";
+	private static final String separator = "\n";
+	private static final Logger log = LoggerFactory.getLogger(RawRecipientDataIngestionProcessor.class);
+
+	private final Engage engage;
+	private final CheckpointStore checkpointStore;
+	private final RawRecipientDataSink sink;
+	private final String name;
+	private final Path localDirectory;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param checkpointStore
+	 *            - storage for submitted job and fetched remote file names
+	 * @param sink
+	 *            - event destination
+	 * @param name
+	 *            - unique name of ingestion loop, used as checkpoint key
+	 * @param localDirectory
+	 *            - directory for downloaded files
+	 */
+	public RawRecipientDataIngestionProcessor(Engage engage, CheckpointStore checkpointStore,
+			RawRecipientDataSink sink, String name, String localDirectory) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		this.checkpointStore = Objects.requireNonNull(checkpointStore, "CheckpointStore must not be null");
+		this.sink = Objects.requireNonNull(sink, "RawRecipientDataSink must not be null");
+		if (name == null || name.trim().isEmpty()) {
+			throw new RuntimeException("Name must be non-empty String. Provided Name = " + name);
+		}
+
+		this.name = name;
+		this.localDirectory = Paths.get(Objects.requireNonNull(localDirectory, "Local Directory must not be null"));
+	}
+
+	/**
+	 * Runs export and delivers all pending files. Job and files left from
+	 * failed previous runs are completed and delivered before new export is
+	 * started.
+	 * 
+	 * @param options
+	 *            - export settings. All Non Exported flag is forced, Local File
+	 *            Path is ignored.
+	 * @return number of delivered events
+	 */
+	public synchronized long runOnce(RawRecipientDataExportOptions options) {
+		Objects.requireNonNull(options, "RawRecipientDataExportOptions must not be null");
+
+		RawRecipientDataExportOptions exportOptions = new RawRecipientDataExportOptions(options);
+		exportOptions.setAllNonExported(true);
+		exportOptions.setMoveToFtp(true);
+		exportOptions.setLocalAbsoluteFilePath(null);
+
+		resumeSubmittedJob(exportOptions);
+		long count = deliverPendingFiles(options);
+
+		ResponseContainer<RawRecipientDataExportResponse> response = engage.rawRecipientDataExport(exportOptions,
+				this::saveSubmittedJob);
+		completeSubmittedJob(response.getResposne().getRemoteFileName());
+
+		return count + deliverPendingFiles(options);
+	}
+
+	/**
+	 * Starts calling {@link #runOnce(RawRecipientDataExportOptions)} with
+	 * fixed delay. Failed runs are logged and repeated on next tick.
+	 * 
+	 * @param options
+	 *            - export settings
+	 * @param delay
+	 *            - delay between runs
+	 * @param unit
+	 *            - delay unit
+	 */
+	public synchronized void start(RawRecipientDataExportOptions options, long delay, TimeUnit unit) {
+		if (scheduler != null) {
+			throw new RuntimeException("Ingestion " + name + " is already started");
+		}
+
+		RawRecipientDataExportOptions scheduledOptions = new RawRecipientDataExportOptions(options);
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				runOnce(scheduledOptions);
+			} catch (RuntimeException e) {
+				log.warn("Ingestion {} failed: {}", name, e.getMessage());
+			}
+		}, 0, delay, unit);
+	}
+
+	public synchronized void stop() {
+		if (scheduler != null) {
+			scheduler.shutdown();
+			scheduler = null;
+		}
+	}
+
+	public List<String> getPendingFiles() {
+		String value = checkpointStore.get(checkpointPrefix + name);
+		if (value == null || value.isEmpty()) {
+			return new ArrayList<String>();
+		}
+
+		return new ArrayList<String>(Arrays.asList(value.split(separator)));
+	}
+
+	/**
+	 * @return job which was submitted and whose file is not saved as pending
+	 *         yet or null
+	 */
+	public JobPollingContainer getSubmittedJob() {
+		String value = checkpointStore.get(checkpointPrefix + name + jobSuffix);
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+
+		String[] parts = value.split(separator, -1);
+		JobPollingContainer job = new JobPollingContainer();
+		job.setJobId(Long.parseLong(parts[0]));
+		if (parts.length > 1 && parts[1].isEmpty() == false) {
+			job.getParameters().put("FILE_PATH", parts[1]);
+		}
+
+		return job;
+	}
+
+	private void saveSubmittedJob(JobPollingContainer job) {
+		String remoteFileName = job.getParameters().get("FILE_PATH");
+		checkpointStore.put(checkpointPrefix + name + jobSuffix,
+				job.getJobId() + separator + (remoteFileName == null ? "" : remoteFileName));
+		log.debug("Ingestion {} submitted job {} for {}", name, job.getJobId(), remoteFileName);
+	}
+
+	private void resumeSubmittedJob(RawRecipientDataExportOptions exportOptions) {
+		JobPollingContainer job = getSubmittedJob();
+		if (job == null) {
+			return;
+		}
+
+		ResponseContainer<RawRecipientDataExportResponse> response;
+		try {
+			response = engage.resumeRawRecipientDataExport(job, exportOptions);
+		} catch (EngageApiException e) {
+			// job state is unknown, wait for it again on next run
+			throw e;
+		} catch (RuntimeException e) {
+			log.error("Ingestion {} job {} failed, its events are not exported: {}", name, job.getJobId(),
+					e.getMessage());
+			checkpointStore.remove(checkpointPrefix + name + jobSuffix);
+			throw e;
+		}
+
+		completeSubmittedJob(response.getResposne().getRemoteFileName());
+	}
+
+	private void completeSubmittedJob(String remoteFileName) {
+		if (remoteFileName != null && remoteFileName.isEmpty() == false) {
+			List<String> pendingFiles = getPendingFiles();
+			// job may be saved as pending already if process stopped before
+			// job was removed
+			if (pendingFiles.contains(remoteFileName) == false) {
+				pendingFiles.add(remoteFileName);
+				savePendingFiles(pendingFiles);
+			}
+		}
+
+		checkpointStore.remove(checkpointPrefix + name + jobSuffix);
+	}
+
+	private void savePendingFiles(List<String> pendingFiles) {
+		if (pendingFiles.isEmpty()) {
+			checkpointStore.remove(checkpointPrefix + name);
+		} else {
+			checkpointStore.put(checkpointPrefix + name, String.join(separator, pendingFiles));
+		}
+	}
+
+	private long deliverPendingFiles(RawRecipientDataExportOptions options) {
+		long count = 0;
+		List<String> pendingFiles = getPendingFiles();
+		while (pendingFiles.isEmpty() == false) {
+			String remoteFileName = pendingFiles.get(0);
+			count += deliver(remoteFileName, options);
+			pendingFiles.remove(0);
+			savePendingFiles(pendingFiles);
+		}
+
+		return count;
+	}
+
+	private long deliver(String remoteFileName, RawRecipientDataExportOptions options) {
+		if (sink.isCommitted(remoteFileName)) {
+			log.debug("Batch {} is already committed", remoteFileName);
+			return 0;
+		}
+
+		Path localFile = localDirectory.resolve(Paths.get(remoteFileName).getFileName());
+		engage.getSftp().download(remoteFileName, localFile.toString());
+
+		long count;
+		sink.begin(remoteFileName);
+		try (RawRecipientDataExportReader reader = new RawRecipientDataExportReader(localFile.toString(), options)) {
+			count = reader.forEach(sink::accept);
+			sink.commit(remoteFileName);
+		} catch (IOException | RuntimeException e) {
+			sink.rollback(remoteFileName);
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+
+			throw new EngageApiException("Can not read RawRecipientDataExport file: " + e.getMessage());
+		}
+
+		try {
+			Files.deleteIfExists(localFile);
+		} catch (IOException e) {
+			log.warn("Can not delete local file {}: {}", localFile, e.getMessage());
+		}
+
+		log.debug("Ingestion {} delivered {} events from {}", name, count, remoteFileName);
+
+		return count;
+	}
+}
@@ -0,0 +1,36 @@
+package com.github.ka4ok85.wca.processor;
+
+import com.github.ka4ok85.wca.reader.RawRecipientDataEvent;
+
+/**
+ * <strong>Local destination of events ingested by
+ * {@link com.github.ka4ok85.wca.processor.RawRecipientDataIngestionProcessor}.</strong>
+ * <p>
+ * Every RawRecipientDataExport file is delivered as one batch identified by
+ * remote file name. Batch may be delivered again after failure, so sink must
+ * store batch ID together with batch events in {@link #commit(String)} and
+ * report it from {@link #isCommitted(String)}. This makes handoff
+ * exactly-once.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public interface RawRecipientDataSink {
+
+	boolean isCommitted(String batchId);
+
+	void begin(String batchId);
+
+	/**
+	 * Receives next event of current batch. Event instance is reused by
+	 * reader, use {@link RawRecipientDataEvent#copy()} to keep it.
+	 * 
+	 * @param event
+	 *            - current event
+	 */
+	void accept(RawRecipientDataEvent event);
+
+	void commit(String batchId);
+
+	void rollback(String batchId);
+}
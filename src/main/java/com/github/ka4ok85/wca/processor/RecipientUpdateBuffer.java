@@ -0,0 +1,317 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.UpdateRecipientOptions;
+
+/**
+ * <strong>Write-behind buffer for UpdateRecipient API calls.</strong>
+ * <p>
+ * Updates of the same recipient (same List and Recipient ID, Encoded Recipient
+ * ID, Old Email or Sync Fields) received within window are merged into single
+ * call: columns of later updates override columns of earlier ones, other
+ * settings are taken from the latest update. Number of buffered recipients is
+ * limited, caller flushes buffer when limit is reached.
+ * </p>
+ * <p>
+ * Calls are sent by several lanes, every recipient is always sent by the same
+ * lane, so updates of single recipient are applied in order they were
+ * received. Buffer is flushed on {@link #close()}.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RecipientUpdateBuffer implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(RecipientUpdateBuffer.class);
+
+	private final Engage engage;
+	private final ExecutorService[] lanes;
+	private final Object submitLock = new Object();
+	private LinkedHashMap<String, PendingUpdate> pending = new LinkedHashMap<String, PendingUpdate>();
+	private int maxPendingRecipients = 10000;
+	private long windowNanos = TimeUnit.SECONDS.toNanos(5);
+	private BiConsumer<UpdateRecipientOptions, RuntimeException> failureListener;
+	private ScheduledExecutorService scheduler;
+	private boolean closed = false;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param concurrency
+	 *            - number of lanes sending calls in parallel
+	 */
+	public RecipientUpdateBuffer(Engage engage, int concurrency) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		if (concurrency < 1) {
+			throw new RuntimeException("Concurrency must be greater than zero. Provided Concurrency = " + concurrency);
+		}
+
+		this.lanes = new ExecutorService[concurrency];
+		for (int i = 0; i < concurrency; i++) {
+			lanes[i] = Executors.newSingleThreadExecutor();
+		}
+	}
+
+	public void setMaxPendingRecipients(int maxPendingRecipients) {
+		if (maxPendingRecipients < 1) {
+			throw new RuntimeException(
+					"Max Pending Recipients must be greater than zero. Provided Max Pending Recipients = "
+							+ maxPendingRecipients);
+		}
+
+		this.maxPendingRecipients = maxPendingRecipients;
+	}
+
+	/**
+	 * Sets handler of failed calls. Failures are logged if handler is not set.
+	 *
+	 * @param failureListener
+	 *            - receives merged update and error
+	 */
+	public void setFailureListener(BiConsumer<UpdateRecipientOptions, RuntimeException> failureListener) {
+		this.failureListener = failureListener;
+	}
+
+	/**
+	 * Starts sending updates which stayed in buffer for given window.
+	 *
+	 * @param window
+	 *            - merge window
+	 * @param unit
+	 *            - window unit
+	 */
+	public synchronized void start(long window, TimeUnit unit) {
+		if (window < 1) {
+			throw new RuntimeException("Window must be greater than zero. Provided Window = " + window);
+		}
+
+		if (scheduler != null) {
+			throw new RuntimeException("Buffer is already started");
+		}
+
+		windowNanos = unit.toNanos(window);
+		long period = Math.max(1, unit.toMillis(window) / 2);
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				flush(false);
+			} catch (RuntimeException e) {
+				log.warn("Recipient update flush failed: {}", e.getMessage());
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Adds update to buffer, merging it with pending update of the same
+	 * recipient.
+	 *
+	 * @param options
+	 *            - update, copied on add
+	 */
+	public void update(UpdateRecipientOptions options) {
+		Objects.requireNonNull(options, "UpdateRecipientOptions must not be null");
+		String key = getKey(options);
+		boolean full;
+		synchronized (this) {
+			if (closed) {
+				throw new RuntimeException("Buffer is closed");
+			}
+
+			PendingUpdate update = pending.get(key);
+			if (update == null) {
+				pending.put(key, new PendingUpdate(new UpdateRecipientOptions(options), System.nanoTime()));
+			} else {
+				update.merge(options);
+			}
+
+			full = pending.size() >= maxPendingRecipients;
+		}
+
+		if (full) {
+			flush(true);
+		}
+	}
+
+	/**
+	 * @return number of recipients waiting in buffer
+	 */
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Sends all buffered updates and waits for responses.
+	 *
+	 * @return number of sent calls
+	 */
+	public int flush() {
+		return flush(true);
+	}
+
+	/**
+	 * Rejects further updates, sends all buffered updates and stops sending
+	 * threads.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			if (scheduler != null) {
+				scheduler.shutdown();
+				scheduler = null;
+			}
+		}
+
+		try {
+			flush(true);
+		} finally {
+			for (ExecutorService lane : lanes) {
+				lane.shutdown();
+			}
+		}
+	}
+
+	private int flush(boolean all) {
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		synchronized (submitLock) {
+			List<UpdateRecipientOptions> updates = drain(all);
+			for (UpdateRecipientOptions update : updates) {
+				int lane = Math.floorMod(getKey(update).hashCode(), lanes.length);
+				futures.add(lanes[lane].submit(() -> send(update)));
+			}
+		}
+
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			throw new EngageApiException(e.getCause().getMessage());
+		}
+
+		return futures.size();
+	}
+
+	private synchronized List<UpdateRecipientOptions> drain(boolean all) {
+		List<UpdateRecipientOptions> updates = new ArrayList<UpdateRecipientOptions>();
+		if (all) {
+			for (PendingUpdate update : pending.values()) {
+				updates.add(update.options);
+			}
+			pending = new LinkedHashMap<String, PendingUpdate>();
+
+			return updates;
+		}
+
+		long now = System.nanoTime();
+		Iterator<PendingUpdate> iterator = pending.values().iterator();
+		while (iterator.hasNext()) {
+			PendingUpdate update = iterator.next();
+			if (now - update.firstUpdateNanos < windowNanos) {
+				break;
+			}
+
+			updates.add(update.options);
+			iterator.remove();
+		}
+
+		return updates;
+	}
+
+	private void send(UpdateRecipientOptions options) {
+		try {
+			engage.updateRecipient(options);
+		} catch (RuntimeException e) {
+			if (failureListener != null) {
+				failureListener.accept(options, e);
+			} else {
+				log.warn("UpdateRecipient failed for {}: {}", options, e.getMessage());
+			}
+		}
+	}
+
+	static String getKey(UpdateRecipientOptions options) {
+		StringBuilder key = new StringBuilder().append(options.getListId()).append('|');
+		if (options.getRecipientId() != null) {
+			return key.append("R:").append(options.getRecipientId()).toString();
+		}
+
+		if (options.getEncodedRecipientId() != null) {
+			return key.append("E:").append(options.getEncodedRecipientId()).toString();
+		}
+
+		if (options.getOldEmail() != null) {
+			return key.append("O:").append(options.getOldEmail().toLowerCase()).toString();
+		}
+
+		if (options.getSyncFields() != null && options.getSyncFields().isEmpty() == false) {
+			return key.append("S:").append(new TreeMap<String, String>(options.getSyncFields())).toString();
+		}
+
+		throw new RuntimeException(
+				"Recipient ID, Encoded Recipient ID, Old Email or Sync Fields must be set. Provided Options = "
+						+ options);
+	}
+
+	private static class PendingUpdate {
+		private final UpdateRecipientOptions options;
+		private final long firstUpdateNanos;
+
+		private PendingUpdate(UpdateRecipientOptions options, long firstUpdateNanos) {
+			this.options = options;
+			this.firstUpdateNanos = firstUpdateNanos;
+		}
+
+		private void merge(UpdateRecipientOptions update) {
+			options.setSendAutoReply(update.isSendAutoReply());
+			options.setAllowHtml(update.isAllowHtml());
+			if (update.getVisitorKey() != null) {
+				options.setVisitorKey(update.getVisitorKey());
+			}
+
+			if (update.isSnoozed()) {
+				options.setSnoozed(true);
+				if (update.getSnoozeResumeSendDate() != null) {
+					options.setSnoozeResumeSendDate(update.getSnoozeResumeSendDate());
+				}
+
+				if (update.getSnoozeDaysToSnooze() != null) {
+					options.setSnoozeDaysToSnooze(update.getSnoozeDaysToSnooze());
+				}
+			}
+
+			if (update.getColumns() != null) {
+				Map<String, String> columns = new HashMap<String, String>();
+				if (options.getColumns() != null) {
+					columns.putAll(options.getColumns());
+				}
+				columns.putAll(update.getColumns());
+				options.setColumns(columns);
+			}
+		}
+	}
+}
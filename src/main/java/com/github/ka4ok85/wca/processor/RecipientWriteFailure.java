@@ -0,0 +1,37 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.Arrays;
+
+/**
+ * <strong>Row which
+ * {@link com.github.ka4ok85.wca.processor.RecipientWriteRouter} could not
+ * write.</strong>
+ *
+ * @since 0.0.4
+ */
+public class RecipientWriteFailure {
+
+	private final String[] row;
+	private final RuntimeException exception;
+
+	RecipientWriteFailure(String[] row, RuntimeException exception) {
+		this.row = row;
+		this.exception = exception;
+	}
+
+	/**
+	 * @return row values in column order of bulk processor
+	 */
+	public String[] getRow() {
+		return row;
+	}
+
+	public RuntimeException getException() {
+		return exception;
+	}
+
+	@Override
+	public String toString() {
+		return "RecipientWriteFailure [row=" + Arrays.toString(row) + ", exception=" + exception + "]";
+	}
+}
@@ -0,0 +1,11 @@
+package com.github.ka4ok85.wca.processor;
+
+/**
+ * <strong>Way rows were written by
+ * {@link com.github.ka4ok85.wca.processor.RecipientWriteRouter}.</strong>
+ *
+ * @since 0.0.4
+ */
+public enum RecipientWritePath {
+	PER_ROW, IMPORT_LIST;
+}
@@ -0,0 +1,133 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <strong>Outcome of single flush of
+ * {@link com.github.ka4ok85.wca.processor.RecipientWriteRouter}.</strong>
+ *
+ * @since 0.0.4
+ */
+public class RecipientWriteResult {
+
+	private final RecipientWritePath path;
+	private final RecipientWritePath chosenPath;
+	private final int rowCount;
+	private final int importListRowCount;
+	private final int skippedRowCount;
+	private final long elapsedMillis;
+	private final double estimatedPerRowMillis;
+	private final double estimatedImportListMillis;
+	private final boolean exploration;
+	private final BulkUpsertResult bulkUpsertResult;
+	private final List<RecipientWriteFailure> failures;
+
+	RecipientWriteResult(RecipientWritePath path, RecipientWritePath chosenPath, int rowCount,
+			int importListRowCount, int skippedRowCount, long elapsedMillis, double estimatedPerRowMillis,
+			double estimatedImportListMillis, boolean exploration, BulkUpsertResult bulkUpsertResult,
+			List<RecipientWriteFailure> failures) {
+		this.path = path;
+		this.chosenPath = chosenPath;
+		this.rowCount = rowCount;
+		this.importListRowCount = importListRowCount;
+		this.skippedRowCount = skippedRowCount;
+		this.elapsedMillis = elapsedMillis;
+		this.estimatedPerRowMillis = estimatedPerRowMillis;
+		this.estimatedImportListMillis = estimatedImportListMillis;
+		this.exploration = exploration;
+		this.bulkUpsertResult = bulkUpsertResult;
+		this.failures = Collections.unmodifiableList(failures);
+	}
+
+	/**
+	 * @return way rows were written, way of most rows in exploration flush
+	 */
+	public RecipientWritePath getPath() {
+		return path;
+	}
+
+	/**
+	 * @return way chosen by estimates
+	 */
+	public RecipientWritePath getChosenPath() {
+		return chosenPath;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return number of rows written with ImportList job, the rest was
+	 *         written with per-row API calls
+	 */
+	public int getImportListRowCount() {
+		return importListRowCount;
+	}
+
+	/**
+	 * @return number of ADD_ONLY rows of existing recipients skipped by
+	 *         per-row API calls, ImportList skips such rows without counting
+	 *         them here
+	 */
+	public int getSkippedRowCount() {
+		return skippedRowCount;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return estimated duration of writing rows with per-row API calls at
+	 *         decision time
+	 */
+	public double getEstimatedPerRowMillis() {
+		return estimatedPerRowMillis;
+	}
+
+	/**
+	 * @return estimated duration of writing rows with ImportList job at
+	 *         decision time
+	 */
+	public double getEstimatedImportListMillis() {
+		return estimatedImportListMillis;
+	}
+
+	/**
+	 * @return true if way which was not chosen was re-sampled in this flush
+	 */
+	public boolean isExploration() {
+		return exploration;
+	}
+
+	/**
+	 * @return ImportList counters or null if no row was written with
+	 *         ImportList job
+	 */
+	public BulkUpsertResult getBulkUpsertResult() {
+		return bulkUpsertResult;
+	}
+
+	/**
+	 * @return rows which were not written
+	 */
+	public List<RecipientWriteFailure> getFailures() {
+		return failures;
+	}
+
+	public boolean hasFailures() {
+		return failures.isEmpty() == false;
+	}
+
+	@Override
+	public String toString() {
+		return "RecipientWriteResult [path=" + path + ", chosenPath=" + chosenPath + ", rowCount=" + rowCount
+				+ ", importListRowCount=" + importListRowCount + ", skippedRowCount=" + skippedRowCount
+				+ ", elapsedMillis=" + elapsedMillis
+				+ ", estimatedPerRowMillis=" + estimatedPerRowMillis + ", estimatedImportListMillis="
+				+ estimatedImportListMillis + ", exploration=" + exploration + ", bulkUpsertResult=" + bulkUpsertResult
+				+ ", failures=" + failures + "]";
+	}
+}
@@ -0,0 +1,406 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.exceptions.BadApiResultException;
+import com.github.ka4ok85.wca.options.AddRecipientOptions;
+import com.github.ka4ok85.wca.options.UpdateRecipientOptions;
+
+/**
+ * <strong>Buffers recipient changes and writes them either with per-row API
+ * calls or with ImportList job.</strong>
+ * <p>
+ * Rows are collected for short window. On flush duration of both ways is
+ * estimated from observed latency: average duration of single
+ * AddRecipient/UpdateRecipient call and average fixed overhead (queue, polling
+ * and file transfer) plus per-row duration of ImportList job. Faster way is
+ * used and its measured duration updates estimates. ImportList terms are fitted
+ * over jobs of different sizes.
+ * </p>
+ * <p>
+ * Way which is not chosen is re-sampled every Exploration Interval flushes, so
+ * estimates recover when API latency changes: first few rows are written the
+ * other way, remaining rows are written the chosen way.
+ * </p>
+ * <p>
+ * Every flush is reported as
+ * {@link com.github.ka4ok85.wca.processor.RecipientWriteResult}. Rows which
+ * could not be written are listed in result and are not retried.
+ * </p>
+ * <p>
+ * With ADD_ONLY action ImportList skips rows of existing recipients. Per-row
+ * AddRecipient fails for such rows, so its "already exists" fault is treated
+ * as skip as well and row outcome does not depend on chosen way. Rows skipped
+ * by per-row calls are counted in result, ImportList does not report them one
+ * by one.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RecipientWriteRouter implements Closeable {
+
+	private static final double smoothingFactor = 0.3;
+	private static final int explorationRows = 5;
+	private static final String[] existingRecipientFaultMarkers = { "already exists", "already a member" };
+	private static final Logger log = LoggerFactory.getLogger(RecipientWriteRouter.class);
+
+	private final Engage engage;
+	private final BulkRecipientUpsertProcessor bulkProcessor;
+	private List<String[]> buffer = new ArrayList<String[]>();
+	private int maxBufferRows = 10000;
+	private double rowLatencyMillis = 250;
+	private double importOverheadMillis = 120000;
+	private double importRowMillis = 0.05;
+	private int importSamples;
+	private double meanImportRows;
+	private double meanImportMillis;
+	private double importRowsVariance;
+	private double importCovariance;
+	private int explorationInterval = 50;
+	private long flushCount;
+	private Consumer<RecipientWriteResult> resultListener;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param bulkProcessor
+	 *            - defines List, columns and sync fields, used for ImportList
+	 *            path
+	 */
+	public RecipientWriteRouter(Engage engage, BulkRecipientUpsertProcessor bulkProcessor) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		this.bulkProcessor = Objects.requireNonNull(bulkProcessor, "BulkRecipientUpsertProcessor must not be null");
+	}
+
+	/**
+	 * Sets number of buffered rows which triggers flush before window ends.
+	 * 
+	 * @param maxBufferRows
+	 *            - row limit
+	 */
+	public void setMaxBufferRows(int maxBufferRows) {
+		if (maxBufferRows < 1) {
+			throw new RuntimeException(
+					"Max Buffer Rows must be greater than zero. Provided Max Buffer Rows = " + maxBufferRows);
+		}
+
+		this.maxBufferRows = maxBufferRows;
+	}
+
+	/**
+	 * Sets initial latency estimates used before anything is observed.
+	 * 
+	 * @param rowLatencyMillis
+	 *            - duration of single per-row call
+	 * @param importOverheadMillis
+	 *            - fixed duration of ImportList job
+	 * @param importRowMillis
+	 *            - additional ImportList duration per row
+	 */
+	public synchronized void setLatencyEstimates(double rowLatencyMillis, double importOverheadMillis,
+			double importRowMillis) {
+		if (rowLatencyMillis < 0 || importOverheadMillis < 0 || importRowMillis < 0) {
+			throw new RuntimeException("Latency estimates must be non-negative");
+		}
+
+		this.rowLatencyMillis = rowLatencyMillis;
+		this.importOverheadMillis = importOverheadMillis;
+		this.importRowMillis = importRowMillis;
+	}
+
+	/**
+	 * Sets how often way which is not chosen is re-sampled.
+	 * 
+	 * @param explorationInterval
+	 *            - number of flushes
+	 */
+	public synchronized void setExplorationInterval(int explorationInterval) {
+		if (explorationInterval < 1) {
+			throw new RuntimeException(
+					"Exploration Interval must be greater than zero. Provided Exploration Interval = "
+							+ explorationInterval);
+		}
+
+		this.explorationInterval = explorationInterval;
+	}
+
+	public void setResultListener(Consumer<RecipientWriteResult> resultListener) {
+		this.resultListener = resultListener;
+	}
+
+	/**
+	 * Starts flushing buffer periodically.
+	 * 
+	 * @param window
+	 *            - buffering window
+	 * @param unit
+	 *            - window unit
+	 */
+	public synchronized void start(long window, TimeUnit unit) {
+		if (scheduler != null) {
+			throw new RuntimeException("Router is already started");
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				flush();
+			} catch (RuntimeException e) {
+				log.warn("Recipient write flush failed: {}", e.getMessage());
+			}
+		}, window, window, unit);
+	}
+
+	/**
+	 * Adds row to buffer. Buffer is flushed in caller thread when it is full.
+	 * 
+	 * @param row
+	 *            - row values in column order of bulk processor
+	 */
+	public void write(String[] row) {
+		if (bulkProcessor.getImportMapperAction() == ImportMapperAction.OPT_OUT) {
+			throw new RuntimeException("Opt Out action is not supported by router, use OptOutQueue");
+		}
+
+		if (row == null || row.length != bulkProcessor.getColumns().size()) {
+			throw new RuntimeException("Row must have " + bulkProcessor.getColumns().size()
+					+ " values. Provided row has " + (row == null ? 0 : row.length) + " values");
+		}
+
+		boolean full;
+		synchronized (this) {
+			buffer.add(row);
+			full = buffer.size() >= maxBufferRows;
+		}
+
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes buffered rows using faster way.
+	 * 
+	 * @return flush outcome or null if buffer was empty
+	 */
+	public RecipientWriteResult flush() {
+		List<String[]> rows;
+		double perRowEstimate;
+		double importEstimate;
+		boolean exploration;
+		synchronized (this) {
+			if (buffer.isEmpty()) {
+				return null;
+			}
+
+			rows = buffer;
+			buffer = new ArrayList<String[]>();
+			perRowEstimate = rows.size() * rowLatencyMillis;
+			importEstimate = importOverheadMillis + rows.size() * importRowMillis;
+			exploration = ++flushCount % explorationInterval == 0;
+		}
+
+		RecipientWritePath chosenPath = perRowEstimate <= importEstimate ? RecipientWritePath.PER_ROW
+				: RecipientWritePath.IMPORT_LIST;
+		int sampleSize = exploration ? Math.min(explorationRows, rows.size()) : 0;
+		List<String[]> perRowRows;
+		List<String[]> importRows;
+		if (chosenPath == RecipientWritePath.PER_ROW) {
+			importRows = rows.subList(0, sampleSize);
+			perRowRows = rows.subList(sampleSize, rows.size());
+		} else {
+			perRowRows = rows.subList(0, sampleSize);
+			importRows = rows.subList(sampleSize, rows.size());
+		}
+
+		// sample may take all rows of small flush
+		RecipientWritePath path = chosenPath;
+		if (perRowRows.size() > importRows.size()) {
+			path = RecipientWritePath.PER_ROW;
+		} else if (importRows.size() > perRowRows.size()) {
+			path = RecipientWritePath.IMPORT_LIST;
+		}
+
+		List<RecipientWriteFailure> failures = new ArrayList<RecipientWriteFailure>();
+		int skippedRowCount = 0;
+		long start = System.nanoTime();
+		for (String[] row : perRowRows) {
+			try {
+				if (writeRow(row) == false) {
+					skippedRowCount++;
+				}
+			} catch (RuntimeException e) {
+				failures.add(new RecipientWriteFailure(row, e));
+			}
+		}
+		long perRowMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		BulkUpsertResult bulkUpsertResult = null;
+		long importMillis = 0;
+		if (importRows.isEmpty() == false) {
+			start = System.nanoTime();
+			try {
+				bulkUpsertResult = bulkProcessor.upsert(importRows.iterator());
+				for (BulkUpsertChunkFailure failure : bulkUpsertResult.getFailures()) {
+					int firstRow = (int) failure.getFirstRowIndex();
+					for (String[] row : importRows.subList(firstRow, firstRow + failure.getRowCount())) {
+						failures.add(new RecipientWriteFailure(row, failure.getException()));
+					}
+				}
+			} catch (RuntimeException e) {
+				for (String[] row : importRows) {
+					failures.add(new RecipientWriteFailure(row, e));
+				}
+			}
+			importMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		}
+
+		synchronized (this) {
+			if (perRowRows.isEmpty() == false) {
+				rowLatencyMillis = smooth(rowLatencyMillis, (double) perRowMillis / perRowRows.size());
+			}
+
+			if (bulkUpsertResult != null) {
+				updateImportEstimates(importRows.size(), importMillis);
+			}
+		}
+
+		RecipientWriteResult result = new RecipientWriteResult(path, chosenPath, rows.size(), importRows.size(),
+				skippedRowCount, perRowMillis + importMillis, perRowEstimate, importEstimate, exploration,
+				bulkUpsertResult, failures);
+		if (failures.isEmpty()) {
+			log.debug("Flushed recipient changes: {}", result);
+		} else {
+			log.warn("Flushed recipient changes, {} rows were not written: {}", failures.size(), result);
+		}
+
+		if (resultListener != null) {
+			resultListener.accept(result);
+		}
+
+		return result;
+	}
+
+	/*
+	 * ImportList duration is modeled as overhead + rows * per-row duration.
+	 * Both terms are fitted by exponentially weighted linear regression once
+	 * jobs of different sizes are observed, until then only overhead is
+	 * updated.
+	 */
+	void updateImportEstimates(int rowCount, long elapsedMillis) {
+		if (importSamples++ == 0) {
+			meanImportRows = rowCount;
+			meanImportMillis = elapsedMillis;
+		} else {
+			double rowsDelta = rowCount - meanImportRows;
+			double millisDelta = elapsedMillis - meanImportMillis;
+			meanImportRows += smoothingFactor * rowsDelta;
+			meanImportMillis += smoothingFactor * millisDelta;
+			importRowsVariance = (1 - smoothingFactor) * (importRowsVariance + smoothingFactor * rowsDelta * rowsDelta);
+			importCovariance = (1 - smoothingFactor) * (importCovariance + smoothingFactor * rowsDelta * millisDelta);
+		}
+
+		if (importRowsVariance >= 1) {
+			importRowMillis = Math.max(0, importCovariance / importRowsVariance);
+			importOverheadMillis = Math.max(0, meanImportMillis - importRowMillis * meanImportRows);
+		} else {
+			importOverheadMillis = smooth(importOverheadMillis,
+					Math.max(0, elapsedMillis - rowCount * importRowMillis));
+		}
+	}
+
+	synchronized double getRowLatencyMillis() {
+		return rowLatencyMillis;
+	}
+
+	synchronized double getImportOverheadMillis() {
+		return importOverheadMillis;
+	}
+
+	synchronized double getImportRowMillis() {
+		return importRowMillis;
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (scheduler != null) {
+				scheduler.shutdown();
+				scheduler = null;
+			}
+		}
+
+		flush();
+	}
+
+	/*
+	 * Returns false if ADD_ONLY row was skipped because recipient exists.
+	 */
+	private boolean writeRow(String[] row) {
+		List<String> columns = bulkProcessor.getColumns();
+		List<String> syncFieldNames = bulkProcessor.getSyncFields();
+		Map<String, String> syncFields = new HashMap<String, String>();
+		Map<String, String> values = new HashMap<String, String>();
+		for (int i = 0; i < columns.size(); i++) {
+			if (syncFieldNames.contains(columns.get(i))) {
+				syncFields.put(columns.get(i), row[i]);
+			}
+
+			values.put(columns.get(i), row[i]);
+		}
+
+		if (bulkProcessor.getImportMapperAction() == ImportMapperAction.UPDATE_ONLY) {
+			UpdateRecipientOptions options = new UpdateRecipientOptions(bulkProcessor.getListId());
+			options.setSyncFields(syncFields);
+			options.setColumns(values);
+			engage.updateRecipient(options);
+		} else {
+			AddRecipientOptions options = new AddRecipientOptions(bulkProcessor.getListId());
+			options.setUpdateIfFound(bulkProcessor.getImportMapperAction() == ImportMapperAction.ADD_AND_UPDATE);
+			options.setSyncFields(syncFields);
+			options.setColumns(values);
+			options.setContactLists(bulkProcessor.getContactLists());
+			try {
+				engage.addRecipient(options);
+			} catch (BadApiResultException e) {
+				if (options.isUpdateIfFound() || isExistingRecipientFault(e) == false) {
+					throw e;
+				}
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isExistingRecipientFault(BadApiResultException e) {
+		String message = e.getMessage() == null ? "" : e.getMessage().toLowerCase();
+		for (String marker : existingRecipientFaultMarkers) {
+			if (message.contains(marker)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static double smooth(double average, double sample) {
+		return average + smoothingFactor * (sample - average);
+	}
+}
@@ -0,0 +1,92 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.DeleteRelationalTableDataOptions;
+import com.github.ka4ok85.wca.options.PurgeTableOptions;
+import com.github.ka4ok85.wca.response.DeleteRelationalTableDataResponse;
+import com.github.ka4ok85.wca.response.PurgeTableResponse;
+
+/**
+ * <strong>Deletes any number of Relational Table rows by key.</strong>
+ * <p>
+ * Keys are split into bounded DeleteRelationalTableData requests which are
+ * sent concurrently within in-flight limit, failures are mapped to index of
+ * key in input.
+ * </p>
+ * <p>
+ * Deleting whole table or all rows modified before some date is faster with
+ * {@link #purge()} and {@link #purge(LocalDateTime)} methods which run single
+ * PurgeTable job instead of per-key requests.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RelationalTableDeleteProcessor extends AbstractRelationalTableBatchProcessor {
+
+	public RelationalTableDeleteProcessor(Engage engage, Long tableId) {
+		super(engage, tableId);
+	}
+
+	public List<RelationalTableRowFailure> delete(Stream<Map<String, String>> keys) {
+		Objects.requireNonNull(keys, "Keys must not be null");
+		try {
+			return delete(keys.iterator());
+		} finally {
+			keys.close();
+		}
+	}
+
+	/**
+	 * Deletes rows and waits for all responses.
+	 *
+	 * @param keys
+	 *            - key column name/value pairs of rows
+	 * @return failures ordered by key index
+	 */
+	public List<RelationalTableRowFailure> delete(Iterator<Map<String, String>> keys) {
+		return process(keys);
+	}
+
+	/**
+	 * Removes all rows of table.
+	 *
+	 * @return PurgeTable job results
+	 */
+	public PurgeTableResponse purge() {
+		PurgeTableOptions options = new PurgeTableOptions();
+		options.setTableId(tableId);
+
+		return engage.purgeTable(options).getResposne();
+	}
+
+	/**
+	 * Removes rows last modified before given date.
+	 *
+	 * @param deleteBefore
+	 *            - rows modified earlier are removed
+	 * @return PurgeTable job results
+	 */
+	public PurgeTableResponse purge(LocalDateTime deleteBefore) {
+		PurgeTableOptions options = new PurgeTableOptions();
+		options.setTableId(tableId);
+		options.setDeleteBefore(deleteBefore);
+
+		return engage.purgeTable(options).getResposne();
+	}
+
+	@Override
+	protected List<RelationalTableRowFailure> sendBatch(List<Map<String, String>> batch, long firstRowIndex) {
+		DeleteRelationalTableDataOptions options = new DeleteRelationalTableDataOptions(tableId);
+		options.setRows(batch);
+		DeleteRelationalTableDataResponse response = engage.deleteRelationalTableData(options).getResposne();
+
+		return RelationalTableRowFailure.map(batch, firstRowIndex, response.getFailures());
+	}
+}
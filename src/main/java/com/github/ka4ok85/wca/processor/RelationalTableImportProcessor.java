@@ -0,0 +1,213 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.FileEncoding;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.CreateTableOptions;
+import com.github.ka4ok85.wca.options.ImportTableOptions;
+import com.github.ka4ok85.wca.options.containers.RelationalTableColumn;
+import com.github.ka4ok85.wca.response.ImportTableResponse;
+import com.github.ka4ok85.wca.sftp.SFTP;
+import com.github.ka4ok85.wca.utils.TableImportMapper;
+
+/**
+ * <strong>Bulk load of Relational Table rows through WCA ImportTable
+ * API.</strong>
+ * <p>
+ * Table schema is described by
+ * {@link com.github.ka4ok85.wca.options.CreateTableOptions}. Rows are written
+ * as CSV directly into SFTP upload directory without local copy, map file is
+ * generated by {@link com.github.ka4ok85.wca.utils.TableImportMapper}. Table is
+ * created by import unless existing Table ID is provided. Uploaded files are
+ * removed when upload fails, e.g. on row with wrong number of values.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RelationalTableImportProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(RelationalTableImportProcessor.class);
+
+	private final Engage engage;
+	private final CreateTableOptions schema;
+	private Long tableId;
+	private ImportMapperAction importMapperAction = ImportMapperAction.CREATE;
+	private FileEncoding fileEncoding = FileEncoding.UTF_8;
+
+	/**
+	 * @param engage
+	 *            - WCA API access
+	 * @param schema
+	 *            - table name and columns in order of row values
+	 */
+	public RelationalTableImportProcessor(Engage engage, CreateTableOptions schema) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		this.schema = Objects.requireNonNull(schema, "CreateTableOptions must not be null");
+		if (schema.getColumns().isEmpty()) {
+			throw new RuntimeException("At least one column is required");
+		}
+	}
+
+	/**
+	 * Imports into existing table. Switches CREATE action to ADD_AND_UPDATE.
+	 *
+	 * @param tableId
+	 *            - existing Table ID
+	 */
+	public void setTableId(Long tableId) {
+		if (tableId == null || tableId < 1) {
+			throw new RuntimeException("Table ID must be greater than zero. Provided Table ID = " + tableId);
+		}
+
+		this.tableId = tableId;
+		if (importMapperAction == ImportMapperAction.CREATE) {
+			importMapperAction = ImportMapperAction.ADD_AND_UPDATE;
+		}
+	}
+
+	public void setImportMapperAction(ImportMapperAction importMapperAction) {
+		if (importMapperAction == null || importMapperAction == ImportMapperAction.OPT_OUT) {
+			throw new RuntimeException(
+					"Import Mapper Action can not be null or OPT_OUT. Provided Import Mapper Action = "
+							+ importMapperAction);
+		}
+
+		if (importMapperAction == ImportMapperAction.CREATE && tableId != null) {
+			throw new RuntimeException("Import Mapper Action can not be CREATE when Table ID is set");
+		}
+
+		if (importMapperAction != ImportMapperAction.CREATE && tableId == null) {
+			throw new RuntimeException("Table ID must be set for Import Mapper Action " + importMapperAction);
+		}
+
+		this.importMapperAction = importMapperAction;
+	}
+
+	public void setFileEncoding(FileEncoding fileEncoding) {
+		if (fileEncoding == null) {
+			throw new RuntimeException("File Encoding can not be null");
+		}
+
+		this.fileEncoding = fileEncoding;
+	}
+
+	public ImportTableResponse load(Stream<String[]> rows) {
+		Objects.requireNonNull(rows, "Rows must not be null");
+		try {
+			return load(rows.iterator());
+		} finally {
+			rows.close();
+		}
+	}
+
+	/**
+	 * Uploads rows and map file, runs ImportTable job and waits for its
+	 * completion.
+	 *
+	 * @param rows
+	 *            - row values in order of schema columns
+	 * @return ImportTable job results
+	 */
+	public ImportTableResponse load(Iterator<String[]> rows) {
+		Objects.requireNonNull(rows, "Rows must not be null");
+
+		String fileName = "table_" + UUID.randomUUID().toString();
+		String sourceFile = fileName + ".csv";
+		String mapFile = fileName + ".xml";
+		List<RelationalTableColumn> columns = schema.getColumns();
+		SFTP sftp = engage.getSftp();
+
+		long rowCount;
+		try {
+			rowCount = uploadRows(sftp, sourceFile, columns, rows);
+		} catch (RuntimeException e) {
+			deleteUploadedFile(sftp, sourceFile);
+			throw e;
+		}
+
+		try {
+			uploadMapFile(sftp, mapFile);
+		} catch (RuntimeException e) {
+			deleteUploadedFile(sftp, sourceFile);
+			deleteUploadedFile(sftp, mapFile);
+			throw e;
+		}
+
+		log.debug("Uploaded {} rows into {}, starting ImportTable", rowCount, sourceFile);
+		ImportTableOptions options = ImportTableOptions.forUploadedFiles(mapFile, sourceFile);
+		options.setFileEncoding(fileEncoding);
+
+		return engage.importTable(options).getResposne();
+	}
+
+	private long uploadRows(SFTP sftp, String sourceFile, List<RelationalTableColumn> columns,
+			Iterator<String[]> rows) {
+		long rowCount = 0;
+		try (CsvFileWriter writer = new CsvFileWriter(sftp.openUploadStream(sourceFile),
+				Charset.forName(fileEncoding.value()))) {
+			String[] header = new String[columns.size()];
+			for (int i = 0; i < header.length; i++) {
+				header[i] = columns.get(i).getName();
+			}
+
+			writer.writeRecord(header);
+			while (rows.hasNext()) {
+				String[] row = rows.next();
+				if (row == null || row.length != header.length) {
+					throw new RuntimeException("Row must have " + header.length + " values. Provided row index = "
+							+ rowCount);
+				}
+
+				writer.writeRecord(row);
+				rowCount++;
+			}
+		} catch (IOException e) {
+			throw new EngageApiException("Can not upload import file: " + e.getMessage());
+		}
+
+		return rowCount;
+	}
+
+	private void uploadMapFile(SFTP sftp, String mapFile) {
+		try (OutputStream outputStream = sftp.openUploadStream(mapFile)) {
+			outputStream.write(generateMapper().generateXMLString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new EngageApiException("Can not upload map file: " + e.getMessage());
+		}
+	}
+
+	private void deleteUploadedFile(SFTP sftp, String filePath) {
+		try {
+			sftp.deleteUploadedFile(filePath);
+		} catch (RuntimeException e) {
+			log.warn("Can not remove uploaded file {}: {}", filePath, e.getMessage());
+		}
+	}
+
+	TableImportMapper generateMapper() {
+		TableImportMapper mapper = new TableImportMapper(importMapperAction);
+		if (tableId == null) {
+			mapper.setTableName(schema.getTableName());
+		} else {
+			mapper.setTableId(tableId);
+		}
+
+		mapper.setColumns(schema.getColumns());
+
+		return mapper;
+	}
+}
@@ -0,0 +1,133 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.github.ka4ok85.wca.response.containers.RelationalTableRecordFailure;
+
+/**
+ * <strong>Relational Table failure mapped back to row passed to bulk
+ * processor.</strong>
+ *
+ * @since 0.0.4
+ */
+public class RelationalTableRowFailure {
+
+	private final long rowIndex;
+	private final RelationalTableRecordFailure failure;
+	private final RuntimeException exception;
+
+	RelationalTableRowFailure(long rowIndex, RelationalTableRecordFailure failure) {
+		this.rowIndex = rowIndex;
+		this.failure = failure;
+		this.exception = null;
+	}
+
+	RelationalTableRowFailure(long rowIndex, RuntimeException exception) {
+		this.rowIndex = rowIndex;
+		this.failure = null;
+		this.exception = exception;
+	}
+
+	/**
+	 * @return zero-based index of row in input or -1 if failure does not match
+	 *         any row of its batch
+	 */
+	public long getRowIndex() {
+		return rowIndex;
+	}
+
+	/**
+	 * @return failure returned by API or null if whole batch of row failed
+	 */
+	public RelationalTableRecordFailure getFailure() {
+		return failure;
+	}
+
+	/**
+	 * @return exception thrown by API call of row batch or null if API
+	 *         returned failure for row. Row may or may not be written.
+	 */
+	public RuntimeException getException() {
+		return exception;
+	}
+
+	/**
+	 * Maps failures returned for batch of rows back to rows of that batch.
+	 * 
+	 * @param batch
+	 *            - rows sent in single API call
+	 * @param firstRowIndex
+	 *            - index of first batch row in input
+	 * @param recordFailures
+	 *            - failures returned by API
+	 * @return failures with row indexes
+	 */
+	static List<RelationalTableRowFailure> map(List<Map<String, String>> batch, long firstRowIndex,
+			List<RelationalTableRecordFailure> recordFailures) {
+		List<RelationalTableRowFailure> failures = new ArrayList<RelationalTableRowFailure>();
+		boolean[] matched = new boolean[batch.size()];
+		for (RelationalTableRecordFailure failure : recordFailures) {
+			long index = -1;
+			for (int i = 0; i < batch.size(); i++) {
+				if (matched[i] == false && matches(batch.get(i), failure)) {
+					matched[i] = true;
+					index = firstRowIndex + i;
+					break;
+				}
+			}
+
+			failures.add(new RelationalTableRowFailure(index, failure));
+		}
+
+		return failures;
+	}
+
+	/**
+	 * Marks every row of batch as failed by exception of API call.
+	 * 
+	 * @param batch
+	 *            - rows sent in single API call
+	 * @param firstRowIndex
+	 *            - index of first batch row in input
+	 * @param exception
+	 *            - exception of API call
+	 * @return failures with row indexes
+	 */
+	static List<RelationalTableRowFailure> map(List<Map<String, String>> batch, long firstRowIndex,
+			RuntimeException exception) {
+		List<RelationalTableRowFailure> failures = new ArrayList<RelationalTableRowFailure>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			failures.add(new RelationalTableRowFailure(firstRowIndex + i, exception));
+		}
+
+		return failures;
+	}
+
+	/*
+	 * API returns values of failed row as list of single column maps.
+	 */
+	private static boolean matches(Map<String, String> row, RelationalTableRecordFailure failure) {
+		if (failure.getColumns() == null || failure.getColumns().isEmpty()) {
+			return false;
+		}
+
+		for (Map<String, String> column : failure.getColumns()) {
+			for (Map.Entry<String, String> entry : column.entrySet()) {
+				if (Objects.equals(row.get(entry.getKey()), entry.getValue()) == false) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "RelationalTableRowFailure [rowIndex=" + rowIndex + ", failure=" + failure + ", exception="
+				+ exception + "]";
+	}
+}
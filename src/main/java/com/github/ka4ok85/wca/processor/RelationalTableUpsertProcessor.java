@@ -0,0 +1,58 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.InsertUpdateRelationalTableOptions;
+import com.github.ka4ok85.wca.response.InsertUpdateRelationalTableResponse;
+
+/**
+ * <strong>Inserts or updates any number of Relational Table rows.</strong>
+ * <p>
+ * Rows are split into batches of at most one hundred rows accepted by
+ * InsertUpdateRelationalTable API. Batches are sent concurrently within
+ * in-flight limit, failures of all batches are merged and mapped to index of
+ * failed row in input.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RelationalTableUpsertProcessor extends AbstractRelationalTableBatchProcessor {
+
+	public RelationalTableUpsertProcessor(Engage engage, Long tableId) {
+		super(engage, tableId);
+	}
+
+	public List<RelationalTableRowFailure> upsert(Stream<Map<String, String>> rows) {
+		Objects.requireNonNull(rows, "Rows must not be null");
+		try {
+			return upsert(rows.iterator());
+		} finally {
+			rows.close();
+		}
+	}
+
+	/**
+	 * Sends all rows and waits for all responses.
+	 *
+	 * @param rows
+	 *            - column name/value pairs of rows
+	 * @return failures ordered by row index
+	 */
+	public List<RelationalTableRowFailure> upsert(Iterator<Map<String, String>> rows) {
+		return process(rows);
+	}
+
+	@Override
+	protected List<RelationalTableRowFailure> sendBatch(List<Map<String, String>> batch, long firstRowIndex) {
+		InsertUpdateRelationalTableOptions options = new InsertUpdateRelationalTableOptions(tableId);
+		options.setRows(batch);
+		InsertUpdateRelationalTableResponse response = engage.insertUpdateRelationalTable(options).getResposne();
+
+		return RelationalTableRowFailure.map(batch, firstRowIndex, response.getFailures());
+	}
+}
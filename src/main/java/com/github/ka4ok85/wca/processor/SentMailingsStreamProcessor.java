@@ -0,0 +1,363 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.GetSentMailingsForOrgOptions;
+import com.github.ka4ok85.wca.response.containers.SentMailing;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+/**
+ * <strong>Streams GetSentMailingsForOrg results of long Date Time Range in
+ * windows.</strong>
+ * <p>
+ * Date Time Range of options is requested as adjacent windows, several windows
+ * are requested concurrently. Both ends of window are inclusive, as in
+ * {@link com.github.ka4ok85.wca.cache.ReportCache}, so next window starts one
+ * second after previous one ends. Mailings are passed to consumer window by window
+ * in range order, so only windows in flight are kept in memory. Window length
+ * adapts to response size: it shrinks when window returns more mailings than
+ * Window Size and grows when window returns less than half of it. Window which
+ * fails because response is too large or request timed out is split in halves
+ * and requested again until Minimum Window or Max Split Depth is reached.
+ * Throttled window (HTTP 429 or 503, rate limit or quota fault) is not split,
+ * since halves would double number of calls, it is requested again after
+ * delay which doubles on every attempt. Other failures are thrown without
+ * splitting.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class SentMailingsStreamProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(SentMailingsStreamProcessor.class);
+	private static final String[] splitFaultMarkers = { "too large", "too many results", "too many mailings",
+			"too many records", "timeout", "timed out" };
+	private static final String[] throttleFaultMarkers = { "rate limit", "throttl", "too many requests", "quota" };
+
+	private final Engage engage;
+	private final AtomicLong callCount = new AtomicLong();
+	private final AtomicLong splitCount = new AtomicLong();
+	private final AtomicLong throttleCount = new AtomicLong();
+	private int concurrency = 4;
+	private int windowSize = 1000;
+	private long initialWindowSeconds = TimeUnit.DAYS.toSeconds(7);
+	private long minimumWindowSeconds = TimeUnit.MINUTES.toSeconds(1);
+	private int maxSplitDepth = 10;
+	private int maxThrottleRetries = 5;
+	private long throttleDelayMillis = TimeUnit.SECONDS.toMillis(1);
+
+	public SentMailingsStreamProcessor(Engage engage) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+	}
+
+	public void setConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new RuntimeException("Concurrency must be greater than zero. Provided Concurrency = " + concurrency);
+		}
+
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * @param windowSize
+	 *            - desired number of mailings per window, 1000 by default
+	 */
+	public void setWindowSize(int windowSize) {
+		if (windowSize < 1) {
+			throw new RuntimeException("Window Size must be greater than zero. Provided Window Size = " + windowSize);
+		}
+
+		this.windowSize = windowSize;
+	}
+
+	/**
+	 * @param initialWindow
+	 *            - length of first windows, 7 days by default
+	 * @param unit
+	 *            - length unit
+	 */
+	public void setInitialWindow(long initialWindow, TimeUnit unit) {
+		long seconds = unit.toSeconds(initialWindow);
+		if (seconds < 1) {
+			throw new RuntimeException(
+					"Initial Window must be at least one second. Provided Initial Window = " + initialWindow);
+		}
+
+		this.initialWindowSeconds = seconds;
+	}
+
+	/**
+	 * @param minimumWindow
+	 *            - length of window which is not split anymore, 1 minute by
+	 *            default
+	 * @param unit
+	 *            - length unit
+	 */
+	public void setMinimumWindow(long minimumWindow, TimeUnit unit) {
+		long seconds = unit.toSeconds(minimumWindow);
+		if (seconds < 1) {
+			throw new RuntimeException(
+					"Minimum Window must be at least one second. Provided Minimum Window = " + minimumWindow);
+		}
+
+		this.minimumWindowSeconds = seconds;
+	}
+
+	/**
+	 * @param maxSplitDepth
+	 *            - number of times failed window and its halves are split
+	 *            before failure is thrown, 10 by default
+	 */
+	public void setMaxSplitDepth(int maxSplitDepth) {
+		if (maxSplitDepth < 1) {
+			throw new RuntimeException(
+					"Max Split Depth must be greater than zero. Provided Max Split Depth = " + maxSplitDepth);
+		}
+
+		this.maxSplitDepth = maxSplitDepth;
+	}
+
+	/**
+	 * @param maxThrottleRetries
+	 *            - number of times throttled window is requested again before
+	 *            failure is thrown, 5 by default
+	 */
+	public void setMaxThrottleRetries(int maxThrottleRetries) {
+		if (maxThrottleRetries < 0) {
+			throw new RuntimeException("Max Throttle Retries must not be negative. Provided Max Throttle Retries = "
+					+ maxThrottleRetries);
+		}
+
+		this.maxThrottleRetries = maxThrottleRetries;
+	}
+
+	/**
+	 * @param throttleDelay
+	 *            - delay before first repeated request of throttled window, 1
+	 *            second by default
+	 * @param unit
+	 *            - delay unit
+	 */
+	public void setThrottleDelay(long throttleDelay, TimeUnit unit) {
+		if (throttleDelay < 0) {
+			throw new RuntimeException(
+					"Throttle Delay must not be negative. Provided Throttle Delay = " + throttleDelay);
+		}
+
+		this.throttleDelayMillis = unit.toMillis(throttleDelay);
+	}
+
+	/**
+	 * Requests all mailings of options Date Time Range and passes them to
+	 * consumer in range order. Consumer is called from calling thread.
+	 *
+	 * @param options
+	 *            - settings for whole range, Mailing Count Only is not
+	 *            supported
+	 * @param consumer
+	 *            - receiver of mailings
+	 * @return number of mailings passed to consumer
+	 */
+	public long stream(GetSentMailingsForOrgOptions options, Consumer<SentMailing> consumer) {
+		Objects.requireNonNull(options, "GetSentMailingsForOrgOptions must not be null");
+		Objects.requireNonNull(consumer, "Consumer must not be null");
+		if (options.isMailingCountOnly()) {
+			throw new RuntimeException("Mailing Count Only is not supported for streaming");
+		}
+
+		LocalDateTime end = options.getDateTimeRange().getEndDateTime();
+		LocalDateTime next = options.getDateTimeRange().getStartDateTime();
+		long window = Math.max(initialWindowSeconds, minimumWindowSeconds);
+		long count = 0;
+
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		Deque<Future<List<SentMailing>>> inFlight = new ArrayDeque<Future<List<SentMailing>>>();
+		Deque<DateTimeRange> inFlightRanges = new ArrayDeque<DateTimeRange>();
+		try {
+			while (next != null || inFlight.isEmpty() == false) {
+				while (next != null && inFlight.size() < concurrency) {
+					DateTimeRange range = nextWindow(next, end, window);
+					inFlight.add(executor.submit(() -> fetch(options, range, 0)));
+					inFlightRanges.add(range);
+					next = range.getEndDateTime().equals(end) ? null : range.getEndDateTime().plusSeconds(1);
+				}
+
+				List<SentMailing> mailings = inFlight.poll().get();
+				window = adapt(window, inFlightRanges.poll(), mailings.size());
+				for (SentMailing mailing : mailings) {
+					consumer.accept(mailing);
+				}
+
+				count += mailings.size();
+			}
+
+			return count;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new EngageApiException(e.getCause().getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return number of GetSentMailingsForOrg calls made
+	 */
+	public long getCallCount() {
+		return callCount.get();
+	}
+
+	/**
+	 * @return number of failed windows which were split
+	 */
+	public long getSplitCount() {
+		return splitCount.get();
+	}
+
+	/**
+	 * @return number of throttled calls which were repeated
+	 */
+	public long getThrottleCount() {
+		return throttleCount.get();
+	}
+
+	// range end is inclusive, next window starts one second later
+	private DateTimeRange nextWindow(LocalDateTime start, LocalDateTime end, long window) {
+		LocalDateTime windowEnd = start.plusSeconds(Math.max(1, window - 1));
+		if (windowEnd.plusSeconds(1).isBefore(end) == false) {
+			windowEnd = end;
+		}
+
+		return new DateTimeRange(start, windowEnd);
+	}
+
+	private long adapt(long window, DateTimeRange range, int size) {
+		long seconds = Duration.between(range.getStartDateTime(), range.getEndDateTime()).getSeconds() + 1;
+		if (size > windowSize) {
+			return Math.max(minimumWindowSeconds, Math.min(window, seconds * windowSize / size));
+		}
+
+		if (size < windowSize / 2 && seconds >= window) {
+			return window * 2;
+		}
+
+		return window;
+	}
+
+	private List<SentMailing> fetch(GetSentMailingsForOrgOptions options, DateTimeRange range, int depth) {
+		int throttleRetries = 0;
+		while (true) {
+			try {
+				callCount.incrementAndGet();
+				return engage.getSentMailingsForOrg(new GetSentMailingsForOrgOptions(options, range)).getResposne()
+						.getSentMailings();
+			} catch (RuntimeException e) {
+				if (isThrottled(e)) {
+					if (throttleRetries >= maxThrottleRetries) {
+						throw e;
+					}
+
+					long delay = throttleDelayMillis << throttleRetries;
+					throttleRetries++;
+					throttleCount.incrementAndGet();
+					log.debug("GetSentMailingsForOrg window {} is throttled, repeating it in {} ms: {}", range, delay,
+							e.getMessage());
+					try {
+						Thread.sleep(delay);
+					} catch (InterruptedException interrupted) {
+						Thread.currentThread().interrupt();
+						throw new EngageApiException(interrupted.getMessage());
+					}
+
+					continue;
+				}
+
+				long seconds = Duration.between(range.getStartDateTime(), range.getEndDateTime()).getSeconds() + 1;
+				if (depth >= maxSplitDepth || seconds < Math.max(4, minimumWindowSeconds * 2)
+						|| isSplittable(e) == false) {
+					throw e;
+				}
+
+				log.debug("GetSentMailingsForOrg window {} failed, splitting it: {}", range, e.getMessage());
+				splitCount.incrementAndGet();
+				LocalDateTime middle = range.getStartDateTime().plusSeconds(seconds / 2);
+				List<SentMailing> mailings = new ArrayList<SentMailing>(fetch(options,
+						new DateTimeRange(range.getStartDateTime(), middle.minusSeconds(1)), depth + 1));
+				mailings.addAll(fetch(options, new DateTimeRange(middle, range.getEndDateTime()), depth + 1));
+
+				return mailings;
+			}
+		}
+	}
+
+	/**
+	 * Only failures which smaller window can avoid are worth splitting: fault
+	 * about response size and timeouts.
+	 */
+	static boolean isSplittable(RuntimeException exception) {
+		if (exception instanceof HttpServerErrorException) {
+			return ((HttpServerErrorException) exception).getStatusCode() == HttpStatus.GATEWAY_TIMEOUT;
+		}
+
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SocketTimeoutException) {
+				return true;
+			}
+		}
+
+		return containsMarker(exception, splitFaultMarkers);
+	}
+
+	/**
+	 * WCA asks for fewer calls, so such failures are repeated later instead of
+	 * being split.
+	 */
+	static boolean isThrottled(RuntimeException exception) {
+		if (exception instanceof HttpStatusCodeException) {
+			HttpStatus status = ((HttpStatusCodeException) exception).getStatusCode();
+			return status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.SERVICE_UNAVAILABLE;
+		}
+
+		return containsMarker(exception, throttleFaultMarkers);
+	}
+
+	private static boolean containsMarker(RuntimeException exception, String[] markers) {
+		String message = exception.getMessage() == null ? "" : exception.getMessage().toLowerCase(Locale.ROOT);
+		for (String marker : markers) {
+			if (message.contains(marker)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,317 @@
+package com.github.ka4ok85.wca.processor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.RawRecipientDataExportOptions;
+import com.github.ka4ok85.wca.reader.RawRecipientDataExportReader;
+import com.github.ka4ok85.wca.response.RawRecipientDataExportResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+/**
+ * <strong>Runs single RawRecipientDataExport as several concurrent
+ * jobs.</strong>
+ * <p>
+ * Event Range (or Send Range, or Mailing/Report ID list) of options is split
+ * into shards. Every shard is exported, polled and downloaded by its own
+ * thread and retried independently. Shard files are downloaded only when Local
+ * File Path is set and Move To FTP is on (default), then they are merged in
+ * shard order into Local File Path of original options.
+ * </p>
+ * <p>
+ * Shard files are zip archives, data file of every shard is read and header
+ * row is kept only once. Merged file is zip archive with single data file if
+ * Local File Path ends with ".zip", plain delimited file otherwise.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class ShardedRawRecipientDataExportProcessor {
+
+	private static final Logger log = LoggerFactory.getLogger(ShardedRawRecipientDataExportProcessor.class);
+
+	private final Engage engage;
+	private final int shardCount;
+	private int maxAttempts = 3;
+
+	public ShardedRawRecipientDataExportProcessor(Engage engage, int shardCount) {
+		this.engage = Objects.requireNonNull(engage, "Engage must not be null");
+		if (shardCount < 1) {
+			throw new RuntimeException("Shard Count must be greater than zero. Provided Shard Count = " + shardCount);
+		}
+
+		this.shardCount = shardCount;
+	}
+
+	public void setMaxAttempts(int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new RuntimeException(
+					"Max Attempts must be greater than zero. Provided Max Attempts = " + maxAttempts);
+		}
+
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Splits options into shard options. Event Range is split if set,
+	 * otherwise Send Range, otherwise Mailing/Report ID list. Time ranges are
+	 * split into adjacent ranges which do not overlap.
+	 * 
+	 * @param options
+	 *            - settings for whole export
+	 * @return ordered shard settings
+	 */
+	public List<RawRecipientDataExportOptions> split(RawRecipientDataExportOptions options) {
+		Objects.requireNonNull(options, "RawRecipientDataExportOptions must not be null");
+
+		List<RawRecipientDataExportOptions> shards = new ArrayList<RawRecipientDataExportOptions>();
+		if (options.getEventRange() != null) {
+			for (DateTimeRange range : splitRange(options.getEventRange())) {
+				RawRecipientDataExportOptions shard = new RawRecipientDataExportOptions(options);
+				shard.setEventRange(range);
+				shards.add(shard);
+			}
+		} else if (options.getSendRange() != null) {
+			for (DateTimeRange range : splitRange(options.getSendRange())) {
+				RawRecipientDataExportOptions shard = new RawRecipientDataExportOptions(options);
+				shard.setSendRange(range);
+				shards.add(shard);
+			}
+		} else if (options.getMailingReportId() != null && options.getMailingReportId().isEmpty() == false) {
+			List<HashMap<String, Long>> mailings = options.getMailingReportId();
+			int count = Math.min(shardCount, mailings.size());
+			for (int i = 0; i < count; i++) {
+				RawRecipientDataExportOptions shard = new RawRecipientDataExportOptions(options);
+				shard.setMailingReportId(new ArrayList<HashMap<String, Long>>(
+						mailings.subList(mailings.size() * i / count, mailings.size() * (i + 1) / count)));
+				shards.add(shard);
+			}
+		} else {
+			throw new RuntimeException("Event Range, Send Range or Mailing/Report ID list is required for sharding");
+		}
+
+		for (int i = 0; i < shards.size(); i++) {
+			RawRecipientDataExportOptions shard = shards.get(i);
+			if (options.getExportFileName() != null) {
+				shard.setExportFileName(options.getExportFileName() + "_" + i);
+			}
+
+			if (options.getLocalAbsoluteFilePath() != null) {
+				shard.setLocalAbsoluteFilePath(options.getLocalAbsoluteFilePath() + ".part" + i);
+			}
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Exports all shards concurrently. If Local File Path is set and Move To FTP
+	 * is on, shard files are merged into it. Shard files are removed afterwards,
+	 * also when any shard fails.
+	 * 
+	 * @param options
+	 *            - settings for whole export
+	 * @return shard responses in shard order
+	 */
+	public List<ResponseContainer<RawRecipientDataExportResponse>> export(RawRecipientDataExportOptions options) {
+		List<RawRecipientDataExportOptions> shards = split(options);
+
+		ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+		List<ResponseContainer<RawRecipientDataExportResponse>> responses = new ArrayList<ResponseContainer<RawRecipientDataExportResponse>>();
+		try {
+			List<Future<ResponseContainer<RawRecipientDataExportResponse>>> futures = new ArrayList<Future<ResponseContainer<RawRecipientDataExportResponse>>>();
+			for (RawRecipientDataExportOptions shard : shards) {
+				futures.add(executor.submit(() -> exportShard(shard)));
+			}
+
+			for (Future<ResponseContainer<RawRecipientDataExportResponse>> future : futures) {
+				responses.add(future.get());
+			}
+
+			if (options.getLocalAbsoluteFilePath() != null && options.isMoveToFtp()) {
+				merge(shards, options);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EngageApiException(e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new EngageApiException(e.getCause().getMessage());
+		} finally {
+			executor.shutdownNow();
+			deleteShardFiles(shards);
+		}
+
+		return responses;
+	}
+
+	/*
+	 * Executor is shut down first, so shard downloads still running may leave
+	 * files behind only until they are interrupted.
+	 */
+	private void deleteShardFiles(List<RawRecipientDataExportOptions> shards) {
+		for (RawRecipientDataExportOptions shard : shards) {
+			if (shard.getLocalAbsoluteFilePath() != null) {
+				try {
+					Files.deleteIfExists(Paths.get(shard.getLocalAbsoluteFilePath()));
+				} catch (IOException e) {
+					log.warn("Can not delete shard file {}: {}", shard.getLocalAbsoluteFilePath(), e.getMessage());
+				}
+			}
+		}
+	}
+
+	private ResponseContainer<RawRecipientDataExportResponse> exportShard(RawRecipientDataExportOptions shard) {
+		RuntimeException lastException = null;
+		for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+			try {
+				return engage.rawRecipientDataExport(shard);
+			} catch (RuntimeException e) {
+				log.debug("RawRecipientDataExport shard {} failed on attempt {}: {}", shard.getLocalAbsoluteFilePath(),
+						attempt, e.getMessage());
+				lastException = e;
+			}
+		}
+
+		throw lastException;
+	}
+
+	private List<DateTimeRange> splitRange(DateTimeRange range) {
+		long seconds = Duration.between(range.getStartDateTime(), range.getEndDateTime()).getSeconds();
+		int count = (int) Math.max(1, Math.min(shardCount, seconds / 2));
+
+		List<DateTimeRange> ranges = new ArrayList<DateTimeRange>();
+		LocalDateTime start = range.getStartDateTime();
+		for (int i = 1; i <= count; i++) {
+			LocalDateTime end;
+			if (i == count) {
+				end = range.getEndDateTime();
+			} else {
+				// range end is inclusive, next shard starts one second later
+				end = range.getStartDateTime().plusSeconds(seconds * i / count).minusSeconds(1);
+			}
+
+			ranges.add(new DateTimeRange(start, end));
+			start = end.plusSeconds(1);
+		}
+
+		return ranges;
+	}
+
+	private void merge(List<RawRecipientDataExportOptions> shards, RawRecipientDataExportOptions options) {
+		Charset charset = Charset.forName(options.getFileEncoding().value());
+		byte[] header = RawRecipientDataExportReader.RECIPIENT_ID.getBytes(charset);
+		Path target = Paths.get(options.getLocalAbsoluteFilePath());
+		try (OutputStream output = openMergedFile(target, Paths.get(shards.get(0).getLocalAbsoluteFilePath()))) {
+			boolean first = true;
+			for (RawRecipientDataExportOptions shard : shards) {
+				Path source = Paths.get(shard.getLocalAbsoluteFilePath());
+				try (InputStream input = RawRecipientDataExportReader.openExportFile(source)) {
+					if (first == false) {
+						skipHeader(input, output, header);
+					}
+
+					copy(input, output);
+				}
+
+				Files.delete(source);
+				first = false;
+			}
+		} catch (IOException e) {
+			throw new EngageApiException("Can not merge RawRecipientDataExport shard files: " + e.getMessage());
+		}
+	}
+
+	/*
+	 * Data file of merged archive is named after data file of first shard.
+	 */
+	private OutputStream openMergedFile(Path target, Path firstShard) throws IOException {
+		String fileName = target.getFileName().toString();
+		if (fileName.toLowerCase().endsWith(".zip") == false) {
+			return new BufferedOutputStream(Files.newOutputStream(target));
+		}
+
+		String dataFileName = fileName.substring(0, fileName.length() - ".zip".length());
+		if (RawRecipientDataExportReader.isArchive(firstShard)) {
+			try (ZipFile archive = new ZipFile(firstShard.toFile())) {
+				dataFileName = archive.stream().filter(entry -> entry.isDirectory() == false)
+						.map(ZipEntry::getName).findFirst().orElse(dataFileName);
+			}
+		}
+
+		ZipOutputStream archive = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(target)));
+		archive.putNextEntry(new ZipEntry(dataFileName));
+
+		return archive;
+	}
+
+	/*
+	 * Header row never contains line breaks, so it is skipped up to first line
+	 * break. Bytes already read from data row are written to output.
+	 */
+	private void skipHeader(InputStream input, OutputStream output, byte[] header) throws IOException {
+		int offset = 0;
+		byte[] prefix = new byte[header.length + 1];
+		int b = input.read();
+		if (b == '"') {
+			prefix[offset++] = (byte) b;
+			b = input.read();
+		}
+
+		int matched = 0;
+		while (b != -1 && matched < header.length && b == (header[matched] & 0xFF)) {
+			prefix[offset++] = (byte) b;
+			matched++;
+			b = (matched < header.length) ? input.read() : b;
+		}
+
+		if (matched < header.length) {
+			output.write(prefix, 0, offset);
+			if (b != -1) {
+				output.write(b);
+			}
+
+			return;
+		}
+
+		while (b != -1 && b != '\n') {
+			b = input.read();
+		}
+	}
+
+	private void copy(InputStream input, OutputStream output) throws IOException {
+		byte[] buffer = new byte[64 * 1024];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			output.write(buffer, 0, read);
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package com.github.ka4ok85.wca.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.github.ka4ok85.wca.constants.ExportFormat;
+
+/**
+ * <strong>Streaming reader for CSV, TAB and PIPE files produced by WCA export
+ * APIs.</strong>
+ * <p>
+ * Reader keeps current record in single reusable character buffer and exposes
+ * fields by index, so iterating over file does not allocate objects per row.
+ * {@link #getString(int)} is the only accessor which creates new objects.
+ * Double quoted fields (including embedded delimiters, line breaks and escaped
+ * quotes) are supported for CSV format only, TAB and PIPE values are read as
+ * is.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class DelimitedFileReader implements Closeable {
+
+	private static final int bufferSize = 65536;
+	private static final char quote = '"';
+
+	private final Reader reader;
+	private final char delimiter;
+	private final boolean quoted;
+
+	private final char[] input = new char[bufferSize];
+	private int inputPosition = 0;
+	private int inputLength = 0;
+
+	private char[] record = new char[1024];
+	private int recordLength = 0;
+	private int[] fieldStarts = new int[32];
+	private int[] fieldEnds = new int[32];
+	private int fieldCount = 0;
+	private long recordNumber = 0;
+
+	public DelimitedFileReader(Reader reader, ExportFormat exportFormat) {
+		this.reader = Objects.requireNonNull(reader, "Reader must not be null");
+		Objects.requireNonNull(exportFormat, "ExportFormat must not be null");
+		this.delimiter = getDelimiter(exportFormat);
+		this.quoted = (exportFormat == ExportFormat.CSV);
+	}
+
+	public static char getDelimiter(ExportFormat exportFormat) {
+		switch (exportFormat) {
+		case TAB:
+			return '\t';
+		case PIPE:
+			return '|';
+		default:
+			return ',';
+		}
+	}
+
+	/**
+	 * Moves reader to next record. Blank lines are skipped.
+	 * 
+	 * @return false if there are no more records
+	 * @throws IOException
+	 *             - if underlying reader fails
+	 */
+	public boolean nextRecord() throws IOException {
+		recordLength = 0;
+		fieldCount = 0;
+
+		int fieldStart = 0;
+		boolean inQuotes = false;
+		boolean atFieldStart = true;
+		boolean blank = true;
+		while (true) {
+			if (inputPosition == inputLength && fill() == false) {
+				if (blank) {
+					return false;
+				}
+
+				endField(fieldStart);
+				recordNumber++;
+				return true;
+			}
+
+			char c = input[inputPosition++];
+			if (inQuotes) {
+				if (c == quote) {
+					if ((inputPosition < inputLength || fill()) && input[inputPosition] == quote) {
+						inputPosition++;
+						append(quote);
+					} else {
+						inQuotes = false;
+					}
+				} else {
+					append(c);
+				}
+
+				continue;
+			}
+
+			if (c == '\n' || c == '\r') {
+				if (c == '\r' && (inputPosition < inputLength || fill()) && input[inputPosition] == '\n') {
+					inputPosition++;
+				}
+
+				if (blank) {
+					continue;
+				}
+
+				endField(fieldStart);
+				recordNumber++;
+				return true;
+			}
+
+			blank = false;
+			if (c == delimiter) {
+				endField(fieldStart);
+				fieldStart = recordLength;
+				atFieldStart = true;
+			} else if (c == quote && quoted && atFieldStart) {
+				inQuotes = true;
+				atFieldStart = false;
+			} else {
+				atFieldStart = false;
+				append(c);
+			}
+		}
+	}
+
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * @return 1-based number of current record, header included
+	 */
+	public long getRecordNumber() {
+		return recordNumber;
+	}
+
+	public int getLength(int index) {
+		checkIndex(index);
+		return fieldEnds[index] - fieldStarts[index];
+	}
+
+	public boolean isEmpty(int index) {
+		return getLength(index) == 0;
+	}
+
+	public char charAt(int index, int position) {
+		checkIndex(index);
+		if (position < 0 || position >= fieldEnds[index] - fieldStarts[index]) {
+			throw new IndexOutOfBoundsException("Position " + position + " is out of field " + index);
+		}
+
+		return record[fieldStarts[index] + position];
+	}
+
+	/**
+	 * Creates String with field value. Unlike other accessors it allocates new
+	 * object on each call.
+	 * 
+	 * @param index
+	 *            - 0-based field index
+	 * @return field value
+	 */
+	public String getString(int index) {
+		checkIndex(index);
+		return new String(record, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+	}
+
+	/**
+	 * Parses field value as long without creating intermediate String.
+	 * 
+	 * @param index
+	 *            - 0-based field index
+	 * @param defaultValue
+	 *            - value returned for empty field
+	 * @return parsed value
+	 */
+	public long getLong(int index, long defaultValue) {
+		checkIndex(index);
+		int start = fieldStarts[index];
+		int end = fieldEnds[index];
+		if (start == end) {
+			return defaultValue;
+		}
+
+		boolean negative = false;
+		if (record[start] == '-') {
+			negative = true;
+			start++;
+		}
+
+		if (start == end) {
+			throw new NumberFormatException("Bad numeric value in field " + index + ": " + getString(index));
+		}
+
+		long result = 0;
+		for (int i = start; i < end; i++) {
+			int digit = record[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Bad numeric value in field " + index + ": " + getString(index));
+			}
+
+			result = result * 10 + digit;
+		}
+
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Compares field value with given String ignoring case without creating
+	 * intermediate String.
+	 * 
+	 * @param index
+	 *            - 0-based field index
+	 * @param value
+	 *            - value to compare with
+	 * @return true if values are equal
+	 */
+	public boolean equalsIgnoreCase(int index, String value) {
+		checkIndex(index);
+		int start = fieldStarts[index];
+		int length = fieldEnds[index] - start;
+		if (length != value.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			char a = record[start + i];
+			char b = value.charAt(i);
+			if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private boolean fill() throws IOException {
+		if (inputPosition < inputLength) {
+			return true;
+		}
+
+		int read;
+		do {
+			read = reader.read(input, 0, input.length);
+		} while (read == 0);
+
+		if (read < 0) {
+			inputPosition = 0;
+			inputLength = 0;
+			return false;
+		}
+
+		inputPosition = 0;
+		inputLength = read;
+
+		return true;
+	}
+
+	private void append(char c) {
+		if (recordLength == record.length) {
+			record = Arrays.copyOf(record, record.length * 2);
+		}
+
+		record[recordLength++] = c;
+	}
+
+	private void endField(int fieldStart) {
+		if (fieldCount == fieldStarts.length) {
+			fieldStarts = Arrays.copyOf(fieldStarts, fieldStarts.length * 2);
+			fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+		}
+
+		fieldStarts[fieldCount] = fieldStart;
+		fieldEnds[fieldCount] = recordLength;
+		fieldCount++;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= fieldCount) {
+			throw new IndexOutOfBoundsException(
+					"Field index " + index + " is out of range. Record has " + fieldCount + " fields");
+		}
+	}
+}
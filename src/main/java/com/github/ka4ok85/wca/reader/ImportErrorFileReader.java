@@ -0,0 +1,169 @@
+package com.github.ka4ok85.wca.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.github.ka4ok85.wca.constants.ExportFormat;
+import com.github.ka4ok85.wca.constants.FileEncoding;
+
+/**
+ * <strong>Streaming reader for error files produced by WCA ImportList and
+ * ImportTable APIs.</strong>
+ * <p>
+ * Error file repeats rejected source rows with additional error description
+ * column. Description column is recognized by header name (Error, Reason,
+ * Error Message or Error Description) and defaults to last column. Row number
+ * is taken from Row or Line column when file has one, otherwise it is unknown:
+ * position in error file does not match row of source file. Rows are read one
+ * by one, so failed rows of large import can be reprocessed without reading
+ * source file again.
+ * </p>
+ * <p>
+ * Only comma-separated error files are supported.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class ImportErrorFileReader implements Closeable {
+
+	private static final List<String> reasonColumns = Arrays.asList("ERROR", "ERRORS", "REASON", "ERROR MESSAGE",
+			"ERROR_MESSAGE", "ERROR DESCRIPTION", "ERROR_DESCRIPTION");
+	private static final List<String> rowNumberColumns = Arrays.asList("ROW", "LINE", "ROW NUMBER", "ROW_NUMBER",
+			"LINE NUMBER", "LINE_NUMBER");
+
+	private final DelimitedFileReader fileReader;
+	private final List<String> columns;
+	private int reasonIndex = -1;
+	private int rowNumberIndex = -1;
+
+	/**
+	 * Opens downloaded CSV error file.
+	 *
+	 * @param localAbsoluteFilePath
+	 *            - path to downloaded error file
+	 * @param fileEncoding
+	 *            - encoding used for import
+	 * @throws IOException
+	 *             - if file can not be opened or its header can not be read
+	 */
+	public ImportErrorFileReader(String localAbsoluteFilePath, FileEncoding fileEncoding) throws IOException {
+		this(new InputStreamReader(Files.newInputStream(Paths.get(localAbsoluteFilePath)),
+				Charset.forName(Objects.requireNonNull(fileEncoding, "File Encoding must not be null").value())),
+				true);
+	}
+
+	/**
+	 * @param reader
+	 *            - CSV error file content
+	 * @param hasHeader
+	 *            - true if first row contains column names
+	 * @throws IOException
+	 *             - if header can not be read
+	 */
+	public ImportErrorFileReader(Reader reader, boolean hasHeader) throws IOException {
+		this.fileReader = new DelimitedFileReader(Objects.requireNonNull(reader, "Reader must not be null"),
+				ExportFormat.CSV);
+		List<String> header = Collections.emptyList();
+		if (hasHeader && fileReader.nextRecord()) {
+			List<String> names = new ArrayList<String>(fileReader.getFieldCount());
+			for (int i = 0; i < fileReader.getFieldCount(); i++) {
+				String name = fileReader.getString(i).trim();
+				names.add(name);
+				if (reasonIndex < 0 && reasonColumns.contains(name.toUpperCase())) {
+					reasonIndex = i;
+				} else if (rowNumberIndex < 0 && rowNumberColumns.contains(name.toUpperCase())) {
+					rowNumberIndex = i;
+				}
+			}
+
+			header = names;
+		}
+
+		List<String> valueColumns = new ArrayList<String>(header);
+		int reasonColumn = reasonIndex < 0 ? header.size() - 1 : reasonIndex;
+		if (reasonColumn >= 0) {
+			valueColumns.set(reasonColumn, null);
+		}
+
+		if (rowNumberIndex >= 0) {
+			valueColumns.set(rowNumberIndex, null);
+		}
+
+		valueColumns.removeIf(Objects::isNull);
+		this.columns = Collections.unmodifiableList(valueColumns);
+	}
+
+	/**
+	 * @return names of source file columns, empty if file has no header
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Reads next rejected row.
+	 *
+	 * @return rejected row or null if end of file is reached
+	 * @throws IOException
+	 *             - if underlying reader fails
+	 */
+	public ImportRejection next() throws IOException {
+		if (fileReader.nextRecord() == false) {
+			return null;
+		}
+
+		int fieldCount = fileReader.getFieldCount();
+		int reasonColumn = reasonIndex >= 0 && reasonIndex < fieldCount ? reasonIndex : fieldCount - 1;
+		Long rowNumber = null;
+		if (rowNumberIndex >= 0 && rowNumberIndex < fieldCount
+				&& fileReader.getString(rowNumberIndex).trim().isEmpty() == false) {
+			rowNumber = Long.valueOf(fileReader.getString(rowNumberIndex).trim());
+		}
+
+		List<String> values = new ArrayList<String>(fieldCount);
+		for (int i = 0; i < fieldCount; i++) {
+			if (i != reasonColumn && i != rowNumberIndex) {
+				values.add(fileReader.getString(i));
+			}
+		}
+
+		return new ImportRejection(rowNumber, fileReader.getString(reasonColumn), columns,
+				values.toArray(new String[values.size()]));
+	}
+
+	/**
+	 * Passes every remaining rejected row to consumer.
+	 *
+	 * @param consumer
+	 *            - rejected row handler
+	 * @return number of processed rows
+	 * @throws IOException
+	 *             - if underlying reader fails
+	 */
+	public long forEach(Consumer<ImportRejection> consumer) throws IOException {
+		long count = 0;
+		ImportRejection rejection;
+		while ((rejection = next()) != null) {
+			consumer.accept(rejection);
+			count++;
+		}
+
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		fileReader.close();
+	}
+}
@@ -0,0 +1,72 @@
+package com.github.ka4ok85.wca.reader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <strong>Source file row rejected by WCA import job.</strong>
+ *
+ * @since 0.0.4
+ */
+public class ImportRejection {
+
+	private final Long rowNumber;
+	private final String reason;
+	private final List<String> columns;
+	private final String[] values;
+
+	ImportRejection(Long rowNumber, String reason, List<String> columns, String[] values) {
+		this.rowNumber = rowNumber;
+		this.reason = reason;
+		this.columns = columns;
+		this.values = values;
+	}
+
+	/**
+	 * @return row number reported by import job or null if error file does
+	 *         not report it
+	 */
+	public Long getRowNumber() {
+		return rowNumber;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return names of original values, empty if error file has no header
+	 */
+	public List<String> getColumns() {
+		return Collections.unmodifiableList(columns);
+	}
+
+	/**
+	 * @return original row values in source file order
+	 */
+	public String[] getValues() {
+		return values.clone();
+	}
+
+	/**
+	 * @param columnName
+	 *            - source file column name, case insensitive
+	 * @return original value or null if column is not known
+	 */
+	public String getValue(String columnName) {
+		for (int i = 0; i < columns.size() && i < values.length; i++) {
+			if (columns.get(i).equalsIgnoreCase(columnName)) {
+				return values[i];
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportRejection [rowNumber=" + rowNumber + ", reason=" + reason + ", columns=" + columns + ", values="
+				+ Arrays.toString(values) + "]";
+	}
+}
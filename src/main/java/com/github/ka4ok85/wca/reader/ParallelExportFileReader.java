@@ -0,0 +1,507 @@
+package com.github.ka4ok85.wca.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.ka4ok85.wca.constants.ExportFormat;
+import com.github.ka4ok85.wca.constants.FileEncoding;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.ExportListOptions;
+
+/**
+ * <strong>Parallel reader for large files produced by WCA export
+ * APIs.</strong>
+ * <p>
+ * File is memory-mapped and split into chunks which always start at record
+ * boundary. For CSV files every chunk is scanned in parallel with the quoting
+ * rules of {@link DelimitedFileReader} from each possible starting state, then
+ * states are chained from start of file, so line breaks inside quoted values
+ * never split a record and quote inside unquoted value is read as plain
+ * character. Chunks are exposed either as parallel
+ * {@link java.util.stream.Stream} of rows or through per-chunk callbacks.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class ParallelExportFileReader {
+
+	private static final long defaultChunkSize = 64L * 1024 * 1024;
+	private static final int scanBufferSize = 64 * 1024;
+	private static final byte quote = '"';
+	private static final byte newLine = '\n';
+
+	/*
+	 * CSV scanner states: outside of quotes at field start, outside of quotes
+	 * inside field, inside quotes and right after quote inside quotes.
+	 */
+	private static final int fieldStart = 0;
+	private static final int unquoted = 1;
+	private static final int inQuotes = 2;
+	private static final int quoteInQuotes = 3;
+	private static final int stateCount = 4;
+
+	private final String localAbsoluteFilePath;
+	private final ExportFormat exportFormat;
+	private final Charset charset;
+	private final byte delimiter;
+	private long chunkSize = defaultChunkSize;
+	private boolean hasHeader = true;
+	private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+	private List<Chunk> chunks;
+	private String[] header;
+
+	/**
+	 * Callback for {@link ParallelExportFileReader#forEachChunk(ChunkHandler)}.
+	 * Handler is called concurrently for different chunks.
+	 */
+	@FunctionalInterface
+	public interface ChunkHandler {
+		void handle(int chunkIndex, DelimitedFileReader reader) throws IOException;
+	}
+
+	public ParallelExportFileReader(String localAbsoluteFilePath, ExportFormat exportFormat,
+			FileEncoding fileEncoding) {
+		if (localAbsoluteFilePath == null || localAbsoluteFilePath.trim().isEmpty()) {
+			throw new RuntimeException("Local File Path must be non-empty String. Provided Local File Path = "
+					+ localAbsoluteFilePath);
+		}
+
+		this.localAbsoluteFilePath = localAbsoluteFilePath;
+		this.exportFormat = Objects.requireNonNull(exportFormat, "ExportFormat must not be null");
+		this.charset = Charset.forName(Objects.requireNonNull(fileEncoding, "FileEncoding must not be null").value());
+		this.delimiter = (byte) DelimitedFileReader.getDelimiter(exportFormat);
+	}
+
+	/**
+	 * Creates reader for file downloaded by
+	 * {@link com.github.ka4ok85.wca.command.ExportListCommand}.
+	 * 
+	 * @param options
+	 *            - settings used for ExportList API call. Local file path must
+	 *            be set.
+	 */
+	public ParallelExportFileReader(ExportListOptions options) {
+		this(Objects.requireNonNull(options, "ExportListOptions must not be null").getLocalAbsoluteFilePath(),
+				options.getExportFormat(), options.getFileEncoding());
+	}
+
+	public void setChunkSize(long chunkSize) {
+		if (chunkSize < 1 || chunkSize > Integer.MAX_VALUE / 2) {
+			throw new RuntimeException(
+					"Chunk Size must be between 1 and " + Integer.MAX_VALUE / 2 + ". Provided Chunk Size = " + chunkSize);
+		}
+
+		this.chunkSize = chunkSize;
+		this.chunks = null;
+	}
+
+	public void setHasHeader(boolean hasHeader) {
+		this.hasHeader = hasHeader;
+		this.chunks = null;
+	}
+
+	/**
+	 * Sets pool used for scanning of chunk boundaries and by
+	 * {@link #forEachChunk(ChunkHandler)}. It does not apply to
+	 * {@link #stream(boolean)}.
+	 * 
+	 * @param forkJoinPool
+	 *            - pool, common pool by default
+	 */
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = Objects.requireNonNull(forkJoinPool, "ForkJoinPool must not be null");
+	}
+
+	/**
+	 * @return header row or null if file has no header
+	 * @throws IOException
+	 *             - if file can not be read
+	 */
+	public String[] getHeader() throws IOException {
+		getChunks();
+		return header;
+	}
+
+	/**
+	 * @return number of chunks file is split into
+	 * @throws IOException
+	 *             - if file can not be read
+	 */
+	public int getChunkCount() throws IOException {
+		return getChunks().size();
+	}
+
+	/**
+	 * Streams data rows (header excluded) of file, rows of each chunk are read
+	 * lazily. Like any parallel stream it runs on pool of thread which executes
+	 * terminal operation: common pool, unless terminal operation is submitted
+	 * to other {@link ForkJoinPool}. Pool set by
+	 * {@link #setForkJoinPool(ForkJoinPool)} is not used here.
+	 * 
+	 * @param ordered
+	 *            - if false stream is unordered which lets terminal operations
+	 *            skip order bookkeeping
+	 * @return parallel stream of rows, must be closed by caller
+	 * @throws IOException
+	 *             - if file can not be read
+	 */
+	public Stream<String[]> stream(boolean ordered) throws IOException {
+		Stream<String[]> stream = getChunks().parallelStream().flatMap(chunk -> streamChunk(chunk));
+		if (ordered == false) {
+			stream = stream.unordered();
+		}
+
+		return stream;
+	}
+
+	/**
+	 * Calls handler for every chunk on configured fork-join pool and waits
+	 * until all chunks are processed. Reader passed to handler is positioned
+	 * before first data row of chunk.
+	 * 
+	 * @param handler
+	 *            - chunk callback
+	 * @throws IOException
+	 *             - if file can not be read or handler fails
+	 */
+	public void forEachChunk(ChunkHandler handler) throws IOException {
+		Objects.requireNonNull(handler, "ChunkHandler must not be null");
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (Chunk chunk : getChunks()) {
+			tasks.add(forkJoinPool.submit(() -> {
+				try (DelimitedFileReader reader = openChunk(chunk)) {
+					handler.handle(chunk.index, reader);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}));
+		}
+
+		for (ForkJoinTask<?> task : tasks) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new EngageApiException(e.getMessage());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) e.getCause()).getCause();
+				}
+
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+
+				throw new EngageApiException(e.getCause().getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Copies current record of reader into String array.
+	 * 
+	 * @param reader
+	 *            - reader positioned on record
+	 * @return record values
+	 */
+	public static String[] toArray(DelimitedFileReader reader) {
+		String[] values = new String[reader.getFieldCount()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = reader.getString(i);
+		}
+
+		return values;
+	}
+
+	private synchronized List<Chunk> getChunks() throws IOException {
+		if (chunks != null) {
+			return chunks;
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(localAbsoluteFilePath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long dataStart = 0;
+			header = null;
+			if (hasHeader && size > 0) {
+				dataStart = readHeader(channel, size);
+			}
+
+			int nominalCount = (int) Math.max(1, (size - dataStart + chunkSize - 1) / chunkSize);
+			int[] statesAtStart = getStartStates(channel, dataStart, size, nominalCount);
+
+			List<Long> boundaries = new ArrayList<Long>();
+			boundaries.add(dataStart);
+			for (int i = 1; i < nominalCount; i++) {
+				long boundary = findRecordStart(channel, dataStart + i * chunkSize, statesAtStart[i], size);
+				if (boundary > boundaries.get(boundaries.size() - 1) && boundary < size) {
+					boundaries.add(boundary);
+				}
+			}
+			boundaries.add(size);
+
+			List<Chunk> result = new ArrayList<Chunk>();
+			for (int i = 0; i < boundaries.size() - 1; i++) {
+				long start = boundaries.get(i);
+				long end = boundaries.get(i + 1);
+				if (end - start > Integer.MAX_VALUE) {
+					throw new EngageApiException("Record at position " + start + " is too large to be mapped");
+				}
+
+				if (end > start) {
+					result.add(new Chunk(result.size(), start, end));
+				}
+			}
+
+			chunks = Collections.unmodifiableList(result);
+		}
+
+		return chunks;
+	}
+
+	private long readHeader(FileChannel channel, long size) throws IOException {
+		long end = findRecordStart(channel, 0, fieldStart, size);
+		if (end - 0 > Integer.MAX_VALUE) {
+			throw new EngageApiException("Header row is too large to be mapped");
+		}
+
+		try (DelimitedFileReader reader = new DelimitedFileReader(
+				new InputStreamReader(new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, end)),
+						charset),
+				exportFormat)) {
+			if (reader.nextRecord()) {
+				header = toArray(reader);
+			}
+		}
+
+		return end;
+	}
+
+	/*
+	 * Scans every nominal chunk in parallel from each possible starting state,
+	 * then chains end states from start of data to get exact state at start of
+	 * every nominal chunk.
+	 */
+	private int[] getStartStates(FileChannel channel, long dataStart, long size, int nominalCount)
+			throws IOException {
+		int[] statesAtStart = new int[nominalCount];
+		if (exportFormat != ExportFormat.CSV || nominalCount == 1) {
+			return statesAtStart;
+		}
+
+		List<ForkJoinTask<int[]>> tasks = new ArrayList<ForkJoinTask<int[]>>();
+		for (int i = 0; i < nominalCount - 1; i++) {
+			long start = dataStart + i * chunkSize;
+			long length = Math.min(chunkSize, size - start);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			tasks.add(forkJoinPool.submit(() -> {
+				int[] states = { fieldStart, unquoted, inQuotes, quoteInQuotes };
+				while (buffer.hasRemaining()) {
+					byte b = buffer.get();
+					for (int state = 0; state < stateCount; state++) {
+						states[state] = nextState(states[state], b);
+					}
+				}
+
+				return states;
+			}));
+		}
+
+		int state = fieldStart;
+		for (int i = 1; i < nominalCount; i++) {
+			try {
+				state = tasks.get(i - 1).get()[state];
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new EngageApiException(e.getMessage());
+			} catch (ExecutionException e) {
+				throw new EngageApiException(e.getCause().getMessage());
+			}
+
+			statesAtStart[i] = state;
+		}
+
+		return statesAtStart;
+	}
+
+	/*
+	 * Follows quoting rules of DelimitedFileReader: quote opens quoted value
+	 * only at field start, doubled quote inside quotes is escaped quote.
+	 */
+	private int nextState(int state, byte b) {
+		switch (state) {
+		case inQuotes:
+			return b == quote ? quoteInQuotes : inQuotes;
+		case quoteInQuotes:
+			if (b == quote) {
+				return inQuotes;
+			}
+
+			break;
+		case fieldStart:
+			if (b == quote) {
+				return inQuotes;
+			}
+
+			break;
+		default:
+			break;
+		}
+
+		if (b == delimiter || b == newLine || b == '\r') {
+			return fieldStart;
+		}
+
+		return unquoted;
+	}
+
+	/*
+	 * Returns position right after first line break outside of quoted value
+	 * found at or after given position.
+	 */
+	private long findRecordStart(FileChannel channel, long position, int state, long size) throws IOException {
+		boolean quoted = (exportFormat == ExportFormat.CSV);
+		ByteBuffer buffer = ByteBuffer.allocate(scanBufferSize);
+		long current = position;
+		while (current < size) {
+			buffer.clear();
+			int read = channel.read(buffer, current);
+			if (read <= 0) {
+				break;
+			}
+
+			buffer.flip();
+			for (int i = 0; i < read; i++) {
+				byte b = buffer.get(i);
+				if (b == newLine && (quoted == false || state != inQuotes)) {
+					return current + i + 1;
+				}
+
+				if (quoted) {
+					state = nextState(state, b);
+				}
+			}
+
+			current += read;
+		}
+
+		return size;
+	}
+
+	private DelimitedFileReader openChunk(Chunk chunk) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(localAbsoluteFilePath), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+			return new DelimitedFileReader(new InputStreamReader(new ByteBufferInputStream(buffer), charset),
+					exportFormat);
+		}
+	}
+
+	private Stream<String[]> streamChunk(Chunk chunk) {
+		DelimitedFileReader reader;
+		try {
+			reader = openChunk(chunk);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		Iterator<String[]> iterator = new Iterator<String[]>() {
+			private String[] next;
+
+			@Override
+			public boolean hasNext() {
+				if (next == null) {
+					try {
+						if (reader.nextRecord()) {
+							next = toArray(reader);
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+
+				return next != null;
+			}
+
+			@Override
+			public String[] next() {
+				if (hasNext() == false) {
+					throw new NoSuchElementException();
+				}
+
+				String[] result = next;
+				next = null;
+
+				return result;
+			}
+		};
+
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						reader.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	private static class Chunk {
+		private final int index;
+		private final long start;
+		private final long end;
+
+		private Chunk(int index, long start, long end) {
+			this.index = index;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (buffer.hasRemaining() == false) {
+				return -1;
+			}
+
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+
+			return count;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.github.ka4ok85.wca.reader;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.github.ka4ok85.wca.constants.RawRecipientDataEventType;
+
+/**
+ * <strong>Single row of RawRecipientDataExport file.</strong>
+ * <p>
+ * Instance is owned and reused by
+ * {@link com.github.ka4ok85.wca.reader.RawRecipientDataExportReader}: its
+ * values are replaced on every
+ * {@link com.github.ka4ok85.wca.reader.RawRecipientDataExportReader#next()}
+ * call. Use {@link #copy()} to keep event after reader moves forward.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RawRecipientDataEvent {
+
+	private long recipientId;
+	private long mailingId;
+	private long reportId;
+	private long campaignId;
+	private RawRecipientDataEventType eventType;
+	private long eventTimestamp;
+	private DelimitedFileReader record;
+	private RawRecipientDataExportReader source;
+
+	RawRecipientDataEvent() {
+	}
+
+	void reset(DelimitedFileReader record, RawRecipientDataExportReader source, long recipientId, long mailingId,
+			long reportId, long campaignId, RawRecipientDataEventType eventType, long eventTimestamp) {
+		this.record = record;
+		this.source = source;
+		this.recipientId = recipientId;
+		this.mailingId = mailingId;
+		this.reportId = reportId;
+		this.campaignId = campaignId;
+		this.eventType = eventType;
+		this.eventTimestamp = eventTimestamp;
+	}
+
+	public long getRecipientId() {
+		return recipientId;
+	}
+
+	public long getMailingId() {
+		return mailingId;
+	}
+
+	public long getReportId() {
+		return reportId;
+	}
+
+	/**
+	 * @return Campaign ID or 0 if event does not belong to Campaign
+	 */
+	public long getCampaignId() {
+		return campaignId;
+	}
+
+	public RawRecipientDataEventType getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * @return event time as seconds since 01/01/1970 00:00:00 in time zone of
+	 *         export file (see
+	 *         {@link com.github.ka4ok85.wca.response.RawRecipientDataExportResponse#getTimeZone()})
+	 */
+	public long getEventTimestamp() {
+		return eventTimestamp;
+	}
+
+	public LocalDateTime getEventDateTime() {
+		return LocalDateTime.ofEpochSecond(eventTimestamp, 0, ZoneOffset.UTC);
+	}
+
+	/**
+	 * Reads any column of current row by its header name. Allocates new String
+	 * on each call.
+	 * 
+	 * @param columnName
+	 *            - column name as in file header
+	 * @return column value or null if file does not have such column
+	 */
+	public String getColumn(String columnName) {
+		if (source == null) {
+			return null;
+		}
+
+		int index = source.getColumnIndex(columnName);
+		if (index < 0 || index >= record.getFieldCount()) {
+			return null;
+		}
+
+		return record.getString(index);
+	}
+
+	public String getEmail() {
+		return getColumn(RawRecipientDataExportReader.EMAIL);
+	}
+
+	/**
+	 * Creates detached copy of event which keeps only typed values.
+	 * 
+	 * @return new event instance
+	 */
+	public RawRecipientDataEvent copy() {
+		RawRecipientDataEvent event = new RawRecipientDataEvent();
+		event.reset(null, null, recipientId, mailingId, reportId, campaignId, eventType, eventTimestamp);
+
+		return event;
+	}
+
+	@Override
+	public String toString() {
+		return "RawRecipientDataEvent [recipientId=" + recipientId + ", mailingId=" + mailingId + ", reportId="
+				+ reportId + ", campaignId=" + campaignId + ", eventType=" + eventType + ", eventTimestamp="
+				+ eventTimestamp + "]";
+	}
+
+}
@@ -0,0 +1,377 @@
+package com.github.ka4ok85.wca.reader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.github.ka4ok85.wca.constants.RawRecipientDataEventType;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.RawRecipientDataExportOptions;
+
+/**
+ * <strong>Streaming reader for files produced by WCA RawRecipientDataExport
+ * API.</strong>
+ * <p>
+ * Export format, file encoding and optional columns are taken from
+ * {@link com.github.ka4ok85.wca.options.RawRecipientDataExportOptions} used
+ * for export. Column positions are read from header row, files without
+ * header are expected to follow column order from options. Rows are exposed
+ * through single reusable
+ * {@link com.github.ka4ok85.wca.reader.RawRecipientDataEvent} instance, so
+ * reading file of any size does not allocate objects per row.
+ * </p>
+ * <p>
+ * WCA delivers export file as zip archive with single data file. Downloaded
+ * archive is read directly, without extracting it to disk. Plain delimited
+ * file is read as well.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class RawRecipientDataExportReader implements Closeable {
+
+	public static final String RECIPIENT_ID = "Recipient Id";
+	public static final String RECIPIENT_TYPE = "Recipient Type";
+	public static final String MAILING_ID = "Mailing Id";
+	public static final String REPORT_ID = "Report Id";
+	public static final String CAMPAIGN_ID = "Campaign Id";
+	public static final String EMAIL = "Email";
+	public static final String EVENT_TYPE = "Event Type";
+	public static final String EVENT_TIMESTAMP = "Event Timestamp";
+
+	private static final List<String> defaultColumns = Collections.unmodifiableList(Arrays.asList(
+			RECIPIENT_ID, RECIPIENT_TYPE, MAILING_ID, REPORT_ID, CAMPAIGN_ID, EMAIL, EVENT_TYPE, EVENT_TIMESTAMP,
+			"Body Type", "Content Id", "Click Name", "URL", "Conversion Action", "Conversion Detail",
+			"Conversion Amount", "Suppression Reason"));
+
+	private static final RawRecipientDataEventType[] eventTypes = RawRecipientDataEventType.values();
+	private static final byte[] zipSignature = { 'P', 'K', 3, 4 };
+
+	private final DelimitedFileReader fileReader;
+	private final List<String> columns;
+	private final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+	private final RawRecipientDataEvent event = new RawRecipientDataEvent();
+	private final int[] timestampParts = new int[6];
+	private boolean pendingRecord = false;
+
+	private int recipientIdIndex;
+	private int mailingIdIndex;
+	private int reportIdIndex;
+	private int campaignIdIndex;
+	private int eventTypeIndex;
+	private int eventTimestampIndex;
+
+	/**
+	 * Opens local RawRecipientDataExport file using export format and file
+	 * encoding from options.
+	 * 
+	 * @param localAbsoluteFilePath
+	 *            - path to downloaded export file, zip archive or plain file
+	 * @param options
+	 *            - settings used for RawRecipientDataExport API call
+	 * @throws IOException
+	 *             - if file can not be opened or its header can not be read
+	 */
+	public RawRecipientDataExportReader(String localAbsoluteFilePath, RawRecipientDataExportOptions options)
+			throws IOException {
+		this(new InputStreamReader(openExportFile(Paths.get(localAbsoluteFilePath)),
+				Charset.forName(Objects.requireNonNull(options, "RawRecipientDataExportOptions must not be null")
+						.getFileEncoding().value())),
+				options);
+	}
+
+	public RawRecipientDataExportReader(Reader reader, RawRecipientDataExportOptions options) throws IOException {
+		Objects.requireNonNull(options, "RawRecipientDataExportOptions must not be null");
+		this.fileReader = new DelimitedFileReader(reader, options.getExportFormat());
+		this.columns = readHeader(getColumnNames(options));
+
+		for (int i = 0; i < columns.size(); i++) {
+			columnIndexes.putIfAbsent(columns.get(i).toUpperCase(), i);
+		}
+
+		recipientIdIndex = getRequiredColumnIndex(RECIPIENT_ID);
+		mailingIdIndex = getRequiredColumnIndex(MAILING_ID);
+		reportIdIndex = getRequiredColumnIndex(REPORT_ID);
+		campaignIdIndex = getRequiredColumnIndex(CAMPAIGN_ID);
+		eventTypeIndex = getRequiredColumnIndex(EVENT_TYPE);
+		eventTimestampIndex = getRequiredColumnIndex(EVENT_TIMESTAMP);
+	}
+
+	/**
+	 * Opens data of downloaded export file. Stream of zip archive is
+	 * positioned at its data file, plain file is returned as is.
+	 * 
+	 * @param file
+	 *            - downloaded export file
+	 * @return uncompressed content of export file
+	 * @throws IOException
+	 *             - if file can not be opened or archive can not be read
+	 */
+	public static InputStream openExportFile(Path file) throws IOException {
+		InputStream input = new BufferedInputStream(Files.newInputStream(file));
+		try {
+			if (isArchive(input) == false) {
+				return input;
+			}
+
+			ZipInputStream archive = new ZipInputStream(input);
+			ZipEntry entry;
+			while ((entry = archive.getNextEntry()) != null) {
+				if (entry.isDirectory() == false) {
+					return archive;
+				}
+			}
+
+			throw new EngageApiException("RawRecipientDataExport archive " + file + " has no data file");
+		} catch (IOException | RuntimeException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param file
+	 *            - downloaded export file
+	 * @return true if file is zip archive
+	 * @throws IOException
+	 *             - if file can not be read
+	 */
+	public static boolean isArchive(Path file) throws IOException {
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(file))) {
+			return isArchive(input);
+		}
+	}
+
+	private static boolean isArchive(InputStream input) throws IOException {
+		input.mark(zipSignature.length);
+		try {
+			for (byte b : zipSignature) {
+				if (input.read() != b) {
+					return false;
+				}
+			}
+
+			return true;
+		} finally {
+			input.reset();
+		}
+	}
+
+	/**
+	 * Lists columns RawRecipientDataExport API returns for given options.
+	 * 
+	 * @param options
+	 *            - settings used for RawRecipientDataExport API call
+	 * @return ordered column names
+	 */
+	public static List<String> getColumnNames(RawRecipientDataExportOptions options) {
+		List<String> columnNames = new ArrayList<String>(defaultColumns);
+		if (options.isReturnMailingName()) {
+			columnNames.add("Mailing Name");
+		}
+
+		if (options.isReturnMailingSubject()) {
+			columnNames.add("Subject");
+		}
+
+		if (options.isReturnCRMCampaignId()) {
+			columnNames.add("CRM Campaign Id");
+		}
+
+		if (options.isReturnProgramId()) {
+			columnNames.add("Program Id");
+		}
+
+		if (options.isReturnFromAddress()) {
+			columnNames.add("From Address");
+		}
+
+		if (options.isReturnFromName()) {
+			columnNames.add("From Name");
+		}
+
+		if (options.getColumns() != null) {
+			columnNames.addAll(options.getColumns());
+		}
+
+		return columnNames;
+	}
+
+	/**
+	 * Moves reader to next row.
+	 * 
+	 * @return reused event instance filled with values of next row or null if
+	 *         end of file is reached
+	 * @throws IOException
+	 *             - if underlying reader fails
+	 */
+	public RawRecipientDataEvent next() throws IOException {
+		if (pendingRecord) {
+			pendingRecord = false;
+		} else if (fileReader.nextRecord() == false) {
+			return null;
+		}
+
+		try {
+			event.reset(fileReader, this, fileReader.getLong(recipientIdIndex, 0),
+					fileReader.getLong(mailingIdIndex, 0), fileReader.getLong(reportIdIndex, 0),
+					fileReader.getLong(campaignIdIndex, 0), readEventType(), readEventTimestamp());
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			throw new EngageApiException(
+					"Bad RawRecipientDataExport row " + fileReader.getRecordNumber() + ": " + e.getMessage());
+		}
+
+		return event;
+	}
+
+	/**
+	 * Passes every remaining row to consumer. Event instance is reused between
+	 * calls.
+	 * 
+	 * @param consumer
+	 *            - row handler
+	 * @return number of processed rows
+	 * @throws IOException
+	 *             - if underlying reader fails
+	 */
+	public long forEach(Consumer<RawRecipientDataEvent> consumer) throws IOException {
+		long count = 0;
+		RawRecipientDataEvent current;
+		while ((current = next()) != null) {
+			consumer.accept(current);
+			count++;
+		}
+
+		return count;
+	}
+
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	public int getColumnIndex(String columnName) {
+		Integer index = columnIndexes.get(columnName.toUpperCase());
+		return index == null ? -1 : index;
+	}
+
+	@Override
+	public void close() throws IOException {
+		fileReader.close();
+	}
+
+	private List<String> readHeader(List<String> expectedColumns) throws IOException {
+		if (fileReader.nextRecord() == false) {
+			return Collections.unmodifiableList(expectedColumns);
+		}
+
+		if (fileReader.equalsIgnoreCase(0, RECIPIENT_ID) == false) {
+			// file without header row, first record is data
+			pendingRecord = true;
+			return Collections.unmodifiableList(expectedColumns);
+		}
+
+		List<String> header = new ArrayList<String>(fileReader.getFieldCount());
+		for (int i = 0; i < fileReader.getFieldCount(); i++) {
+			header.add(fileReader.getString(i).trim());
+		}
+
+		return Collections.unmodifiableList(header);
+	}
+
+	private int getRequiredColumnIndex(String columnName) {
+		int index = getColumnIndex(columnName);
+		if (index < 0) {
+			throw new EngageApiException("RawRecipientDataExport file does not have column " + columnName);
+		}
+
+		return index;
+	}
+
+	private RawRecipientDataEventType readEventType() {
+		for (RawRecipientDataEventType eventType : eventTypes) {
+			if (eventType != RawRecipientDataEventType.UNKNOWN
+					&& fileReader.equalsIgnoreCase(eventTypeIndex, eventType.value())) {
+				return eventType;
+			}
+		}
+
+		return RawRecipientDataEventType.UNKNOWN;
+	}
+
+	/*
+	 * Parses "MM/dd/yyyy HH:mm:ss" value in place. Leading zeros are optional.
+	 */
+	private long readEventTimestamp() {
+		int length = fileReader.getLength(eventTimestampIndex);
+		if (length == 0) {
+			return 0;
+		}
+
+		int[] parts = timestampParts;
+		int part = 0;
+		int value = 0;
+		boolean inNumber = false;
+		for (int i = 0; i < length; i++) {
+			char c = fileReader.charAt(eventTimestampIndex, i);
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				inNumber = true;
+			} else if (inNumber) {
+				if (part == parts.length) {
+					break;
+				}
+
+				parts[part++] = value;
+				value = 0;
+				inNumber = false;
+			}
+		}
+
+		if (inNumber && part < parts.length) {
+			parts[part++] = value;
+		}
+
+		if (part < 3) {
+			throw new NumberFormatException("Bad Event Timestamp value: " + fileReader.getString(eventTimestampIndex));
+		}
+
+		for (int i = part; i < parts.length; i++) {
+			parts[i] = 0;
+		}
+
+		return toEpochSecond(parts[2], parts[0], parts[1], parts[3], parts[4], parts[5]);
+	}
+
+	static long toEpochSecond(int year, int month, int day, int hour, int minute, int second) {
+		if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+			throw new NumberFormatException("Bad Event Timestamp value: " + month + "/" + day + "/" + year + " "
+					+ hour + ":" + minute + ":" + second);
+		}
+
+		long y = (month <= 2) ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		long epochDay = era * 146097 + dayOfEra - 719468;
+
+		return epochDay * 86400 + hour * 3600 + minute * 60 + second;
+	}
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataClicks;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataInboxMonitoring;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataTopDomain;
@@ -17,6 +18,7 @@ public class GetAggregateTrackingForOrgResponse extends AbstractResponse {
 	private List<AggregateTrackingDataClicks> clicks = new ArrayList<AggregateTrackingDataClicks>();
 	private List<AggregateTrackingDataInboxMonitoring> inboxMonitorings = new ArrayList<AggregateTrackingDataInboxMonitoring>();
 	private List<AggregateTrackingDataMailing> mailings = new ArrayList<AggregateTrackingDataMailing>();
+	private AggregateTrackingMailingTable mailingTable;
 	private List<AggregateTrackingDataTopDomain> topDomains = new ArrayList<AggregateTrackingDataTopDomain>();
 
 	public List<AggregateTrackingDataClicks> getClicks() {
@@ -35,14 +37,29 @@ public class GetAggregateTrackingForOrgResponse extends AbstractResponse {
 		this.inboxMonitorings = inboxMonitorings;
 	}
 
+	/**
+	 * @return mailings, read-only view of Mailing Table if mailings were read
+	 *         with Compact Mailings option
+	 */
 	public List<AggregateTrackingDataMailing> getMailings() {
-		return mailings;
+		return mailingTable != null ? mailingTable.asList() : mailings;
 	}
 
 	public void setMailings(List<AggregateTrackingDataMailing> mailings) {
 		this.mailings = mailings;
 	}
 
+	/**
+	 * @return mailings read with Compact Mailings option, null otherwise
+	 */
+	public AggregateTrackingMailingTable getMailingTable() {
+		return mailingTable;
+	}
+
+	public void setMailingTable(AggregateTrackingMailingTable mailingTable) {
+		this.mailingTable = mailingTable;
+	}
+
 	public List<AggregateTrackingDataTopDomain> getTopDomains() {
 		return topDomains;
 	}
@@ -54,7 +71,7 @@ public class GetAggregateTrackingForOrgResponse extends AbstractResponse {
 	@Override
 	public String toString() {
 		return "GetAggregateTrackingForOrgResponse [clicks=" + clicks + ", inboxMonitorings=" + inboxMonitorings
-				+ ", mailings=" + mailings + ", topDomains=" + topDomains + "]";
+				+ ", mailings=" + mailings + ", mailingTable=" + mailingTable + ", topDomains=" + topDomains + "]";
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -10,6 +10,7 @@ import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataClicks;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataInboxMonitoring;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
 import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataTopDomain;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable;
 
 @Component
 @Scope("prototype")
@@ -18,6 +19,7 @@ public class GetAggregateTrackingForUserResponse extends AbstractResponse {
 	private List<AggregateTrackingDataClicks> clicks = new ArrayList<AggregateTrackingDataClicks>();
 	private List<AggregateTrackingDataInboxMonitoring> inboxMonitorings = new ArrayList<AggregateTrackingDataInboxMonitoring>();
 	private List<AggregateTrackingDataMailing> mailings = new ArrayList<AggregateTrackingDataMailing>();
+	private AggregateTrackingMailingTable mailingTable;
 	private List<AggregateTrackingDataTopDomain> topDomains = new ArrayList<AggregateTrackingDataTopDomain>();
 
 	public List<AggregateTrackingDataClicks> getClicks() {
@@ -36,14 +38,29 @@ public class GetAggregateTrackingForUserResponse extends AbstractResponse {
 		this.inboxMonitorings = inboxMonitorings;
 	}
 
+	/**
+	 * @return mailings, read-only view of Mailing Table if mailings were read
+	 *         with Compact Mailings option
+	 */
 	public List<AggregateTrackingDataMailing> getMailings() {
-		return mailings;
+		return mailingTable != null ? mailingTable.asList() : mailings;
 	}
 
 	public void setMailings(List<AggregateTrackingDataMailing> mailings) {
 		this.mailings = mailings;
 	}
 
+	/**
+	 * @return mailings read with Compact Mailings option, null otherwise
+	 */
+	public AggregateTrackingMailingTable getMailingTable() {
+		return mailingTable;
+	}
+
+	public void setMailingTable(AggregateTrackingMailingTable mailingTable) {
+		this.mailingTable = mailingTable;
+	}
+
 	public List<AggregateTrackingDataTopDomain> getTopDomains() {
 		return topDomains;
 	}
@@ -55,7 +72,7 @@ public class GetAggregateTrackingForUserResponse extends AbstractResponse {
 	@Override
 	public String toString() {
 		return "GetAggregateTrackingForUserResponse [clicks=" + clicks + ", inboxMonitorings=" + inboxMonitorings
-				+ ", mailings=" + mailings + ", topDomains=" + topDomains + "]";
+				+ ", mailings=" + mailings + ", mailingTable=" + mailingTable + ", topDomains=" + topDomains + "]";
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
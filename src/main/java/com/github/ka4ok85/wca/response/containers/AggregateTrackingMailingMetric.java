@@ -0,0 +1,155 @@
+package com.github.ka4ok85.wca.response.containers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * <strong>Counters of {@link AggregateTrackingDataMailing} stored as columns
+ * of {@link AggregateTrackingMailingTable}.</strong>
+ * <p>
+ * Name of XML element of counter in Mailing node is derived from constant
+ * name, e.g. NUM_UNIQUE_CLICK is read from NumUniqueClick.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public enum AggregateTrackingMailingMetric {
+	NUM_SENT(AggregateTrackingDataMailing::getNumSent, AggregateTrackingDataMailing::setNumSent),
+	NUM_SEEDS(AggregateTrackingDataMailing::getNumSeeds, AggregateTrackingDataMailing::setNumSeeds),
+	NUM_SUPPRESSED(AggregateTrackingDataMailing::getNumSuppressed, AggregateTrackingDataMailing::setNumSuppressed),
+	NUM_INBOX_MONITORED(AggregateTrackingDataMailing::getNumInboxMonitored,
+			AggregateTrackingDataMailing::setNumInboxMonitored),
+	NUM_BOUNCE_HARD(AggregateTrackingDataMailing::getNumBounceHard, AggregateTrackingDataMailing::setNumBounceHard),
+	NUM_BOUNCE_SOFT(AggregateTrackingDataMailing::getNumBounceSoft, AggregateTrackingDataMailing::setNumBounceSoft),
+	NUM_UNIQUE_OPEN(AggregateTrackingDataMailing::getNumUniqueOpen, AggregateTrackingDataMailing::setNumUniqueOpen),
+	NUM_GROSS_OPEN(AggregateTrackingDataMailing::getNumGrossOpen, AggregateTrackingDataMailing::setNumGrossOpen),
+	NUM_UNIQUE_CLICK(AggregateTrackingDataMailing::getNumUniqueClick, AggregateTrackingDataMailing::setNumUniqueClick),
+	NUM_GROSS_CLICK(AggregateTrackingDataMailing::getNumGrossClick, AggregateTrackingDataMailing::setNumGrossClick),
+	NUM_UNIQUE_ATTACH(AggregateTrackingDataMailing::getNumUniqueAttach,
+			AggregateTrackingDataMailing::setNumUniqueAttach),
+	NUM_GROSS_ATTACH(AggregateTrackingDataMailing::getNumGrossAttach, AggregateTrackingDataMailing::setNumGrossAttach),
+	NUM_UNIQUE_CLICKSTREAMS(AggregateTrackingDataMailing::getNumUniqueClickstreams,
+			AggregateTrackingDataMailing::setNumUniqueClickstreams),
+	NUM_GROSS_CLICKSTREAMS(AggregateTrackingDataMailing::getNumGrossClickstreams,
+			AggregateTrackingDataMailing::setNumGrossClickstreams),
+	NUM_UNIQUE_MEDIA(AggregateTrackingDataMailing::getNumUniqueMedia, AggregateTrackingDataMailing::setNumUniqueMedia),
+	NUM_GROSS_MEDIA(AggregateTrackingDataMailing::getNumGrossMedia, AggregateTrackingDataMailing::setNumGrossMedia),
+	NUM_GROSS_ABUSE(AggregateTrackingDataMailing::getNumGrossAbuse, AggregateTrackingDataMailing::setNumGrossAbuse),
+	NUM_GROSS_CHANGE_ADDRESS(AggregateTrackingDataMailing::getNumGrossChangeAddress,
+			AggregateTrackingDataMailing::setNumGrossChangeAddress),
+	NUM_GROSS_MAIL_BLOCK(AggregateTrackingDataMailing::getNumGrossMailBlock,
+			AggregateTrackingDataMailing::setNumGrossMailBlock),
+	NUM_GROSS_MAIL_RESTRICTION(AggregateTrackingDataMailing::getNumGrossMailRestriction,
+			AggregateTrackingDataMailing::setNumGrossMailRestriction),
+	NUM_GROSS_OTHER(AggregateTrackingDataMailing::getNumGrossOther, AggregateTrackingDataMailing::setNumGrossOther),
+	NUM_CONVERSIONS(AggregateTrackingDataMailing::getNumConversions, AggregateTrackingDataMailing::setNumConversions),
+	NUM_CONVERSION_AMOUNT(AggregateTrackingDataMailing::getNumConversionAmount,
+			AggregateTrackingDataMailing::setNumConversionAmount),
+	NUM_BOUNCE_HARD_FWD(AggregateTrackingDataMailing::getNumBounceHardFwd,
+			AggregateTrackingDataMailing::setNumBounceHardFwd),
+	NUM_BOUNCE_SOFT_FWD(AggregateTrackingDataMailing::getNumBounceSoftFwd,
+			AggregateTrackingDataMailing::setNumBounceSoftFwd),
+	NUM_CONVERSION_AMOUNT_FWD(AggregateTrackingDataMailing::getNumConversionAmountFwd,
+			AggregateTrackingDataMailing::setNumConversionAmountFwd),
+	NUM_ATTACH_OPEN_FWD(AggregateTrackingDataMailing::getNumAttachOpenFwd,
+			AggregateTrackingDataMailing::setNumAttachOpenFwd),
+	NUM_CLICK_FWD(AggregateTrackingDataMailing::getNumClickFwd, AggregateTrackingDataMailing::setNumClickFwd),
+	NUM_UNIQUE_FORWARD_FWD(AggregateTrackingDataMailing::getNumUniqueForwardFwd,
+			AggregateTrackingDataMailing::setNumUniqueForwardFwd),
+	NUM_GROSS_FORWARD_FWD(AggregateTrackingDataMailing::getNumGrossForwardFwd,
+			AggregateTrackingDataMailing::setNumGrossForwardFwd),
+	NUM_UNIQUE_CONVERSIONS_FWD(AggregateTrackingDataMailing::getNumUniqueConversionsFwd,
+			AggregateTrackingDataMailing::setNumUniqueConversionsFwd),
+	NUM_GROSS_CONVERSIONS_FWD(AggregateTrackingDataMailing::getNumGrossConversionsFwd,
+			AggregateTrackingDataMailing::setNumGrossConversionsFwd),
+	NUM_UNIQUE_CLICKSTREAM_FWD(AggregateTrackingDataMailing::getNumUniqueClickstreamFwd,
+			AggregateTrackingDataMailing::setNumUniqueClickstreamFwd),
+	NUM_GROSS_CLICKSTREAM_FWD(AggregateTrackingDataMailing::getNumGrossClickstreamFwd,
+			AggregateTrackingDataMailing::setNumGrossClickstreamFwd),
+	NUM_UNIQUE_CLICK_FWD(AggregateTrackingDataMailing::getNumUniqueClickFwd,
+			AggregateTrackingDataMailing::setNumUniqueClickFwd),
+	NUM_GROSS_CLICK_FWD(AggregateTrackingDataMailing::getNumGrossClickFwd,
+			AggregateTrackingDataMailing::setNumGrossClickFwd),
+	NUM_UNIQUE_ATTACH_OPEN_FWD(AggregateTrackingDataMailing::getNumUniqueAttachOpenFwd,
+			AggregateTrackingDataMailing::setNumUniqueAttachOpenFwd),
+	NUM_GROSS_ATTACH_OPEN_FWD(AggregateTrackingDataMailing::getNumGrossAttachOpenFwd,
+			AggregateTrackingDataMailing::setNumGrossAttachOpenFwd),
+	NUM_UNIQUE_MEDIA_FWD(AggregateTrackingDataMailing::getNumUniqueMediaFwd,
+			AggregateTrackingDataMailing::setNumUniqueMediaFwd),
+	NUM_GROSS_MEDIA_FWD(AggregateTrackingDataMailing::getNumGrossMediaFwd,
+			AggregateTrackingDataMailing::setNumGrossMediaFwd),
+	NUM_UNIQUE_OPEN_FWD(AggregateTrackingDataMailing::getNumUniqueOpenFwd,
+			AggregateTrackingDataMailing::setNumUniqueOpenFwd),
+	NUM_GROSS_OPEN_FWD(AggregateTrackingDataMailing::getNumGrossOpenFwd,
+			AggregateTrackingDataMailing::setNumGrossOpenFwd),
+	NUM_ABUSE_FWD(AggregateTrackingDataMailing::getNumAbuseFwd, AggregateTrackingDataMailing::setNumAbuseFwd),
+	NUM_CHANGE_ADDRESS_FWD(AggregateTrackingDataMailing::getNumChangeAddressFwd,
+			AggregateTrackingDataMailing::setNumChangeAddressFwd),
+	NUM_MAIL_RESTRICTION_FWD(AggregateTrackingDataMailing::getNumMailRestrictionFwd,
+			AggregateTrackingDataMailing::setNumMailRestrictionFwd),
+	NUM_MAIL_BLOCK_FWD(AggregateTrackingDataMailing::getNumMailBlockFwd,
+			AggregateTrackingDataMailing::setNumMailBlockFwd),
+	NUM_OTHER_FWD(AggregateTrackingDataMailing::getNumOtherFwd, AggregateTrackingDataMailing::setNumOtherFwd),
+	NUM_SUPPRESSED_FWD(AggregateTrackingDataMailing::getNumSuppressedFwd,
+			AggregateTrackingDataMailing::setNumSuppressedFwd),
+	NUM_UNSUBSCRIBES(AggregateTrackingDataMailing::getNumUnsubscribes,
+			AggregateTrackingDataMailing::setNumUnsubscribes);
+
+	private static final Map<String, AggregateTrackingMailingMetric> byElementName = new HashMap<String, AggregateTrackingMailingMetric>();
+
+	static {
+		for (AggregateTrackingMailingMetric metric : values()) {
+			byElementName.put(metric.elementName, metric);
+		}
+	}
+
+	private final Function<AggregateTrackingDataMailing, Long> getter;
+	private final BiConsumer<AggregateTrackingDataMailing, Long> setter;
+	private final String elementName;
+
+	private AggregateTrackingMailingMetric(Function<AggregateTrackingDataMailing, Long> getter,
+			BiConsumer<AggregateTrackingDataMailing, Long> setter) {
+		this.getter = getter;
+		this.setter = setter;
+		StringBuilder elementName = new StringBuilder();
+		for (String word : name().split("_")) {
+			elementName.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+		}
+
+		this.elementName = elementName.toString();
+	}
+
+	/**
+	 * @param elementName
+	 *            - name of XML element in Mailing node
+	 * @return metric read from element or null if element is not a counter
+	 */
+	public static AggregateTrackingMailingMetric forElementName(String elementName) {
+		return byElementName.get(elementName);
+	}
+
+	public String getElementName() {
+		return elementName;
+	}
+
+	/**
+	 * @param mailing
+	 *            - source POJO
+	 * @return metric value of mailing
+	 */
+	public Long get(AggregateTrackingDataMailing mailing) {
+		return getter.apply(mailing);
+	}
+
+	/**
+	 * @param mailing
+	 *            - target POJO
+	 * @param value
+	 *            - metric value
+	 */
+	public void set(AggregateTrackingDataMailing mailing, Long value) {
+		setter.accept(mailing, value);
+	}
+}
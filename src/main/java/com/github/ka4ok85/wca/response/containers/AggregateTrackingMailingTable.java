@@ -0,0 +1,301 @@
+package com.github.ka4ok85.wca.response.containers;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <strong>Compact columnar storage of {@link AggregateTrackingDataMailing}
+ * rows.</strong>
+ * <p>
+ * Every counter is stored in its own primitive array indexed by row, Sent Date
+ * Time is stored as epoch seconds. Missing values are kept as missing: they
+ * are returned as zero by primitive getters and as null by POJO views.
+ * {@link #asList()} exposes rows as {@link AggregateTrackingDataMailing} which
+ * are created only when accessed.
+ * </p>
+ * <p>
+ * Table is not thread-safe.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class AggregateTrackingMailingTable {
+
+	private static final long missing = Long.MIN_VALUE;
+	private static final AggregateTrackingMailingMetric[] metrics = AggregateTrackingMailingMetric.values();
+
+	private int size;
+	private long[] mailingIds;
+	private long[] reportIds;
+	private String[] mailingNames;
+	private long[] sentDateTimes;
+	private final long[][] counters = new long[metrics.length][];
+
+	public AggregateTrackingMailingTable() {
+		this(16);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *            - number of rows allocated upfront
+	 */
+	public AggregateTrackingMailingTable(int initialCapacity) {
+		if (initialCapacity < 0) {
+			throw new RuntimeException(
+					"Initial Capacity must not be negative. Provided Initial Capacity = " + initialCapacity);
+		}
+
+		mailingIds = new long[initialCapacity];
+		reportIds = new long[initialCapacity];
+		mailingNames = new String[initialCapacity];
+		sentDateTimes = new long[initialCapacity];
+		for (int i = 0; i < metrics.length; i++) {
+			counters[i] = new long[initialCapacity];
+		}
+	}
+
+	/**
+	 * @param mailings
+	 *            - rows to copy into new table
+	 * @return table with all rows
+	 */
+	public static AggregateTrackingMailingTable of(List<AggregateTrackingDataMailing> mailings) {
+		Objects.requireNonNull(mailings, "Mailings must not be null");
+		AggregateTrackingMailingTable table = new AggregateTrackingMailingTable(mailings.size());
+		for (AggregateTrackingDataMailing mailing : mailings) {
+			table.add(mailing);
+		}
+
+		return table;
+	}
+
+	/**
+	 * Copies values of mailing into new row. Mailing is not referenced by
+	 * table afterwards.
+	 *
+	 * @param mailing
+	 *            - row values
+	 */
+	public void add(AggregateTrackingDataMailing mailing) {
+		Objects.requireNonNull(mailing, "Mailing must not be null");
+		ensureCapacity(size + 1);
+		mailingIds[size] = encode(mailing.getMailingId());
+		reportIds[size] = encode(mailing.getReportId());
+		mailingNames[size] = mailing.getMailingName();
+		sentDateTimes[size] = mailing.getSentDateTime() == null ? missing
+				: mailing.getSentDateTime().toEpochSecond(ZoneOffset.UTC);
+		for (int i = 0; i < metrics.length; i++) {
+			counters[i][size] = encode(metrics[i].get(mailing));
+		}
+
+		size++;
+	}
+
+	/**
+	 * Appends row with all values missing, values are set by index of row
+	 * afterwards.
+	 *
+	 * @return zero-based index of new row
+	 */
+	public int addRow() {
+		ensureCapacity(size + 1);
+		mailingIds[size] = missing;
+		reportIds[size] = missing;
+		mailingNames[size] = null;
+		sentDateTimes[size] = missing;
+		for (int i = 0; i < metrics.length; i++) {
+			counters[i][size] = missing;
+		}
+
+		return size++;
+	}
+
+	public void setMailingId(int row, long mailingId) {
+		mailingIds[checkRow(row)] = mailingId;
+	}
+
+	public void setReportId(int row, long reportId) {
+		reportIds[checkRow(row)] = reportId;
+	}
+
+	public void setMailingName(int row, String mailingName) {
+		mailingNames[checkRow(row)] = mailingName;
+	}
+
+	public void setSentDateTime(int row, LocalDateTime sentDateTime) {
+		sentDateTimes[checkRow(row)] = sentDateTime == null ? missing : sentDateTime.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	/**
+	 * @param row
+	 *            - zero-based row index
+	 * @param metric
+	 *            - counter
+	 * @param value
+	 *            - counter value
+	 */
+	public void set(int row, AggregateTrackingMailingMetric metric, long value) {
+		counters[metric.ordinal()][checkRow(row)] = value;
+	}
+
+	/**
+	 * @param table
+	 *            - table which rows are appended to this table
+	 */
+	public void addAll(AggregateTrackingMailingTable table) {
+		Objects.requireNonNull(table, "Table must not be null");
+		int count = table.size;
+		ensureCapacity(size + count);
+		System.arraycopy(table.mailingIds, 0, mailingIds, size, count);
+		System.arraycopy(table.reportIds, 0, reportIds, size, count);
+		System.arraycopy(table.mailingNames, 0, mailingNames, size, count);
+		System.arraycopy(table.sentDateTimes, 0, sentDateTimes, size, count);
+		for (int i = 0; i < metrics.length; i++) {
+			System.arraycopy(table.counters[i], 0, counters[i], size, count);
+		}
+
+		size += count;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getMailingId(int row) {
+		return decode(mailingIds[checkRow(row)]);
+	}
+
+	public long getReportId(int row) {
+		return decode(reportIds[checkRow(row)]);
+	}
+
+	public String getMailingName(int row) {
+		return mailingNames[checkRow(row)];
+	}
+
+	public LocalDateTime getSentDateTime(int row) {
+		long value = sentDateTimes[checkRow(row)];
+
+		return value == missing ? null : LocalDateTime.ofEpochSecond(value, 0, ZoneOffset.UTC);
+	}
+
+	/**
+	 * @param row
+	 *            - zero-based row index
+	 * @param metric
+	 *            - counter
+	 * @return counter value or zero if value is missing
+	 */
+	public long get(int row, AggregateTrackingMailingMetric metric) {
+		return decode(counters[metric.ordinal()][checkRow(row)]);
+	}
+
+	public boolean isPresent(int row, AggregateTrackingMailingMetric metric) {
+		return counters[metric.ordinal()][checkRow(row)] != missing;
+	}
+
+	/**
+	 * @param metric
+	 *            - counter
+	 * @return sum of counter over all rows, missing values are skipped
+	 */
+	public long sum(AggregateTrackingMailingMetric metric) {
+		long[] column = counters[metric.ordinal()];
+		long sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += decode(column[i]);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * @param row
+	 *            - zero-based row index
+	 * @return new POJO with values of row
+	 */
+	public AggregateTrackingDataMailing getMailing(int row) {
+		checkRow(row);
+		AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+		mailing.setMailingId(box(mailingIds[row]));
+		mailing.setReportId(box(reportIds[row]));
+		mailing.setMailingName(mailingNames[row]);
+		mailing.setSentDateTime(getSentDateTime(row));
+		for (int i = 0; i < metrics.length; i++) {
+			metrics[i].set(mailing, box(counters[i][row]));
+		}
+
+		return mailing;
+	}
+
+	/**
+	 * @return read-only view of rows, POJO is created on every access and
+	 *         changes of it are not written back
+	 */
+	public List<AggregateTrackingDataMailing> asList() {
+		return new AbstractList<AggregateTrackingDataMailing>() {
+
+			@Override
+			public AggregateTrackingDataMailing get(int index) {
+				return getMailing(index);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Releases capacity which is not used by rows.
+	 */
+	public void trimToSize() {
+		resize(size);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > mailingIds.length) {
+			resize(Math.max(capacity, mailingIds.length * 2));
+		}
+	}
+
+	private void resize(int capacity) {
+		mailingIds = Arrays.copyOf(mailingIds, capacity);
+		reportIds = Arrays.copyOf(reportIds, capacity);
+		mailingNames = Arrays.copyOf(mailingNames, capacity);
+		sentDateTimes = Arrays.copyOf(sentDateTimes, capacity);
+		for (int i = 0; i < metrics.length; i++) {
+			counters[i] = Arrays.copyOf(counters[i], capacity);
+		}
+	}
+
+	private int checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row must be between 0 and " + (size - 1) + ". Provided Row = " + row);
+		}
+
+		return row;
+	}
+
+	private static long encode(Long value) {
+		return value == null ? missing : value;
+	}
+
+	private static long decode(long value) {
+		return value == missing ? 0 : value;
+	}
+
+	private static Long box(long value) {
+		return value == missing ? null : value;
+	}
+
+	@Override
+	public String toString() {
+		return "AggregateTrackingMailingTable [size=" + size + "]";
+	}
+}
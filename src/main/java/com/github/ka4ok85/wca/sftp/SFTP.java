@@ -1,5 +1,9 @@
 package com.github.ka4ok85.wca.sftp;
 
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Properties;
 
 import org.slf4j.Logger;
@@ -7,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import com.github.ka4ok85.wca.exceptions.EngageSftpException;
 import com.github.ka4ok85.wca.exceptions.FailedGetAccessTokenException;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.oauth.OAuthClient;
 import com.github.ka4ok85.wca.pod.Pod;
 import com.jcraft.jsch.Channel;
@@ -17,28 +22,79 @@ import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
 
 public class SFTP {
-	private static final int port = 22;
+	private static final int defaultPort = 22;
 	private static final String username = "oauth";
 	private static final String downloadDirectory = "download";
 	private static final String uploadDirectory = "upload";
 	private static final Logger log = LoggerFactory.getLogger(SFTP.class);
 
 	private OAuthClient oAuthClient;
+	private String hostName;
+	private int port;
+	private EngageMetrics metrics;
 
 	public SFTP(OAuthClient oAuthClient) {
 		this.oAuthClient = oAuthClient;
+		this.port = defaultPort;
+	}
+
+	/**
+	 * Creates SFTP client for custom host instead of Pod's transfer server.
+	 * Useful for local SFTP servers in integration tests and benchmarks.
+	 * 
+	 * @param oAuthClient
+	 *            - OAuth client providing Access Token used as SFTP password
+	 * @param hostName
+	 *            - SFTP host name
+	 * @param port
+	 *            - SFTP port
+	 */
+	public SFTP(OAuthClient oAuthClient, String hostName, int port) {
+		if (hostName == null || hostName.trim().isEmpty()) {
+			throw new RuntimeException("Host Name must be non-empty String. Provided Host Name = " + hostName);
+		}
+
+		if (port < 1 || port > 65535) {
+			throw new RuntimeException("Port must be between 1 and 65535. Provided Port = " + port);
+		}
+
+		this.oAuthClient = oAuthClient;
+		this.hostName = hostName;
+		this.port = port;
+	}
+
+	public String getHostName() {
+		if (hostName != null) {
+			return hostName;
+		}
+
+		return Pod.getSFTPHostName(this.oAuthClient.getPodNumber());
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @param metrics
+	 *            - metrics of transfers, nothing is recorded if null
+	 */
+	public void setMetrics(EngageMetrics metrics) {
+		this.metrics = metrics;
 	}
 
 	public void download(String filePath, String localAbsoluteFilePath) {
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long startNanos = System.nanoTime();
 		try {
 			JSch jsch = new JSch();
-			Session session = jsch.getSession(username, Pod.getSFTPHostName(this.oAuthClient.getPodNumber()), port);
+			Session session = jsch.getSession(username, getHostName(), port);
 			session.setPassword(this.oAuthClient.getAccessToken());
 			Properties config = new Properties();
 			config.put("StrictHostKeyChecking", "no");
 			session.setConfig(config);
 
-			log.debug("Connecting to SFTP. Hostname is {}", Pod.getSFTPHostName(this.oAuthClient.getPodNumber()));
+			log.debug("Connecting to SFTP. Hostname is {}, port is {}", getHostName(), port);
 			session.connect();
 			Channel channel = session.openChannel("sftp");
 			channel.connect();
@@ -53,25 +109,30 @@ public class SFTP {
 			log.debug("Disconnecting from SFTP");
 			channelSftp.exit();
 			session.disconnect();
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
 		} catch (JSchException | SftpException e) {
 			log.warn("SFTP Error is {}", e.getMessage());
 			throw new EngageSftpException(e.getMessage());
 		} catch (FailedGetAccessTokenException e) {
 			log.warn("Can not get Access Token for SFTP. Error is {}", e.getMessage());
 			throw new EngageSftpException(e.getMessage());
+		} finally {
+			recordTransfer(EngageMetrics.DIRECTION_DOWNLOAD, outcome, localAbsoluteFilePath, startNanos);
 		}
 	}
 
 	public void upload(String localAbsoluteFilePath, String filePath) {
+		String outcome = EngageMetrics.OUTCOME_ERROR;
+		long startNanos = System.nanoTime();
 		try {
 			JSch jsch = new JSch();
-			Session session = jsch.getSession(username, Pod.getSFTPHostName(this.oAuthClient.getPodNumber()), port);
+			Session session = jsch.getSession(username, getHostName(), port);
 			session.setPassword(this.oAuthClient.getAccessToken());
 			Properties config = new Properties();
 			config.put("StrictHostKeyChecking", "no");
 			session.setConfig(config);
 
-			log.debug("Connecting to SFTP. Hostname is {}", Pod.getSFTPHostName(this.oAuthClient.getPodNumber()));
+			log.debug("Connecting to SFTP. Hostname is {}, port is {}", getHostName(), port);
 			session.connect();
 			Channel channel = session.openChannel("sftp");
 			channel.connect();
@@ -86,6 +147,129 @@ public class SFTP {
 			log.debug("Disconnecting from SFTP");
 			channelSftp.exit();
 			session.disconnect();
+			outcome = EngageMetrics.OUTCOME_SUCCESS;
+		} catch (JSchException | SftpException e) {
+			log.warn("SFTP Error is {}", e.getMessage());
+			throw new EngageSftpException(e.getMessage());
+		} catch (FailedGetAccessTokenException e) {
+			log.warn("Can not get Access Token for SFTP. Error is {}", e.getMessage());
+			throw new EngageSftpException(e.getMessage());
+		} finally {
+			recordTransfer(EngageMetrics.DIRECTION_UPLOAD, outcome, localAbsoluteFilePath, startNanos);
+		}
+	}
+
+	/**
+	 * Opens stream writing directly into remote file in upload directory.
+	 * Connection is closed when stream is closed or when stream can not be
+	 * opened.
+	 * 
+	 * @param filePath
+	 *            - remote file name
+	 * @return stream for file content
+	 */
+	public OutputStream openUploadStream(String filePath) {
+		long startNanos = System.nanoTime();
+		try {
+			JSch jsch = new JSch();
+			Session session = jsch.getSession(username, getHostName(), port);
+			session.setPassword(this.oAuthClient.getAccessToken());
+			Properties config = new Properties();
+			config.put("StrictHostKeyChecking", "no");
+			session.setConfig(config);
+
+			log.debug("Connecting to SFTP. Hostname is {}, port is {}", getHostName(), port);
+			session.connect();
+			ChannelSftp channelSftp;
+			OutputStream outputStream;
+			try {
+				Channel channel = session.openChannel("sftp");
+				channel.connect();
+				channelSftp = (ChannelSftp) channel;
+
+				log.debug("Changing SFTP directory to {}", uploadDirectory);
+				channelSftp.cd(uploadDirectory);
+
+				log.debug("Streaming into remote file {}", filePath);
+				outputStream = channelSftp.put(filePath);
+			} catch (JSchException | SftpException | RuntimeException e) {
+				log.debug("Disconnecting from SFTP");
+				session.disconnect();
+				throw e;
+			}
+
+			return new FilterOutputStream(outputStream) {
+				private long bytesWritten;
+
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					bytesWritten++;
+				}
+
+				@Override
+				public void write(byte[] bytes, int offset, int length) throws IOException {
+					out.write(bytes, offset, length);
+					bytesWritten += length;
+				}
+
+				@Override
+				public void close() throws IOException {
+					String outcome = EngageMetrics.OUTCOME_ERROR;
+					try {
+						super.close();
+						outcome = EngageMetrics.OUTCOME_SUCCESS;
+					} finally {
+						log.debug("Disconnecting from SFTP");
+						channelSftp.exit();
+						session.disconnect();
+						if (metrics != null) {
+							metrics.recordSftpTransfer(EngageMetrics.DIRECTION_UPLOAD, outcome, bytesWritten,
+									System.nanoTime() - startNanos);
+						}
+					}
+				}
+			};
+		} catch (JSchException | SftpException e) {
+			log.warn("SFTP Error is {}", e.getMessage());
+			throw new EngageSftpException(e.getMessage());
+		} catch (FailedGetAccessTokenException e) {
+			log.warn("Can not get Access Token for SFTP. Error is {}", e.getMessage());
+			throw new EngageSftpException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes remote file from upload directory, e.g. partially written file.
+	 * 
+	 * @param filePath
+	 *            - remote file name
+	 */
+	public void deleteUploadedFile(String filePath) {
+		try {
+			JSch jsch = new JSch();
+			Session session = jsch.getSession(username, getHostName(), port);
+			session.setPassword(this.oAuthClient.getAccessToken());
+			Properties config = new Properties();
+			config.put("StrictHostKeyChecking", "no");
+			session.setConfig(config);
+
+			log.debug("Connecting to SFTP. Hostname is {}, port is {}", getHostName(), port);
+			session.connect();
+			try {
+				ChannelSftp channelSftp = (ChannelSftp) session.openChannel("sftp");
+				channelSftp.connect();
+
+				log.debug("Changing SFTP directory to {}", uploadDirectory);
+				channelSftp.cd(uploadDirectory);
+
+				log.debug("Removing remote file {}", filePath);
+				channelSftp.rm(filePath);
+				channelSftp.exit();
+			} finally {
+				log.debug("Disconnecting from SFTP");
+				session.disconnect();
+			}
 		} catch (JSchException | SftpException e) {
 			log.warn("SFTP Error is {}", e.getMessage());
 			throw new EngageSftpException(e.getMessage());
@@ -95,4 +279,11 @@ public class SFTP {
 		}
 	}
 
+	private void recordTransfer(String direction, String outcome, String localAbsoluteFilePath, long startNanos) {
+		if (metrics != null) {
+			long bytes = EngageMetrics.OUTCOME_SUCCESS.equals(outcome) ? new File(localAbsoluteFilePath).length() : 0;
+			metrics.recordSftpTransfer(direction, outcome, bytes, System.nanoTime() - startNanos);
+		}
+	}
+
 }
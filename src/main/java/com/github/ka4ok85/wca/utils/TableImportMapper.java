@@ -0,0 +1,257 @@
+package com.github.ka4ok85.wca.utils;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.github.ka4ok85.wca.constants.ImportFileFormat;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.constants.RelationalTableColumnType;
+import com.github.ka4ok85.wca.options.containers.RelationalTableColumn;
+
+/**
+ * <strong>Generates map file for WCA ImportTable API.</strong>
+ * <p>
+ * Table columns are described by the same
+ * {@link com.github.ka4ok85.wca.options.containers.RelationalTableColumn}
+ * objects used by CreateTable API. Columns definitions are written for CREATE
+ * action only, mapping follows column order of source file.
+ * </p>
+ *
+ * @since 0.0.4
+ */
+public class TableImportMapper {
+
+	private final ImportMapperAction importMapperAction;
+	private String tableName;
+	private Long tableId;
+	private ImportFileFormat fileFormat = ImportFileFormat.CSV;
+	private boolean hasHeaders = true;
+	private List<RelationalTableColumn> columns = new ArrayList<RelationalTableColumn>();
+
+	private Document doc;
+	private Node currentNode;
+
+	public TableImportMapper(ImportMapperAction importMapperAction) {
+		super();
+		if (importMapperAction == null || importMapperAction == ImportMapperAction.OPT_OUT) {
+			throw new RuntimeException(
+					"Import Mapper Action can not be null or OPT_OUT. Provided Import Mapper Action = "
+							+ importMapperAction);
+		}
+
+		this.importMapperAction = importMapperAction;
+	}
+
+	public void setTableName(String tableName) {
+		if (tableName == null || tableName.trim().isEmpty()) {
+			throw new RuntimeException("Table Name must be non-empty String. Provided Table Name = " + tableName);
+		}
+
+		if (importMapperAction != ImportMapperAction.CREATE) {
+			throw new RuntimeException("Import Mapper Action must be CREATE");
+		}
+
+		this.tableName = tableName;
+		this.tableId = null;
+	}
+
+	public void setTableId(Long tableId) {
+		if (tableId == null || tableId < 1) {
+			throw new RuntimeException("Table ID must be greater than zero. Provided Table ID = " + tableId);
+		}
+
+		if (importMapperAction == ImportMapperAction.CREATE) {
+			throw new RuntimeException("Import Mapper Action can not be CREATE");
+		}
+
+		this.tableId = tableId;
+		this.tableName = null;
+	}
+
+	public void setFileFormat(ImportFileFormat fileFormat) {
+		if (fileFormat == null) {
+			throw new RuntimeException("File Format can not be null");
+		}
+
+		this.fileFormat = fileFormat;
+	}
+
+	public void setHasHeaders(boolean hasHeaders) {
+		this.hasHeaders = hasHeaders;
+	}
+
+	public void setColumns(List<RelationalTableColumn> columns) {
+		if (columns == null) {
+			throw new RuntimeException("Columns can not be null");
+		}
+
+		this.columns = columns;
+	}
+
+	public String generateXMLString() {
+		if (tableName == null && tableId == null) {
+			throw new RuntimeException("Table Name or Table ID must be set");
+		}
+
+		DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
+		DocumentBuilder docBuilder;
+		try {
+			docBuilder = docFactory.newDocumentBuilder();
+			doc = docBuilder.newDocument();
+			currentNode = doc;
+
+			Element rootElement = doc.createElement("TABLE_IMPORT");
+			currentNode = addChildNode(rootElement, null);
+
+			Element tableInfoElement = doc.createElement("TABLE_INFO");
+			addChildNode(tableInfoElement, null);
+
+			Element actionElement = doc.createElement("ACTION");
+			actionElement.setTextContent(importMapperAction.value());
+			addChildNode(actionElement, tableInfoElement);
+
+			if (tableName != null) {
+				Element tableNameElement = doc.createElement("TABLE_NAME");
+				tableNameElement.setTextContent(tableName);
+				addChildNode(tableNameElement, tableInfoElement);
+			}
+
+			if (tableId != null) {
+				Element tableIdElement = doc.createElement("TABLE_ID");
+				tableIdElement.setTextContent(tableId.toString());
+				addChildNode(tableIdElement, tableInfoElement);
+			}
+
+			Element fileFormatElement = doc.createElement("FILE_TYPE");
+			fileFormatElement.setTextContent(fileFormat.value().toString());
+			addChildNode(fileFormatElement, tableInfoElement);
+
+			if (hasHeaders) {
+				Element hasHeadersElement = doc.createElement("HASHEADERS");
+				hasHeadersElement.setTextContent("true");
+				addChildNode(hasHeadersElement, tableInfoElement);
+			}
+
+			if (importMapperAction == ImportMapperAction.CREATE && columns.size() > 0) {
+				Element columnsElement = doc.createElement("COLUMNS");
+				addChildNode(columnsElement, currentNode);
+				for (RelationalTableColumn column : columns) {
+					Element columnElement = doc.createElement("COLUMN");
+					addChildNode(columnElement, columnsElement);
+
+					Element columnNameElement = doc.createElement("NAME");
+					CDATASection cdata = doc.createCDATASection(column.getName());
+					columnNameElement.appendChild(cdata);
+					addChildNode(columnNameElement, columnElement);
+
+					Element columnTypeElement = doc.createElement("TYPE");
+					columnTypeElement.setTextContent(column.getType().value());
+					addChildNode(columnTypeElement, columnElement);
+
+					Element columnIsRequiredElement = doc.createElement("IS_REQUIRED");
+					columnIsRequiredElement.setTextContent(Boolean.toString(column.getIsRequired()));
+					addChildNode(columnIsRequiredElement, columnElement);
+
+					Element columnIsKeyElement = doc.createElement("KEY_COLUMN");
+					columnIsKeyElement.setTextContent(Boolean.toString(column.getIsKeyColumn()));
+					addChildNode(columnIsKeyElement, columnElement);
+
+					if (column.getDefaultValue() != null) {
+						Element columnDefaultValueElement = doc.createElement("DEFAULT_VALUE");
+						cdata = doc.createCDATASection(column.getDefaultValue());
+						columnDefaultValueElement.appendChild(cdata);
+						addChildNode(columnDefaultValueElement, columnElement);
+					}
+
+					if (column.getType().equals(RelationalTableColumnType.SELECTION)) {
+						Element selectionValuesElement = doc.createElement("SELECTION_VALUES");
+						addChildNode(selectionValuesElement, columnElement);
+						for (String selection : column.getSelectionValues()) {
+							Element selectionValueElement = doc.createElement("VALUE");
+							cdata = doc.createCDATASection(selection);
+							selectionValueElement.appendChild(cdata);
+							addChildNode(selectionValueElement, selectionValuesElement);
+						}
+					}
+				}
+			}
+
+			if (columns.size() > 0) {
+				Element mappingElement = doc.createElement("MAPPING");
+				addChildNode(mappingElement, currentNode);
+				int index = 0;
+				for (RelationalTableColumn column : columns) {
+					index++;
+
+					Element columnElement = doc.createElement("COLUMN");
+					addChildNode(columnElement, mappingElement);
+
+					Element columnIndexElement = doc.createElement("INDEX");
+					columnIndexElement.setTextContent(String.valueOf(index));
+					addChildNode(columnIndexElement, columnElement);
+
+					Element columnNameElement = doc.createElement("NAME");
+					CDATASection cdata = doc.createCDATASection(column.getName());
+					columnNameElement.appendChild(cdata);
+					addChildNode(columnNameElement, columnElement);
+
+					Element columnIncludeElement = doc.createElement("INCLUDE");
+					columnIncludeElement.setTextContent("true");
+					addChildNode(columnIncludeElement, columnElement);
+				}
+			}
+
+			return getXML();
+		} catch (ParserConfigurationException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+	}
+
+	public Node addChildNode(Node childNode, Node parentNode) {
+		if (parentNode == null) {
+			this.currentNode.appendChild(childNode);
+		} else {
+			parentNode.appendChild(childNode);
+		}
+
+		return childNode;
+	}
+
+	public String getXML() {
+		DOMSource domSource = new DOMSource(doc);
+		StringWriter writer = new StringWriter();
+		StreamResult result = new StreamResult(writer);
+		TransformerFactory tf = TransformerFactory.newInstance();
+		try {
+			Transformer transformer = tf.newTransformer();
+			transformer.transform(domSource, result);
+		} catch (TransformerException e) {
+			throw new RuntimeException(e.getMessage());
+		}
+
+		return writer.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "TableImportMapper [importMapperAction=" + importMapperAction + ", tableName=" + tableName
+				+ ", tableId=" + tableId + ", fileFormat=" + fileFormat + ", hasHeaders=" + hasHeaders + ", columns="
+				+ columns + "]";
+	}
+
+}
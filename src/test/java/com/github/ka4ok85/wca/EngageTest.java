@@ -1,17 +1,35 @@
 package com.github.ka4ok85.wca;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.github.ka4ok85.wca.cache.MetadataCache;
+import com.github.ka4ok85.wca.cache.RecipientCache;
+import com.github.ka4ok85.wca.cache.RequestCoalescer;
+import com.github.ka4ok85.wca.command.AddListColumnCommand;
 import com.github.ka4ok85.wca.command.AddRecipientCommand;
 import com.github.ka4ok85.wca.command.CreateContactListCommand;
 import com.github.ka4ok85.wca.command.CreateTableCommand;
@@ -21,6 +39,7 @@ import com.github.ka4ok85.wca.command.DoubleOptInRecipientCommand;
 import com.github.ka4ok85.wca.command.ExportListCommand;
 import com.github.ka4ok85.wca.command.ExportTableCommand;
 import com.github.ka4ok85.wca.command.GetFolderPathCommand;
+import com.github.ka4ok85.wca.command.GetListMetaDataCommand;
 import com.github.ka4ok85.wca.command.GetListsCommand;
 import com.github.ka4ok85.wca.command.InsertUpdateRelationalTableCommand;
 import com.github.ka4ok85.wca.command.JoinTableCommand;
@@ -31,8 +50,10 @@ import com.github.ka4ok85.wca.command.SelectRecipientDataCommand;
 import com.github.ka4ok85.wca.command.UpdateRecipientCommand;
 import com.github.ka4ok85.wca.config.SpringConfig;
 import com.github.ka4ok85.wca.constants.GetFolderPathObjectType;
+import com.github.ka4ok85.wca.constants.ListColumnType;
 import com.github.ka4ok85.wca.constants.Visibility;
 import com.github.ka4ok85.wca.oauth.OAuthClient;
+import com.github.ka4ok85.wca.options.AddListColumnOptions;
 import com.github.ka4ok85.wca.options.AddRecipientOptions;
 import com.github.ka4ok85.wca.options.CreateContactListOptions;
 import com.github.ka4ok85.wca.options.CreateTableOptions;
@@ -42,6 +63,7 @@ import com.github.ka4ok85.wca.options.DoubleOptInRecipientOptions;
 import com.github.ka4ok85.wca.options.ExportListOptions;
 import com.github.ka4ok85.wca.options.ExportTableOptions;
 import com.github.ka4ok85.wca.options.GetFolderPathOptions;
+import com.github.ka4ok85.wca.options.GetListMetaDataOptions;
 import com.github.ka4ok85.wca.options.GetListsOptions;
 import com.github.ka4ok85.wca.options.InsertUpdateRelationalTableOptions;
 import com.github.ka4ok85.wca.options.JoinTableOptions;
@@ -50,6 +72,7 @@ import com.github.ka4ok85.wca.options.PurgeTableOptions;
 import com.github.ka4ok85.wca.options.RemoveRecipientOptions;
 import com.github.ka4ok85.wca.options.SelectRecipientDataOptions;
 import com.github.ka4ok85.wca.options.UpdateRecipientOptions;
+import com.github.ka4ok85.wca.response.AddListColumnResponse;
 import com.github.ka4ok85.wca.response.AddRecipientResponse;
 import com.github.ka4ok85.wca.response.CreateContactListResponse;
 import com.github.ka4ok85.wca.response.CreateTableResponse;
@@ -59,6 +82,7 @@ import com.github.ka4ok85.wca.response.DoubleOptInRecipientResponse;
 import com.github.ka4ok85.wca.response.ExportListResponse;
 import com.github.ka4ok85.wca.response.ExportTableResponse;
 import com.github.ka4ok85.wca.response.GetFolderPathResponse;
+import com.github.ka4ok85.wca.response.GetListMetaDataResponse;
 import com.github.ka4ok85.wca.response.GetListsResponse;
 import com.github.ka4ok85.wca.response.InsertUpdateRelationalTableResponse;
 import com.github.ka4ok85.wca.response.JoinTableResponse;
@@ -74,6 +98,9 @@ import com.github.ka4ok85.wca.sftp.SFTP;
 @ContextConfiguration(classes = { SpringConfig.class })
 public class EngageTest {
 
+	@Autowired
+	private ApplicationContext context;
+
 	@Test
 	public void testGetFolderPath() {
 		OAuthClient oAuthClient = mock(OAuthClient.class);
@@ -446,4 +473,144 @@ public class EngageTest {
 		assertEquals(responseContainer.getResposne(), response);
 	}
 
+	@Test
+	public void testGetListMetaDataIsCachedUntilAddListColumn() {
+		Engage engage = new Engage(mock(OAuthClient.class), mock(SFTP.class));
+		engage.setMetadataCache(new MetadataCache());
+
+		GetListMetaDataCommand getListMetaDataBean = mock(GetListMetaDataCommand.class);
+		when(getListMetaDataBean.executeCommand(any(GetListMetaDataOptions.class)))
+				.thenReturn(new ResponseContainer<GetListMetaDataResponse>(new GetListMetaDataResponse()));
+		engage.setGetListMetaDataBean(getListMetaDataBean);
+
+		AddListColumnCommand addListColumnBean = mock(AddListColumnCommand.class);
+		when(addListColumnBean.executeCommand(any(AddListColumnOptions.class)))
+				.thenReturn(new ResponseContainer<AddListColumnResponse>(new AddListColumnResponse()));
+		engage.setAddListColumnBean(addListColumnBean);
+
+		ResponseContainer<GetListMetaDataResponse> first = engage.getListMetaData(new GetListMetaDataOptions(1L));
+		assertEquals(engage.getListMetaData(new GetListMetaDataOptions(1L)), first);
+		engage.getListMetaData(new GetListMetaDataOptions(2L));
+		verify(getListMetaDataBean, times(2)).executeCommand(any(GetListMetaDataOptions.class));
+
+		engage.addListColumn(new AddListColumnOptions(1L, "Column", ListColumnType.TEXT, null));
+		engage.getListMetaData(new GetListMetaDataOptions(1L));
+		engage.getListMetaData(new GetListMetaDataOptions(2L));
+		verify(getListMetaDataBean, times(3)).executeCommand(any(GetListMetaDataOptions.class));
+
+		assertEquals(engage.getMetadataCache().getHitCount(), 2L);
+		assertEquals(engage.getMetadataCache().getMissCount(), 3L);
+	}
+
+	@Test
+	public void testGetListsIsCachedUntilCreateTable() {
+		Engage engage = new Engage(mock(OAuthClient.class), mock(SFTP.class));
+		engage.setMetadataCache(new MetadataCache());
+
+		GetListsCommand getListsBean = mock(GetListsCommand.class);
+		when(getListsBean.executeCommand(any(GetListsOptions.class)))
+				.thenReturn(new ResponseContainer<GetListsResponse>(new GetListsResponse()));
+		engage.setGetListsBean(getListsBean);
+
+		CreateTableCommand createTableBean = mock(CreateTableCommand.class);
+		when(createTableBean.executeCommand(any(CreateTableOptions.class)))
+				.thenReturn(new ResponseContainer<CreateTableResponse>(new CreateTableResponse()));
+		engage.setCreateTableBean(createTableBean);
+
+		engage.getLists(new GetListsOptions());
+		engage.getLists(new GetListsOptions());
+		verify(getListsBean, times(1)).executeCommand(any(GetListsOptions.class));
+
+		engage.createTable(new CreateTableOptions("test"));
+		engage.getLists(new GetListsOptions());
+		verify(getListsBean, times(2)).executeCommand(any(GetListsOptions.class));
+	}
+
+	@Test
+	public void testCommandBeansArePrototypes() {
+		// Engage takes new command for every call, commands keep XML request
+		Class<?>[] commandClasses = { GetFolderPathCommand.class, ExportListCommand.class, ExportTableCommand.class, CreateContactListCommand.class,
+				DeleteListCommand.class, SelectRecipientDataCommand.class, AddRecipientCommand.class, DoubleOptInRecipientCommand.class,
+				UpdateRecipientCommand.class, OptOutRecipientCommand.class, RemoveRecipientCommand.class, GetListsCommand.class,
+				CreateTableCommand.class, JoinTableCommand.class, InsertUpdateRelationalTableCommand.class, DeleteRelationalTableDataCommand.class,
+				PurgeTableCommand.class };
+		for (Class<?> commandClass : commandClasses) {
+			assertNotSame(commandClass.getSimpleName(), context.getBean(commandClass), context.getBean(commandClass));
+		}
+	}
+
+	@Test
+	public void testSelectRecipientDataAfterWriteDoesNotJoinCallStartedBeforeIt() throws Exception {
+		Engage engage = new Engage(mock(OAuthClient.class), mock(SFTP.class));
+		engage.setRecipientCache(new RecipientCache(1024 * 1024, 1, TimeUnit.MINUTES));
+		RequestCoalescer requestCoalescer = new RequestCoalescer();
+		engage.setRequestCoalescer(requestCoalescer);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		SelectRecipientDataCommand selectRecipientDataBean = mock(SelectRecipientDataCommand.class);
+		when(selectRecipientDataBean.executeCommand(any(SelectRecipientDataOptions.class))).thenAnswer(invocation -> {
+			SelectRecipientDataResponse response = new SelectRecipientDataResponse();
+			response.setRecipientId(100L);
+			if (calls.incrementAndGet() == 1) {
+				started.countDown();
+				release.await();
+				response.getColumns().put("Version", "before write");
+			} else {
+				response.getColumns().put("Version", "after write");
+			}
+
+			return new ResponseContainer<SelectRecipientDataResponse>(response);
+		});
+		engage.setSelectRecipientDataBean(selectRecipientDataBean);
+
+		UpdateRecipientCommand updateRecipientBean = mock(UpdateRecipientCommand.class);
+		when(updateRecipientBean.executeCommand(any(UpdateRecipientOptions.class)))
+				.thenReturn(new ResponseContainer<UpdateRecipientResponse>(new UpdateRecipientResponse()));
+		engage.setUpdateRecipientBean(updateRecipientBean);
+
+		SelectRecipientDataOptions options = new SelectRecipientDataOptions(10L);
+		options.setRecipientId(100L);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<ResponseContainer<SelectRecipientDataResponse>> beforeWrite = executor
+					.submit(() -> engage.selectRecipientData(options));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			UpdateRecipientOptions update = new UpdateRecipientOptions(10L);
+			update.setRecipientId(100L);
+			engage.updateRecipient(update);
+
+			Future<ResponseContainer<SelectRecipientDataResponse>> afterWrite = executor
+					.submit(() -> engage.selectRecipientData(options));
+			assertEquals(afterWrite.get(5, TimeUnit.SECONDS).getResposne().getColumns().get("Version"),
+					"after write");
+			release.countDown();
+			assertEquals(beforeWrite.get(5, TimeUnit.SECONDS).getResposne().getColumns().get("Version"),
+					"before write");
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+
+		assertEquals(requestCoalescer.getCoalescedCount(), 0L);
+		assertEquals(engage.selectRecipientData(options).getResposne().getColumns().get("Version"), "after write");
+		verify(selectRecipientDataBean, times(2)).executeCommand(any(SelectRecipientDataOptions.class));
+	}
+
+	@Test
+	public void testMetadataCacheCanBeSharedOnlyBySameOAuthClient() {
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		MetadataCache metadataCache = new MetadataCache();
+		new Engage(oAuthClient, mock(SFTP.class)).setMetadataCache(metadataCache);
+		new Engage(oAuthClient, mock(SFTP.class)).setMetadataCache(metadataCache);
+
+		try {
+			new Engage(mock(OAuthClient.class), mock(SFTP.class)).setMetadataCache(metadataCache);
+			fail("Cache of another OAuth Client must be rejected");
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Cache is already used by Engage with another OAuth Client");
+		}
+	}
 }
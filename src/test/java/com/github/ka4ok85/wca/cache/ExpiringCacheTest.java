@@ -0,0 +1,66 @@
+package com.github.ka4ok85.wca.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class ExpiringCacheTest {
+
+	@Test
+	public void testValueIsLoadedOnceUntilExpired() {
+		AtomicLong clock = new AtomicLong();
+		AtomicInteger loads = new AtomicInteger();
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(10, 5, TimeUnit.NANOSECONDS,
+				clock::get);
+
+		assertEquals(cache.get("a", key -> key + loads.incrementAndGet()), "a1");
+		clock.set(4);
+		assertEquals(cache.get("a", key -> key + loads.incrementAndGet()), "a1");
+		clock.set(5);
+		assertNull(cache.getIfPresent("a"));
+		assertEquals(cache.get("a", key -> key + loads.incrementAndGet()), "a2");
+
+		assertEquals(cache.getHitCount(), 1L);
+		assertEquals(cache.getMissCount(), 2L);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedValueIsEvicted() {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(2, 1, TimeUnit.MINUTES);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.get("a", key -> "loaded");
+		cache.put("c", "3");
+
+		assertEquals(cache.size(), 2);
+		assertEquals(cache.getIfPresent("a"), "1");
+		assertNull(cache.getIfPresent("b"));
+		assertEquals(cache.getEvictionCount(), 1L);
+	}
+
+	@Test
+	public void testValueLoadedDuringInvalidationIsNotCached() {
+		ExpiringCache<String, String> cache = new ExpiringCache<String, String>(10, 1, TimeUnit.MINUTES);
+		assertEquals(cache.get("a", key -> {
+			cache.invalidateAll();
+			return "stale";
+		}), "stale");
+		assertNull(cache.getIfPresent("a"));
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.invalidateIf(key -> key.equals("a"));
+		assertNull(cache.getIfPresent("a"));
+		assertEquals(cache.getIfPresent("b"), "2");
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testMaximumSizeMustBePositive() {
+		new ExpiringCache<String, String>(0, 1, TimeUnit.MINUTES);
+	}
+}
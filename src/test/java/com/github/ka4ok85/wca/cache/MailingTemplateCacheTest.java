@@ -0,0 +1,131 @@
+package com.github.ka4ok85.wca.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.ExportMailingTemplateOptions;
+import com.github.ka4ok85.wca.options.GetMailingTemplatesOptions;
+import com.github.ka4ok85.wca.response.ExportMailingTemplateResponse;
+import com.github.ka4ok85.wca.response.GetMailingTemplatesResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.MailingTemplate;
+
+public class MailingTemplateCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<GetMailingTemplatesOptions> listCalls = new ArrayList<GetMailingTemplatesOptions>();
+	private List<MailingTemplate> nextTemplates = new ArrayList<MailingTemplate>();
+
+	private MailingTemplate createTemplate(long templateId, LocalDateTime lastModified) {
+		MailingTemplate template = new MailingTemplate();
+		template.setMailingId(templateId);
+		template.setLastModified(lastModified);
+
+		return template;
+	}
+
+	private Engage createEngage() {
+		Engage engage = mock(Engage.class);
+		when(engage.getMailingTemplates(any(GetMailingTemplatesOptions.class))).thenAnswer(invocation -> {
+			listCalls.add(invocation.getArgument(0));
+			GetMailingTemplatesResponse response = new GetMailingTemplatesResponse();
+			response.setMailingTempaltes(nextTemplates);
+
+			return new ResponseContainer<GetMailingTemplatesResponse>(response);
+		});
+		when(engage.exportMailingTemplate(any(ExportMailingTemplateOptions.class))).thenAnswer(invocation -> {
+			ExportMailingTemplateOptions options = invocation.getArgument(0);
+			Files.write(Paths.get(options.getLocalAbsoluteFilePath()),
+					("template " + options.getTemplateId()).getBytes(StandardCharsets.UTF_8));
+			ExportMailingTemplateResponse response = new ExportMailingTemplateResponse();
+			response.setRemoteFileName("/download/template_export.zip");
+
+			return new ResponseContainer<ExportMailingTemplateResponse>(response);
+		});
+
+		return engage;
+	}
+
+	@Test
+	public void testOnlyChangedTemplatesAreExportedAgain() throws Exception {
+		LocalDateTime created = LocalDateTime.of(2018, 7, 1, 10, 0);
+		AtomicLong clock = new AtomicLong();
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		MailingTemplateCache cache = new MailingTemplateCache(createEngage(), directory, clock::get);
+		cache.setRevalidateInterval(10, TimeUnit.NANOSECONDS);
+
+		nextTemplates = Arrays.asList(createTemplate(1L, created), createTemplate(2L, created.plusDays(1)));
+		String file = cache.getTemplateFile(1L);
+		assertEquals(file, Paths.get(directory, "template_1.zip").toString());
+		assertEquals(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8), "template 1");
+		assertEquals(cache.getTemplateFile(1L), file);
+		assertEquals(cache.getExportCount(), 1L);
+		assertEquals(cache.getFileHitCount(), 1L);
+		assertEquals(listCalls.size(), 1);
+		assertNull(listCalls.get(0).getLastModifiedStartDate());
+
+		clock.set(20);
+		nextTemplates = Arrays.asList(createTemplate(1L, created.plusDays(2)));
+		cache.getTemplateFile(1L);
+		cache.getTemplateFile(2L);
+		cache.getTemplateFile(2L);
+		assertEquals(listCalls.size(), 2);
+		assertEquals(listCalls.get(1).getLastModifiedStartDate(), created.plusDays(1));
+		assertEquals(cache.getExportCount(), 3L);
+		assertEquals(cache.getMailingTemplates().size(), 2);
+
+		nextTemplates = Arrays.asList(createTemplate(1L, created.plusDays(2)), createTemplate(2L, created.plusDays(1)));
+		MailingTemplateCache restarted = new MailingTemplateCache(createEngage(), directory, clock::get);
+		restarted.getTemplateFile(1L);
+		restarted.getTemplateFile(2L);
+		assertEquals(restarted.getExportCount(), 0L);
+		assertEquals(restarted.getFileHitCount(), 2L);
+	}
+
+	@Test
+	public void testUnknownTemplateIsLookedUpOncePerRevalidation() {
+		AtomicLong clock = new AtomicLong();
+		MailingTemplateCache cache = new MailingTemplateCache(createEngage(),
+				temporaryFolder.getRoot().getAbsolutePath(), clock::get);
+		cache.setRevalidateInterval(10, TimeUnit.NANOSECONDS);
+		nextTemplates = Arrays.asList(createTemplate(1L, LocalDateTime.of(2018, 7, 1, 10, 0)));
+
+		assertNull(cache.getMailingTemplate(5L));
+		assertEquals(listCalls.size(), 2);
+		assertNull(cache.getMailingTemplate(5L));
+		assertNull(cache.getMailingTemplate(5L));
+		assertEquals(listCalls.size(), 2);
+
+		clock.set(20);
+		nextTemplates = Arrays.asList(createTemplate(5L, LocalDateTime.of(2018, 7, 2, 10, 0)));
+		assertEquals(cache.getMailingTemplate(5L).getMailingId(), Long.valueOf(5L));
+		assertEquals(listCalls.size(), 3);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testUnknownTemplateIsRejected() {
+		MailingTemplateCache cache = new MailingTemplateCache(createEngage(),
+				temporaryFolder.getRoot().getAbsolutePath());
+		cache.getTemplateFile(5L);
+	}
+}
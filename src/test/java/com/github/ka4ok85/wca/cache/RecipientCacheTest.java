@@ -0,0 +1,147 @@
+package com.github.ka4ok85.wca.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.options.OptOutRecipientOptions;
+import com.github.ka4ok85.wca.options.SelectRecipientDataOptions;
+import com.github.ka4ok85.wca.options.UpdateRecipientOptions;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.SelectRecipientDataResponse;
+
+public class RecipientCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final Function<SelectRecipientDataOptions, ResponseContainer<SelectRecipientDataResponse>> loader = (
+			options) -> {
+		SelectRecipientDataResponse response = new SelectRecipientDataResponse();
+		response.setEmail("user@example.com");
+		response.setRecipientId(100L);
+		response.getColumns().put("Version", String.valueOf(loads.incrementAndGet()));
+
+		return new ResponseContainer<SelectRecipientDataResponse>(response);
+	};
+
+	private SelectRecipientDataOptions byEmail(String email) {
+		SelectRecipientDataOptions options = new SelectRecipientDataOptions(10L);
+		options.setEmail(email);
+
+		return options;
+	}
+
+	private SelectRecipientDataOptions byRecipientId(Long recipientId) {
+		SelectRecipientDataOptions options = new SelectRecipientDataOptions(10L);
+		options.setRecipientId(recipientId);
+
+		return options;
+	}
+
+	@Test
+	public void testRecipientIsCachedByLookupValues() {
+		RecipientCache cache = new RecipientCache(1024 * 1024, 1, TimeUnit.MINUTES);
+
+		cache.getRecipient(byEmail("user@example.com"), loader);
+		cache.getRecipient(byEmail("USER@example.com"), loader);
+		cache.getRecipient(byRecipientId(100L), loader);
+
+		assertEquals(loads.get(), 2);
+		assertEquals(cache.size(), 2);
+		assertEquals(cache.getHitCount(), 1L);
+		assertEquals(cache.getMissCount(), 2L);
+	}
+
+	@Test
+	public void testWriteInvalidatesEveryLookupOfRecipient() {
+		RecipientCache cache = new RecipientCache(1024 * 1024, 1, TimeUnit.MINUTES);
+		cache.getRecipient(byEmail("user@example.com"), loader);
+		cache.getRecipient(byRecipientId(100L), loader);
+
+		UpdateRecipientOptions update = new UpdateRecipientOptions(10L);
+		update.setRecipientId(100L);
+		cache.onUpdateRecipient(update);
+		assertEquals(cache.size(), 0);
+
+		cache.getRecipient(byEmail("user@example.com"), loader);
+		cache.onUpdateRecipient(new UpdateRecipientOptions(20L));
+		assertEquals(cache.size(), 1);
+
+		OptOutRecipientOptions optOut = new OptOutRecipientOptions(10L);
+		optOut.setRecipientId("encoded");
+		cache.onOptOutRecipient(optOut);
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getUsedBytes(), 0L);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedRecipientIsEvictedOverBudget() {
+		long entryBytes = RecipientCache.estimateBytes(RecipientCache.getKey(byRecipientId(1L)),
+				loader.apply(byRecipientId(1L)).getResposne());
+		RecipientCache cache = new RecipientCache(entryBytes * 2 + 10, 1, TimeUnit.MINUTES);
+
+		cache.getRecipient(byRecipientId(1L), loader);
+		cache.getRecipient(byRecipientId(2L), loader);
+		cache.getRecipient(byRecipientId(1L), loader);
+		cache.getRecipient(byRecipientId(3L), loader);
+
+		assertEquals(cache.size(), 2);
+		assertEquals(cache.getEvictionCount(), 1L);
+		assertTrue(cache.getUsedBytes() <= entryBytes * 2 + 10);
+		cache.getRecipient(byRecipientId(1L), loader);
+		assertEquals(cache.getHitCount(), 2L);
+	}
+
+	@Test
+	public void testStaleRecipientIsReturnedWhileReloaded() {
+		AtomicLong clock = new AtomicLong();
+		RecipientCache cache = new RecipientCache(1024 * 1024, 10, TimeUnit.NANOSECONDS, clock::get);
+		cache.setStaleWhileRevalidate(10, TimeUnit.NANOSECONDS);
+		cache.setRefreshExecutor(Runnable::run);
+
+		assertEquals(cache.getRecipient(byEmail("user@example.com"), loader).getResposne().getColumns().get("Version"),
+				"1");
+		clock.set(15);
+		assertEquals(cache.getRecipient(byEmail("user@example.com"), loader).getResposne().getColumns().get("Version"),
+				"1");
+		assertEquals(cache.getRecipient(byEmail("user@example.com"), loader).getResposne().getColumns().get("Version"),
+				"2");
+		assertEquals(cache.getStaleHitCount(), 1L);
+
+		clock.set(50);
+		assertEquals(cache.getRecipient(byEmail("user@example.com"), loader).getResposne().getColumns().get("Version"),
+				"3");
+	}
+
+	@Test
+	public void testWriteToAnotherListDoesNotDiscardLoadInFlight() {
+		RecipientCache cache = new RecipientCache(1024 * 1024, 1, TimeUnit.MINUTES);
+
+		cache.getRecipient(byEmail("user@example.com"), (options) -> {
+			cache.invalidateList(20L);
+			return loader.apply(options);
+		});
+		assertEquals(cache.size(), 1);
+
+		cache.getRecipient(byRecipientId(100L), (options) -> {
+			cache.invalidateList(10L);
+			return loader.apply(options);
+		});
+		assertEquals(cache.size(), 0);
+
+		cache.getRecipient(byRecipientId(100L), (options) -> {
+			cache.invalidateAll();
+			return loader.apply(options);
+		});
+		assertEquals(cache.size(), 0);
+
+		cache.getRecipient(byRecipientId(100L), loader);
+		assertEquals(cache.size(), 1);
+	}
+}
@@ -0,0 +1,207 @@
+package com.github.ka4ok85.wca.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.oauth.OAuthClient;
+import com.github.ka4ok85.wca.oauth.OAuthClientImplementation;
+import com.github.ka4ok85.wca.options.GetAggregateTrackingForOrgOptions;
+import com.github.ka4ok85.wca.options.GetSentMailingsForOrgOptions;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForOrgResponse;
+import com.github.ka4ok85.wca.response.GetSentMailingsForOrgResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+import com.github.ka4ok85.wca.response.containers.SentMailing;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+public class ReportCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<DateTimeRange> calls = new ArrayList<DateTimeRange>();
+	private final LocalDateTime now = LocalDateTime.of(2018, 7, 20, 12, 0);
+	private final Clock clock = Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneId.of("UTC"));
+
+	private Engage createEngage() {
+		return createEngage(1, "client");
+	}
+
+	private Engage createEngage(int podNumber, String clientId) {
+		OAuthClientImplementation oAuthClient = mock(OAuthClientImplementation.class);
+		when(oAuthClient.getPodNumber()).thenReturn(podNumber);
+		when(oAuthClient.getClientId()).thenReturn(clientId);
+
+		return createEngage(oAuthClient);
+	}
+
+	private Engage createEngage(OAuthClient oAuthClient) {
+		Engage engage = mock(Engage.class);
+		when(engage.getOAuthClient()).thenReturn(oAuthClient);
+		when(engage.getSentMailingsForOrg(any(GetSentMailingsForOrgOptions.class))).thenAnswer(invocation -> {
+			GetSentMailingsForOrgOptions options = invocation.getArgument(0);
+			calls.add(options.getDateTimeRange());
+			SentMailing mailing = new SentMailing();
+			mailing.setMailingId((long) options.getDateTimeRange().getStartDateTime().getDayOfMonth());
+			mailing.setSentDateTime(options.getDateTimeRange().getStartDateTime());
+			GetSentMailingsForOrgResponse response = new GetSentMailingsForOrgResponse();
+			response.setSentMailingsCount(1L);
+			response.getSentMailings().add(mailing);
+
+			return new ResponseContainer<GetSentMailingsForOrgResponse>(response);
+		});
+		when(engage.getAggregateTrackingForOrg(any(GetAggregateTrackingForOrgOptions.class))).thenAnswer(invocation -> {
+			GetAggregateTrackingForOrgOptions options = invocation.getArgument(0);
+			calls.add(options.getDateTimeRange());
+			AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+			mailing.setMailingId((long) options.getDateTimeRange().getStartDateTime().getDayOfMonth());
+			GetAggregateTrackingForOrgResponse response = new GetAggregateTrackingForOrgResponse();
+			response.getMailings().add(mailing);
+
+			return new ResponseContainer<GetAggregateTrackingForOrgResponse>(response);
+		});
+
+		return engage;
+	}
+
+	@Test
+	public void testSettledDaysAreRequestedOnceAndSurviveRestart() {
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		ReportCache cache = new ReportCache(createEngage(), directory, null, clock);
+		cache.setSettledAge(2, TimeUnit.DAYS);
+		GetSentMailingsForOrgOptions options = new GetSentMailingsForOrgOptions(
+				new DateTimeRange(LocalDateTime.of(2018, 7, 14, 6, 0), now));
+
+		GetSentMailingsForOrgResponse response = cache.getSentMailingsForOrg(options);
+		assertEquals(response.getSentMailingsCount(), Long.valueOf(5L));
+		assertEquals(response.getSentMailings().size(), 5);
+		assertEquals(response.getSentMailings().get(0).getSentDateTime(), LocalDateTime.of(2018, 7, 14, 6, 0));
+		assertEquals(cache.getFetchedBucketCount(), 4L);
+		assertEquals(cache.getLiveCallCount(), 1L);
+		assertEquals(calls.get(3).getEndDateTime(), LocalDateTime.of(2018, 7, 17, 23, 59, 59));
+		assertEquals(calls.get(4).getStartDateTime(), LocalDateTime.of(2018, 7, 18, 0, 0));
+		assertEquals(calls.get(4).getEndDateTime(), now);
+
+		calls.clear();
+		ReportCache restarted = new ReportCache(createEngage(), directory, null, clock);
+		restarted.setSettledAge(2, TimeUnit.DAYS);
+		response = restarted.getSentMailingsForOrg(options);
+		assertEquals(response.getSentMailingsCount(), Long.valueOf(5L));
+		assertEquals(response.getSentMailings().get(3).getMailingId(), Long.valueOf(17L));
+		assertEquals(restarted.getStoredBucketHitCount(), 4L);
+		assertEquals(restarted.getFetchedBucketCount(), 0L);
+		assertEquals(calls.size(), 1);
+	}
+
+	@Test
+	public void testBucketsAreKeyedByReportAndOptions() {
+		ReportCache cache = new ReportCache(createEngage(), temporaryFolder.getRoot().getAbsolutePath(), null, clock);
+		DateTimeRange range = new DateTimeRange(LocalDateTime.of(2018, 7, 1, 0, 0), LocalDateTime.of(2018, 7, 3, 0, 0));
+
+		GetAggregateTrackingForOrgOptions aggregateOptions = new GetAggregateTrackingForOrgOptions(range);
+		assertEquals(cache.getAggregateTrackingForOrg(aggregateOptions).getMailings().size(), 2);
+		cache.getSentMailingsForOrg(new GetSentMailingsForOrgOptions(range));
+
+		GetAggregateTrackingForOrgOptions excludeTestOptions = new GetAggregateTrackingForOrgOptions(range);
+		excludeTestOptions.setExcludeTestMailings(true);
+		cache.getAggregateTrackingForOrg(excludeTestOptions);
+		cache.getAggregateTrackingForOrg(aggregateOptions);
+
+		assertEquals(cache.getFetchedBucketCount(), 6L);
+		assertEquals(cache.getStoredBucketHitCount(), 2L);
+		assertEquals(cache.getLiveCallCount(), 0L);
+	}
+
+	@Test
+	public void testBucketsDoNotOverlapAtMidnight() {
+		ReportCache cache = new ReportCache(createEngage(), temporaryFolder.getRoot().getAbsolutePath(), null, clock);
+		DateTimeRange range = new DateTimeRange(LocalDateTime.of(2018, 7, 1, 0, 0), LocalDateTime.of(2018, 7, 3, 0, 0));
+
+		GetSentMailingsForOrgResponse response = cache.getSentMailingsForOrg(new GetSentMailingsForOrgOptions(range));
+		assertEquals(response.getSentMailingsCount(), Long.valueOf(2L));
+		assertEquals(calls.size(), 2);
+		assertEquals(calls.get(0).getStartDateTime(), LocalDateTime.of(2018, 7, 1, 0, 0));
+		assertEquals(calls.get(0).getEndDateTime(), LocalDateTime.of(2018, 7, 1, 23, 59, 59));
+		assertEquals(calls.get(1).getStartDateTime(), LocalDateTime.of(2018, 7, 2, 0, 0));
+		assertEquals(calls.get(1).getEndDateTime(), LocalDateTime.of(2018, 7, 3, 0, 0));
+	}
+
+	@Test
+	public void testBucketsAreKeyedByPodAndClient() {
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		DateTimeRange range = new DateTimeRange(LocalDateTime.of(2018, 7, 1, 0, 0), LocalDateTime.of(2018, 7, 3, 0, 0));
+		GetSentMailingsForOrgOptions options = new GetSentMailingsForOrgOptions(range);
+
+		new ReportCache(createEngage(1, "client"), directory, null, clock).getSentMailingsForOrg(options);
+		ReportCache otherClient = new ReportCache(createEngage(1, "other"), directory, null, clock);
+		otherClient.getSentMailingsForOrg(options);
+		ReportCache otherPod = new ReportCache(createEngage(2, "client"), directory, null, clock);
+		otherPod.getSentMailingsForOrg(options);
+		ReportCache sameClient = new ReportCache(createEngage(1, "client"), directory, null, clock);
+		sameClient.getSentMailingsForOrg(options);
+
+		assertEquals(otherClient.getFetchedBucketCount(), 2L);
+		assertEquals(otherPod.getFetchedBucketCount(), 2L);
+		assertEquals(sameClient.getFetchedBucketCount(), 0L);
+		assertEquals(sameClient.getStoredBucketHitCount(), 2L);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testCustomOAuthClientRequiresTenantKey() {
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		when(oAuthClient.getPodNumber()).thenReturn(1);
+
+		new ReportCache(createEngage(oAuthClient), temporaryFolder.getRoot().getAbsolutePath(), null, clock);
+	}
+
+	@Test
+	public void testBucketsOfCustomOAuthClientAreKeyedByTenantKey() {
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		DateTimeRange range = new DateTimeRange(LocalDateTime.of(2018, 7, 1, 0, 0), LocalDateTime.of(2018, 7, 3, 0, 0));
+		GetSentMailingsForOrgOptions options = new GetSentMailingsForOrgOptions(range);
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		when(oAuthClient.getPodNumber()).thenReturn(1);
+
+		new ReportCache(createEngage(oAuthClient), directory, "tenant", clock).getSentMailingsForOrg(options);
+		ReportCache otherTenant = new ReportCache(createEngage(oAuthClient), directory, "other", clock);
+		otherTenant.getSentMailingsForOrg(options);
+		ReportCache sameTenant = new ReportCache(createEngage(oAuthClient), directory, "tenant", clock);
+		sameTenant.getSentMailingsForOrg(options);
+
+		assertEquals(otherTenant.getFetchedBucketCount(), 2L);
+		assertEquals(sameTenant.getFetchedBucketCount(), 0L);
+		assertEquals(sameTenant.getStoredBucketHitCount(), 2L);
+	}
+
+	@Test
+	public void testCompactMailingsShareStoredBuckets() {
+		ReportCache cache = new ReportCache(createEngage(), temporaryFolder.getRoot().getAbsolutePath(), null, clock);
+		DateTimeRange range = new DateTimeRange(LocalDateTime.of(2018, 7, 1, 0, 0), LocalDateTime.of(2018, 7, 4, 0, 0));
+		cache.getAggregateTrackingForOrg(new GetAggregateTrackingForOrgOptions(range));
+
+		GetAggregateTrackingForOrgOptions options = new GetAggregateTrackingForOrgOptions(range);
+		options.setCompactMailings(true);
+		GetAggregateTrackingForOrgResponse response = cache.getAggregateTrackingForOrg(options);
+		assertEquals(response.getMailingTable().size(), 3);
+		assertEquals(response.getMailingTable().getMailingId(2), 3L);
+		assertEquals(response.getMailings().size(), 3);
+		assertEquals(response.getMailings().get(2).getMailingId(), Long.valueOf(3L));
+		assertEquals(cache.getFetchedBucketCount(), 3L);
+		assertEquals(cache.getStoredBucketHitCount(), 3L);
+	}
+}
@@ -0,0 +1,138 @@
+package com.github.ka4ok85.wca.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.constants.Visibility;
+import com.github.ka4ok85.wca.options.GetListMetaDataOptions;
+import com.github.ka4ok85.wca.options.GetListsOptions;
+import com.github.ka4ok85.wca.options.SelectRecipientDataOptions;
+
+public class RequestCoalescerTest {
+
+	private SelectRecipientDataOptions createOptions() {
+		SelectRecipientDataOptions options = new SelectRecipientDataOptions(10L);
+		options.setEmail("user@example.com");
+		options.getKeyColumns().put("Customer ID", "42");
+
+		return options;
+	}
+
+	@Test
+	public void testIdenticalCallsInFlightShareResponse() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			futures.add(executor.submit(() -> coalescer.execute(createOptions(), options -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+
+				return new Object();
+			})));
+			while (coalescer.getInFlightCount() == 0) {
+				Thread.sleep(1);
+			}
+
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(() -> coalescer.execute(createOptions(), options -> new Object())));
+			}
+			while (coalescer.getCoalescedCount() < 4) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+
+			Object response = futures.get(0).get(5, TimeUnit.SECONDS);
+			for (Future<Object> future : futures) {
+				assertSame(future.get(5, TimeUnit.SECONDS), response);
+			}
+			assertEquals(coalescer.getExecutedCount(), 1L);
+			assertEquals(coalescer.getInFlightCount(), 0);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCompletedCallIsNotShared() {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		Object first = coalescer.execute(new GetListMetaDataOptions(1L), options -> new Object());
+		Object second = coalescer.execute(new GetListMetaDataOptions(1L), options -> new Object());
+
+		assertNotEquals(first, second);
+		assertEquals(coalescer.getExecutedCount(), 2L);
+		assertEquals(coalescer.getCoalescedCount(), 0L);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testFailureIsPropagated() {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		try {
+			coalescer.execute(new GetListMetaDataOptions(1L), options -> {
+				throw new IllegalStateException("failed");
+			});
+		} finally {
+			assertEquals(coalescer.getInFlightCount(), 0);
+		}
+	}
+
+	@Test
+	public void testOptionsEquality() {
+		assertEquals(createOptions(), createOptions());
+		assertEquals(createOptions().hashCode(), createOptions().hashCode());
+		assertEquals(new GetListMetaDataOptions(1L), new GetListMetaDataOptions(1L));
+		assertNotEquals(new GetListMetaDataOptions(1L), new GetListMetaDataOptions(2L));
+
+		GetListsOptions shared = new GetListsOptions();
+		GetListsOptions priv = new GetListsOptions();
+		priv.setVisibility(Visibility.PRIVATE);
+		assertEquals(shared, new GetListsOptions());
+		assertNotEquals(shared, priv);
+	}
+
+	@Test
+	public void testCallsOfDifferentScopesAreNotShared() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Object firstClient = new Object();
+		Object secondClient = new Object();
+		try {
+			Future<Object> first = executor.submit(() -> coalescer.execute(firstClient, createOptions(), options -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+
+				return "first";
+			}));
+			started.await();
+
+			assertEquals(coalescer.execute(secondClient, createOptions(), options -> "second"), "second");
+			release.countDown();
+			assertEquals(first.get(), "first");
+			assertEquals(coalescer.getExecutedCount(), 2L);
+			assertEquals(coalescer.getCoalescedCount(), 0L);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package com.github.ka4ok85.wca.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForMailingResponse;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingMetric;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+public class TrackingMetricsStoreTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final LocalDateTime sent = LocalDateTime.of(2018, 7, 1, 10, 0);
+
+	private AggregateTrackingDataMailing createMailing(long mailingId, long uniqueOpens) {
+		AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+		mailing.setMailingId(mailingId);
+		mailing.setReportId(mailingId * 10);
+		mailing.setNumSent(1000L);
+		mailing.setNumUniqueOpen(uniqueOpens);
+
+		return mailing;
+	}
+
+	/*
+	 * Polls every 15 minutes from 10:15 to 12:00, opens grow by 10 per poll.
+	 */
+	private void recordPolls(TrackingMetricsStore store) {
+		for (int poll = 1; poll <= 8; poll++) {
+			GetAggregateTrackingForMailingResponse response = new GetAggregateTrackingForMailingResponse();
+			response.getMailings().add(createMailing(1L, poll * 10));
+			store.record(sent.plusMinutes(poll * 15), response);
+		}
+	}
+
+	@Test
+	public void testSamplesDeltasAndRollups() throws Exception {
+		try (TrackingMetricsStore store = new TrackingMetricsStore(temporaryFolder.getRoot().getAbsolutePath())) {
+			recordPolls(store);
+			DateTimeRange range = new DateTimeRange(sent.plusMinutes(30), sent.plusMinutes(90));
+
+			TrackingMetricsSeries samples = store.getSamples(1L, AggregateTrackingMailingMetric.NUM_UNIQUE_OPEN, range);
+			assertEquals(samples.size(), 5);
+			assertEquals(samples.getDateTime(0), sent.plusMinutes(30));
+			assertEquals(samples.getValue(4), 60L);
+
+			TrackingMetricsSeries deltas = store.getDeltas(1L, AggregateTrackingMailingMetric.NUM_UNIQUE_OPEN, range);
+			assertEquals(deltas.size(), 5);
+			assertEquals(deltas.getValue(0), 10L);
+			assertEquals(deltas.sum(), 50L);
+
+			TrackingMetricsSeries hourly = store.getRollup(1L, AggregateTrackingMailingMetric.NUM_UNIQUE_OPEN,
+					new DateTimeRange(sent, sent.plusDays(1)), ChronoUnit.HOURS);
+			assertEquals(hourly.size(), 3);
+			assertEquals(hourly.getDateTime(0), sent);
+			assertEquals(hourly.getValue(0), 30L);
+			assertEquals(hourly.getValue(1), 40L);
+			assertEquals(hourly.getValue(2), 10L);
+
+			TrackingMetricsSeries daily = store.getRollup(1L, AggregateTrackingMailingMetric.NUM_SENT,
+					new DateTimeRange(sent.minusDays(1), sent.plusDays(1)), ChronoUnit.DAYS);
+			assertEquals(daily.size(), 1);
+			assertEquals(daily.getValue(0), 1000L);
+
+			assertEquals(store.getSamples(2L, AggregateTrackingMailingMetric.NUM_SENT, range).size(), 0);
+			assertNull(store.getLatest(2L));
+		}
+	}
+
+	@Test
+	public void testRecordsSurviveRestartAndIncompleteRecordIsDropped() throws Exception {
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		try (TrackingMetricsStore store = new TrackingMetricsStore(directory)) {
+			recordPolls(store);
+		}
+
+		try (OutputStream output = Files.newOutputStream(Paths.get(directory, "mailing_1.metrics"),
+				StandardOpenOption.APPEND)) {
+			output.write(new byte[] { 1, 2, 3 });
+		}
+
+		try (TrackingMetricsStore store = new TrackingMetricsStore(directory)) {
+			AggregateTrackingDataMailing latest = store.getLatest(1L);
+			assertEquals(latest.getNumUniqueOpen(), Long.valueOf(80L));
+			assertEquals(latest.getReportId(), Long.valueOf(10L));
+			assertNull(latest.getNumSeeds());
+
+			store.record(sent.plusMinutes(135), createMailing(1L, 95));
+			TrackingMetricsSeries deltas = store.getDeltas(1L, AggregateTrackingMailingMetric.NUM_UNIQUE_OPEN,
+					new DateTimeRange(sent.plusHours(2), sent.plusHours(3)));
+			assertEquals(deltas.size(), 2);
+			assertEquals(deltas.getValue(1), 15L);
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testPollTimeMustIncrease() throws Exception {
+		try (TrackingMetricsStore store = new TrackingMetricsStore(temporaryFolder.getRoot().getAbsolutePath())) {
+			recordPolls(store);
+			store.record(sent.plusMinutes(120), createMailing(1L, 100));
+		}
+	}
+
+	@Test
+	public void testResponseWithSeveralReportIdsOfMailingIsNotRecorded() throws Exception {
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		try (TrackingMetricsStore store = new TrackingMetricsStore(directory)) {
+			GetAggregateTrackingForMailingResponse response = new GetAggregateTrackingForMailingResponse();
+			response.getMailings().add(createMailing(1L, 10));
+			response.getMailings().add(createMailing(2L, 10));
+			AggregateTrackingDataMailing resent = createMailing(1L, 5);
+			resent.setReportId(11L);
+			response.getMailings().add(resent);
+			try {
+				store.record(sent, response);
+				fail("Response must be rejected");
+			} catch (RuntimeException e) {
+				assertEquals(e.getMessage(),
+						"Mailing 1 must have one Report ID per poll. Provided Poll Time = " + sent);
+			}
+
+			assertNull(store.getLatest(1L));
+			assertNull(store.getLatest(2L));
+			assertFalse(Files.exists(Paths.get(directory, "mailing_1.metrics")));
+
+			store.record(sent, createMailing(1L, 10));
+			try {
+				store.record(sent.plusMinutes(15), resent);
+				fail("Other Report ID must be rejected");
+			} catch (RuntimeException e) {
+				assertEquals(e.getMessage(), "Report ID must be the same as recorded Report ID 10 of Mailing 1. "
+						+ "Provided Report ID = 11");
+			}
+		}
+	}
+
+	@Test
+	public void testFileOfOtherFormatIsNotOpened() throws Exception {
+		String directory = temporaryFolder.getRoot().getAbsolutePath();
+		try (TrackingMetricsStore store = new TrackingMetricsStore(directory)) {
+			recordPolls(store);
+		}
+
+		byte[] content = Files.readAllBytes(Paths.get(directory, "mailing_1.metrics"));
+		ByteBuffer.wrap(content).putInt(2 * Integer.BYTES, 3);
+		Files.write(Paths.get(directory, "mailing_2.metrics"), content);
+		Files.write(Paths.get(directory, "mailing_3.metrics"), new byte[] { 1, 2, 3 });
+
+		try (TrackingMetricsStore store = new TrackingMetricsStore(directory)) {
+			assertEquals(store.getLatest(1L).getNumUniqueOpen(), Long.valueOf(80L));
+			try {
+				store.getLatest(2L);
+				fail("File with other number of counters must not be opened");
+			} catch (EngageApiException e) {
+				assertTrue(e.getMessage().contains("with 3 counters"));
+			}
+
+			try {
+				store.record(sent, createMailing(3L, 10));
+				fail("File without header must not be opened");
+			} catch (EngageApiException e) {
+				assertTrue(e.getMessage().endsWith("has no header"));
+			}
+
+			assertEquals(Files.size(Paths.get(directory, "mailing_3.metrics")), 3L);
+		}
+	}
+
+	@Test
+	public void testLeastRecentlyUsedFilesAreClosedAndQueriesSeeNewPolls() throws Exception {
+		try (TrackingMetricsStore store = new TrackingMetricsStore(temporaryFolder.getRoot().getAbsolutePath())) {
+			store.setMaxOpenFiles(2);
+			DateTimeRange range = new DateTimeRange(sent, sent.plusDays(1));
+			for (long mailingId = 1; mailingId <= 3; mailingId++) {
+				store.record(sent.plusMinutes(15), createMailing(mailingId, 10));
+			}
+
+			assertEquals(store.getOpenFileCount(), 2);
+			assertEquals(store.getSamples(1L, AggregateTrackingMailingMetric.NUM_UNIQUE_OPEN, range).size(), 1);
+			assertEquals(store.getOpenFileCount(), 2);
+
+			store.record(sent.plusMinutes(30), createMailing(1L, 25));
+			TrackingMetricsSeries deltas = store.getDeltas(1L, AggregateTrackingMailingMetric.NUM_UNIQUE_OPEN, range);
+			assertEquals(deltas.size(), 2);
+			assertEquals(deltas.getValue(1), 15L);
+
+			store.record(sent.plusMinutes(30), createMailing(2L, 20));
+			assertEquals(store.getLatest(2L).getNumUniqueOpen(), Long.valueOf(20L));
+			assertEquals(store.getLatest(3L).getNumUniqueOpen(), Long.valueOf(10L));
+			assertEquals(store.getOpenFileCount(), 2);
+		}
+	}
+}
@@ -30,6 +30,8 @@ import com.github.ka4ok85.wca.constants.Visibility;
 import com.github.ka4ok85.wca.options.GetAggregateTrackingForUserOptions;
 import com.github.ka4ok85.wca.response.GetAggregateTrackingForUserResponse;
 import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingMetric;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingMailingTable;
 import com.github.ka4ok85.wca.utils.DateTimeRange;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -725,4 +727,44 @@ public class GetAggregateTrackingForUserCommandTest {
 		assertEquals(response.getTopDomains().get(0).getNumUnsubscribe(), tUnsubscribe);
 		assertEquals(response.getTopDomains().get(0).getReportId(), tReportId);
 	}
+
+	@Test
+	public void testReadResponseIntoMailingTable() throws SAXException, IOException, ParserConfigurationException {
+		StringBuilder envelope = new StringBuilder("<RESULT><SUCCESS>TRUE</SUCCESS>");
+		for (long mailingId = 1; mailingId <= 2; mailingId++) {
+			envelope.append("<Mailing><MailingId>").append(mailingId).append("</MailingId><ReportId>")
+					.append(mailingId * 10).append("</ReportId><MailingName>mailing ").append(mailingId)
+					.append("</MailingName><SentDateTime>2018-06-11 12:02:43.0</SentDateTime>");
+			for (AggregateTrackingMailingMetric metric : AggregateTrackingMailingMetric.values()) {
+				envelope.append("<").append(metric.getElementName()).append(">")
+						.append(mailingId * 100 + metric.ordinal()).append("</").append(metric.getElementName())
+						.append(">");
+			}
+
+			envelope.append("</Mailing>");
+		}
+
+		envelope.append("</RESULT>");
+		Element resultNode = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(envelope.toString().getBytes())).getDocumentElement();
+
+		GetAggregateTrackingForUserOptions options = new GetAggregateTrackingForUserOptions(
+				new DateTimeRange(LocalDateTime.of(2010, 02, 01, 0, 03, 04), LocalDateTime.of(2018, 05, 01, 23, 54, 55)));
+		String mailing = context.getBean(GetAggregateTrackingForUserCommand.class).readResponse(resultNode, options)
+				.getResposne().getMailings().get(1).toString();
+		options.setCompactMailings(true);
+		AggregateTrackingMailingTable table = context.getBean(GetAggregateTrackingForUserCommand.class)
+				.readResponse(resultNode, options).getResposne().getMailingTable();
+
+		assertEquals(table.size(), 2);
+		assertEquals(table.getMailingId(1), 2L);
+		assertEquals(table.getReportId(1), 20L);
+		assertEquals(table.getMailingName(1), "mailing 2");
+		assertEquals(table.getSentDateTime(1), LocalDateTime.of(2018, 6, 11, 12, 2, 43));
+		for (AggregateTrackingMailingMetric metric : AggregateTrackingMailingMetric.values()) {
+			assertEquals(table.get(1, metric), 200L + metric.ordinal());
+		}
+
+		assertEquals(table.getMailing(1).toString(), mailing);
+	}
 }
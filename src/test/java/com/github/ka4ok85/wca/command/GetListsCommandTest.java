@@ -68,6 +68,15 @@ public class GetListsCommandTest {
 		Assert.assertFalse(myDiff.toString(), myDiff.hasDifferences());
 	}
 
+	@Test
+	public void testApiMethodNameIsTakenFromRequest() {
+		GetListsCommand command = new GetListsCommand();
+		Assert.assertEquals(command.getApiMethodName(), "unknown");
+
+		command.buildXmlRequest(new GetListsOptions());
+		Assert.assertEquals(command.getApiMethodName(), "GetLists");
+	}
+
 	@Test
 	public void testBuildXmlHonorsVisibility() {
 		// get XML from command
@@ -1,7 +1,9 @@
 package com.github.ka4ok85.wca.command;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -144,4 +146,47 @@ public class ImportListCommandTest {
 		assertEquals(response.isSmsConsent(), Boolean.valueOf(totalValidNumber));
 		assertEquals(response.getListProgramLists(), listProgramLists);
 	}
+
+	@Test
+	public void testReadResponseDownloadsErrorAndResultsFiles() {
+		ImportListCommand command = context.getBean(ImportListCommand.class);
+		SFTP sftp = mock(SFTP.class);
+		command.setSftp(sftp);
+		ImportListOptions options = mock(ImportListOptions.class);
+		when(options.getLocalErrorFilePath()).thenReturn("/tmp/import.err");
+		when(options.getLocalResultsFilePath()).thenReturn("/tmp/import.res");
+
+		command.readResponse(new JobPollingContainer(), getJobResponse("error.err", "results.res"), options);
+
+		verify(sftp, times(1)).download("error.err", "/tmp/import.err");
+		verify(sftp, times(1)).download("results.res", "/tmp/import.res");
+	}
+
+	@Test
+	public void testReadResponseSkipsDownloadWithoutErrorFile() {
+		ImportListCommand command = context.getBean(ImportListCommand.class);
+		SFTP sftp = mock(SFTP.class);
+		command.setSftp(sftp);
+		ImportListOptions options = mock(ImportListOptions.class);
+		when(options.getLocalErrorFilePath()).thenReturn("/tmp/import.err");
+
+		command.readResponse(new JobPollingContainer(), getJobResponse("", "results.res"), options);
+
+		verify(sftp, never()).download(anyString(), anyString());
+	}
+
+	private JobResponse getJobResponse(String errorFileName, String resultsFileName) {
+		Map<String, String> jobParameters = new HashMap<String, String>();
+		for (String name : new String[] { "BAD_ADDRESSES", "BAD_RECORDS", "CALC_LIST_JOB_ID", "DUPLICATES", "LIST_ID",
+				"NOT_ALLOWED", "SQL_ADDED", "SQL_UPDATED", "TOTAL_ROWS", "TOTAL_VALID" }) {
+			jobParameters.put(name, "1");
+		}
+		jobParameters.put("ERROR_FILE_NAME", errorFileName);
+		jobParameters.put("RESULTS_FILE_NAME", resultsFileName);
+
+		JobResponse jobResponse = new JobResponse();
+		jobResponse.setParameters(jobParameters);
+
+		return jobResponse;
+	}
 }
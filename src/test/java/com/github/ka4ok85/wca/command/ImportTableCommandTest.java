@@ -1,13 +1,17 @@
 package com.github.ka4ok85.wca.command;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.transform.Source;
 
@@ -24,6 +28,8 @@ import org.xmlunit.diff.Diff;
 
 import com.github.ka4ok85.wca.config.SpringConfig;
 import com.github.ka4ok85.wca.constants.FileEncoding;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
+import com.github.ka4ok85.wca.oauth.OAuthClient;
 import com.github.ka4ok85.wca.options.ImportTableOptions;
 import com.github.ka4ok85.wca.response.ImportTableResponse;
 import com.github.ka4ok85.wca.response.JobResponse;
@@ -31,6 +37,9 @@ import com.github.ka4ok85.wca.response.ResponseContainer;
 import com.github.ka4ok85.wca.response.containers.JobPollingContainer;
 import com.github.ka4ok85.wca.sftp.SFTP;
 
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = { SpringConfig.class })
 
@@ -74,6 +83,51 @@ public class ImportTableCommandTest {
 		verify(sftp, times(1)).upload(options.getSourceFile(), options.getSourceFile());
 	}
 
+	@Test
+	public void testBuildXmlRequestSkipsUploadForUploadedFiles() {
+		ImportTableCommand command = new ImportTableCommand();
+		SFTP sftp = mock(SFTP.class);
+		command.setSftp(sftp);
+		ImportTableOptions options = ImportTableOptions.forUploadedFiles("testmap.xml", "testsource.csv");
+		options.setFileEncoding(FileEncoding.ISO_8859_1);
+
+		command.buildXmlRequest(options);
+		Source test = Input.fromString(command.getXML()).build();
+		Source control = Input.fromString(defaultRequest).build();
+
+		Diff myDiff = DiffBuilder.compare(control).withTest(test).ignoreWhitespace().checkForSimilar().build();
+		Assert.assertFalse(myDiff.toString(), myDiff.hasDifferences());
+		verify(sftp, never()).upload(anyString(), anyString());
+	}
+
+	@Test
+	public void testBuildXmlRequestRecordsUploadsAsUploadPhase() {
+		ImportTableCommand command = new ImportTableCommand();
+		SFTP sftp = mock(SFTP.class);
+		doAnswer(invocation -> {
+			Thread.sleep(20);
+			return null;
+		}).when(sftp).upload(anyString(), anyString());
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		when(oAuthClient.getPodNumber()).thenReturn(2);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		command.setSftp(sftp);
+		command.setoAuthClient(oAuthClient);
+		command.setMetrics(new EngageMetrics(registry));
+		ImportTableOptions options = mock(ImportTableOptions.class);
+		when(options.getMapFile()).thenReturn("testmap.xml");
+		when(options.getSourceFile()).thenReturn("testsource.csv");
+		when(options.getFileEncoding()).thenReturn(FileEncoding.ISO_8859_1);
+
+		command.buildXmlRequest(options);
+
+		Timer uploads = registry.get("wca.api.phase")
+				.tags("method", "ImportTable", "pod", "2", "phase", "upload", "outcome", "success").timer();
+		assertEquals(uploads.count(), 2L);
+		assertTrue(command.getUploadNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+		assertTrue(uploads.totalTime(TimeUnit.NANOSECONDS) >= TimeUnit.MILLISECONDS.toNanos(40));
+	}
+
 	@Test
 	public void testReadResponse() {
 		ImportTableCommand command = context.getBean(ImportTableCommand.class);
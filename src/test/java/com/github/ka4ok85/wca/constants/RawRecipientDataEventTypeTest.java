@@ -0,0 +1,22 @@
+package com.github.ka4ok85.wca.constants;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RawRecipientDataEventTypeTest {
+	@Test
+	public void testGetEventType() {
+		assertEquals(RawRecipientDataEventType.getEventType("Click Through"), RawRecipientDataEventType.CLICK_THROUGH);
+	}
+
+	@Test
+	public void testGetEventTypeReturnsUnknownForBadValue() {
+		assertEquals(RawRecipientDataEventType.getEventType("Bad Event Type"), RawRecipientDataEventType.UNKNOWN);
+	}
+
+	@Test
+	public void testGetValue() {
+		assertEquals(RawRecipientDataEventType.HARD_BOUNCE.value(), "Hard Bounce");
+	}
+}
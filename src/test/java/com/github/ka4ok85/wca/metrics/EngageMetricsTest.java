@@ -0,0 +1,79 @@
+package com.github.ka4ok85.wca.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.exceptions.BadApiResultException;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EngageMetricsTest {
+
+	@Test(expected = NullPointerException.class)
+	public void testDoesNotAcceptNullRegistry() {
+		new EngageMetrics(null);
+	}
+
+	@Test
+	public void testApiCallsAndFaults() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		EngageMetrics metrics = new EngageMetrics(registry);
+		metrics.recordApiCall("GetLists", 2, EngageMetrics.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(30));
+		metrics.recordApiCall("GetLists", 2, EngageMetrics.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(10));
+		metrics.recordApiPhase("GetLists", 2, EngageMetrics.PHASE_HTTP, EngageMetrics.OUTCOME_SUCCESS,
+				TimeUnit.MILLISECONDS.toNanos(25));
+		metrics.recordFault("SelectRecipientData", 2, "Recipient 12345 is not a member of list 678.");
+		metrics.recordFault("SelectRecipientData", 2, " Recipient 99 is not a member of list 1.");
+
+		Timer calls = registry.get("wca.api.call").tags("method", "GetLists", "pod", "2", "outcome", "success")
+				.timer();
+		assertEquals(calls.count(), 2L);
+		assertEquals(calls.totalTime(TimeUnit.MILLISECONDS), 40.0, 0.001);
+		assertEquals(registry.get("wca.api.phase").tags("phase", "http").timer().count(), 1L);
+
+		Counter faults = registry.get("wca.api.faults")
+				.tags("method", "SelectRecipientData", "fault", "Recipient # is not a member of list #.").counter();
+		assertEquals(faults.count(), 2.0, 0.0);
+	}
+
+	@Test
+	public void testSftpTransfer() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		EngageMetrics metrics = new EngageMetrics(registry);
+		metrics.recordSftpTransfer(EngageMetrics.DIRECTION_UPLOAD, EngageMetrics.OUTCOME_SUCCESS, 4000,
+				TimeUnit.SECONDS.toNanos(2));
+		metrics.recordSftpTransfer(EngageMetrics.DIRECTION_UPLOAD, EngageMetrics.OUTCOME_ERROR, 0,
+				TimeUnit.SECONDS.toNanos(1));
+
+		assertEquals(registry.get("wca.sftp.bytes").tags("direction", "upload").counter().count(), 4000.0, 0.0);
+		DistributionSummary throughput = registry.get("wca.sftp.throughput").tags("direction", "upload").summary();
+		assertEquals(throughput.count(), 1L);
+		assertEquals(throughput.totalAmount(), 2000.0, 0.001);
+		assertEquals(registry.get("wca.sftp.transfer").tags("outcome", "error").timer().count(), 1L);
+	}
+
+	@Test
+	public void testOutcomeAndFaultNormalization() {
+		assertEquals(EngageMetrics.getOutcome(new BadApiResultException("Fault")), EngageMetrics.OUTCOME_FAULT);
+		assertEquals(EngageMetrics.getOutcome(new EngageApiException("Error")), EngageMetrics.OUTCOME_ERROR);
+		assertEquals(EngageMetrics.normalizeFault(null), "unknown");
+		assertEquals(EngageMetrics.normalizeFault("Job 1234 failed"), "Job # failed");
+		assertEquals(EngageMetrics.normalizeFault("Recipient john.doe@example.com is not a member of list 678."),
+				"Recipient <email> is not a member of list #.");
+		assertEquals(EngageMetrics.normalizeFault("Value 'John Doe' is invalid for column \"Last Name\""),
+				"Value <value> is invalid for column <value>");
+		StringBuilder longFault = new StringBuilder();
+		for (int i = 0; i < 30; i++) {
+			longFault.append("Error ");
+		}
+
+		assertEquals(EngageMetrics.normalizeFault(longFault.toString()).length(), 100);
+	}
+}
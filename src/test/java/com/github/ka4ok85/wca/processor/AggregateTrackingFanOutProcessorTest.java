@@ -0,0 +1,86 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.GetAggregateTrackingForMailingOptions;
+import com.github.ka4ok85.wca.response.GetAggregateTrackingForMailingResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.AggregateTrackingDataMailing;
+
+public class AggregateTrackingFanOutProcessorTest {
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private Engage createEngage() {
+		Engage engage = mock(Engage.class);
+		when(engage.getAggregateTrackingForMailing(any(GetAggregateTrackingForMailingOptions.class)))
+				.thenAnswer(invocation -> {
+					GetAggregateTrackingForMailingOptions options = invocation.getArgument(0);
+					maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+					Thread.sleep(20);
+					inFlight.decrementAndGet();
+					if (options.getReportId() == 99L) {
+						throw new EngageApiException("Report is not available");
+					}
+
+					AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+					mailing.setMailingId(options.getMailingId());
+					mailing.setReportId(options.getReportId());
+					GetAggregateTrackingForMailingResponse response = new GetAggregateTrackingForMailingResponse();
+					response.getMailings().add(mailing);
+
+					return new ResponseContainer<GetAggregateTrackingForMailingResponse>(response);
+				});
+
+		return engage;
+	}
+
+	@Test
+	public void testResponsesAreMergedByMailingUnderConcurrencyLimit() {
+		AggregateTrackingFanOutProcessor processor = new AggregateTrackingFanOutProcessor(createEngage());
+		processor.setConcurrency(2);
+		List<GetAggregateTrackingForMailingOptions> options = new ArrayList<GetAggregateTrackingForMailingOptions>();
+		for (long mailingId = 1; mailingId <= 5; mailingId++) {
+			options.add(new GetAggregateTrackingForMailingOptions(mailingId, mailingId * 10));
+		}
+
+		options.add(new GetAggregateTrackingForMailingOptions(3L, 31L));
+
+		AggregateTrackingFanOutResult result = processor.execute(options);
+		assertFalse(result.hasFailures());
+		assertEquals(new ArrayList<Long>(result.getResponses().keySet()), Arrays.asList(1L, 2L, 3L, 4L, 5L));
+		assertEquals(result.getResponses().get(3L).getMailings().size(), 2);
+		assertEquals(result.getResponses().get(3L).getMailings().get(1).getReportId(), Long.valueOf(31L));
+		assertTrue(maxInFlight.get() <= 2);
+	}
+
+	@Test
+	public void testFailedCallsAreReportedWithoutStoppingOthers() {
+		AggregateTrackingFanOutProcessor processor = new AggregateTrackingFanOutProcessor(createEngage());
+		processor.setMaxCallsPerSecond(100);
+		GetAggregateTrackingForMailingOptions failed = new GetAggregateTrackingForMailingOptions(2L, 99L);
+
+		AggregateTrackingFanOutResult result = processor.execute(Arrays.asList(
+				new GetAggregateTrackingForMailingOptions(1L, 10L), failed,
+				new GetAggregateTrackingForMailingOptions(3L, 30L)));
+		assertTrue(result.hasFailures());
+		assertEquals(result.getResponses().size(), 2);
+		assertEquals(result.getFailures().size(), 1);
+		assertEquals(result.getFailures().get(failed).getMessage(), "Report is not available");
+	}
+}
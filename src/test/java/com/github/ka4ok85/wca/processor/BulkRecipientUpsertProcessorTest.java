@@ -0,0 +1,136 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.ImportListOptions;
+import com.github.ka4ok85.wca.response.ImportListResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+
+public class BulkRecipientUpsertProcessorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testUpsertSplitsRowsIntoChunks() {
+		List<String> sourceFiles = Collections.synchronizedList(new ArrayList<String>());
+		List<String> mapFiles = Collections.synchronizedList(new ArrayList<String>());
+
+		Engage engage = mock(Engage.class);
+		when(engage.importList(any(ImportListOptions.class))).thenAnswer(invocation -> {
+			ImportListOptions options = invocation.getArgument(0);
+			List<String> lines = Files.readAllLines(Paths.get(options.getSourceFile()), StandardCharsets.UTF_8);
+			sourceFiles.add(String.join("\n", lines));
+			mapFiles.add(new String(Files.readAllBytes(Paths.get(options.getMapFile())), StandardCharsets.UTF_8));
+
+			ImportListResponse response = new ImportListResponse();
+			response.setTotalRowsNumber((long) lines.size() - 1);
+			response.setSqlAddedNumber(1L);
+			response.setSqlUpdatedNumber((long) lines.size() - 2);
+			response.setResultsFileName("results_" + sourceFiles.size() + ".res");
+
+			return new ResponseContainer<ImportListResponse>(response);
+		});
+
+		BulkRecipientUpsertProcessor processor = new BulkRecipientUpsertProcessor(engage, 10L,
+				Arrays.asList("Email", "Name"));
+		processor.setSyncFields(Arrays.asList("Email"));
+		processor.setContactLists(Arrays.asList(20L));
+		processor.setLocalDirectory(temporaryFolder.getRoot().getAbsolutePath());
+		processor.setMaxChunkRows(10);
+		processor.setConcurrency(2);
+
+		BulkUpsertResult result = processor.upsert(
+				IntStream.range(0, 25).mapToObj(i -> new String[] { "user" + i + "@example.com", "Name, " + i }));
+
+		assertEquals(result.getChunkCount(), 3);
+		assertEquals(result.getTotalRowsNumber(), 25L);
+		assertEquals(result.getSqlAddedNumber(), 3L);
+		assertEquals(result.getSqlUpdatedNumber(), 22L);
+		assertEquals(result.getResultsFileNames().size(), 3);
+		assertTrue(sourceFiles.stream()
+				.anyMatch(file -> file.startsWith("Email,Name\nuser0@example.com,\"Name, 0\"\n")));
+		assertTrue(mapFiles.get(0).contains("<LIST_ID>10</LIST_ID>"));
+		assertTrue(mapFiles.get(0).contains("<SYNC_FIELD><NAME>Email</NAME></SYNC_FIELD>"));
+		assertTrue(mapFiles.get(0).contains("<CONTACT_LIST_ID>20</CONTACT_LIST_ID>"));
+		assertEquals(temporaryFolder.getRoot().list().length, 0);
+	}
+
+	@Test
+	public void testUpsertReportsFailedChunk() {
+		Engage engage = mock(Engage.class);
+		when(engage.importList(any(ImportListOptions.class))).thenAnswer(invocation -> {
+			ImportListOptions options = invocation.getArgument(0);
+			List<String> lines = Files.readAllLines(Paths.get(options.getSourceFile()), StandardCharsets.UTF_8);
+			if (lines.get(1).startsWith("user10@")) {
+				throw new RuntimeException("Import failed");
+			}
+
+			ImportListResponse response = new ImportListResponse();
+			response.setTotalRowsNumber((long) lines.size() - 1);
+
+			return new ResponseContainer<ImportListResponse>(response);
+		});
+
+		BulkRecipientUpsertProcessor processor = new BulkRecipientUpsertProcessor(engage, 10L,
+				Arrays.asList("Email", "Name"));
+		processor.setLocalDirectory(temporaryFolder.getRoot().getAbsolutePath());
+		processor.setMaxChunkRows(10);
+		processor.setConcurrency(2);
+
+		BulkUpsertResult result = processor.upsert(
+				IntStream.range(0, 25).mapToObj(i -> new String[] { "user" + i + "@example.com", "Name " + i }));
+
+		assertEquals(result.getChunkCount(), 2);
+		assertEquals(result.getTotalRowsNumber(), 15L);
+		assertTrue(result.hasFailures());
+		assertEquals(result.getFailures().size(), 1);
+		assertEquals(result.getFailures().get(0).getChunkIndex(), 1);
+		assertEquals(result.getFailures().get(0).getFirstRowIndex(), 10L);
+		assertEquals(result.getFailures().get(0).getRowCount(), 10);
+		assertEquals(result.getFailures().get(0).getException().getMessage(), "Import failed");
+		assertEquals(temporaryFolder.getRoot().list().length, 0);
+	}
+
+	@Test
+	public void testUpsertRejectsRowWithWrongSize() {
+		BulkRecipientUpsertProcessor processor = new BulkRecipientUpsertProcessor(mock(Engage.class), 10L,
+				Arrays.asList("Email", "Name"));
+		processor.setLocalDirectory(temporaryFolder.getRoot().getAbsolutePath());
+		try {
+			processor.upsert(
+					Arrays.asList(new String[][] { { "a@example.com", "A" }, { "b@example.com" } }).iterator());
+			fail("Row with wrong size must be rejected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Row must have 2 values"));
+		}
+
+		assertEquals(temporaryFolder.getRoot().list().length, 0);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSetColumnTypeRejectsUnknownColumn() {
+		BulkRecipientUpsertProcessor processor = new BulkRecipientUpsertProcessor(mock(Engage.class), 10L,
+				Arrays.asList("Email"));
+		processor.setColumnType("Name", null);
+	}
+}
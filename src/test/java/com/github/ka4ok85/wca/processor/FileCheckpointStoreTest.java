@@ -0,0 +1,36 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileCheckpointStoreTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testPutIsDurable() {
+		String path = new File(temporaryFolder.getRoot(), "checkpoints.properties").getAbsolutePath();
+
+		FileCheckpointStore store = new FileCheckpointStore(path);
+		assertNull(store.get("key"));
+		store.put("key", "value");
+		store.put("other", "1");
+		store.remove("other");
+
+		FileCheckpointStore reloaded = new FileCheckpointStore(path);
+		assertEquals(reloaded.get("key"), "value");
+		assertNull(reloaded.get("other"));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testConstructorRejectsEmptyPath() {
+		new FileCheckpointStore(" ");
+	}
+}
@@ -0,0 +1,107 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.ExportListOptions;
+import com.github.ka4ok85.wca.response.ExportListResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+public class IncrementalListSyncProcessorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Engage createEngage(List<DateTimeRange> ranges) {
+		Engage engage = mock(Engage.class);
+		when(engage.exportList(any(ExportListOptions.class))).thenAnswer(invocation -> {
+			ExportListOptions options = invocation.getArgument(0);
+			ranges.add(options.getLastModifiedRange());
+			Files.write(Paths.get(options.getLocalAbsoluteFilePath()),
+					("Email,Name\r\na@example.com,A\r\nb@example.com,\"B, b\"\r\n").getBytes(StandardCharsets.UTF_8));
+
+			return new ResponseContainer<ExportListResponse>(new ExportListResponse());
+		});
+
+		return engage;
+	}
+
+	private ExportListOptions createOptions() {
+		ExportListOptions options = new ExportListOptions(10L);
+		options.setLocalAbsoluteFilePath(new File(temporaryFolder.getRoot(), "list.csv").getAbsolutePath());
+
+		return options;
+	}
+
+	@Test
+	public void testSyncRunsFullExportThenDeltaWindow() {
+		List<DateTimeRange> ranges = new ArrayList<DateTimeRange>();
+		IncrementalListSyncProcessor processor = new IncrementalListSyncProcessor(createEngage(ranges),
+				new FileCheckpointStore(new File(temporaryFolder.getRoot(), "cp.properties").getAbsolutePath()));
+		processor.setClock(
+				Clock.fixed(LocalDateTime.of(2018, 5, 1, 10, 0, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+
+		List<String> rows = new ArrayList<String>();
+		long count = processor.sync(createOptions(), (header, row) -> rows.add(header[1] + "=" + row[1]));
+
+		assertEquals(count, 2L);
+		assertEquals(rows.get(1), "Name=B, b");
+		assertNull(ranges.get(0));
+		assertEquals(processor.getWatermark(10L), LocalDateTime.of(2018, 5, 1, 10, 0, 0));
+
+		processor.setClock(
+				Clock.fixed(LocalDateTime.of(2018, 5, 1, 11, 0, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+		processor.setOverlap(Duration.ofMinutes(5));
+		processor.sync(createOptions(), (header, row) -> {
+		});
+
+		assertEquals(ranges.get(1).getStartDateTime(), LocalDateTime.of(2018, 5, 1, 9, 55, 0));
+		assertEquals(ranges.get(1).getEndDateTime(), LocalDateTime.of(2018, 5, 1, 11, 0, 0));
+		assertEquals(processor.getWatermark(10L), LocalDateTime.of(2018, 5, 1, 11, 0, 0));
+	}
+
+	@Test
+	public void testSyncKeepsWatermarkWhenConsumerFails() {
+		List<DateTimeRange> ranges = new ArrayList<DateTimeRange>();
+		IncrementalListSyncProcessor processor = new IncrementalListSyncProcessor(createEngage(ranges),
+				new FileCheckpointStore(new File(temporaryFolder.getRoot(), "cp.properties").getAbsolutePath()));
+
+		try {
+			processor.sync(createOptions(), (header, row) -> {
+				throw new IllegalStateException("Sink is down");
+			});
+			fail();
+		} catch (IllegalStateException e) {
+			assertNull(processor.getWatermark(10L));
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSyncRequiresLocalFilePath() {
+		IncrementalListSyncProcessor processor = new IncrementalListSyncProcessor(mock(Engage.class),
+				mock(CheckpointStore.class));
+		processor.sync(new ExportListOptions(10L), (header, row) -> {
+		});
+	}
+}
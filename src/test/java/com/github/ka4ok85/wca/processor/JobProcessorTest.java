@@ -11,12 +11,17 @@ import com.github.ka4ok85.wca.command.WaitForJobCommand;
 import com.github.ka4ok85.wca.constants.JobStatus;
 import com.github.ka4ok85.wca.exceptions.EngageApiException;
 import com.github.ka4ok85.wca.exceptions.JobBadStateException;
+import com.github.ka4ok85.wca.metrics.EngageMetrics;
 import com.github.ka4ok85.wca.oauth.OAuthClient;
 import com.github.ka4ok85.wca.options.JobOptions;
 import com.github.ka4ok85.wca.response.JobResponse;
 import com.github.ka4ok85.wca.response.ResponseContainer;
 import com.github.ka4ok85.wca.sftp.SFTP;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class JobProcessorTest {
 	@Test
 	public void testWaitUntilJobIsCompleted() {
@@ -125,4 +130,39 @@ public class JobProcessorTest {
 		JobResponse response = JobProcessor.waitUntilJobIsCompleted(options, oAuthClient, sftp, command, false);
 		assertNull(response);
 	}
+
+	@Test
+	public void testWaitUntilJobIsCompletedRecordsMetrics() {
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		when(oAuthClient.getPodNumber()).thenReturn(5);
+		SFTP sftp = new SFTP(oAuthClient);
+		Long jobId = 1L;
+		JobOptions options = new JobOptions(jobId);
+
+		WaitForJobCommand command = mock(WaitForJobCommand.class);
+
+		JobResponse waiting = new JobResponse();
+		waiting.setJobStatus(JobStatus.WAITING);
+		JobResponse running = new JobResponse();
+		running.setJobStatus(JobStatus.RUNNING);
+		JobResponse complete = new JobResponse();
+		complete.setJobStatus(JobStatus.COMPLETE);
+
+		when(command.executeCommand(options)).thenReturn(new ResponseContainer<JobResponse>(waiting))
+				.thenReturn(new ResponseContainer<JobResponse>(running))
+				.thenReturn(new ResponseContainer<JobResponse>(complete));
+		JobProcessor.setJobCheckInterval(0);
+		JobProcessor.setMaxExecutionTime(5);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		JobResponse response = JobProcessor.waitUntilJobIsCompleted(options, oAuthClient, sftp, command, false,
+				new EngageMetrics(registry), "ExportList");
+		assertEquals(response, complete);
+
+		DistributionSummary polls = registry.get("wca.job.polls").tags("method", "ExportList", "pod", "5").summary();
+		assertEquals(polls.count(), 1L);
+		assertEquals(polls.totalAmount(), 3.0, 0.0);
+		Timer queue = registry.get("wca.job.queue").tags("method", "ExportList", "outcome", "success").timer();
+		assertEquals(queue.count(), 1L);
+		assertEquals(registry.get("wca.job.run").tags("outcome", "success").timer().count(), 1L);
+	}
 }
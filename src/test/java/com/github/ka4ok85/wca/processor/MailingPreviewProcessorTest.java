@@ -0,0 +1,97 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.cache.MailingTemplateCache;
+import com.github.ka4ok85.wca.options.PreviewMailingOptions;
+import com.github.ka4ok85.wca.response.PreviewMailingResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.MailingTemplate;
+
+public class MailingPreviewProcessorTest {
+
+	private final List<String> rendered = Collections.synchronizedList(new ArrayList<String>());
+
+	private Engage createEngage(AtomicInteger inFlight, AtomicInteger maxInFlight) {
+		Engage engage = mock(Engage.class);
+		when(engage.previewMailing(any(PreviewMailingOptions.class))).thenAnswer(invocation -> {
+			PreviewMailingOptions options = invocation.getArgument(0);
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			Thread.sleep(20);
+			inFlight.decrementAndGet();
+			rendered.add(options.getRecipientEmail());
+
+			PreviewMailingResponse response = new PreviewMailingResponse();
+			response.setHtmlBody("<p>" + options.getRecipientEmail() + "</p>");
+
+			return new ResponseContainer<PreviewMailingResponse>(response);
+		});
+
+		return engage;
+	}
+
+	private MailingTemplateCache createTemplateCache(LocalDateTime... lastModified) {
+		MailingTemplateCache templateCache = mock(MailingTemplateCache.class);
+		List<MailingTemplate> templates = new ArrayList<MailingTemplate>();
+		for (LocalDateTime value : lastModified) {
+			MailingTemplate template = new MailingTemplate();
+			template.setMailingId(5L);
+			template.setLastModified(value);
+			templates.add(template);
+		}
+
+		MailingTemplate first = templates.remove(0);
+		when(templateCache.getMailingTemplate(5L)).thenReturn(first,
+				templates.toArray(new MailingTemplate[templates.size()]));
+
+		return templateCache;
+	}
+
+	@Test
+	public void testBatchIsRenderedInParallelUnderLimit() {
+		AtomicInteger maxInFlight = new AtomicInteger();
+		MailingPreviewProcessor processor = new MailingPreviewProcessor(
+				createEngage(new AtomicInteger(), maxInFlight), null);
+		processor.setConcurrency(2);
+
+		Map<String, PreviewMailingResponse> previews = processor.preview(5L,
+				Arrays.asList("a@example.com", "b@example.com", "c@example.com", "a@example.com", "d@example.com"));
+
+		assertEquals(new ArrayList<String>(previews.keySet()),
+				Arrays.asList("a@example.com", "b@example.com", "c@example.com", "d@example.com"));
+		assertEquals(previews.get("c@example.com").getHtmlBody(), "<p>c@example.com</p>");
+		assertEquals(rendered.size(), 4);
+		assertTrue(maxInFlight.get() <= 2);
+	}
+
+	@Test
+	public void testPreviewIsRenderedAgainOnlyWhenTemplateChanges() {
+		LocalDateTime lastModified = LocalDateTime.of(2018, 7, 1, 10, 0);
+		MailingPreviewProcessor processor = new MailingPreviewProcessor(
+				createEngage(new AtomicInteger(), new AtomicInteger()),
+				createTemplateCache(lastModified, lastModified, lastModified.plusHours(1)));
+
+		processor.preview(5L, Arrays.asList("a@example.com", "b@example.com"));
+		processor.preview(5L, Arrays.asList("A@example.com", "b@example.com", "c@example.com"));
+		assertEquals(rendered.size(), 3);
+
+		processor.preview(5L, Arrays.asList("a@example.com"));
+		assertEquals(rendered.size(), 4);
+		assertEquals(processor.getPreviewCache().getHitCount(), 2L);
+	}
+}
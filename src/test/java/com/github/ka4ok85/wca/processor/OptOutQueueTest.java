@@ -0,0 +1,214 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.ImportListOptions;
+import com.github.ka4ok85.wca.options.OptOutRecipientOptions;
+import com.github.ka4ok85.wca.response.ImportListResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+
+public class OptOutQueueTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private OptOutRecipientOptions createOptOut(String email) {
+		OptOutRecipientOptions options = new OptOutRecipientOptions(10L);
+		options.setEmail(email);
+
+		return options;
+	}
+
+	private String getJournalPath() {
+		return new File(temporaryFolder.getRoot(), "optout.journal").getAbsolutePath();
+	}
+
+	@Test
+	public void testSmallBatchIsSentByOptOutRecipient() throws InterruptedException, ExecutionException, IOException {
+		List<String> emails = Collections.synchronizedList(new ArrayList<String>());
+		Engage engage = mock(Engage.class);
+		when(engage.optOutRecipient(any(OptOutRecipientOptions.class))).thenAnswer(invocation -> {
+			OptOutRecipientOptions options = invocation.getArgument(0);
+			emails.add(options.getEmail());
+			return null;
+		});
+
+		OptOutQueue queue = new OptOutQueue(engage, 10L, getJournalPath());
+		CompletableFuture<Void> first = queue.optOut(createOptOut("first@example.com"));
+		CompletableFuture<Void> second = queue.optOut(createOptOut("second@example.com"));
+		assertEquals(queue.getPendingCount(), 2);
+		assertEquals(Files.readAllLines(Paths.get(getJournalPath())).size(), 2);
+
+		assertEquals(queue.flush(), 2);
+		first.get();
+		second.get();
+		assertEquals(emails.size(), 2);
+		assertTrue(emails.contains("second@example.com"));
+		assertEquals(Files.readAllLines(Paths.get(getJournalPath())).size(), 0);
+		verify(engage, never()).importList(any(ImportListOptions.class));
+		queue.close();
+	}
+
+	@Test
+	public void testLargeBatchIsSentByImportList() throws InterruptedException, ExecutionException {
+		List<String> sourceFiles = new ArrayList<String>();
+		List<String> mapFiles = new ArrayList<String>();
+		Engage engage = mock(Engage.class);
+		when(engage.importList(any(ImportListOptions.class))).thenAnswer(invocation -> {
+			ImportListOptions options = invocation.getArgument(0);
+			sourceFiles.add(new String(Files.readAllBytes(Paths.get(options.getSourceFile())), StandardCharsets.UTF_8));
+			mapFiles.add(new String(Files.readAllBytes(Paths.get(options.getMapFile())), StandardCharsets.UTF_8));
+
+			return new ResponseContainer<ImportListResponse>(new ImportListResponse());
+		});
+
+		OptOutQueue queue = new OptOutQueue(engage, 10L, getJournalPath());
+		queue.setImportThreshold(3);
+		queue.setLocalDirectory(temporaryFolder.getRoot().getAbsolutePath());
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 3; i++) {
+			futures.add(queue.optOut(createOptOut("user" + i + "@example.com")));
+		}
+		queue.close();
+
+		for (CompletableFuture<Void> future : futures) {
+			future.get();
+		}
+		assertEquals(sourceFiles.size(), 1);
+		assertTrue(sourceFiles.get(0).contains("user2@example.com"));
+		assertTrue(mapFiles.get(0).contains("<ACTION>OPT_OUT</ACTION>"));
+		verify(engage, never()).optOutRecipient(any(OptOutRecipientOptions.class));
+	}
+
+	@Test
+	public void testPendingOptOutsAreRecoveredFromJournal() throws IOException {
+		OptOutRecipientOptions optOut = new OptOutRecipientOptions(10L);
+		optOut.setRecipientId("encoded=id&1");
+		optOut.setMailingId(300L);
+		optOut.setJobId("job\t1");
+		optOut.getColumns().put("Reason", "Too many emails");
+		Path journal = Paths.get(getJournalPath());
+		Files.write(journal, (OptOutQueue.encode(optOut) + "\nbroken line\n").getBytes(StandardCharsets.UTF_8));
+
+		List<OptOutRecipientOptions> calls = new ArrayList<OptOutRecipientOptions>();
+		Engage engage = mock(Engage.class);
+		when(engage.optOutRecipient(any(OptOutRecipientOptions.class))).thenAnswer(invocation -> {
+			calls.add(invocation.getArgument(0));
+			return null;
+		});
+
+		OptOutQueue queue = new OptOutQueue(engage, 10L, journal.toString());
+		assertEquals(queue.getPendingCount(), 1);
+		assertEquals(Files.readAllLines(journal).size(), 1);
+		queue.close();
+
+		assertEquals(calls.size(), 1);
+		assertEquals(calls.get(0).getRecipientId(), "encoded=id&1");
+		assertEquals(calls.get(0).getMailingId().longValue(), 300L);
+		assertEquals(calls.get(0).getJobId(), "job\t1");
+		assertEquals(calls.get(0).getColumns().get("Reason"), "Too many emails");
+		assertEquals(Files.readAllLines(journal).size(), 0);
+	}
+
+	@Test
+	public void testFailedOptOutCompletesExceptionally() throws IOException {
+		Engage engage = mock(Engage.class);
+		when(engage.optOutRecipient(any(OptOutRecipientOptions.class))).thenThrow(new RuntimeException("failed"));
+
+		OptOutQueue queue = new OptOutQueue(engage, 10L, getJournalPath());
+		CompletableFuture<Void> future = queue.optOut(createOptOut("user@example.com"));
+		queue.close();
+
+		assertTrue(future.isCompletedExceptionally());
+		assertEquals(Files.readAllLines(Paths.get(getJournalPath())).size(), 0);
+		assertEquals(Files.readAllLines(Paths.get(getJournalPath() + ".failed")).size(), 1);
+	}
+
+	@Test
+	public void testFailedOptOutSurvivesRestart() throws IOException {
+		Engage failingEngage = mock(Engage.class);
+		when(failingEngage.optOutRecipient(any(OptOutRecipientOptions.class)))
+				.thenThrow(new RuntimeException("failed"));
+
+		OptOutQueue queue = new OptOutQueue(failingEngage, 10L, getJournalPath());
+		queue.optOut(createOptOut("user@example.com"));
+		queue.close();
+
+		List<String> emails = new ArrayList<String>();
+		Engage engage = mock(Engage.class);
+		when(engage.optOutRecipient(any(OptOutRecipientOptions.class))).thenAnswer(invocation -> {
+			OptOutRecipientOptions options = invocation.getArgument(0);
+			emails.add(options.getEmail());
+			return null;
+		});
+
+		queue = new OptOutQueue(engage, 10L, getJournalPath());
+		assertEquals(queue.getPendingCount(), 0);
+		assertEquals(queue.getFailedCount(), 1);
+		assertEquals(queue.requeueFailed(), 1);
+		assertEquals(queue.getFailedCount(), 0);
+		assertEquals(Files.readAllLines(Paths.get(getJournalPath())).size(), 1);
+		queue.close();
+
+		assertEquals(emails, Collections.singletonList("user@example.com"));
+		assertEquals(Files.readAllLines(Paths.get(getJournalPath())).size(), 0);
+	}
+
+	@Test
+	public void testRowsRejectedByImportListFail() throws IOException {
+		Engage engage = mock(Engage.class);
+		when(engage.importList(any(ImportListOptions.class))).thenAnswer(invocation -> {
+			ImportListOptions options = invocation.getArgument(0);
+			Files.write(Paths.get(options.getLocalErrorFilePath()),
+					"EMAIL,Error\nuser1@example.com,Invalid email address\n".getBytes(StandardCharsets.UTF_8));
+
+			return new ResponseContainer<ImportListResponse>(new ImportListResponse());
+		});
+
+		OptOutQueue queue = new OptOutQueue(engage, 10L, getJournalPath());
+		queue.setImportThreshold(3);
+		queue.setLocalDirectory(temporaryFolder.getRoot().getAbsolutePath());
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 0; i < 3; i++) {
+			futures.add(queue.optOut(createOptOut("user" + i + "@example.com")));
+		}
+		queue.close();
+
+		assertTrue(futures.get(0).isDone() && futures.get(0).isCompletedExceptionally() == false);
+		assertTrue(futures.get(1).isCompletedExceptionally());
+		assertTrue(futures.get(2).isDone() && futures.get(2).isCompletedExceptionally() == false);
+		List<String> failed = Files.readAllLines(Paths.get(getJournalPath() + ".failed"));
+		assertEquals(failed.size(), 1);
+		assertTrue(failed.get(0).startsWith("=user1%40example.com\t"));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testOptOutRejectsOtherList() {
+		OptOutQueue queue = new OptOutQueue(mock(Engage.class), 10L, getJournalPath());
+		queue.optOut(new OptOutRecipientOptions(20L));
+	}
+}
@@ -0,0 +1,206 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.JobBadStateException;
+import com.github.ka4ok85.wca.options.RawRecipientDataExportOptions;
+import com.github.ka4ok85.wca.reader.RawRecipientDataEvent;
+import com.github.ka4ok85.wca.response.RawRecipientDataExportResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.JobPollingContainer;
+import com.github.ka4ok85.wca.sftp.SFTP;
+
+public class RawRecipientDataIngestionProcessorTest {
+
+	private static final String header = "Recipient Id,Recipient Type,Mailing Id,Report Id,Campaign Id,Email,Event Type,Event Timestamp";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Engage engage;
+	private SFTP sftp;
+	private CheckpointStore checkpointStore;
+	private TestSink sink;
+	private int exportCount;
+	private int failedExports;
+
+	private static class TestSink implements RawRecipientDataSink {
+		private final Set<String> committedBatches = new HashSet<String>();
+		private final List<Long> committedRecipients = new ArrayList<Long>();
+		private final List<Long> currentRecipients = new ArrayList<Long>();
+		private int failuresLeft = 0;
+
+		@Override
+		public boolean isCommitted(String batchId) {
+			return committedBatches.contains(batchId);
+		}
+
+		@Override
+		public void begin(String batchId) {
+			currentRecipients.clear();
+		}
+
+		@Override
+		public void accept(RawRecipientDataEvent event) {
+			currentRecipients.add(event.getRecipientId());
+		}
+
+		@Override
+		public void commit(String batchId) {
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new IllegalStateException("Sink is down");
+			}
+
+			committedRecipients.addAll(currentRecipients);
+			committedBatches.add(batchId);
+		}
+
+		@Override
+		public void rollback(String batchId) {
+			currentRecipients.clear();
+		}
+	}
+
+	@Before
+	public void setUp() {
+		engage = mock(Engage.class);
+		sftp = mock(SFTP.class);
+		sink = new TestSink();
+		checkpointStore = new FileCheckpointStore(
+				new File(temporaryFolder.getRoot(), "cp.properties").getAbsolutePath());
+		exportCount = 0;
+		failedExports = 0;
+
+		when(engage.getSftp()).thenReturn(sftp);
+		when(engage.rawRecipientDataExport(any(RawRecipientDataExportOptions.class), any())).thenAnswer(invocation -> {
+			RawRecipientDataExportOptions options = invocation.getArgument(0);
+			assertTrue(options.isAllNonExported());
+			JobPollingContainer job = new JobPollingContainer();
+			job.setJobId(100L + (++exportCount));
+			job.getParameters().put("FILE_PATH", "rrde_" + exportCount + ".zip");
+			Consumer<JobPollingContainer> listener = invocation.getArgument(1);
+			listener.accept(job);
+			if (failedExports > 0) {
+				failedExports--;
+				throw new JobBadStateException("Job " + job.getJobId() + " is submitted and is not submitted again");
+			}
+
+			return createResponse(job);
+		});
+		when(engage.resumeRawRecipientDataExport(any(JobPollingContainer.class),
+				any(RawRecipientDataExportOptions.class)))
+						.thenAnswer(invocation -> createResponse(invocation.getArgument(0)));
+		doAnswer(invocation -> {
+			String remoteFileName = invocation.getArgument(0);
+			String recipientId = remoteFileName.substring(5, remoteFileName.indexOf('.'));
+			try (ZipOutputStream archive = new ZipOutputStream(
+					Files.newOutputStream(Paths.get((String) invocation.getArgument(1))))) {
+				archive.putNextEntry(new ZipEntry("Raw Recipient Data Export " + recipientId + ".csv"));
+				archive.write((header + "\r\n" + recipientId + ",Normal,5,6,,a@test.com,Open,02/01/2018 12:23:34\r\n")
+						.getBytes(StandardCharsets.UTF_8));
+			}
+
+			return null;
+		}).when(sftp).download(anyString(), anyString());
+	}
+
+	private static ResponseContainer<RawRecipientDataExportResponse> createResponse(JobPollingContainer job) {
+		RawRecipientDataExportResponse response = new RawRecipientDataExportResponse();
+		response.setJobId(job.getJobId());
+		response.setRemoteFileName(job.getParameters().get("FILE_PATH"));
+
+		return new ResponseContainer<RawRecipientDataExportResponse>(response);
+	}
+
+	private RawRecipientDataIngestionProcessor createProcessor() {
+		return new RawRecipientDataIngestionProcessor(engage, checkpointStore, sink, "events",
+				temporaryFolder.getRoot().getAbsolutePath());
+	}
+
+	@Test
+	public void testRunOnceDeliversExportedFile() {
+		RawRecipientDataIngestionProcessor processor = createProcessor();
+
+		assertEquals(processor.runOnce(new RawRecipientDataExportOptions()), 1L);
+		assertEquals(sink.committedRecipients, Arrays.asList(1L));
+		assertTrue(processor.getPendingFiles().isEmpty());
+	}
+
+	@Test
+	public void testRunOnceRedeliversFailedBatchBeforeNewExport() {
+		sink.failuresLeft = 1;
+		RawRecipientDataIngestionProcessor processor = createProcessor();
+		try {
+			processor.runOnce(new RawRecipientDataExportOptions());
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(processor.getPendingFiles(), Arrays.asList("rrde_1.zip"));
+		}
+
+		// new processor instance simulates restart
+		assertEquals(createProcessor().runOnce(new RawRecipientDataExportOptions()), 2L);
+		assertEquals(sink.committedRecipients, Arrays.asList(1L, 2L));
+		assertTrue(createProcessor().getPendingFiles().isEmpty());
+	}
+
+	@Test
+	public void testRunOnceSkipsCommittedBatch() {
+		sink.committedBatches.add("rrde_1.zip");
+		createProcessor().runOnce(new RawRecipientDataExportOptions());
+
+		verify(sftp, never()).download(anyString(), anyString());
+		assertTrue(sink.committedRecipients.isEmpty());
+	}
+
+	@Test
+	public void testRunOnceResumesSubmittedJobInsteadOfSubmittingAgain() {
+		failedExports = 1;
+		RawRecipientDataIngestionProcessor processor = createProcessor();
+		try {
+			processor.runOnce(new RawRecipientDataExportOptions());
+			fail();
+		} catch (JobBadStateException e) {
+			assertEquals(processor.getSubmittedJob().getJobId(), Long.valueOf(101L));
+			assertEquals(processor.getSubmittedJob().getParameters().get("FILE_PATH"), "rrde_1.zip");
+		}
+
+		// new processor instance simulates restart
+		assertEquals(createProcessor().runOnce(new RawRecipientDataExportOptions()), 2L);
+		verify(engage, times(1)).resumeRawRecipientDataExport(any(JobPollingContainer.class),
+				any(RawRecipientDataExportOptions.class));
+		assertEquals(sink.committedRecipients, Arrays.asList(1L, 2L));
+		assertNull(createProcessor().getSubmittedJob());
+		assertTrue(createProcessor().getPendingFiles().isEmpty());
+	}
+}
@@ -0,0 +1,178 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.UpdateRecipientOptions;
+
+public class RecipientUpdateBufferTest {
+
+	private UpdateRecipientOptions createUpdate(long recipientId, String column, String value) {
+		UpdateRecipientOptions options = new UpdateRecipientOptions(10L);
+		options.setRecipientId(recipientId);
+		options.getColumns().put(column, value);
+
+		return options;
+	}
+
+	private Engage createEngage(List<UpdateRecipientOptions> calls) {
+		Engage engage = mock(Engage.class);
+		when(engage.updateRecipient(any(UpdateRecipientOptions.class))).thenAnswer(invocation -> {
+			calls.add(invocation.getArgument(0));
+			return null;
+		});
+
+		return engage;
+	}
+
+	@Test
+	public void testUpdatesOfSameRecipientAreMerged() {
+		List<UpdateRecipientOptions> calls = Collections.synchronizedList(new ArrayList<UpdateRecipientOptions>());
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(createEngage(calls), 2);
+
+		buffer.update(createUpdate(1L, "Name", "John"));
+		buffer.update(createUpdate(2L, "Name", "Jane"));
+		buffer.update(createUpdate(1L, "Newsletter", "Yes"));
+		buffer.update(createUpdate(1L, "Name", "Johnny"));
+		assertEquals(buffer.getPendingCount(), 2);
+
+		assertEquals(buffer.flush(), 2);
+		assertEquals(buffer.getPendingCount(), 0);
+		assertEquals(calls.size(), 2);
+
+		UpdateRecipientOptions first = calls.get(0).getRecipientId() == 1L ? calls.get(0) : calls.get(1);
+		Map<String, String> expected = new HashMap<String, String>();
+		expected.put("Name", "Johnny");
+		expected.put("Newsletter", "Yes");
+		assertEquals(first.getColumns(), expected);
+		buffer.close();
+	}
+
+	@Test
+	public void testUpdatesOfRecipientKeepOrder() {
+		Map<Long, List<Integer>> received = new HashMap<Long, List<Integer>>();
+		Engage engage = mock(Engage.class);
+		when(engage.updateRecipient(any(UpdateRecipientOptions.class))).thenAnswer(invocation -> {
+			UpdateRecipientOptions options = invocation.getArgument(0);
+			synchronized (received) {
+				received.computeIfAbsent(options.getRecipientId(), id -> new ArrayList<Integer>())
+						.add(Integer.valueOf(options.getColumns().get("Sequence")));
+			}
+			return null;
+		});
+
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(engage, 4);
+		buffer.setMaxPendingRecipients(3);
+		for (int i = 0; i < 200; i++) {
+			buffer.update(createUpdate(i % 5, "Sequence", String.valueOf(i)));
+		}
+		buffer.close();
+
+		assertEquals(received.size(), 5);
+		for (List<Integer> sequence : received.values()) {
+			for (int i = 1; i < sequence.size(); i++) {
+				assertTrue(sequence.toString(), sequence.get(i - 1) < sequence.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testBufferIsLimited() {
+		List<UpdateRecipientOptions> calls = Collections.synchronizedList(new ArrayList<UpdateRecipientOptions>());
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(createEngage(calls), 1);
+		buffer.setMaxPendingRecipients(2);
+
+		buffer.update(createUpdate(1L, "Name", "John"));
+		assertEquals(calls.size(), 0);
+		buffer.update(createUpdate(2L, "Name", "Jane"));
+		assertEquals(calls.size(), 2);
+		assertEquals(buffer.getPendingCount(), 0);
+		buffer.close();
+	}
+
+	@Test
+	public void testWindowFlushAndCloseFlush() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		List<UpdateRecipientOptions> calls = Collections.synchronizedList(new ArrayList<UpdateRecipientOptions>());
+		Engage engage = mock(Engage.class);
+		when(engage.updateRecipient(any(UpdateRecipientOptions.class))).thenAnswer(invocation -> {
+			calls.add(invocation.getArgument(0));
+			latch.countDown();
+			return null;
+		});
+
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(engage, 1);
+		buffer.start(50, TimeUnit.MILLISECONDS);
+		buffer.update(createUpdate(1L, "Name", "John"));
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		buffer.update(createUpdate(2L, "Name", "Jane"));
+		buffer.close();
+		assertEquals(calls.size(), 2);
+	}
+
+	@Test
+	public void testFailuresAreReported() {
+		Engage engage = mock(Engage.class);
+		when(engage.updateRecipient(any(UpdateRecipientOptions.class))).thenThrow(new RuntimeException("failed"));
+		List<String> failures = new ArrayList<String>();
+
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(engage, 1);
+		buffer.setFailureListener((options, e) -> failures.add(options.getRecipientId() + " " + e.getMessage()));
+		buffer.update(createUpdate(7L, "Name", "John"));
+		buffer.close();
+
+		assertEquals(failures, Collections.singletonList("7 failed"));
+	}
+
+	@Test
+	public void testUpdateIsRejectedDuringFinalFlush() throws InterruptedException {
+		CountDownLatch sending = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Engage engage = mock(Engage.class);
+		when(engage.updateRecipient(any(UpdateRecipientOptions.class))).thenAnswer(invocation -> {
+			sending.countDown();
+			release.await();
+			return null;
+		});
+
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(engage, 1);
+		buffer.update(createUpdate(7L, "Name", "John"));
+		Thread closer = new Thread(buffer::close);
+		closer.start();
+		assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+		try {
+			buffer.update(createUpdate(8L, "Name", "Jane"));
+			fail("Update must be rejected once close started");
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "Buffer is closed");
+		} finally {
+			release.countDown();
+			closer.join();
+		}
+
+		assertEquals(buffer.getPendingCount(), 0);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testUpdateRequiresRecipientKey() {
+		RecipientUpdateBuffer buffer = new RecipientUpdateBuffer(mock(Engage.class), 1);
+		buffer.update(new UpdateRecipientOptions(10L));
+	}
+}
@@ -0,0 +1,248 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.exceptions.BadApiResultException;
+import com.github.ka4ok85.wca.options.AddRecipientOptions;
+import com.github.ka4ok85.wca.options.ImportListOptions;
+import com.github.ka4ok85.wca.response.ImportListResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+
+public class RecipientWriteRouterTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private BulkRecipientUpsertProcessor createBulkProcessor(Engage engage) {
+		BulkRecipientUpsertProcessor bulkProcessor = new BulkRecipientUpsertProcessor(engage, 10L,
+				Arrays.asList("Email", "Name"));
+		bulkProcessor.setSyncFields(Arrays.asList("Email"));
+		bulkProcessor.setLocalDirectory(temporaryFolder.getRoot().getAbsolutePath());
+
+		return bulkProcessor;
+	}
+
+	@Test
+	public void testFlushUsesPerRowCallsForSmallBatch() {
+		Engage engage = mock(Engage.class);
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		List<RecipientWriteResult> results = new ArrayList<RecipientWriteResult>();
+		router.setResultListener(results::add);
+
+		router.write(new String[] { "a@example.com", "A" });
+		router.write(new String[] { "b@example.com", "B" });
+		RecipientWriteResult result = router.flush();
+
+		assertEquals(result.getPath(), RecipientWritePath.PER_ROW);
+		assertEquals(result.getRowCount(), 2);
+		assertNull(result.getBulkUpsertResult());
+		assertEquals(results.size(), 1);
+
+		ArgumentCaptor<AddRecipientOptions> captor = ArgumentCaptor.forClass(AddRecipientOptions.class);
+		verify(engage, times(2)).addRecipient(captor.capture());
+		assertEquals(captor.getAllValues().get(1).getSyncFields().get("Email"), "b@example.com");
+		assertEquals(captor.getAllValues().get(1).getColumns().get("Name"), "B");
+		assertTrue(captor.getAllValues().get(1).isUpdateIfFound());
+
+		router.write(new String[] { "c@example.com", "C" });
+		assertTrue(router.flush().getEstimatedPerRowMillis() < 250);
+		assertNull(router.flush());
+	}
+
+	@Test
+	public void testFlushUsesImportListForLargeBatch() {
+		Engage engage = mock(Engage.class);
+		ImportListResponse response = new ImportListResponse();
+		response.setTotalRowsNumber(3L);
+		when(engage.importList(any(ImportListOptions.class)))
+				.thenReturn(new ResponseContainer<ImportListResponse>(response));
+
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		router.setLatencyEstimates(1000, 2000, 0);
+		router.setMaxBufferRows(3);
+		List<RecipientWriteResult> results = new ArrayList<RecipientWriteResult>();
+		router.setResultListener(results::add);
+
+		router.write(new String[] { "a@example.com", "A" });
+		router.write(new String[] { "b@example.com", "B" });
+		router.write(new String[] { "c@example.com", "C" });
+
+		assertEquals(results.size(), 1);
+		assertEquals(results.get(0).getPath(), RecipientWritePath.IMPORT_LIST);
+		assertEquals(results.get(0).getBulkUpsertResult().getTotalRowsNumber(), 3L);
+		verify(engage, never()).addRecipient(any(AddRecipientOptions.class));
+	}
+
+	@Test
+	public void testFlushReportsRowsWhichWereNotWritten() {
+		Engage engage = mock(Engage.class);
+		when(engage.addRecipient(any(AddRecipientOptions.class))).thenAnswer(invocation -> {
+			AddRecipientOptions options = invocation.getArgument(0);
+			if (options.getSyncFields().get("Email").startsWith("b@")) {
+				throw new RuntimeException("Add failed");
+			}
+
+			return null;
+		});
+
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		router.write(new String[] { "a@example.com", "A" });
+		router.write(new String[] { "b@example.com", "B" });
+		router.write(new String[] { "c@example.com", "C" });
+		RecipientWriteResult result = router.flush();
+
+		verify(engage, times(3)).addRecipient(any(AddRecipientOptions.class));
+		assertTrue(result.hasFailures());
+		assertEquals(result.getFailures().size(), 1);
+		assertEquals(result.getFailures().get(0).getRow()[0], "b@example.com");
+		assertEquals(result.getFailures().get(0).getException().getMessage(), "Add failed");
+	}
+
+	@Test
+	public void testAddOnlyFlushSkipsExistingRecipientsOnPerRowPath() {
+		Engage engage = mock(Engage.class);
+		when(engage.addRecipient(any(AddRecipientOptions.class))).thenAnswer(invocation -> {
+			AddRecipientOptions options = invocation.getArgument(0);
+			if (options.getSyncFields().get("Email").startsWith("b@")) {
+				throw new BadApiResultException("Recipient already exists.");
+			}
+
+			if (options.getSyncFields().get("Email").startsWith("c@")) {
+				throw new BadApiResultException("Invalid email address.");
+			}
+
+			return null;
+		});
+
+		BulkRecipientUpsertProcessor bulkProcessor = createBulkProcessor(engage);
+		bulkProcessor.setImportMapperAction(ImportMapperAction.ADD_ONLY);
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, bulkProcessor);
+		router.write(new String[] { "a@example.com", "A" });
+		router.write(new String[] { "b@example.com", "B" });
+		router.write(new String[] { "c@example.com", "C" });
+		RecipientWriteResult result = router.flush();
+
+		assertEquals(result.getPath(), RecipientWritePath.PER_ROW);
+		assertEquals(result.getSkippedRowCount(), 1);
+		assertEquals(result.getFailures().size(), 1);
+		assertEquals(result.getFailures().get(0).getRow()[0], "c@example.com");
+	}
+
+	@Test
+	public void testFlushReportsRowsOfFailedImportList() {
+		Engage engage = mock(Engage.class);
+		when(engage.importList(any(ImportListOptions.class))).thenThrow(new RuntimeException("Import failed"));
+
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		router.setLatencyEstimates(1000, 2000, 0);
+		router.write(new String[] { "a@example.com", "A" });
+		router.write(new String[] { "b@example.com", "B" });
+		router.write(new String[] { "c@example.com", "C" });
+		RecipientWriteResult result = router.flush();
+
+		assertEquals(result.getPath(), RecipientWritePath.IMPORT_LIST);
+		assertEquals(result.getFailures().size(), 3);
+		assertEquals(result.getFailures().get(2).getRow()[0], "c@example.com");
+		assertEquals(result.getFailures().get(2).getException().getMessage(), "Import failed");
+	}
+
+	@Test
+	public void testFlushResamplesPathWhichIsNotChosen() {
+		Engage engage = mock(Engage.class);
+		ImportListResponse response = new ImportListResponse();
+		when(engage.importList(any(ImportListOptions.class)))
+				.thenReturn(new ResponseContainer<ImportListResponse>(response));
+
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		router.setExplorationInterval(2);
+		router.write(new String[] { "a@example.com", "A" });
+		assertEquals(router.flush().isExploration(), false);
+		verify(engage, never()).importList(any(ImportListOptions.class));
+
+		for (int i = 0; i < 12; i++) {
+			router.write(new String[] { "b" + i + "@example.com", "B" });
+		}
+		RecipientWriteResult result = router.flush();
+		assertEquals(result.getPath(), RecipientWritePath.PER_ROW);
+		assertEquals(result.getChosenPath(), RecipientWritePath.PER_ROW);
+		assertEquals(result.getImportListRowCount(), 5);
+		assertTrue(result.isExploration());
+		assertTrue(result.getBulkUpsertResult() != null);
+		verify(engage, times(1)).importList(any(ImportListOptions.class));
+		assertTrue(router.getImportOverheadMillis() < 120000);
+
+		router.setLatencyEstimates(1000, 0, 0);
+		for (int i = 0; i < 10; i++) {
+			router.write(new String[] { "user" + i + "@example.com", "User" });
+		}
+		router.flush();
+		for (int i = 0; i < 10; i++) {
+			router.write(new String[] { "user" + i + "@example.com", "User" });
+		}
+		result = router.flush();
+		assertEquals(result.getPath(), RecipientWritePath.IMPORT_LIST);
+		assertTrue(result.isExploration());
+		verify(engage, times(13)).addRecipient(any(AddRecipientOptions.class));
+		verify(engage, times(3)).importList(any(ImportListOptions.class));
+		assertTrue(router.getRowLatencyMillis() < 1000);
+	}
+
+	@Test
+	public void testExplorationOfSmallFlushReportsPathUsed() {
+		Engage engage = mock(Engage.class);
+		ImportListResponse response = new ImportListResponse();
+		when(engage.importList(any(ImportListOptions.class)))
+				.thenReturn(new ResponseContainer<ImportListResponse>(response));
+
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		router.setExplorationInterval(1);
+		router.write(new String[] { "a@example.com", "A" });
+		RecipientWriteResult result = router.flush();
+
+		assertEquals(result.getChosenPath(), RecipientWritePath.PER_ROW);
+		assertEquals(result.getPath(), RecipientWritePath.IMPORT_LIST);
+		assertEquals(result.getImportListRowCount(), 1);
+		verify(engage, never()).addRecipient(any(AddRecipientOptions.class));
+	}
+
+	@Test
+	public void testImportEstimatesAreFittedOverJobSizes() {
+		Engage engage = mock(Engage.class);
+		RecipientWriteRouter router = new RecipientWriteRouter(engage, createBulkProcessor(engage));
+		router.setLatencyEstimates(1000, 0, 0);
+
+		router.updateImportEstimates(100, 1200);
+		router.updateImportEstimates(1000, 3000);
+		assertEquals(router.getImportRowMillis(), 2.0, 0.0001);
+		assertEquals(router.getImportOverheadMillis(), 1000.0, 0.0001);
+
+		router.updateImportEstimates(500, 2000);
+		assertEquals(router.getImportRowMillis(), 2.0, 0.0001);
+		assertEquals(router.getImportOverheadMillis(), 1000.0, 0.0001);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testWriteRejectsRowWithWrongSize() {
+		Engage engage = mock(Engage.class);
+		new RecipientWriteRouter(engage, createBulkProcessor(engage)).write(new String[] { "a@example.com" });
+	}
+}
@@ -0,0 +1,114 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.options.DeleteRelationalTableDataOptions;
+import com.github.ka4ok85.wca.options.PurgeTableOptions;
+import com.github.ka4ok85.wca.response.DeleteRelationalTableDataResponse;
+import com.github.ka4ok85.wca.response.PurgeTableResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.RelationalTableRecordFailure;
+
+public class RelationalTableDeleteProcessorTest {
+
+	private Map<String, String> createKey(int i) {
+		return Collections.singletonMap("Id", String.valueOf(i));
+	}
+
+	@Test
+	public void testDeleteSplitsKeysAndMapsFailures() {
+		List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+		Engage engage = mock(Engage.class);
+		when(engage.deleteRelationalTableData(any(DeleteRelationalTableDataOptions.class))).thenAnswer(invocation -> {
+			DeleteRelationalTableDataOptions options = invocation.getArgument(0);
+			batchSizes.add(options.getRows().size());
+
+			DeleteRelationalTableDataResponse response = new DeleteRelationalTableDataResponse();
+			List<RelationalTableRecordFailure> failures = new ArrayList<RelationalTableRecordFailure>();
+			for (Map<String, String> row : options.getRows()) {
+				if (Integer.parseInt(row.get("Id")) % 60 == 59) {
+					RelationalTableRecordFailure failure = new RelationalTableRecordFailure();
+					failure.setFailureType("permanent");
+					failure.setDescription("Row not found");
+					failure.getColumns().add(row);
+					failures.add(failure);
+				}
+			}
+			response.setFailures(failures);
+
+			return new ResponseContainer<DeleteRelationalTableDataResponse>(response);
+		});
+
+		RelationalTableDeleteProcessor processor = new RelationalTableDeleteProcessor(engage, 5L);
+		processor.setBatchSize(40);
+		processor.setMaxInFlight(3);
+		List<RelationalTableRowFailure> failures = processor.delete(IntStream.range(0, 130).mapToObj(this::createKey));
+
+		Collections.sort(batchSizes);
+		assertEquals(batchSizes.toString(), "[10, 40, 40, 40]");
+		assertEquals(failures.size(), 2);
+		assertEquals(failures.get(0).getRowIndex(), 59L);
+		assertEquals(failures.get(1).getRowIndex(), 119L);
+	}
+
+	@Test
+	public void testDeleteLimitsBatchLength() {
+		List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+		Engage engage = mock(Engage.class);
+		when(engage.deleteRelationalTableData(any(DeleteRelationalTableDataOptions.class))).thenAnswer(invocation -> {
+			DeleteRelationalTableDataOptions options = invocation.getArgument(0);
+			batchSizes.add(options.getRows().size());
+
+			return new ResponseContainer<DeleteRelationalTableDataResponse>(new DeleteRelationalTableDataResponse());
+		});
+
+		RelationalTableDeleteProcessor processor = new RelationalTableDeleteProcessor(engage, 5L);
+		processor.setMaxBatchLength(10);
+		processor.setMaxInFlight(1);
+		processor.delete(IntStream.range(0, 5).mapToObj(this::createKey));
+
+		// every key is "Id" plus one digit, so three keys fit into ten characters
+		assertEquals(batchSizes.toString(), "[3, 2]");
+	}
+
+	@Test
+	public void testPurge() {
+		List<PurgeTableOptions> purges = new ArrayList<PurgeTableOptions>();
+		Engage engage = mock(Engage.class);
+		when(engage.purgeTable(any(PurgeTableOptions.class))).thenAnswer(invocation -> {
+			purges.add(invocation.getArgument(0));
+			PurgeTableResponse response = new PurgeTableResponse();
+			response.setJobId(15L);
+
+			return new ResponseContainer<PurgeTableResponse>(response);
+		});
+
+		RelationalTableDeleteProcessor processor = new RelationalTableDeleteProcessor(engage, 5L);
+		LocalDateTime deleteBefore = LocalDateTime.of(2018, 1, 1, 0, 0);
+
+		assertEquals(processor.purge().getJobId(), Long.valueOf(15L));
+		assertEquals(processor.purge(deleteBefore).getJobId(), Long.valueOf(15L));
+		assertEquals(purges.get(0).getTableId(), Long.valueOf(5L));
+		assertNull(purges.get(0).getDeleteBefore());
+		assertEquals(purges.get(1).getDeleteBefore(), deleteBefore);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testConstructorRejectsBadTableId() {
+		new RelationalTableDeleteProcessor(mock(Engage.class), 0L);
+	}
+}
@@ -0,0 +1,132 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.constants.RelationalTableColumnType;
+import com.github.ka4ok85.wca.options.CreateTableOptions;
+import com.github.ka4ok85.wca.options.ImportTableOptions;
+import com.github.ka4ok85.wca.options.containers.RelationalTableColumn;
+import com.github.ka4ok85.wca.response.ImportTableResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.sftp.SFTP;
+
+public class RelationalTableImportProcessorTest {
+
+	@Test
+	public void testLoadStreamsRowsAndMapFileToSftp() {
+		Map<String, ByteArrayOutputStream> uploads = new HashMap<String, ByteArrayOutputStream>();
+		List<ImportTableOptions> imports = new ArrayList<ImportTableOptions>();
+		Engage engage = getEngage(uploads, imports);
+
+		RelationalTableImportProcessor processor = new RelationalTableImportProcessor(engage, getSchema());
+		ImportTableResponse response = processor
+				.load(IntStream.range(0, 3).mapToObj(i -> new String[] { String.valueOf(i), "Item, " + i }));
+
+		assertEquals(response.getJobId(), Long.valueOf(77L));
+		assertEquals(imports.size(), 1);
+		ImportTableOptions options = imports.get(0);
+		assertTrue(options.isUploaded());
+		assertTrue(options.getSourceFile().startsWith("table_"));
+		assertTrue(options.getSourceFile().endsWith(".csv"));
+		assertTrue(options.getMapFile().endsWith(".xml"));
+
+		String source = new String(uploads.get(options.getSourceFile()).toByteArray(), StandardCharsets.UTF_8);
+		assertEquals(source, "Order ID,Name\r\n0,\"Item, 0\"\r\n1,\"Item, 1\"\r\n2,\"Item, 2\"\r\n");
+
+		String map = new String(uploads.get(options.getMapFile()).toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(map.contains("<ACTION>CREATE</ACTION><TABLE_NAME>Purchases</TABLE_NAME>"));
+		assertTrue(map.contains("<COLUMNS>"));
+	}
+
+	@Test
+	public void testLoadIntoExistingTable() {
+		Map<String, ByteArrayOutputStream> uploads = new HashMap<String, ByteArrayOutputStream>();
+		List<ImportTableOptions> imports = new ArrayList<ImportTableOptions>();
+		Engage engage = getEngage(uploads, imports);
+
+		RelationalTableImportProcessor processor = new RelationalTableImportProcessor(engage, getSchema());
+		processor.setTableId(100L);
+		processor.setImportMapperAction(ImportMapperAction.UPDATE_ONLY);
+		processor.load(Collections.singletonList(new String[] { "1", "Item" }).iterator());
+
+		String map = new String(uploads.get(imports.get(0).getMapFile()).toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(map.contains("<ACTION>UPDATE_ONLY</ACTION><TABLE_ID>100</TABLE_ID>"));
+	}
+
+	@Test
+	public void testLoadRejectsRowWithWrongSizeAndRemovesUploadedFile() {
+		Map<String, ByteArrayOutputStream> uploads = new HashMap<String, ByteArrayOutputStream>();
+		Engage engage = getEngage(uploads, new ArrayList<ImportTableOptions>());
+		RelationalTableImportProcessor processor = new RelationalTableImportProcessor(engage, getSchema());
+		try {
+			processor.load(Arrays.asList(new String[] { "1", "Item" }, new String[] { "2" }).iterator());
+			fail("Row with wrong size must be rejected");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().endsWith("Provided row index = 1"));
+		}
+
+		assertEquals(uploads.size(), 1);
+		verify(engage.getSftp()).deleteUploadedFile(uploads.keySet().iterator().next());
+		verify(engage, never()).importTable(any(ImportTableOptions.class));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSetImportMapperActionRequiresTableId() {
+		RelationalTableImportProcessor processor = new RelationalTableImportProcessor(mock(Engage.class),
+				getSchema());
+		processor.setImportMapperAction(ImportMapperAction.ADD_ONLY);
+	}
+
+	private Engage getEngage(Map<String, ByteArrayOutputStream> uploads, List<ImportTableOptions> imports) {
+		SFTP sftp = mock(SFTP.class);
+		when(sftp.openUploadStream(anyString())).thenAnswer(invocation -> {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			uploads.put(invocation.getArgument(0), outputStream);
+
+			return outputStream;
+		});
+
+		Engage engage = mock(Engage.class);
+		when(engage.getSftp()).thenReturn(sftp);
+		when(engage.importTable(any(ImportTableOptions.class))).thenAnswer(invocation -> {
+			imports.add(invocation.getArgument(0));
+			ImportTableResponse response = new ImportTableResponse();
+			response.setJobId(77L);
+
+			return new ResponseContainer<ImportTableResponse>(response);
+		});
+
+		return engage;
+	}
+
+	private CreateTableOptions getSchema() {
+		CreateTableOptions schema = new CreateTableOptions("Purchases");
+		RelationalTableColumn orderId = new RelationalTableColumn("Order ID", RelationalTableColumnType.NUMERIC);
+		orderId.setIsKeyColumn(true);
+		schema.setColumns(Arrays.asList(orderId, new RelationalTableColumn("Name", RelationalTableColumnType.TEXT)));
+
+		return schema;
+	}
+}
@@ -0,0 +1,118 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.InsertUpdateRelationalTableOptions;
+import com.github.ka4ok85.wca.response.InsertUpdateRelationalTableResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.RelationalTableRecordFailure;
+
+public class RelationalTableUpsertProcessorTest {
+
+	private Map<String, String> createRow(int i) {
+		Map<String, String> row = new HashMap<String, String>();
+		row.put("Id", String.valueOf(i));
+		row.put("Value", i % 70 == 0 ? "bad" : "good");
+
+		return row;
+	}
+
+	@Test
+	public void testUpsertSplitsRowsAndMapsFailures() {
+		List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+		Engage engage = mock(Engage.class);
+		when(engage.insertUpdateRelationalTable(any(InsertUpdateRelationalTableOptions.class)))
+				.thenAnswer(invocation -> {
+			InsertUpdateRelationalTableOptions options = invocation.getArgument(0);
+			batchSizes.add(options.getRows().size());
+
+			InsertUpdateRelationalTableResponse response = new InsertUpdateRelationalTableResponse();
+			List<RelationalTableRecordFailure> failures = new ArrayList<RelationalTableRecordFailure>();
+			for (Map<String, String> row : options.getRows()) {
+				if (row.get("Value").equals("bad")) {
+					RelationalTableRecordFailure failure = new RelationalTableRecordFailure();
+					failure.setFailureType("permanent");
+					failure.setDescription("Bad value");
+					for (Map.Entry<String, String> entry : row.entrySet()) {
+						failure.getColumns().add(Collections.singletonMap(entry.getKey(), entry.getValue()));
+					}
+					failures.add(failure);
+				}
+			}
+			response.setFailures(failures);
+
+			return new ResponseContainer<InsertUpdateRelationalTableResponse>(response);
+		});
+
+		RelationalTableUpsertProcessor processor = new RelationalTableUpsertProcessor(engage, 5L);
+		processor.setMaxInFlight(2);
+		List<RelationalTableRowFailure> failures = processor.upsert(IntStream.range(0, 250).mapToObj(this::createRow));
+
+		Collections.sort(batchSizes);
+		assertEquals(batchSizes.toString(), "[50, 100, 100]");
+		assertEquals(failures.size(), 4);
+		assertEquals(failures.get(0).getRowIndex(), 0L);
+		assertEquals(failures.get(1).getRowIndex(), 70L);
+		assertEquals(failures.get(2).getRowIndex(), 140L);
+		assertEquals(failures.get(3).getRowIndex(), 210L);
+		assertEquals(failures.get(3).getFailure().getDescription(), "Bad value");
+	}
+
+	@Test
+	public void testUpsertReportsRowsOfFailedBatchAndKeepsOtherFailures() {
+		Engage engage = mock(Engage.class);
+		when(engage.insertUpdateRelationalTable(any(InsertUpdateRelationalTableOptions.class)))
+				.thenAnswer(invocation -> {
+			InsertUpdateRelationalTableOptions options = invocation.getArgument(0);
+			if (options.getRows().get(0).get("Id").equals("100")) {
+				throw new EngageApiException("Connection reset");
+			}
+
+			InsertUpdateRelationalTableResponse response = new InsertUpdateRelationalTableResponse();
+			RelationalTableRecordFailure failure = new RelationalTableRecordFailure();
+			failure.setDescription("Bad value");
+			failure.getColumns().add(Collections.singletonMap("Id", options.getRows().get(0).get("Id")));
+			response.setFailures(Collections.singletonList(failure));
+
+			return new ResponseContainer<InsertUpdateRelationalTableResponse>(response);
+		});
+
+		RelationalTableUpsertProcessor processor = new RelationalTableUpsertProcessor(engage, 5L);
+		List<RelationalTableRowFailure> failures = processor.upsert(IntStream.range(0, 250).mapToObj(this::createRow));
+
+		assertEquals(failures.size(), 102);
+		assertEquals(failures.get(0).getRowIndex(), 0L);
+		assertEquals(failures.get(0).getFailure().getDescription(), "Bad value");
+		assertEquals(failures.get(1).getRowIndex(), 100L);
+		assertNull(failures.get(1).getFailure());
+		assertEquals(failures.get(1).getException().getMessage(), "Connection reset");
+		assertEquals(failures.get(100).getRowIndex(), 199L);
+		assertEquals(failures.get(101).getRowIndex(), 200L);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSetBatchSizeRejectsTooLargeBatch() {
+		new RelationalTableUpsertProcessor(mock(Engage.class), 5L).setBatchSize(101);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testUpsertRejectsEmptyRow() {
+		new RelationalTableUpsertProcessor(mock(Engage.class), 5L)
+				.upsert(Collections.singletonList(Collections.<String, String>emptyMap()).iterator());
+	}
+}
@@ -0,0 +1,202 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.GetSentMailingsForOrgOptions;
+import com.github.ka4ok85.wca.response.GetSentMailingsForOrgResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.response.containers.SentMailing;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+public class SentMailingsStreamProcessorTest {
+
+	private final LocalDateTime start = LocalDateTime.of(2018, 1, 1, 0, 0);
+	private final List<SentMailing> sentMailings = new ArrayList<SentMailing>();
+
+	private void addMailings(LocalDateTime from, int count, Duration step) {
+		for (int i = 0; i < count; i++) {
+			SentMailing mailing = new SentMailing();
+			mailing.setMailingId((long) sentMailings.size());
+			mailing.setSentDateTime(from.plus(step.multipliedBy(i)));
+			sentMailings.add(mailing);
+		}
+	}
+
+	private Engage createEngage(int failAbove) {
+		return createEngage(failAbove, "Response is too large");
+	}
+
+	private Engage createEngage(int failAbove, String fault) {
+		Engage engage = mock(Engage.class);
+		when(engage.getSentMailingsForOrg(any(GetSentMailingsForOrgOptions.class))).thenAnswer(invocation -> {
+			DateTimeRange range = ((GetSentMailingsForOrgOptions) invocation.getArgument(0)).getDateTimeRange();
+			GetSentMailingsForOrgResponse response = new GetSentMailingsForOrgResponse();
+			for (SentMailing mailing : sentMailings) {
+				if (mailing.getSentDateTime().isBefore(range.getStartDateTime()) == false
+						&& mailing.getSentDateTime().isAfter(range.getEndDateTime()) == false) {
+					response.getSentMailings().add(mailing);
+				}
+			}
+
+			if (response.getSentMailings().size() > failAbove) {
+				throw new EngageApiException(fault);
+			}
+
+			return new ResponseContainer<GetSentMailingsForOrgResponse>(response);
+		});
+
+		return engage;
+	}
+
+	private List<Long> stream(SentMailingsStreamProcessor processor, DateTimeRange range) {
+		List<Long> mailingIds = new ArrayList<Long>();
+		long count = processor.stream(new GetSentMailingsForOrgOptions(range),
+				mailing -> mailingIds.add(mailing.getMailingId()));
+		assertEquals(count, mailingIds.size());
+
+		return mailingIds;
+	}
+
+	@Test
+	public void testAllMailingsAreStreamedInOrderOnceAndWindowAdapts() {
+		addMailings(start, 20, Duration.ofDays(5));
+		addMailings(start.plusDays(100), 400, Duration.ofMinutes(10));
+		addMailings(start.plusDays(105), 20, Duration.ofDays(5));
+		SentMailingsStreamProcessor processor = new SentMailingsStreamProcessor(createEngage(Integer.MAX_VALUE));
+		processor.setConcurrency(3);
+		processor.setWindowSize(50);
+
+		List<Long> mailingIds = stream(processor, new DateTimeRange(start, start.plusDays(365)));
+		assertEquals(mailingIds.size(), sentMailings.size());
+		for (int i = 0; i < mailingIds.size(); i++) {
+			assertEquals(mailingIds.get(i), Long.valueOf(i));
+		}
+
+		assertEquals(processor.getSplitCount(), 0L);
+		assertTrue(processor.getCallCount() < 52);
+	}
+
+	@Test
+	public void testFailedWindowIsSplit() {
+		addMailings(start.plusHours(1), 300, Duration.ofMinutes(3));
+		SentMailingsStreamProcessor processor = new SentMailingsStreamProcessor(createEngage(100));
+		processor.setInitialWindow(30, TimeUnit.DAYS);
+
+		List<Long> mailingIds = stream(processor, new DateTimeRange(start, start.plusDays(60)));
+		assertEquals(mailingIds.size(), 300);
+		assertEquals(mailingIds.get(299), Long.valueOf(299L));
+		assertTrue(processor.getSplitCount() > 0);
+	}
+
+	@Test(expected = EngageApiException.class)
+	public void testFailureOfMinimumWindowIsThrown() {
+		addMailings(start, 10, Duration.ofSeconds(1));
+		SentMailingsStreamProcessor processor = new SentMailingsStreamProcessor(createEngage(5));
+		processor.setMinimumWindow(1, TimeUnit.MINUTES);
+		stream(processor, new DateTimeRange(start, start.plusDays(1)));
+	}
+
+	@Test
+	public void testFailureNotCausedBySizeIsNotSplit() {
+		addMailings(start, 10, Duration.ofSeconds(1));
+		SentMailingsStreamProcessor processor = new SentMailingsStreamProcessor(createEngage(5, "Invalid user"));
+		try {
+			stream(processor, new DateTimeRange(start, start.plusDays(1)));
+			fail("Failure must be thrown");
+		} catch (EngageApiException e) {
+			assertEquals(e.getMessage(), "Invalid user");
+		}
+
+		assertEquals(processor.getCallCount(), 1L);
+		assertEquals(processor.getSplitCount(), 0L);
+	}
+
+	@Test
+	public void testSplitDepthIsCapped() {
+		addMailings(start, 10, Duration.ofSeconds(1));
+		SentMailingsStreamProcessor processor = new SentMailingsStreamProcessor(createEngage(5));
+		processor.setMinimumWindow(1, TimeUnit.SECONDS);
+		processor.setInitialWindow(1, TimeUnit.DAYS);
+		processor.setMaxSplitDepth(3);
+		try {
+			stream(processor, new DateTimeRange(start, start.plusDays(1)));
+			fail("Failure must be thrown");
+		} catch (EngageApiException e) {
+			assertEquals(e.getMessage(), "Response is too large");
+		}
+
+		assertEquals(processor.getSplitCount(), 3L);
+		assertEquals(processor.getCallCount(), 4L);
+	}
+
+	@Test
+	public void testOnlySizeAndTimeoutFailuresAreSplittable() {
+		assertTrue(SentMailingsStreamProcessor.isSplittable(new EngageApiException("Request Timeout")));
+		assertTrue(SentMailingsStreamProcessor.isSplittable(new EngageApiException("Too many results")));
+		assertTrue(SentMailingsStreamProcessor.isSplittable(
+				new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))));
+		assertTrue(SentMailingsStreamProcessor
+				.isSplittable(new HttpServerErrorException(HttpStatus.GATEWAY_TIMEOUT)));
+		assertFalse(SentMailingsStreamProcessor
+				.isSplittable(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)));
+		assertFalse(SentMailingsStreamProcessor.isSplittable(new EngageApiException("Invalid user")));
+		assertFalse(SentMailingsStreamProcessor.isSplittable(new RuntimeException()));
+		assertFalse(SentMailingsStreamProcessor.isSplittable(new EngageApiException("Rate limit exceeded")));
+		assertFalse(SentMailingsStreamProcessor
+				.isSplittable(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+	}
+
+	@Test
+	public void testThrottlingFailuresAreDetected() {
+		assertTrue(SentMailingsStreamProcessor.isThrottled(new EngageApiException("Rate limit exceeded")));
+		assertTrue(SentMailingsStreamProcessor.isThrottled(new EngageApiException("API quota exceeded")));
+		assertTrue(SentMailingsStreamProcessor
+				.isThrottled(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+		assertTrue(SentMailingsStreamProcessor
+				.isThrottled(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+		assertFalse(SentMailingsStreamProcessor.isThrottled(new EngageApiException("Response is too large")));
+		assertFalse(SentMailingsStreamProcessor
+				.isThrottled(new HttpServerErrorException(HttpStatus.GATEWAY_TIMEOUT)));
+	}
+
+	@Test
+	public void testThrottledWindowIsRepeatedWithoutSplit() {
+		addMailings(start, 10, Duration.ofHours(1));
+		SentMailingsStreamProcessor processor = new SentMailingsStreamProcessor(
+				createEngage(5, "Rate limit exceeded"));
+		processor.setMinimumWindow(1, TimeUnit.SECONDS);
+		processor.setMaxThrottleRetries(2);
+		processor.setThrottleDelay(1, TimeUnit.MILLISECONDS);
+		try {
+			stream(processor, new DateTimeRange(start, start.plusDays(1)));
+			fail("Failure must be thrown");
+		} catch (EngageApiException e) {
+			assertEquals(e.getMessage(), "Rate limit exceeded");
+		}
+
+		assertEquals(processor.getSplitCount(), 0L);
+		assertEquals(processor.getThrottleCount(), 2L);
+		assertEquals(processor.getCallCount(), 3L);
+	}
+}
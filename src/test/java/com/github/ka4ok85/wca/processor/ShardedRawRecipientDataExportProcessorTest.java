@@ -0,0 +1,211 @@
+package com.github.ka4ok85.wca.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.Engage;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.RawRecipientDataExportOptions;
+import com.github.ka4ok85.wca.response.RawRecipientDataExportResponse;
+import com.github.ka4ok85.wca.response.ResponseContainer;
+import com.github.ka4ok85.wca.utils.DateTimeRange;
+
+public class ShardedRawRecipientDataExportProcessorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	/*
+	 * Writes shard file the way WCA delivers it: zip archive with single data
+	 * file.
+	 */
+	private void writeArchive(String file, String dataFileName, String content) throws IOException {
+		try (ZipOutputStream archive = new ZipOutputStream(Files.newOutputStream(Paths.get(file)))) {
+			archive.putNextEntry(new ZipEntry(dataFileName));
+			archive.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private void exportDayShards(Engage engage, AtomicInteger failures) {
+		when(engage.rawRecipientDataExport(any(RawRecipientDataExportOptions.class))).thenAnswer(invocation -> {
+			RawRecipientDataExportOptions shard = invocation.getArgument(0);
+			String day = shard.getEventRange().getFormattedStartDateTime().substring(0, 10);
+			if (shard.getLocalAbsoluteFilePath().endsWith(".part1") && failures.getAndIncrement() == 0) {
+				throw new EngageApiException("Job failed");
+			}
+
+			String dataFileName = "Raw Recipient Data Export " + day.replace('/', '-') + ".csv";
+			writeArchive(shard.getLocalAbsoluteFilePath(), dataFileName,
+					"Recipient Id,Event Timestamp\r\n1," + day + "\r\n2," + day + "\r\n");
+
+			return new ResponseContainer<RawRecipientDataExportResponse>(new RawRecipientDataExportResponse());
+		});
+	}
+
+	@Test
+	public void testSplitEventRange() {
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setEventRange(
+				new DateTimeRange(LocalDateTime.of(2018, 1, 1, 0, 0, 0), LocalDateTime.of(2018, 1, 4, 0, 0, 0)));
+		options.setExportFileName("rrde");
+		options.setEventOpens(true);
+
+		List<RawRecipientDataExportOptions> shards = new ShardedRawRecipientDataExportProcessor(mock(Engage.class), 3)
+				.split(options);
+
+		assertEquals(shards.size(), 3);
+		assertEquals(shards.get(0).getEventRange().getStartDateTime(), LocalDateTime.of(2018, 1, 1, 0, 0, 0));
+		assertEquals(shards.get(0).getEventRange().getEndDateTime(), LocalDateTime.of(2018, 1, 1, 23, 59, 59));
+		assertEquals(shards.get(1).getEventRange().getStartDateTime(), LocalDateTime.of(2018, 1, 2, 0, 0, 0));
+		assertEquals(shards.get(2).getEventRange().getEndDateTime(), LocalDateTime.of(2018, 1, 4, 0, 0, 0));
+		assertEquals(shards.get(2).getExportFileName(), "rrde_2");
+		assertEquals(shards.get(1).isEventOpens(), true);
+		assertEquals(shards.get(1).isAllEventTypes(), false);
+	}
+
+	@Test
+	public void testSplitMailingReportId() {
+		List<HashMap<String, Long>> mailings = new ArrayList<HashMap<String, Long>>();
+		for (long i = 1; i <= 5; i++) {
+			HashMap<String, Long> mailing = new HashMap<String, Long>();
+			mailing.put("mailingId", i);
+			mailings.add(mailing);
+		}
+
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setMailingReportId(mailings);
+
+		List<RawRecipientDataExportOptions> shards = new ShardedRawRecipientDataExportProcessor(mock(Engage.class), 2)
+				.split(options);
+
+		assertEquals(shards.size(), 2);
+		assertEquals(shards.get(0).getMailingReportId().size(), 2);
+		assertEquals(shards.get(1).getMailingReportId().size(), 3);
+		assertEquals(shards.get(1).getMailingReportId().get(0).get("mailingId"), Long.valueOf(3L));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSplitRequiresRangeOrMailings() {
+		new ShardedRawRecipientDataExportProcessor(mock(Engage.class), 2).split(new RawRecipientDataExportOptions());
+	}
+
+	@Test
+	public void testExportMergesShardArchivesAndRetriesFailedShard() throws IOException {
+		File target = new File(temporaryFolder.getRoot(), "rrde.zip");
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setEventRange(
+				new DateTimeRange(LocalDateTime.of(2018, 1, 1, 0, 0, 0), LocalDateTime.of(2018, 1, 3, 0, 0, 0)));
+		options.setLocalAbsoluteFilePath(target.getAbsolutePath());
+
+		Engage engage = mock(Engage.class);
+		exportDayShards(engage, new AtomicInteger());
+
+		List<ResponseContainer<RawRecipientDataExportResponse>> responses = new ShardedRawRecipientDataExportProcessor(
+				engage, 2).export(options);
+
+		assertEquals(responses.size(), 2);
+		verify(engage, times(3)).rawRecipientDataExport(any(RawRecipientDataExportOptions.class));
+		try (ZipInputStream archive = new ZipInputStream(Files.newInputStream(target.toPath()))) {
+			assertEquals(archive.getNextEntry().getName(), "Raw Recipient Data Export 01-01-2018.csv");
+			BufferedReader reader = new BufferedReader(new InputStreamReader(archive, StandardCharsets.UTF_8));
+			assertEquals(reader.lines().collect(Collectors.toList()), Arrays.asList("Recipient Id,Event Timestamp",
+					"1,01/01/2018", "2,01/01/2018", "1,01/02/2018", "2,01/02/2018"));
+			assertEquals(archive.getNextEntry(), null);
+		}
+
+		assertFalse(new File(target.getAbsolutePath() + ".part0").exists());
+	}
+
+	@Test
+	public void testExportMergesShardArchivesIntoPlainFile() throws IOException {
+		Path target = temporaryFolder.getRoot().toPath().resolve("rrde.csv");
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setEventRange(
+				new DateTimeRange(LocalDateTime.of(2018, 1, 1, 0, 0, 0), LocalDateTime.of(2018, 1, 3, 0, 0, 0)));
+		options.setLocalAbsoluteFilePath(target.toString());
+
+		Engage engage = mock(Engage.class);
+		exportDayShards(engage, new AtomicInteger(1));
+		new ShardedRawRecipientDataExportProcessor(engage, 2).export(options);
+
+		assertEquals(Files.readAllLines(target), Arrays.asList("Recipient Id,Event Timestamp", "1,01/01/2018",
+				"2,01/01/2018", "1,01/02/2018", "2,01/02/2018"));
+	}
+
+	@Test(expected = EngageApiException.class)
+	public void testExportFailsAfterMaxAttempts() {
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setEventRange(
+				new DateTimeRange(LocalDateTime.of(2018, 1, 1, 0, 0, 0), LocalDateTime.of(2018, 1, 3, 0, 0, 0)));
+
+		Engage engage = mock(Engage.class);
+		when(engage.rawRecipientDataExport(any(RawRecipientDataExportOptions.class)))
+				.thenThrow(new EngageApiException("Job failed"));
+
+		ShardedRawRecipientDataExportProcessor processor = new ShardedRawRecipientDataExportProcessor(engage, 2);
+		processor.setMaxAttempts(2);
+		processor.export(options);
+	}
+
+	@Test
+	public void testExportRemovesShardFilesWhenShardFails() throws IOException {
+		File target = new File(temporaryFolder.getRoot(), "rrde.csv");
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setEventRange(
+				new DateTimeRange(LocalDateTime.of(2018, 1, 1, 0, 0, 0), LocalDateTime.of(2018, 1, 3, 0, 0, 0)));
+		options.setLocalAbsoluteFilePath(target.getAbsolutePath());
+
+		Engage engage = mock(Engage.class);
+		when(engage.rawRecipientDataExport(any(RawRecipientDataExportOptions.class))).thenAnswer(invocation -> {
+			RawRecipientDataExportOptions shard = invocation.getArgument(0);
+			if (shard.getLocalAbsoluteFilePath().endsWith(".part1")) {
+				throw new EngageApiException("Job failed");
+			}
+
+			writeArchive(shard.getLocalAbsoluteFilePath(), "rrde.csv", "Recipient Id\r\n1\r\n");
+
+			return new ResponseContainer<RawRecipientDataExportResponse>(new RawRecipientDataExportResponse());
+		});
+
+		ShardedRawRecipientDataExportProcessor processor = new ShardedRawRecipientDataExportProcessor(engage, 2);
+		processor.setMaxAttempts(1);
+		try {
+			processor.export(options);
+			fail("EngageApiException expected");
+		} catch (EngageApiException e) {
+			assertEquals(e.getMessage(), "Job failed");
+		}
+
+		assertFalse(new File(target.getAbsolutePath() + ".part0").exists());
+		assertFalse(target.exists());
+	}
+}
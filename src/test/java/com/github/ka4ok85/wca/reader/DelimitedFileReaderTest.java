@@ -0,0 +1,120 @@
+package com.github.ka4ok85.wca.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.constants.ExportFormat;
+
+public class DelimitedFileReaderTest {
+
+	@Test
+	public void testNextRecordCsv() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader("a,b,c\r\n1,,3\n"), ExportFormat.CSV);
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getFieldCount(), 3);
+		assertEquals(reader.getString(0), "a");
+		assertEquals(reader.getString(2), "c");
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getFieldCount(), 3);
+		assertEquals(reader.getLong(0, -1), 1L);
+		assertTrue(reader.isEmpty(1));
+		assertEquals(reader.getLong(1, -1), -1L);
+		assertEquals(reader.getRecordNumber(), 2L);
+
+		assertFalse(reader.nextRecord());
+		reader.close();
+	}
+
+	@Test
+	public void testNextRecordHonorsQuotes() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(
+				new StringReader("\"x,y\",\"multi\nline\",\"say \"\"hi\"\"\"\n\"last\""), ExportFormat.CSV);
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getFieldCount(), 3);
+		assertEquals(reader.getString(0), "x,y");
+		assertEquals(reader.getString(1), "multi\nline");
+		assertEquals(reader.getString(2), "say \"hi\"");
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getString(0), "last");
+		assertFalse(reader.nextRecord());
+		reader.close();
+	}
+
+	@Test
+	public void testNextRecordSkipsBlankLines() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader("\n1|2\n\n\n3|4"), ExportFormat.PIPE);
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getString(1), "2");
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getString(0), "3");
+		assertFalse(reader.nextRecord());
+		reader.close();
+	}
+
+	@Test
+	public void testNextRecordTabDoesNotUseQuotes() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader("\"a\tb\"\n"), ExportFormat.TAB);
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getFieldCount(), 2);
+		assertEquals(reader.getString(0), "\"a");
+		assertEquals(reader.getString(1), "b\"");
+		reader.close();
+	}
+
+	@Test
+	public void testEqualsIgnoreCase() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader("Click Through"), ExportFormat.CSV);
+
+		assertTrue(reader.nextRecord());
+		assertTrue(reader.equalsIgnoreCase(0, "click through"));
+		assertFalse(reader.equalsIgnoreCase(0, "Click"));
+		reader.close();
+	}
+
+	@Test
+	public void testNextRecordGrowsBuffers() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			builder.append(i).append(',');
+		}
+		for (int i = 0; i < 5000; i++) {
+			builder.append('x');
+		}
+
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader(builder.toString()), ExportFormat.CSV);
+
+		assertTrue(reader.nextRecord());
+		assertEquals(reader.getFieldCount(), 101);
+		assertEquals(reader.getLong(99, -1), 99L);
+		assertEquals(reader.getLength(100), 5000);
+		reader.close();
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testGetLongRejectsBadValue() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader("12a"), ExportFormat.CSV);
+		reader.nextRecord();
+		reader.getLong(0, 0);
+		reader.close();
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetStringRejectsBadIndex() throws IOException {
+		DelimitedFileReader reader = new DelimitedFileReader(new StringReader("1,2"), ExportFormat.CSV);
+		reader.nextRecord();
+		reader.getString(2);
+		reader.close();
+	}
+}
@@ -0,0 +1,78 @@
+package com.github.ka4ok85.wca.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.constants.FileEncoding;
+
+public class ImportErrorFileReaderTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testReadsReasonAndRowNumberColumns() throws IOException {
+		String content = "Row,Email,Name,Error\r\n" + "12,bad-email,\"Doe, John\",Invalid email address\r\n"
+				+ "40,,Jane,Email is required\r\n";
+
+		try (ImportErrorFileReader reader = new ImportErrorFileReader(new StringReader(content), true)) {
+			assertEquals(reader.getColumns(), Arrays.asList("Email", "Name"));
+
+			ImportRejection rejection = reader.next();
+			assertEquals(rejection.getRowNumber(), Long.valueOf(12L));
+			assertEquals(rejection.getReason(), "Invalid email address");
+			assertArrayEquals(rejection.getValues(), new String[] { "bad-email", "Doe, John" });
+			assertEquals(rejection.getValue("name"), "Doe, John");
+
+			rejection = reader.next();
+			assertEquals(rejection.getRowNumber(), Long.valueOf(40L));
+			assertEquals(rejection.getValue("Email"), "");
+
+			assertNull(reader.next());
+		}
+	}
+
+	@Test
+	public void testReasonDefaultsToLastColumn() throws IOException {
+		Path file = temporaryFolder.newFile("import.err").toPath();
+		Files.write(file, "Email,Country,Description\nuser@example.com,XX,Unknown country\n"
+				.getBytes(StandardCharsets.UTF_8));
+
+		List<ImportRejection> rejections = new ArrayList<ImportRejection>();
+		try (ImportErrorFileReader reader = new ImportErrorFileReader(file.toString(), FileEncoding.UTF_8)) {
+			assertEquals(reader.forEach(rejections::add), 1L);
+		}
+
+		assertNull(rejections.get(0).getRowNumber());
+		assertEquals(rejections.get(0).getReason(), "Unknown country");
+		assertEquals(rejections.get(0).getColumns(), Arrays.asList("Email", "Country"));
+	}
+
+	@Test
+	public void testReadsFileWithoutHeader() throws IOException {
+		try (ImportErrorFileReader reader = new ImportErrorFileReader(new StringReader("a,b,Bad row\nc,d,Bad row\n"),
+				false)) {
+			assertNull(reader.next().getRowNumber());
+
+			ImportRejection rejection = reader.next();
+			assertNull(rejection.getRowNumber());
+			assertEquals(rejection.getReason(), "Bad row");
+			assertArrayEquals(rejection.getValues(), new String[] { "c", "d" });
+			assertNull(rejection.getValue("c"));
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com.github.ka4ok85.wca.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.ka4ok85.wca.constants.ExportFormat;
+import com.github.ka4ok85.wca.constants.FileEncoding;
+import com.github.ka4ok85.wca.options.ExportListOptions;
+
+public class ParallelExportFileReaderTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private String createCsvContent(int rows) {
+		StringBuilder builder = new StringBuilder("Email,Name,Comment\r\n");
+		for (int i = 0; i < rows; i++) {
+			builder.append("user").append(i).append("@example.com,");
+			if (i % 3 == 0) {
+				builder.append("\"Last, First ").append(i).append("\",\"line one\r\nline \"\"two\"\"\n").append(i)
+						.append("\"");
+			} else {
+				builder.append("Name ").append(i).append(",plain ").append(i);
+			}
+			builder.append("\r\n");
+		}
+
+		return builder.toString();
+	}
+
+	private File writeFile(String content) throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+		return file;
+	}
+
+	private List<String[]> readSequentially(String content, ExportFormat exportFormat) throws IOException {
+		List<String[]> rows = new ArrayList<String[]>();
+		try (DelimitedFileReader reader = new DelimitedFileReader(new StringReader(content), exportFormat)) {
+			reader.nextRecord();
+			while (reader.nextRecord()) {
+				rows.add(ParallelExportFileReader.toArray(reader));
+			}
+		}
+
+		return rows;
+	}
+
+	@Test
+	public void testStreamOrderedMatchesSequentialRead() throws IOException {
+		String content = createCsvContent(500);
+		File file = writeFile(content);
+
+		ParallelExportFileReader reader = new ParallelExportFileReader(file.getAbsolutePath(), ExportFormat.CSV,
+				FileEncoding.UTF_8);
+		reader.setChunkSize(37);
+
+		List<String[]> rows;
+		try (Stream<String[]> stream = reader.stream(true)) {
+			rows = stream.collect(Collectors.toList());
+		}
+
+		List<String[]> expected = readSequentially(content, ExportFormat.CSV);
+		assertTrue(reader.getChunkCount() > 1);
+		assertArrayEquals(reader.getHeader(), new String[] { "Email", "Name", "Comment" });
+		assertEquals(rows.size(), 500);
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(rows.get(i), expected.get(i));
+		}
+	}
+
+	@Test
+	public void testStrayQuoteInUnquotedValueDoesNotShiftChunks() throws IOException {
+		StringBuilder builder = new StringBuilder("Email,Name,Comment\r\n");
+		for (int i = 0; i < 200; i++) {
+			builder.append("user").append(i).append("@example.com,");
+			if (i % 7 == 0) {
+				builder.append("Name ").append(i).append(",5\" screen");
+			} else {
+				builder.append("\"Name\r\n").append(i).append("\",plain ").append(i);
+			}
+			builder.append("\r\n");
+		}
+
+		String content = builder.toString();
+		File file = writeFile(content);
+		List<String[]> expected = readSequentially(content, ExportFormat.CSV);
+
+		for (int chunkSize : new int[] { 13, 29, 64 }) {
+			ParallelExportFileReader reader = new ParallelExportFileReader(file.getAbsolutePath(), ExportFormat.CSV,
+					FileEncoding.UTF_8);
+			reader.setChunkSize(chunkSize);
+
+			List<String[]> rows;
+			try (Stream<String[]> stream = reader.stream(true)) {
+				rows = stream.collect(Collectors.toList());
+			}
+
+			assertEquals(rows.size(), 200);
+			for (int i = 0; i < expected.size(); i++) {
+				assertArrayEquals(rows.get(i), expected.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testStreamUnorderedReturnsAllRows() throws IOException {
+		File file = writeFile(createCsvContent(300));
+
+		ExportListOptions options = new ExportListOptions(1L);
+		options.setExportFormat(ExportFormat.CSV);
+		options.setFileEncoding(FileEncoding.UTF_8);
+		options.setLocalAbsoluteFilePath(file.getAbsolutePath());
+		ParallelExportFileReader reader = new ParallelExportFileReader(options);
+		reader.setChunkSize(101);
+
+		List<String> emails;
+		try (Stream<String[]> stream = reader.stream(false)) {
+			emails = stream.map(row -> row[0]).collect(Collectors.toList());
+		}
+
+		emails.sort(Comparator.comparingInt(email -> Integer.parseInt(email.substring(4, email.indexOf('@')))));
+		assertEquals(emails.size(), 300);
+		for (int i = 0; i < 300; i++) {
+			assertEquals(emails.get(i), "user" + i + "@example.com");
+		}
+	}
+
+	@Test
+	public void testForEachChunk() throws IOException {
+		File file = writeFile(createCsvContent(200));
+
+		ParallelExportFileReader reader = new ParallelExportFileReader(file.getAbsolutePath(), ExportFormat.CSV,
+				FileEncoding.UTF_8);
+		reader.setChunkSize(64);
+		reader.setForkJoinPool(new ForkJoinPool(3));
+
+		AtomicLong rows = new AtomicLong();
+		ConcurrentHashMap<Integer, Boolean> chunkIndexes = new ConcurrentHashMap<Integer, Boolean>();
+		reader.forEachChunk((chunkIndex, chunkReader) -> {
+			chunkIndexes.put(chunkIndex, Boolean.TRUE);
+			while (chunkReader.nextRecord()) {
+				assertEquals(chunkReader.getFieldCount(), 3);
+				rows.incrementAndGet();
+			}
+		});
+
+		assertEquals(rows.get(), 200L);
+		assertEquals(chunkIndexes.size(), reader.getChunkCount());
+	}
+
+	@Test
+	public void testStreamTabWithoutHeader() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			builder.append(i).append("\t\"value ").append(i).append('\n');
+		}
+		File file = writeFile(builder.toString());
+
+		ParallelExportFileReader reader = new ParallelExportFileReader(file.getAbsolutePath(), ExportFormat.TAB,
+				FileEncoding.UTF_8);
+		reader.setHasHeader(false);
+		reader.setChunkSize(50);
+
+		List<String[]> rows;
+		try (Stream<String[]> stream = reader.stream(true)) {
+			rows = stream.collect(Collectors.toList());
+		}
+
+		assertNull(reader.getHeader());
+		assertEquals(rows.size(), 100);
+		assertEquals(rows.get(42)[0], "42");
+		assertEquals(rows.get(42)[1], "\"value 42");
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		File file = writeFile("");
+
+		ParallelExportFileReader reader = new ParallelExportFileReader(file.getAbsolutePath(), ExportFormat.CSV,
+				FileEncoding.UTF_8);
+
+		try (Stream<String[]> stream = reader.stream(true)) {
+			assertEquals(stream.count(), 0L);
+		}
+		assertNull(reader.getHeader());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSetChunkSizeRejectsZero() {
+		ParallelExportFileReader reader = new ParallelExportFileReader("/tmp/file.csv", ExportFormat.CSV,
+				FileEncoding.UTF_8);
+		reader.setChunkSize(0);
+	}
+}
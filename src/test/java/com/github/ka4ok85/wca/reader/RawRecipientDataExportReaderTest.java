@@ -0,0 +1,137 @@
+package com.github.ka4ok85.wca.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.constants.ExportFormat;
+import com.github.ka4ok85.wca.constants.FileEncoding;
+import com.github.ka4ok85.wca.constants.RawRecipientDataEventType;
+import com.github.ka4ok85.wca.exceptions.EngageApiException;
+import com.github.ka4ok85.wca.options.RawRecipientDataExportOptions;
+
+public class RawRecipientDataExportReaderTest {
+
+	private String header = "Recipient Id,Recipient Type,Mailing Id,Report Id,Campaign Id,Email,Event Type,Event Timestamp,Body Type,Content Id,Click Name,URL,Conversion Action,Conversion Detail,Conversion Amount,Suppression Reason";
+
+	@Test
+	public void testNext() throws IOException {
+		String file = header + "\n"
+				+ "101,Normal,5,6,,a@test.com,Open,02/01/2018 12:23:34,HTML,,,,,,,\n"
+				+ "102,Normal,5,6,7,b@test.com,Click Through,2/3/2018 1:02:03,HTML,,\"Buy, now\",http://test.com,,,,\n";
+
+		RawRecipientDataExportReader reader = new RawRecipientDataExportReader(new StringReader(file),
+				new RawRecipientDataExportOptions());
+
+		RawRecipientDataEvent event = reader.next();
+		assertEquals(event.getRecipientId(), 101L);
+		assertEquals(event.getMailingId(), 5L);
+		assertEquals(event.getReportId(), 6L);
+		assertEquals(event.getCampaignId(), 0L);
+		assertEquals(event.getEventType(), RawRecipientDataEventType.OPEN);
+		assertEquals(event.getEventDateTime(), LocalDateTime.of(2018, 2, 1, 12, 23, 34));
+		assertEquals(event.getEmail(), "a@test.com");
+
+		RawRecipientDataEvent copy = event.copy();
+
+		event = reader.next();
+		assertEquals(event.getRecipientId(), 102L);
+		assertEquals(event.getCampaignId(), 7L);
+		assertEquals(event.getEventType(), RawRecipientDataEventType.CLICK_THROUGH);
+		assertEquals(event.getEventDateTime(), LocalDateTime.of(2018, 2, 3, 1, 2, 3));
+		assertEquals(event.getColumn("Click Name"), "Buy, now");
+		assertEquals(event.getColumn("Missing Column"), null);
+
+		assertEquals(copy.getRecipientId(), 101L);
+		assertNull(reader.next());
+		reader.close();
+	}
+
+	@Test
+	public void testNextHonorsExportFormatAndOptionalColumns() throws IOException {
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setExportFormat(ExportFormat.PIPE);
+		options.setReturnMailingName(true);
+		options.setColumns(Arrays.asList("Zip"));
+
+		String file = "101|Normal|5|6||a@test.com|Sent|12/31/2017 23:59:59|||||||||Mailing 5|90210\n";
+		RawRecipientDataExportReader reader = new RawRecipientDataExportReader(new StringReader(file), options);
+
+		assertEquals(reader.getColumns(), RawRecipientDataExportReader.getColumnNames(options));
+
+		RawRecipientDataEvent event = reader.next();
+		assertEquals(event.getRecipientId(), 101L);
+		assertEquals(event.getEventType(), RawRecipientDataEventType.SENT);
+		assertEquals(event.getEventTimestamp(), 1514764799L);
+		assertEquals(event.getColumn("Mailing Name"), "Mailing 5");
+		assertEquals(event.getColumn("zip"), "90210");
+		assertNull(reader.next());
+		reader.close();
+	}
+
+	@Test
+	public void testReadsFileInProvidedEncoding() throws IOException {
+		RawRecipientDataExportOptions options = new RawRecipientDataExportOptions();
+		options.setFileEncoding(FileEncoding.ISO_8859_1);
+
+		Path file = Files.createTempFile("rrde", ".csv");
+		String content = header + "\n101,Normal,5,6,,jürgen@test.com,Opt Out,01/01/1970 00:00:10,,,,,,,,\n";
+		Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+
+		RawRecipientDataExportReader reader = new RawRecipientDataExportReader(file.toString(), options);
+		List<String> emails = new ArrayList<String>();
+		long count = reader.forEach(event -> emails.add(event.getEmail()));
+		reader.close();
+
+		assertEquals(count, 1L);
+		assertEquals(emails, Arrays.asList("jürgen@test.com"));
+	}
+
+	@Test
+	public void testReadsDataFileOfDownloadedArchive() throws Exception {
+		Path archive = Paths.get(getClass().getResource("/reader/raw_recipient_data_export.zip").toURI());
+		assertTrue(RawRecipientDataExportReader.isArchive(archive));
+
+		try (RawRecipientDataExportReader reader = new RawRecipientDataExportReader(archive.toString(),
+				new RawRecipientDataExportOptions())) {
+			RawRecipientDataEvent event = reader.next();
+			assertEquals(event.getRecipientId(), 101L);
+			assertEquals(event.getEventType(), RawRecipientDataEventType.OPEN);
+			assertEquals(event.getEventDateTime(), LocalDateTime.of(2018, 2, 1, 12, 23, 34));
+
+			event = reader.next();
+			assertEquals(event.getRecipientId(), 102L);
+			assertEquals(event.getColumn("Click Name"), "Buy, now");
+			assertNull(reader.next());
+		}
+	}
+
+	@Test(expected = EngageApiException.class)
+	public void testNextRejectsBadRow() throws IOException {
+		String file = header + "\nabc,Normal,5,6,,a@test.com,Open,02/01/2018 12:23:34,,,,,,,,\n";
+		RawRecipientDataExportReader reader = new RawRecipientDataExportReader(new StringReader(file),
+				new RawRecipientDataExportOptions());
+		reader.next();
+		reader.close();
+	}
+
+	@Test(expected = EngageApiException.class)
+	public void testConstructorRequiresTypedColumns() throws IOException {
+		RawRecipientDataExportReader reader = new RawRecipientDataExportReader(
+				new StringReader("Recipient Id,Email\n1,a@test.com\n"), new RawRecipientDataExportOptions());
+		reader.close();
+	}
+}
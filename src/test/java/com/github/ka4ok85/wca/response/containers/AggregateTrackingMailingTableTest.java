@@ -0,0 +1,84 @@
+package com.github.ka4ok85.wca.response.containers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AggregateTrackingMailingTableTest {
+
+	private AggregateTrackingDataMailing createMailing(long mailingId) {
+		AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+		mailing.setMailingId(mailingId);
+		mailing.setReportId(mailingId * 10);
+		mailing.setMailingName("mailing " + mailingId);
+		mailing.setSentDateTime(LocalDateTime.of(2018, 6, 11, 12, 2, 43).plusDays(mailingId));
+		for (AggregateTrackingMailingMetric metric : AggregateTrackingMailingMetric.values()) {
+			metric.set(mailing, mailingId * 100 + metric.ordinal());
+		}
+
+		return mailing;
+	}
+
+	@Test
+	public void testRowsMatchSourceMailings() {
+		List<AggregateTrackingDataMailing> mailings = new ArrayList<AggregateTrackingDataMailing>();
+		for (long mailingId = 1; mailingId <= 40; mailingId++) {
+			mailings.add(createMailing(mailingId));
+		}
+
+		AggregateTrackingMailingTable table = new AggregateTrackingMailingTable(0);
+		for (AggregateTrackingDataMailing mailing : mailings) {
+			table.add(mailing);
+		}
+
+		table.trimToSize();
+		assertEquals(table.size(), 40);
+		assertEquals(table.getMailingId(4), 5L);
+		assertEquals(table.getReportId(4), 50L);
+		assertEquals(table.getMailingName(4), "mailing 5");
+		assertEquals(table.get(4, AggregateTrackingMailingMetric.NUM_UNSUBSCRIBES),
+				500L + AggregateTrackingMailingMetric.NUM_UNSUBSCRIBES.ordinal());
+		assertEquals(table.sum(AggregateTrackingMailingMetric.NUM_SENT), 82000L);
+
+		List<AggregateTrackingDataMailing> view = table.asList();
+		assertEquals(view.size(), 40);
+		for (int i = 0; i < mailings.size(); i++) {
+			assertEquals(view.get(i).toString(), mailings.get(i).toString());
+		}
+	}
+
+	@Test
+	public void testMissingValuesStayMissing() {
+		AggregateTrackingDataMailing mailing = new AggregateTrackingDataMailing();
+		mailing.setMailingId(7L);
+		mailing.setNumSent(0L);
+
+		AggregateTrackingMailingTable table = new AggregateTrackingMailingTable();
+		table.add(mailing);
+		table.addAll(AggregateTrackingMailingTable.of(Arrays.asList(createMailing(1L))));
+
+		assertEquals(table.size(), 2);
+		assertTrue(table.isPresent(0, AggregateTrackingMailingMetric.NUM_SENT));
+		assertFalse(table.isPresent(0, AggregateTrackingMailingMetric.NUM_SEEDS));
+		assertEquals(table.get(0, AggregateTrackingMailingMetric.NUM_SEEDS), 0L);
+		assertNull(table.getMailing(0).getNumSeeds());
+		assertNull(table.getMailing(0).getSentDateTime());
+		assertEquals(table.getMailing(0).getNumSent(), Long.valueOf(0L));
+		assertEquals(table.getMailingId(1), 1L);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testRowOutsideTableIsRejected() {
+		AggregateTrackingMailingTable table = new AggregateTrackingMailingTable();
+		table.add(createMailing(1L));
+		table.getMailingId(1);
+	}
+}
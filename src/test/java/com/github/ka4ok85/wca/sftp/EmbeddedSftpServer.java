@@ -0,0 +1,76 @@
+package com.github.ka4ok85.wca.sftp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.subsystem.sftp.SftpSubsystemFactory;
+
+/**
+ * Local stand-in for WCA transfer server. Accepts "oauth" user with provided
+ * Access Token as password and exposes "upload" and "download" directories
+ * under temporary root directory, which is deleted when server is closed.
+ */
+public class EmbeddedSftpServer implements AutoCloseable {
+	private static final String username = "oauth";
+
+	private final SshServer sshServer;
+	private final Path rootDirectory;
+
+	public EmbeddedSftpServer(String accessToken) throws IOException {
+		rootDirectory = Files.createTempDirectory("wca-sftp");
+		Files.createDirectories(rootDirectory.resolve("upload"));
+		Files.createDirectories(rootDirectory.resolve("download"));
+
+		SimpleGeneratorHostKeyProvider keyPairProvider = new SimpleGeneratorHostKeyProvider();
+		keyPairProvider.setAlgorithm(KeyUtils.RSA_ALGORITHM);
+
+		sshServer = SshServer.setUpDefaultServer();
+		sshServer.setHost("localhost");
+		sshServer.setPort(0);
+		sshServer.setKeyPairProvider(keyPairProvider);
+		sshServer.setPasswordAuthenticator(
+				(user, password, session) -> username.equals(user) && accessToken.equals(password));
+		sshServer.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+		sshServer.setFileSystemFactory(new VirtualFileSystemFactory(rootDirectory));
+		sshServer.start();
+	}
+
+	public String getHostName() {
+		return sshServer.getHost();
+	}
+
+	public int getPort() {
+		return sshServer.getPort();
+	}
+
+	public Path getUploadDirectory() {
+		return rootDirectory.resolve("upload");
+	}
+
+	public Path getDownloadDirectory() {
+		return rootDirectory.resolve("download");
+	}
+
+	public int getActiveSessionCount() {
+		return sshServer.getActiveSessions().size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			sshServer.stop(true);
+		} finally {
+			try (Stream<Path> paths = Files.walk(rootDirectory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.github.ka4ok85.wca.sftp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.ka4ok85.wca.exceptions.EngageSftpException;
+import com.github.ka4ok85.wca.oauth.OAuthClient;
+
+public class SFTPTest {
+	private static final String accessToken = "test access token";
+
+	private EmbeddedSftpServer server;
+
+	@Before
+	public void setUp() throws IOException {
+		server = new EmbeddedSftpServer(accessToken);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		server.close();
+	}
+
+	@Test
+	public void testGetHostNameDefaultsToPod() {
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		when(oAuthClient.getPodNumber()).thenReturn(3);
+		SFTP sftp = new SFTP(oAuthClient);
+
+		assertEquals(sftp.getHostName(), "transfer3.silverpop.com");
+		assertEquals(sftp.getPort(), 22);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testConstructorDoesNotAcceptEmptyHostName() {
+		new SFTP(mock(OAuthClient.class), " ", 22);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testConstructorDoesNotAcceptBadPort() {
+		new SFTP(mock(OAuthClient.class), "localhost", 0);
+	}
+
+	@Test
+	public void testUpload() throws IOException {
+		Path localFile = Files.createTempFile("wca-upload", ".csv");
+		Files.write(localFile, "EMAIL\ntest@test.com\n".getBytes(StandardCharsets.UTF_8));
+
+		SFTP sftp = new SFTP(getOAuthClient(accessToken), server.getHostName(), server.getPort());
+		sftp.upload(localFile.toString(), "source.csv");
+
+		assertEquals(new String(Files.readAllBytes(server.getUploadDirectory().resolve("source.csv")),
+				StandardCharsets.UTF_8), "EMAIL\ntest@test.com\n");
+	}
+
+	@Test
+	public void testOpenUploadStream() throws IOException {
+		SFTP sftp = new SFTP(getOAuthClient(accessToken), server.getHostName(), server.getPort());
+		try (OutputStream outputStream = sftp.openUploadStream("stream.csv")) {
+			outputStream.write("EMAIL\n".getBytes(StandardCharsets.UTF_8));
+			outputStream.write("test@test.com\n".getBytes(StandardCharsets.UTF_8));
+		}
+
+		assertEquals(new String(Files.readAllBytes(server.getUploadDirectory().resolve("stream.csv")),
+				StandardCharsets.UTF_8), "EMAIL\ntest@test.com\n");
+	}
+
+	@Test(expected = EngageSftpException.class)
+	public void testOpenUploadStreamRejectsBadAccessToken() {
+		SFTP sftp = new SFTP(getOAuthClient("bad token"), server.getHostName(), server.getPort());
+		sftp.openUploadStream("stream.csv");
+	}
+
+	@Test
+	public void testOpenUploadStreamDisconnectsWhenFileCanNotBeOpened() throws IOException, InterruptedException {
+		Files.delete(server.getUploadDirectory());
+
+		SFTP sftp = new SFTP(getOAuthClient(accessToken), server.getHostName(), server.getPort());
+		try {
+			sftp.openUploadStream("stream.csv");
+			fail("Missing upload directory must be reported");
+		} catch (EngageSftpException e) {
+		}
+
+		for (int i = 0; i < 50 && server.getActiveSessionCount() > 0; i++) {
+			Thread.sleep(100);
+		}
+		assertEquals(server.getActiveSessionCount(), 0);
+	}
+
+	@Test
+	public void testDeleteUploadedFile() throws IOException {
+		Files.write(server.getUploadDirectory().resolve("partial.csv"), "EMAIL\n".getBytes(StandardCharsets.UTF_8));
+
+		SFTP sftp = new SFTP(getOAuthClient(accessToken), server.getHostName(), server.getPort());
+		sftp.deleteUploadedFile("partial.csv");
+
+		assertFalse(Files.exists(server.getUploadDirectory().resolve("partial.csv")));
+	}
+
+	@Test
+	public void testDownload() throws IOException {
+		Files.write(server.getDownloadDirectory().resolve("export.csv"),
+				"EMAIL\ntest@test.com\n".getBytes(StandardCharsets.UTF_8));
+		Path localFile = Files.createTempFile("wca-download", ".csv");
+
+		SFTP sftp = new SFTP(getOAuthClient(accessToken), server.getHostName(), server.getPort());
+		sftp.download("export.csv", localFile.toString());
+
+		assertEquals(new String(Files.readAllBytes(localFile), StandardCharsets.UTF_8), "EMAIL\ntest@test.com\n");
+	}
+
+	@Test(expected = EngageSftpException.class)
+	public void testDownloadRejectsBadAccessToken() throws IOException {
+		Path localFile = Files.createTempFile("wca-download", ".csv");
+
+		SFTP sftp = new SFTP(getOAuthClient("bad token"), server.getHostName(), server.getPort());
+		sftp.download("export.csv", localFile.toString());
+	}
+
+	private OAuthClient getOAuthClient(String token) {
+		OAuthClient oAuthClient = mock(OAuthClient.class);
+		when(oAuthClient.getAccessToken()).thenReturn(token);
+
+		return oAuthClient;
+	}
+}
@@ -0,0 +1,119 @@
+package com.github.ka4ok85.wca.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.transform.Source;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlunit.builder.DiffBuilder;
+import org.xmlunit.builder.Input;
+import org.xmlunit.diff.Diff;
+
+import com.github.ka4ok85.wca.constants.ImportMapperAction;
+import com.github.ka4ok85.wca.constants.RelationalTableColumnType;
+import com.github.ka4ok85.wca.options.containers.RelationalTableColumn;
+
+public class TableImportMapperTest {
+	private String createXml = String.join(System.getProperty("line.separator"),
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>",
+			"<TABLE_IMPORT>",
+			"<TABLE_INFO>",
+				"<ACTION>CREATE</ACTION>",
+				"<TABLE_NAME>Purchases</TABLE_NAME>",
+				"<FILE_TYPE>0</FILE_TYPE>",
+				"<HASHEADERS>true</HASHEADERS>",
+			"</TABLE_INFO>",
+
+			"<COLUMNS>",
+			"<COLUMN>",
+				"<NAME><![CDATA[Order ID]]></NAME>",
+				"<TYPE>NUMERIC</TYPE>",
+				"<IS_REQUIRED>true</IS_REQUIRED>",
+				"<KEY_COLUMN>true</KEY_COLUMN>",
+			"</COLUMN>",
+			"<COLUMN>",
+				"<NAME><![CDATA[Status]]></NAME>",
+				"<TYPE>SELECTION</TYPE>",
+				"<IS_REQUIRED>false</IS_REQUIRED>",
+				"<KEY_COLUMN>false</KEY_COLUMN>",
+				"<DEFAULT_VALUE><![CDATA[New]]></DEFAULT_VALUE>",
+				"<SELECTION_VALUES>",
+					"<VALUE><![CDATA[New]]></VALUE>",
+					"<VALUE><![CDATA[Paid]]></VALUE>",
+				"</SELECTION_VALUES>",
+			"</COLUMN>",
+			"</COLUMNS>",
+
+			"<MAPPING>",
+			"<COLUMN>",
+				"<INDEX>1</INDEX>",
+				"<NAME><![CDATA[Order ID]]></NAME>",
+				"<INCLUDE>true</INCLUDE>",
+			"</COLUMN>",
+			"<COLUMN>",
+				"<INDEX>2</INDEX>",
+				"<NAME><![CDATA[Status]]></NAME>",
+				"<INCLUDE>true</INCLUDE>",
+			"</COLUMN>",
+			"</MAPPING>",
+			"</TABLE_IMPORT>");
+
+	@Test
+	public void testGenerateXMLStringForCreate() {
+		TableImportMapper mapper = new TableImportMapper(ImportMapperAction.CREATE);
+		mapper.setTableName("Purchases");
+		mapper.setColumns(getColumns());
+
+		Source test = Input.fromString(mapper.generateXMLString()).build();
+		Source control = Input.fromString(createXml).build();
+
+		Diff myDiff = DiffBuilder.compare(control).withTest(test).ignoreWhitespace().checkForSimilar().build();
+		Assert.assertFalse(myDiff.toString(), myDiff.hasDifferences());
+	}
+
+	@Test
+	public void testGenerateXMLStringForExistingTable() {
+		TableImportMapper mapper = new TableImportMapper(ImportMapperAction.ADD_AND_UPDATE);
+		mapper.setTableId(100L);
+		mapper.setColumns(getColumns());
+
+		String xml = mapper.generateXMLString();
+		Assert.assertTrue(xml.contains("<ACTION>ADD_AND_UPDATE</ACTION><TABLE_ID>100</TABLE_ID>"));
+		Assert.assertFalse(xml.contains("<COLUMNS>"));
+		Assert.assertTrue(xml.contains("<MAPPING>"));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testConstructorDoesNotAcceptOptOut() {
+		new TableImportMapper(ImportMapperAction.OPT_OUT);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testSetTableIdDoesNotAcceptCreate() {
+		TableImportMapper mapper = new TableImportMapper(ImportMapperAction.CREATE);
+		mapper.setTableId(100L);
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testGenerateXMLStringRequiresTable() {
+		new TableImportMapper(ImportMapperAction.CREATE).generateXMLString();
+	}
+
+	private List<RelationalTableColumn> getColumns() {
+		List<RelationalTableColumn> columns = new ArrayList<RelationalTableColumn>();
+		RelationalTableColumn orderId = new RelationalTableColumn("Order ID", RelationalTableColumnType.NUMERIC);
+		orderId.setIsRequired(true);
+		orderId.setIsKeyColumn(true);
+		columns.add(orderId);
+
+		RelationalTableColumn status = new RelationalTableColumn("Status", RelationalTableColumnType.SELECTION);
+		status.setDefaultValue("New");
+		status.setSelectionValues(Arrays.asList("New", "Paid"));
+		columns.add(status);
+
+		return columns;
+	}
+}